@@ -8,8 +8,10 @@
 #  Version 2.0 which accompanies this distribution and is available at
 #  http://www.apache.org/licenses/LICENSE-2.0.txt
  ##############################################################################
+import struct
+
 from shapely import wkb
-from shapely.geometry import LineString, MultiLineString, MultiPoint, MultiPolygon, Point, Polygon
+from shapely.geometry import GeometryCollection, LineString, LinearRing, MultiLineString, MultiPoint, MultiPolygon, Point, Polygon
 from shapely.geometry.base import BaseGeometry
 from pyspark.sql.types import UserDefinedType, StructField, BinaryType, StructType
 
@@ -69,7 +71,66 @@ def _serialize_to_wkb(data):
 def _deserialize_from_wkb(data):
     if data is None:
         return None
-    return wkb.loads(bytes(data))
+    data = bytes(data)
+    if len(data) > 0 and bytearray(data)[0] == _GEOMETRY_ENCODING_FORMAT:
+        # skip the format and the srid
+        return _read_geometry(data, 5)[0]
+    return wkb.loads(data)
+
+
+# see org.locationtech.geowave.analytic.spark.sparksql.util.GeometryEncoding
+_GEOMETRY_ENCODING_FORMAT = 0x20
+
+
+def _read_sequence(data, offset):
+    size, dimension = struct.unpack_from('<iB', data, offset)
+    offset += 5
+    if size > 1:
+        # skip the envelope
+        offset += 32
+    ordinates = struct.unpack_from('<%dd' % (size * dimension), data, offset)
+    offset += size * dimension * 8
+    coords = [tuple(ordinates[i:i + dimension]) for i in range(0, len(ordinates), dimension)]
+    return coords, offset
+
+
+def _read_geometry(data, offset):
+    geometry_type = struct.unpack_from('<B', data, offset)[0]
+    offset += 1
+    if geometry_type == 1:
+        coords, offset = _read_sequence(data, offset)
+        return (Point(coords[0]) if coords else Point()), offset
+    if geometry_type == 2:
+        coords, offset = _read_sequence(data, offset)
+        return LineString(coords), offset
+    if geometry_type == 3:
+        coords, offset = _read_sequence(data, offset)
+        return LinearRing(coords), offset
+    if geometry_type == 4:
+        num_rings = struct.unpack_from('<i', data, offset)[0]
+        offset += 4
+        rings = []
+        for _ in range(num_rings):
+            coords, offset = _read_sequence(data, offset)
+            rings.append(coords)
+        if not rings:
+            return Polygon(), offset
+        return Polygon(rings[0], rings[1:]), offset
+    num_geometries = struct.unpack_from('<i', data, offset)[0]
+    offset += 4
+    geometries = []
+    for _ in range(num_geometries):
+        geometry, offset = _read_geometry(data, offset)
+        geometries.append(geometry)
+    if geometry_type == 5:
+        return MultiPoint(geometries), offset
+    if geometry_type == 6:
+        return MultiLineString(geometries), offset
+    if geometry_type == 7:
+        return MultiPolygon([(p.exterior.coords, [r.coords for r in p.interiors]) for p in geometries]), offset
+    if geometry_type == 8:
+        return GeometryCollection(geometries), offset
+    raise ValueError('Unknown geometry type %d' % geometry_type)
 
 _deserialize_from_wkb.__safe_for_unpickling__ = True
 
@@ -17,6 +17,7 @@ import org.apache.spark.sql.SparkSession;
 import org.apache.spark.sql.types.StructType;
 import org.locationtech.geowave.adapter.vector.util.FeatureDataUtils;
 import org.locationtech.geowave.analytic.spark.GeoWaveRDD;
+import org.locationtech.geowave.analytic.spark.sparksql.datasource.GeoWaveDataSource;
 import org.locationtech.geowave.analytic.spark.sparksql.udf.GeomFunctionRegistry;
 import org.locationtech.geowave.analytic.spark.sparksql.util.SchemaConverter;
 import org.locationtech.geowave.core.index.ByteArray;
@@ -30,6 +31,8 @@ public class SimpleFeatureDataFrame
 	private static Logger LOGGER = LoggerFactory.getLogger(SimpleFeatureDataFrame.class);
 
 	private final SparkSession sparkSession;
+	private DataStorePluginOptions dataStore;
+	private String typeName;
 	private SimpleFeatureType featureType;
 	private StructType schema;
 	private JavaRDD<Row> rowRDD = null;
@@ -43,6 +46,8 @@ public class SimpleFeatureDataFrame
 	public boolean init(
 			final DataStorePluginOptions dataStore,
 			final String typeName ) {
+		this.dataStore = dataStore;
+		this.typeName = typeName;
 		featureType = FeatureDataUtils.getFeatureType(
 				dataStore,
 				typeName);
@@ -72,6 +77,24 @@ public class SimpleFeatureDataFrame
 		return rowRDD;
 	}
 
+	/**
+	 * Loads the data frame through the GeoWave data source, which pushes
+	 * filters and column selections down into the GeoWave query.
+	 *
+	 * @return the data frame
+	 */
+	public Dataset<Row> getDataFrame() {
+		if (dataFrame == null) {
+			dataFrame = sparkSession.read().format(
+					GeoWaveDataSource.class.getName()).options(
+					GeoWaveDataSource.getOptions(
+							dataStore,
+							typeName)).load();
+		}
+
+		return dataFrame;
+	}
+
 	public Dataset<Row> getDataFrame(
 			GeoWaveRDD pairRDD ) {
 		if (rowRDD == null) {
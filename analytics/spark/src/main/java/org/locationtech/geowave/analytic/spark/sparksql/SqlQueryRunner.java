@@ -418,7 +418,9 @@ public class SqlQueryRunner
 
 			LOGGER.debug(dataFrame.getSchema().json());
 
-			final Dataset<Row> dfTemp = dataFrame.getDataFrame(storeInfo.rdd);
+			// the view reads through the data source so that sql filters are
+			// pushed down into the GeoWave query, the rdd is kept for joins
+			final Dataset<Row> dfTemp = dataFrame.getDataFrame();
 			dfTemp.createOrReplaceTempView(storeInfo.viewName);
 		}
 	}
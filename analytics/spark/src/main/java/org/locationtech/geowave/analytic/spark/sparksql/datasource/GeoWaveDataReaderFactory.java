@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.analytic.spark.sparksql.datasource;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.Map.Entry;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.catalyst.expressions.GenericRowWithSchema;
+import org.apache.spark.sql.sources.v2.reader.DataReader;
+import org.apache.spark.sql.sources.v2.reader.DataReaderFactory;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructType;
+import org.locationtech.geowave.mapreduce.input.GeoWaveInputFormat;
+import org.locationtech.geowave.mapreduce.input.GeoWaveInputKey;
+import org.opengis.feature.simple.SimpleFeature;
+
+/**
+ * Reads the features of a single GeoWave input split as rows. The split and
+ * the GeoWave job configuration are carried in their Hadoop serialized form so
+ * that the factory can be sent to the executors.
+ */
+public class GeoWaveDataReaderFactory implements
+		DataReaderFactory<Row>
+{
+	private static final long serialVersionUID = 1L;
+
+	private final byte[] configuration;
+	private final String splitClassName;
+	private final byte[] split;
+	private final String[] locations;
+	private final StructType schema;
+	private final String[] attributeNames;
+
+	public GeoWaveDataReaderFactory(
+			final Configuration configuration,
+			final InputSplit split,
+			final StructType schema,
+			final String[] attributeNames )
+			throws IOException,
+			InterruptedException {
+		this.configuration = toBinary(configuration);
+		splitClassName = split.getClass().getName();
+		this.split = toBinary((Writable) split);
+		locations = split.getLocations();
+		this.schema = schema;
+		this.attributeNames = attributeNames;
+	}
+
+	@Override
+	public String[] preferredLocations() {
+		return locations == null ? new String[0] : locations;
+	}
+
+	@Override
+	public DataReader<Row> createDataReader() {
+		try {
+			final Configuration jobConf = new Configuration(
+					false);
+			jobConf.readFields(new DataInputStream(
+					new ByteArrayInputStream(
+							configuration)));
+			final Configuration conf = new Configuration();
+			for (final Entry<String, String> entry : jobConf) {
+				conf.set(
+						entry.getKey(),
+						entry.getValue());
+			}
+			final InputSplit inputSplit = (InputSplit) ReflectionUtils.newInstance(
+					conf.getClassByName(splitClassName),
+					conf);
+			((Writable) inputSplit).readFields(new DataInputStream(
+					new ByteArrayInputStream(
+							split)));
+			final TaskAttemptContext context = new TaskAttemptContextImpl(
+					conf,
+					new TaskAttemptID());
+			final RecordReader<GeoWaveInputKey, SimpleFeature> reader = new GeoWaveInputFormat<SimpleFeature>()
+					.createRecordReader(
+							inputSplit,
+							context);
+			reader.initialize(
+					inputSplit,
+					context);
+			return new GeoWaveDataReader(
+					reader,
+					schema,
+					attributeNames);
+		}
+		catch (IOException | InterruptedException | ClassNotFoundException e) {
+			throw new IllegalStateException(
+					"Unable to read GeoWave input split",
+					e);
+		}
+	}
+
+	private static byte[] toBinary(
+			final Writable writable )
+			throws IOException {
+		final DataOutputBuffer out = new DataOutputBuffer();
+		writable.write(out);
+		final byte[] binary = new byte[out.getLength()];
+		System.arraycopy(
+				out.getData(),
+				0,
+				binary,
+				0,
+				binary.length);
+		return binary;
+	}
+
+	private static class GeoWaveDataReader implements
+			DataReader<Row>
+	{
+		private final RecordReader<GeoWaveInputKey, SimpleFeature> reader;
+		private final StructType schema;
+		private final String[] attributeNames;
+
+		public GeoWaveDataReader(
+				final RecordReader<GeoWaveInputKey, SimpleFeature> reader,
+				final StructType schema,
+				final String[] attributeNames ) {
+			this.reader = reader;
+			this.schema = schema;
+			this.attributeNames = attributeNames;
+		}
+
+		@Override
+		public boolean next()
+				throws IOException {
+			try {
+				return reader.nextKeyValue();
+			}
+			catch (final InterruptedException e) {
+				throw new IOException(
+						e);
+			}
+		}
+
+		@Override
+		public Row get() {
+			final SimpleFeature feature;
+			try {
+				feature = reader.getCurrentValue();
+			}
+			catch (IOException | InterruptedException e) {
+				throw new IllegalStateException(
+						"Unable to read GeoWave feature",
+						e);
+			}
+			final Object[] fields = new Object[attributeNames.length];
+			for (int i = 0; i < attributeNames.length; i++) {
+				final Object value = feature.getAttribute(attributeNames[i]);
+				if ((value != null) && (schema.apply(
+						i).dataType() == DataTypes.TimestampType)) {
+					fields[i] = new Timestamp(
+							((Date) value).getTime());
+				}
+				else {
+					fields[i] = value;
+				}
+			}
+			return new GenericRowWithSchema(
+					fields,
+					schema);
+		}
+
+		@Override
+		public void close()
+				throws IOException {
+			reader.close();
+		}
+	}
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.analytic.spark.sparksql.datasource;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.spark.sql.sources.DataSourceRegister;
+import org.apache.spark.sql.sources.v2.DataSourceOptions;
+import org.apache.spark.sql.sources.v2.DataSourceV2;
+import org.apache.spark.sql.sources.v2.ReadSupport;
+import org.apache.spark.sql.sources.v2.reader.DataSourceReader;
+import org.locationtech.geowave.adapter.vector.util.FeatureDataUtils;
+import org.locationtech.geowave.core.store.cli.remote.options.DataStorePluginOptions;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+/**
+ * A Spark SQL data source that reads a GeoWave feature type. Unlike a data
+ * frame built from a GeoWave RDD, filters and column selections made on the
+ * data frame are pushed down into the GeoWave query so that only the matching
+ * index ranges and fields are read from the store.
+ *
+ * <pre>
+ * sparkSession.read().format("geowave").options(
+ * 		GeoWaveDataSource.getOptions(
+ * 				storeOptions,
+ * 				typeName)).load();
+ * </pre>
+ */
+public class GeoWaveDataSource implements
+		DataSourceV2,
+		ReadSupport,
+		DataSourceRegister
+{
+	public static final String SHORT_NAME = "geowave";
+	public static final String TYPE_NAME_OPTION = "typeName";
+	public static final String STORE_OPTIONS_OPTION = "storeOptions";
+	public static final String MIN_SPLITS_OPTION = "minSplits";
+	public static final String MAX_SPLITS_OPTION = "maxSplits";
+
+	private static final String ENCODING = "UTF-8";
+
+	@Override
+	public String shortName() {
+		return SHORT_NAME;
+	}
+
+	@Override
+	public DataSourceReader createReader(
+			final DataSourceOptions options ) {
+		final String typeName = options.get(
+				TYPE_NAME_OPTION).orElseThrow(
+				() -> new IllegalArgumentException(
+						"Option '" + TYPE_NAME_OPTION + "' is required"));
+		final DataStorePluginOptions storeOptions = new DataStorePluginOptions(
+				decodeStoreOptions(options.get(
+						STORE_OPTIONS_OPTION).orElseThrow(
+						() -> new IllegalArgumentException(
+								"Option '" + STORE_OPTIONS_OPTION + "' is required"))));
+		final SimpleFeatureType featureType = FeatureDataUtils.getFeatureType(
+				storeOptions,
+				typeName);
+		if (featureType == null) {
+			throw new IllegalArgumentException(
+					"Type '" + typeName + "' does not exist in the data store");
+		}
+		return new GeoWaveDataSourceReader(
+				storeOptions,
+				featureType,
+				options.getInt(
+						MIN_SPLITS_OPTION,
+						-1),
+				options.getInt(
+						MAX_SPLITS_OPTION,
+						-1));
+	}
+
+	/**
+	 * Data source options are case insensitive, so the (case sensitive) store
+	 * options are encoded into a single option value.
+	 *
+	 * @param storeOptions
+	 *            the data store to read from
+	 * @param typeName
+	 *            the feature type to read
+	 * @return the options to pass to the data frame reader
+	 */
+	public static Map<String, String> getOptions(
+			final DataStorePluginOptions storeOptions,
+			final String typeName ) {
+		final Map<String, String> options = new HashMap<>();
+		options.put(
+				TYPE_NAME_OPTION,
+				typeName);
+		options.put(
+				STORE_OPTIONS_OPTION,
+				encodeStoreOptions(storeOptions.getOptionsAsMap()));
+		return options;
+	}
+
+	protected static String encodeStoreOptions(
+			final Map<String, String> storeOptions ) {
+		final StringBuilder str = new StringBuilder();
+		try {
+			for (final Entry<String, String> entry : storeOptions.entrySet()) {
+				if (entry.getValue() == null) {
+					continue;
+				}
+				if (str.length() > 0) {
+					str.append('&');
+				}
+				str.append(
+						URLEncoder.encode(
+								entry.getKey(),
+								ENCODING)).append(
+						'=').append(
+						URLEncoder.encode(
+								entry.getValue(),
+								ENCODING));
+			}
+		}
+		catch (final UnsupportedEncodingException e) {
+			throw new IllegalStateException(
+					e);
+		}
+		return str.toString();
+	}
+
+	protected static Map<String, String> decodeStoreOptions(
+			final String encodedOptions ) {
+		final Map<String, String> storeOptions = new HashMap<>();
+		try {
+			for (final String pair : encodedOptions.split("&")) {
+				final int index = pair.indexOf('=');
+				if (index < 0) {
+					continue;
+				}
+				storeOptions.put(
+						URLDecoder.decode(
+								pair.substring(
+										0,
+										index),
+								ENCODING),
+						URLDecoder.decode(
+								pair.substring(index + 1),
+								ENCODING));
+			}
+		}
+		catch (final UnsupportedEncodingException e) {
+			throw new IllegalStateException(
+					e);
+		}
+		return storeOptions;
+	}
+}
@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.analytic.spark.sparksql.datasource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobID;
+import org.apache.hadoop.mapreduce.task.JobContextImpl;
+import org.apache.spark.SparkContext;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.catalyst.expressions.Expression;
+import org.apache.spark.sql.sources.v2.reader.DataReaderFactory;
+import org.apache.spark.sql.sources.v2.reader.DataSourceReader;
+import org.apache.spark.sql.sources.v2.reader.SupportsPushDownCatalystFilters;
+import org.apache.spark.sql.sources.v2.reader.SupportsPushDownRequiredColumns;
+import org.apache.spark.sql.types.StructType;
+import org.geotools.factory.CommonFactoryFinder;
+import org.locationtech.geowave.analytic.spark.sparksql.util.SchemaConverter;
+import org.locationtech.geowave.core.geotime.util.ExtractAttributesFilter;
+import org.locationtech.geowave.core.geotime.store.query.api.VectorQueryBuilder;
+import org.locationtech.geowave.core.store.api.Query;
+import org.locationtech.geowave.core.store.cli.remote.options.DataStorePluginOptions;
+import org.locationtech.geowave.mapreduce.input.GeoWaveInputFormat;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+import org.opengis.filter.Filter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Plans a GeoWave query from the filters and columns that Spark pushes down
+ * and creates one reader factory per GeoWave input split.
+ */
+public class GeoWaveDataSourceReader implements
+		DataSourceReader,
+		SupportsPushDownCatalystFilters,
+		SupportsPushDownRequiredColumns
+{
+	private static final Logger LOGGER = LoggerFactory.getLogger(GeoWaveDataSourceReader.class);
+
+	private final DataStorePluginOptions storeOptions;
+	private final SimpleFeatureType featureType;
+	private final int minSplits;
+	private final int maxSplits;
+	private final StructType fullSchema;
+	private final Map<String, String> columnToAttribute = new HashMap<>();
+	private final GeoWaveFilterConverter filterConverter;
+
+	private StructType requiredSchema;
+	private Expression[] pushedFilters = new Expression[0];
+	private final List<Filter> constraints = new ArrayList<>();
+
+	public GeoWaveDataSourceReader(
+			final DataStorePluginOptions storeOptions,
+			final SimpleFeatureType featureType,
+			final int minSplits,
+			final int maxSplits ) {
+		this.storeOptions = storeOptions;
+		this.featureType = featureType;
+		this.minSplits = minSplits;
+		this.maxSplits = maxSplits;
+		fullSchema = SchemaConverter.schemaFromFeatureType(featureType);
+		requiredSchema = fullSchema;
+		for (final AttributeDescriptor descriptor : featureType.getAttributeDescriptors()) {
+			columnToAttribute.put(
+					GeoWaveFilterConverter.getColumnName(descriptor),
+					descriptor.getLocalName());
+		}
+		filterConverter = new GeoWaveFilterConverter(
+				featureType);
+	}
+
+	@Override
+	public StructType readSchema() {
+		return requiredSchema;
+	}
+
+	@Override
+	public void pruneColumns(
+			final StructType requiredSchema ) {
+		this.requiredSchema = requiredSchema;
+	}
+
+	@Override
+	public Expression[] pushCatalystFilters(
+			final Expression[] filters ) {
+		final List<Expression> pushed = new ArrayList<>();
+		constraints.clear();
+		for (final Expression expression : filters) {
+			final Filter filter = filterConverter.convert(expression);
+			if (filter != null) {
+				pushed.add(expression);
+				constraints.add(filter);
+			}
+		}
+		pushedFilters = pushed.toArray(new Expression[pushed.size()]);
+		// the constraints may match more than the filters (e.g. spatial
+		// predicates only constrain on intersection), so spark still has to
+		// apply all of them
+		return filters;
+	}
+
+	@Override
+	public Expression[] pushedCatalystFilters() {
+		return pushedFilters;
+	}
+
+	@Override
+	public List<DataReaderFactory<Row>> createDataReaderFactories() {
+		final String[] attributeNames = new String[requiredSchema.size()];
+		for (int i = 0; i < attributeNames.length; i++) {
+			attributeNames[i] = columnToAttribute.get(requiredSchema.apply(
+					i).name());
+		}
+
+		final Configuration jobConf = new Configuration(
+				false);
+		GeoWaveInputFormat.setStoreOptions(
+				jobConf,
+				storeOptions);
+		GeoWaveInputFormat.setQuery(
+				jobConf,
+				createQuery(attributeNames),
+				storeOptions.createAdapterStore(),
+				storeOptions.createInternalAdapterStore(),
+				storeOptions.createIndexStore());
+
+		final SparkContext sc = SparkContext.getOrCreate();
+		if ((minSplits > -1) || (maxSplits > -1)) {
+			GeoWaveInputFormat.setMinimumSplitCount(
+					jobConf,
+					minSplits);
+			GeoWaveInputFormat.setMaximumSplitCount(
+					jobConf,
+					maxSplits);
+		}
+		else {
+			final int defaultSplitsSpark = sc.getConf().getInt(
+					"spark.default.parallelism",
+					-1);
+			if (defaultSplitsSpark != -1) {
+				GeoWaveInputFormat.setMinimumSplitCount(
+						jobConf,
+						defaultSplitsSpark);
+				GeoWaveInputFormat.setMaximumSplitCount(
+						jobConf,
+						defaultSplitsSpark);
+			}
+		}
+
+		// only the GeoWave settings are sent to the executors, they are
+		// applied on top of the executor's own hadoop configuration
+		final Configuration conf = new Configuration(
+				sc.hadoopConfiguration());
+		for (final Entry<String, String> entry : jobConf) {
+			conf.set(
+					entry.getKey(),
+					entry.getValue());
+		}
+		try {
+			final List<InputSplit> splits = new GeoWaveInputFormat<SimpleFeature>().getSplits(new JobContextImpl(
+					conf,
+					new JobID()));
+			final List<DataReaderFactory<Row>> factories = new ArrayList<>(
+					splits.size());
+			for (final InputSplit split : splits) {
+				factories.add(new GeoWaveDataReaderFactory(
+						jobConf,
+						split,
+						requiredSchema,
+						attributeNames));
+			}
+			LOGGER.debug(
+					"Planned {} GeoWave splits for '{}'",
+					factories.size(),
+					featureType.getTypeName());
+			return factories;
+		}
+		catch (IOException | InterruptedException e) {
+			throw new IllegalStateException(
+					"Unable to plan GeoWave splits",
+					e);
+		}
+	}
+
+	private Query<SimpleFeature> createQuery(
+			final String[] attributeNames ) {
+		final String typeName = featureType.getTypeName();
+		VectorQueryBuilder bldr = VectorQueryBuilder.newBuilder().addTypeName(
+				typeName);
+		final Set<String> subset = new LinkedHashSet<>(
+				Arrays.asList(attributeNames));
+		if (subset.isEmpty() && (featureType.getGeometryDescriptor() != null)) {
+			// a count only needs the rows, so read as little as possible
+			subset.add(featureType.getGeometryDescriptor().getLocalName());
+		}
+		if (!subset.isEmpty() && !storeOptions.getFactoryOptions().getStoreOptions().isServerSideLibraryEnabled()) {
+			// without the server side library the constraints are evaluated
+			// on the subset of the fields that is read
+			for (final Filter constraint : constraints) {
+				final Object attributes = constraint.accept(
+						new ExtractAttributesFilter(),
+						null);
+				if (attributes instanceof Collection) {
+					subset.addAll((Collection<String>) attributes);
+				}
+			}
+		}
+		if (!subset.isEmpty() && (subset.size() < fullSchema.size())) {
+			bldr = bldr.subsetFields(
+					typeName,
+					subset.toArray(new String[subset.size()]));
+		}
+		if (!constraints.isEmpty()) {
+			bldr = bldr.constraints(bldr.constraintsFactory().filterConstraints(
+					constraints.size() == 1 ? constraints.get(0) : CommonFactoryFinder.getFilterFactory2().and(
+							constraints)));
+		}
+		return bldr.build();
+	}
+}
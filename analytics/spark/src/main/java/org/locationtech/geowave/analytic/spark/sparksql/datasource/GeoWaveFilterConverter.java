@@ -0,0 +1,437 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.analytic.spark.sparksql.datasource;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.spark.sql.catalyst.expressions.And;
+import org.apache.spark.sql.catalyst.expressions.AttributeReference;
+import org.apache.spark.sql.catalyst.expressions.BinaryComparison;
+import org.apache.spark.sql.catalyst.expressions.EqualTo;
+import org.apache.spark.sql.catalyst.expressions.Expression;
+import org.apache.spark.sql.catalyst.expressions.GreaterThan;
+import org.apache.spark.sql.catalyst.expressions.GreaterThanOrEqual;
+import org.apache.spark.sql.catalyst.expressions.In;
+import org.apache.spark.sql.catalyst.expressions.LessThan;
+import org.apache.spark.sql.catalyst.expressions.LessThanOrEqual;
+import org.apache.spark.sql.catalyst.expressions.Or;
+import org.apache.spark.sql.catalyst.expressions.ScalaUDF;
+import org.apache.spark.sql.catalyst.expressions.StartsWith;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.unsafe.types.UTF8String;
+import org.geotools.factory.CommonFactoryFinder;
+import org.locationtech.geowave.analytic.spark.sparksql.udf.GeomFunction;
+import org.locationtech.geowave.analytic.spark.sparksql.udf.UDFRegistrySPI;
+import org.locationtech.geowave.analytic.spark.sparksql.udf.UDFRegistrySPI.UDFNameAndConstructor;
+import org.locationtech.geowave.analytic.spark.sparksql.udt.AbstractGeometryUDT;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+import org.opengis.feature.type.GeometryDescriptor;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import scala.collection.JavaConverters;
+
+/**
+ * Converts Spark catalyst predicates into an OGC filter that GeoWave can use
+ * to constrain its query. The converted filter only has to select a superset
+ * of the matching rows; Spark still evaluates the original predicates on the
+ * rows that are returned. This means that a conjunction can be partially
+ * converted, spatial UDFs are widened to an intersection with the query
+ * geometry (or for distance predicates with its envelope expanded by the
+ * distance), and time comparisons are widened to millisecond precision.
+ */
+public class GeoWaveFilterConverter
+{
+	private static final Logger LOGGER = LoggerFactory.getLogger(GeoWaveFilterConverter.class);
+
+	private static final FilterFactory2 FF = CommonFactoryFinder.getFilterFactory2();
+	private static final String GEOM_FROM_WKT = "GeomFromWKT";
+	private static final String GEOM_DISTANCE = "GeomDistance";
+	private static final String GEOM_DISJOINT = "GeomDisjoint";
+
+	private final Map<String, AttributeDescriptor> columnToAttribute = new HashMap<>();
+
+	public GeoWaveFilterConverter(
+			final SimpleFeatureType featureType ) {
+		for (final AttributeDescriptor descriptor : featureType.getAttributeDescriptors()) {
+			columnToAttribute.put(
+					getColumnName(descriptor),
+					descriptor);
+		}
+	}
+
+	/**
+	 * @param descriptor
+	 *            a feature attribute
+	 * @return the name of the data frame column for the attribute
+	 */
+	public static String getColumnName(
+			final AttributeDescriptor descriptor ) {
+		// this matches SchemaConverter.schemaFromFeatureType
+		return descriptor instanceof GeometryDescriptor ? "geom" : descriptor.getLocalName();
+	}
+
+	/**
+	 * @param expression
+	 *            a catalyst predicate
+	 * @return a filter that matches at least every feature matched by the
+	 *         predicate, or null if the predicate cannot be converted
+	 */
+	public Filter convert(
+			final Expression expression ) {
+		if (expression instanceof And) {
+			final Filter left = convert(((And) expression).left());
+			final Filter right = convert(((And) expression).right());
+			if (left == null) {
+				return right;
+			}
+			if (right == null) {
+				return left;
+			}
+			return FF.and(
+					left,
+					right);
+		}
+		if (expression instanceof Or) {
+			final Filter left = convert(((Or) expression).left());
+			final Filter right = convert(((Or) expression).right());
+			if ((left == null) || (right == null)) {
+				return null;
+			}
+			return FF.or(
+					left,
+					right);
+		}
+		if (expression instanceof ScalaUDF) {
+			return convertGeometryPredicate((ScalaUDF) expression);
+		}
+		if (expression instanceof BinaryComparison) {
+			return convertComparison((BinaryComparison) expression);
+		}
+		if (expression instanceof In) {
+			return convertIn((In) expression);
+		}
+		if (expression instanceof StartsWith) {
+			return convertStartsWith((StartsWith) expression);
+		}
+		return null;
+	}
+
+	private Filter convertGeometryPredicate(
+			final ScalaUDF udf ) {
+		if (!udf.udfName().isDefined() || GEOM_DISJOINT.equals(udf.udfName().get())) {
+			return null;
+		}
+		final UDFNameAndConstructor function = UDFRegistrySPI.findFunctionByName(udf.udfName().get());
+		if (function == null) {
+			return null;
+		}
+		final GeomFunction geomFunction = function.getPredicateConstructor().get();
+		return intersects(
+				udf,
+				geomFunction.getBufferAmount());
+	}
+
+	private Filter intersects(
+			final ScalaUDF udf,
+			final double bufferAmount ) {
+		final List<Expression> children = JavaConverters.seqAsJavaListConverter(
+				udf.children()).asJava();
+		if (children.size() != 2) {
+			return null;
+		}
+		String attribute = getGeometryAttribute(children.get(0));
+		Geometry geometry = toGeometry(children.get(1));
+		if ((attribute == null) || (geometry == null)) {
+			attribute = getGeometryAttribute(children.get(1));
+			geometry = toGeometry(children.get(0));
+		}
+		if ((attribute == null) || (geometry == null)) {
+			return null;
+		}
+		if (bufferAmount > 0) {
+			// a buffer is drawn inside the true circle around each vertex and
+			// would miss features near the radius, but every feature within
+			// the distance intersects the envelope expanded by it
+			final Envelope envelope = new Envelope(
+					geometry.getEnvelopeInternal());
+			envelope.expandBy(bufferAmount);
+			geometry = geometry.getFactory().toGeometry(
+					envelope);
+		}
+		return FF.intersects(
+				FF.property(attribute),
+				FF.literal(geometry));
+	}
+
+	private Filter convertComparison(
+			final BinaryComparison comparison ) {
+		// GeomDistance(geom, literal) < distance
+		if (isDistance(comparison.left())
+				&& ((comparison instanceof LessThan) || (comparison instanceof LessThanOrEqual))) {
+			return convertDistance(
+					(ScalaUDF) comparison.left(),
+					comparison.right());
+		}
+		if (isDistance(comparison.right())
+				&& ((comparison instanceof GreaterThan) || (comparison instanceof GreaterThanOrEqual))) {
+			return convertDistance(
+					(ScalaUDF) comparison.right(),
+					comparison.left());
+		}
+
+		boolean flipped = false;
+		AttributeDescriptor attribute = getAttribute(comparison.left());
+		Object value = toValue(comparison.right());
+		if ((attribute == null) || (value == null)) {
+			attribute = getAttribute(comparison.right());
+			value = toValue(comparison.left());
+			flipped = true;
+		}
+		if ((attribute == null) || (value == null)) {
+			return null;
+		}
+		if (comparison instanceof EqualTo) {
+			return equalTo(
+					attribute,
+					value);
+		}
+		final boolean lowerBound;
+		if ((comparison instanceof GreaterThan) || (comparison instanceof GreaterThanOrEqual)) {
+			lowerBound = !flipped;
+		}
+		else if ((comparison instanceof LessThan) || (comparison instanceof LessThanOrEqual)) {
+			lowerBound = flipped;
+		}
+		else {
+			return null;
+		}
+		if (isTemporal(attribute)) {
+			if (!(value instanceof Date)) {
+				return null;
+			}
+			// timestamps have microsecond precision, features have
+			// millisecond precision
+			final long millis = ((Date) value).getTime();
+			if (lowerBound) {
+				return FF.after(
+						FF.property(attribute.getLocalName()),
+						FF.literal(new Date(
+								millis - 1)));
+			}
+			return FF.before(
+					FF.property(attribute.getLocalName()),
+					FF.literal(new Date(
+							millis + 1)));
+		}
+		final boolean inclusive = (comparison instanceof GreaterThanOrEqual)
+				|| (comparison instanceof LessThanOrEqual);
+		if (lowerBound) {
+			return inclusive ? FF.greaterOrEqual(
+					FF.property(attribute.getLocalName()),
+					FF.literal(value)) : FF.greater(
+					FF.property(attribute.getLocalName()),
+					FF.literal(value));
+		}
+		return inclusive ? FF.lessOrEqual(
+				FF.property(attribute.getLocalName()),
+				FF.literal(value)) : FF.less(
+				FF.property(attribute.getLocalName()),
+				FF.literal(value));
+	}
+
+	private Filter convertDistance(
+			final ScalaUDF distance,
+			final Expression maxDistance ) {
+		final Object value = toValue(maxDistance);
+		if (!(value instanceof Number)) {
+			return null;
+		}
+		return intersects(
+				distance,
+				Math.max(
+						((Number) value).doubleValue(),
+						0));
+	}
+
+	private Filter convertIn(
+			final In in ) {
+		final AttributeDescriptor attribute = getAttribute(in.value());
+		if (attribute == null) {
+			return null;
+		}
+		final List<Filter> filters = new ArrayList<>();
+		for (final Expression expression : JavaConverters.seqAsJavaListConverter(
+				in.list()).asJava()) {
+			final Object value = toValue(expression);
+			if (value == null) {
+				return null;
+			}
+			final Filter filter = equalTo(
+					attribute,
+					value);
+			if (filter == null) {
+				return null;
+			}
+			filters.add(filter);
+		}
+		if (filters.isEmpty()) {
+			return null;
+		}
+		return filters.size() == 1 ? filters.get(0) : FF.or(filters);
+	}
+
+	private Filter convertStartsWith(
+			final StartsWith startsWith ) {
+		final AttributeDescriptor attribute = getAttribute(startsWith.left());
+		final Object value = toValue(startsWith.right());
+		if ((attribute == null) || !(value instanceof String)
+				|| !String.class.equals(attribute.getType().getBinding())) {
+			return null;
+		}
+		final StringBuilder pattern = new StringBuilder();
+		for (final char c : ((String) value).toCharArray()) {
+			if ((c == '*') || (c == '?') || (c == '\\')) {
+				pattern.append('\\');
+			}
+			pattern.append(c);
+		}
+		pattern.append('*');
+		return FF.like(
+				FF.property(attribute.getLocalName()),
+				pattern.toString(),
+				"*",
+				"?",
+				"\\");
+	}
+
+	private Filter equalTo(
+			final AttributeDescriptor attribute,
+			final Object value ) {
+		if (isTemporal(attribute)) {
+			if (!(value instanceof Date)) {
+				return null;
+			}
+			final long millis = ((Date) value).getTime();
+			return FF.and(
+					FF.after(
+							FF.property(attribute.getLocalName()),
+							FF.literal(new Date(
+									millis - 1))),
+					FF.before(
+							FF.property(attribute.getLocalName()),
+							FF.literal(new Date(
+									millis + 1))));
+		}
+		return FF.equals(
+				FF.property(attribute.getLocalName()),
+				FF.literal(value));
+	}
+
+	private static boolean isDistance(
+			final Expression expression ) {
+		return (expression instanceof ScalaUDF) && ((ScalaUDF) expression).udfName().isDefined()
+				&& GEOM_DISTANCE.equals(((ScalaUDF) expression).udfName().get());
+	}
+
+	private static boolean isTemporal(
+			final AttributeDescriptor attribute ) {
+		return Date.class.isAssignableFrom(attribute.getType().getBinding());
+	}
+
+	private AttributeDescriptor getAttribute(
+			final Expression expression ) {
+		if (expression instanceof AttributeReference) {
+			final AttributeDescriptor attribute = columnToAttribute.get(((AttributeReference) expression).name());
+			if ((attribute != null) && !(attribute instanceof GeometryDescriptor)) {
+				return attribute;
+			}
+		}
+		return null;
+	}
+
+	private String getGeometryAttribute(
+			final Expression expression ) {
+		if (expression instanceof AttributeReference) {
+			final AttributeDescriptor attribute = columnToAttribute.get(((AttributeReference) expression).name());
+			if (attribute instanceof GeometryDescriptor) {
+				return attribute.getLocalName();
+			}
+		}
+		return null;
+	}
+
+	private static Geometry toGeometry(
+			final Expression expression ) {
+		if ((expression instanceof ScalaUDF) && ((ScalaUDF) expression).udfName().isDefined()
+				&& GEOM_FROM_WKT.equals(((ScalaUDF) expression).udfName().get())
+				&& (expression.children().size() == 1)) {
+			final Object wkt = toValue(expression.children().head());
+			if (wkt instanceof String) {
+				try {
+					return new WKTReader().read((String) wkt);
+				}
+				catch (final ParseException e) {
+					LOGGER.warn(
+							"Unable to parse geometry '" + wkt + "'",
+							e);
+				}
+			}
+			return null;
+		}
+		if (expression.foldable() && (expression.dataType() instanceof AbstractGeometryUDT)) {
+			final Object datum = expression.eval(null);
+			if (datum != null) {
+				return ((AbstractGeometryUDT<?>) expression.dataType()).deserialize(datum);
+			}
+		}
+		return null;
+	}
+
+	private static Object toValue(
+			final Expression expression ) {
+		if (!expression.foldable()) {
+			return null;
+		}
+		final Object value = expression.eval(null);
+		if (value == null) {
+			return null;
+		}
+		if (value instanceof UTF8String) {
+			return value.toString();
+		}
+		if (DataTypes.TimestampType.equals(expression.dataType())) {
+			// catalyst timestamps are in microseconds
+			return new Date(
+					Math.floorDiv(
+							(Long) value,
+							1000L));
+		}
+		if ((value instanceof Number) && !DataTypes.DateType.equals(expression.dataType())) {
+			return value;
+		}
+		if (value instanceof Boolean) {
+			return value;
+		}
+		return null;
+	}
+}
@@ -44,6 +44,9 @@ public class GeomWithinDistance extends
 	public boolean apply(
 			Geometry geom1,
 			Geometry geom2 ) {
-		return geom1.distance(geom2) <= radius;
+		// unlike distance(), this rejects on the envelopes first
+		return geom1.isWithinDistance(
+				geom2,
+				radius);
 	}
 }
@@ -10,20 +10,27 @@
  ******************************************************************************/
 package org.locationtech.geowave.analytic.spark.sparksql.udt;
 
+import org.locationtech.geowave.analytic.spark.sparksql.util.GeometryEncoding;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.io.ParseException;
-import org.locationtech.jts.io.WKBReader;
-import org.locationtech.jts.io.WKBWriter;
 import org.apache.spark.sql.catalyst.InternalRow;
 import org.apache.spark.sql.catalyst.expressions.GenericInternalRow;
 import org.apache.spark.sql.types.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Created by jwileczek on 7/20/18.
+ *
+ * Geometries are stored using {@link GeometryEncoding} rather than WKB. The
+ * field keeps its name so that existing schemas still match, and WKB values
+ * (e.g. from PySpark) are still read.
  */
 public abstract class AbstractGeometryUDT<T extends Geometry> extends
 		UserDefinedType<T>
 {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AbstractGeometryUDT.class);
+
 	@Override
 	public DataType sqlType() {
 		return new StructType(
@@ -44,9 +51,9 @@ public abstract class AbstractGeometryUDT<T extends Geometry> extends
 	@Override
 	public InternalRow serialize(
 			T obj ) {
-		byte[] bytes = new WKBWriter().write(obj);
+		byte[] bytes = GeometryEncoding.encode(obj);
 		InternalRow returnRow = new GenericInternalRow(
-				bytes.length);
+				1);
 		returnRow.update(
 				0,
 				bytes);
@@ -60,10 +67,12 @@ public abstract class AbstractGeometryUDT<T extends Geometry> extends
 		InternalRow row = (InternalRow) datum;
 		byte[] bytes = row.getBinary(0);
 		try {
-			geom = (T) new WKBReader().read(bytes);
+			geom = (T) GeometryEncoding.decode(bytes);
 		}
 		catch (ParseException e) {
-			e.printStackTrace();
+			LOGGER.error(
+					"Unable to decode geometry",
+					e);
 		}
 		return geom;
 	}
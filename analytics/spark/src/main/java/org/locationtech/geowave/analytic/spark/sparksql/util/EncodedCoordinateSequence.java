@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.analytic.spark.sparksql.util;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * A coordinate sequence that reads its ordinates directly from the encoded
+ * geometry, so no coordinates are materialized when a geometry is decoded. The
+ * envelope is stored with the sequence, so envelope checks (which JTS does
+ * before any predicate or distance computation) never read the ordinates.
+ * The encoded geometry is never written, it may be the row of a Spark data
+ * frame. Once the coordinates are requested as an array, or the first ordinate
+ * is changed, they become the storage of the sequence, so changes made through
+ * either the coordinates or the sequence are seen by both.
+ */
+public class EncodedCoordinateSequence implements
+		CoordinateSequence,
+		Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private final byte[] data;
+	private final int offset;
+	private final int size;
+	private final int dimension;
+	private Envelope envelope;
+
+	private transient ByteBuffer buffer;
+	private Coordinate[] coordinates;
+
+	/**
+	 * @param data
+	 *            the encoded geometry
+	 * @param offset
+	 *            the offset of the first ordinate
+	 * @param size
+	 *            the number of coordinates
+	 * @param dimension
+	 *            2 or 3
+	 * @param envelope
+	 *            the envelope of the coordinates, or null to compute it when
+	 *            it is needed
+	 */
+	public EncodedCoordinateSequence(
+			final byte[] data,
+			final int offset,
+			final int size,
+			final int dimension,
+			final Envelope envelope ) {
+		this.data = data;
+		this.offset = offset;
+		this.size = size;
+		this.dimension = dimension;
+		this.envelope = envelope;
+	}
+
+	private ByteBuffer getBuffer() {
+		if (buffer == null) {
+			buffer = ByteBuffer.wrap(
+					data).order(
+					ByteOrder.LITTLE_ENDIAN);
+		}
+		return buffer;
+	}
+
+	private int getPosition(
+			final int index,
+			final int ordinateIndex ) {
+		return offset + (((index * dimension) + ordinateIndex) * 8);
+	}
+
+	@Override
+	public int getDimension() {
+		return dimension;
+	}
+
+	@Override
+	public Coordinate getCoordinate(
+			final int i ) {
+		if (coordinates != null) {
+			return coordinates[i];
+		}
+		return getCoordinateCopy(i);
+	}
+
+	@Override
+	public Coordinate getCoordinateCopy(
+			final int i ) {
+		final Coordinate coordinate = new Coordinate();
+		getCoordinate(
+				i,
+				coordinate);
+		return coordinate;
+	}
+
+	@Override
+	public void getCoordinate(
+			final int index,
+			final Coordinate coord ) {
+		coord.x = getX(index);
+		coord.y = getY(index);
+		coord.z = getOrdinate(
+				index,
+				Z);
+	}
+
+	@Override
+	public double getX(
+			final int index ) {
+		return getOrdinate(
+				index,
+				X);
+	}
+
+	@Override
+	public double getY(
+			final int index ) {
+		return getOrdinate(
+				index,
+				Y);
+	}
+
+	@Override
+	public double getOrdinate(
+			final int index,
+			final int ordinateIndex ) {
+		if (ordinateIndex >= dimension) {
+			return Double.NaN;
+		}
+		if (coordinates != null) {
+			return coordinates[index].getOrdinate(ordinateIndex);
+		}
+		return getBuffer().getDouble(
+				getPosition(
+						index,
+						ordinateIndex));
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void setOrdinate(
+			final int index,
+			final int ordinateIndex,
+			final double value ) {
+		if (ordinateIndex >= dimension) {
+			return;
+		}
+		// copy the ordinates on the first change rather than writing them
+		// into the encoded geometry
+		toCoordinateArray()[index].setOrdinate(
+				ordinateIndex,
+				value);
+		envelope = null;
+	}
+
+	@Override
+	public Coordinate[] toCoordinateArray() {
+		if (coordinates == null) {
+			final Coordinate[] coords = new Coordinate[size];
+			for (int i = 0; i < size; i++) {
+				coords[i] = getCoordinateCopy(i);
+			}
+			coordinates = coords;
+		}
+		return coordinates;
+	}
+
+	@Override
+	public Envelope expandEnvelope(
+			final Envelope env ) {
+		if (coordinates != null) {
+			// the coordinates may have been changed directly
+			for (final Coordinate coordinate : coordinates) {
+				env.expandToInclude(coordinate);
+			}
+			return env;
+		}
+		if (envelope == null) {
+			final Envelope computed = new Envelope();
+			for (int i = 0; i < size; i++) {
+				computed.expandToInclude(
+						getX(i),
+						getY(i));
+			}
+			envelope = computed;
+		}
+		env.expandToInclude(envelope);
+		return env;
+	}
+
+	@Override
+	public Object clone() {
+		return copy();
+	}
+
+	@Override
+	public EncodedCoordinateSequence copy() {
+		final int length = size * dimension * 8;
+		if (coordinates != null) {
+			final ByteBuffer copy = ByteBuffer.allocate(
+					length).order(
+					ByteOrder.LITTLE_ENDIAN);
+			for (int i = 0; i < size; i++) {
+				for (int d = 0; d < dimension; d++) {
+					copy.putDouble(coordinates[i].getOrdinate(d));
+				}
+			}
+			return new EncodedCoordinateSequence(
+					copy.array(),
+					0,
+					size,
+					dimension,
+					null);
+		}
+		return new EncodedCoordinateSequence(
+				Arrays.copyOfRange(
+						data,
+						offset,
+						offset + length),
+				0,
+				size,
+				dimension,
+				envelope == null ? null : new Envelope(
+						envelope));
+	}
+}
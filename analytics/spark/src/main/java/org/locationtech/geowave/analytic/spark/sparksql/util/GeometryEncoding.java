@@ -0,0 +1,332 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.analytic.spark.sparksql.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.MultiLineString;
+import org.locationtech.jts.geom.MultiPoint;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBReader;
+
+/**
+ * A compact binary geometry encoding used by the Spark SQL geometry types.
+ *
+ * <pre>
+ * geometry   := FORMAT srid(int) node
+ * node       := type(byte) body
+ * point      := sequence
+ * linestring := sequence
+ * polygon    := numRings(int) sequence*
+ * collection := numGeometries(int) node*
+ * sequence   := size(int) dimension(byte) [minX maxX minY maxY] ordinates
+ * </pre>
+ *
+ * All numbers are little endian and the envelope is only written for sequences
+ * of more than one coordinate. Decoding does not copy any ordinates, the
+ * decoded geometries read them from the encoded bytes (see
+ * {@link EncodedCoordinateSequence}). Binaries that do not start with
+ * {@link #FORMAT} are read as WKB, which is what earlier versions and PySpark
+ * write.
+ */
+public class GeometryEncoding
+{
+	/**
+	 * WKB starts with a byte order of 0 or 1
+	 */
+	public static final byte FORMAT = 0x20;
+
+	private static final byte POINT = 1;
+	private static final byte LINESTRING = 2;
+	private static final byte LINEARRING = 3;
+	private static final byte POLYGON = 4;
+	private static final byte MULTIPOINT = 5;
+	private static final byte MULTILINESTRING = 6;
+	private static final byte MULTIPOLYGON = 7;
+	private static final byte GEOMETRYCOLLECTION = 8;
+
+	private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+	private static final ThreadLocal<WKBReader> WKB_READER = ThreadLocal.withInitial(WKBReader::new);
+
+	public static byte[] encode(
+			final Geometry geometry ) {
+		final ByteBuffer buf = ByteBuffer.allocate(
+				5 + getLength(geometry)).order(
+				ByteOrder.LITTLE_ENDIAN);
+		buf.put(FORMAT);
+		buf.putInt(geometry.getSRID());
+		write(
+				geometry,
+				buf);
+		return buf.array();
+	}
+
+	public static Geometry decode(
+			final byte[] binary )
+			throws ParseException {
+		if ((binary.length == 0) || (binary[0] != FORMAT)) {
+			return WKB_READER.get().read(
+					binary);
+		}
+		final ByteBuffer buf = ByteBuffer.wrap(
+				binary).order(
+				ByteOrder.LITTLE_ENDIAN);
+		buf.position(1);
+		final int srid = buf.getInt();
+		final Geometry geometry = read(
+				binary,
+				buf);
+		geometry.setSRID(srid);
+		return geometry;
+	}
+
+	private static int getLength(
+			final Geometry geometry ) {
+		if (geometry instanceof Point) {
+			return 1 + getLength(((Point) geometry).getCoordinateSequence());
+		}
+		if (geometry instanceof LineString) {
+			return 1 + getLength(((LineString) geometry).getCoordinateSequence());
+		}
+		if (geometry instanceof Polygon) {
+			final Polygon polygon = (Polygon) geometry;
+			int length = 5;
+			if (!polygon.isEmpty()) {
+				length += getLength(polygon.getExteriorRing().getCoordinateSequence());
+				for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+					length += getLength(polygon.getInteriorRingN(
+							i).getCoordinateSequence());
+				}
+			}
+			return length;
+		}
+		int length = 5;
+		for (int i = 0; i < geometry.getNumGeometries(); i++) {
+			length += getLength(geometry.getGeometryN(i));
+		}
+		return length;
+	}
+
+	private static int getLength(
+			final CoordinateSequence sequence ) {
+		return 5 + (sequence.size() > 1 ? 32 : 0) + (sequence.size() * getDimension(sequence) * 8);
+	}
+
+	private static int getDimension(
+			final CoordinateSequence sequence ) {
+		if (sequence.getDimension() < 3) {
+			return 2;
+		}
+		for (int i = 0; i < sequence.size(); i++) {
+			if (!Double.isNaN(sequence.getOrdinate(
+					i,
+					CoordinateSequence.Z))) {
+				return 3;
+			}
+		}
+		return 2;
+	}
+
+	private static void write(
+			final Geometry geometry,
+			final ByteBuffer buf ) {
+		if (geometry instanceof Point) {
+			buf.put(POINT);
+			write(
+					((Point) geometry).getCoordinateSequence(),
+					buf);
+		}
+		else if (geometry instanceof LineString) {
+			buf.put(geometry instanceof LinearRing ? LINEARRING : LINESTRING);
+			write(
+					((LineString) geometry).getCoordinateSequence(),
+					buf);
+		}
+		else if (geometry instanceof Polygon) {
+			final Polygon polygon = (Polygon) geometry;
+			buf.put(POLYGON);
+			if (polygon.isEmpty()) {
+				buf.putInt(0);
+				return;
+			}
+			buf.putInt(1 + polygon.getNumInteriorRing());
+			write(
+					polygon.getExteriorRing().getCoordinateSequence(),
+					buf);
+			for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+				write(
+						polygon.getInteriorRingN(
+								i).getCoordinateSequence(),
+						buf);
+			}
+		}
+		else {
+			if (geometry instanceof MultiPoint) {
+				buf.put(MULTIPOINT);
+			}
+			else if (geometry instanceof MultiLineString) {
+				buf.put(MULTILINESTRING);
+			}
+			else if (geometry instanceof MultiPolygon) {
+				buf.put(MULTIPOLYGON);
+			}
+			else {
+				buf.put(GEOMETRYCOLLECTION);
+			}
+			buf.putInt(geometry.getNumGeometries());
+			for (int i = 0; i < geometry.getNumGeometries(); i++) {
+				write(
+						geometry.getGeometryN(i),
+						buf);
+			}
+		}
+	}
+
+	private static void write(
+			final CoordinateSequence sequence,
+			final ByteBuffer buf ) {
+		final int size = sequence.size();
+		final int dimension = getDimension(sequence);
+		buf.putInt(size);
+		buf.put((byte) dimension);
+		if (size > 1) {
+			final Envelope envelope = sequence.expandEnvelope(new Envelope());
+			buf.putDouble(envelope.getMinX());
+			buf.putDouble(envelope.getMaxX());
+			buf.putDouble(envelope.getMinY());
+			buf.putDouble(envelope.getMaxY());
+		}
+		for (int i = 0; i < size; i++) {
+			buf.putDouble(sequence.getX(i));
+			buf.putDouble(sequence.getY(i));
+			if (dimension > 2) {
+				buf.putDouble(sequence.getOrdinate(
+						i,
+						CoordinateSequence.Z));
+			}
+		}
+	}
+
+	private static Geometry read(
+			final byte[] binary,
+			final ByteBuffer buf )
+			throws ParseException {
+		final byte type = buf.get();
+		switch (type) {
+			case POINT:
+				return GEOMETRY_FACTORY.createPoint(readSequence(
+						binary,
+						buf));
+			case LINESTRING:
+				return GEOMETRY_FACTORY.createLineString(readSequence(
+						binary,
+						buf));
+			case LINEARRING:
+				return GEOMETRY_FACTORY.createLinearRing(readSequence(
+						binary,
+						buf));
+			case POLYGON: {
+				final int numRings = buf.getInt();
+				if (numRings == 0) {
+					return GEOMETRY_FACTORY.createPolygon();
+				}
+				final LinearRing shell = GEOMETRY_FACTORY.createLinearRing(readSequence(
+						binary,
+						buf));
+				final LinearRing[] holes = new LinearRing[numRings - 1];
+				for (int i = 0; i < holes.length; i++) {
+					holes[i] = GEOMETRY_FACTORY.createLinearRing(readSequence(
+							binary,
+							buf));
+				}
+				return GEOMETRY_FACTORY.createPolygon(
+						shell,
+						holes);
+			}
+			case MULTIPOINT: {
+				final Point[] points = new Point[buf.getInt()];
+				for (int i = 0; i < points.length; i++) {
+					points[i] = (Point) read(
+							binary,
+							buf);
+				}
+				return GEOMETRY_FACTORY.createMultiPoint(points);
+			}
+			case MULTILINESTRING: {
+				final LineString[] lines = new LineString[buf.getInt()];
+				for (int i = 0; i < lines.length; i++) {
+					lines[i] = (LineString) read(
+							binary,
+							buf);
+				}
+				return GEOMETRY_FACTORY.createMultiLineString(lines);
+			}
+			case MULTIPOLYGON: {
+				final Polygon[] polygons = new Polygon[buf.getInt()];
+				for (int i = 0; i < polygons.length; i++) {
+					polygons[i] = (Polygon) read(
+							binary,
+							buf);
+				}
+				return GEOMETRY_FACTORY.createMultiPolygon(polygons);
+			}
+			case GEOMETRYCOLLECTION: {
+				final Geometry[] geometries = new Geometry[buf.getInt()];
+				for (int i = 0; i < geometries.length; i++) {
+					geometries[i] = read(
+							binary,
+							buf);
+				}
+				return GEOMETRY_FACTORY.createGeometryCollection(geometries);
+			}
+			default:
+				throw new ParseException(
+						"Unknown geometry type " + type);
+		}
+	}
+
+	private static CoordinateSequence readSequence(
+			final byte[] binary,
+			final ByteBuffer buf ) {
+		final int size = buf.getInt();
+		final int dimension = buf.get();
+		Envelope envelope = null;
+		if (size > 1) {
+			final double minX = buf.getDouble();
+			final double maxX = buf.getDouble();
+			final double minY = buf.getDouble();
+			final double maxY = buf.getDouble();
+			envelope = new Envelope(
+					minX,
+					maxX,
+					minY,
+					maxY);
+		}
+		final int offset = buf.position();
+		buf.position(offset + (size * dimension * 8));
+		return new EncodedCoordinateSequence(
+				binary,
+				offset,
+				size,
+				dimension,
+				envelope);
+	}
+}
@@ -23,6 +23,16 @@ public class JoinOptions implements
 
 	private BuildSide joinBuildSide = BuildSide.LEFT;
 	private boolean negativePredicate = false;
+	// a tier comparison with an estimated size of no more bytes than this on
+	// one side broadcasts that side instead of shuffling both
+	private long broadcastThresholdBytes = 10L * 1024 * 1024;
+	// index cells with more indexed geometries than this are salted across
+	// several tasks
+	private long hotKeyThreshold = 10000;
+	// the fraction of the indexed geometries sampled to find hot cells
+	private double skewSampleFraction = 0.01;
+	// the number of indexed geometries to aim for in each join partition
+	private long targetPartitionSize = 250000;
 
 	public JoinOptions() {}
 
@@ -49,4 +59,40 @@ public class JoinOptions implements
 		this.joinBuildSide = joinBuildSide;
 	}
 
+	public long getBroadcastThresholdBytes() {
+		return broadcastThresholdBytes;
+	}
+
+	public void setBroadcastThresholdBytes(
+			long broadcastThresholdBytes ) {
+		this.broadcastThresholdBytes = broadcastThresholdBytes;
+	}
+
+	public long getHotKeyThreshold() {
+		return hotKeyThreshold;
+	}
+
+	public void setHotKeyThreshold(
+			long hotKeyThreshold ) {
+		this.hotKeyThreshold = hotKeyThreshold;
+	}
+
+	public double getSkewSampleFraction() {
+		return skewSampleFraction;
+	}
+
+	public void setSkewSampleFraction(
+			double skewSampleFraction ) {
+		this.skewSampleFraction = skewSampleFraction;
+	}
+
+	public long getTargetPartitionSize() {
+		return targetPartitionSize;
+	}
+
+	public void setTargetPartitionSize(
+			long targetPartitionSize ) {
+		this.targetPartitionSize = targetPartitionSize;
+	}
+
 }
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.analytic.spark.spatial;
+
+import org.apache.spark.api.java.JavaRDD;
+
+import scala.Tuple2;
+
+/**
+ * Metrics of one tier comparison of a tiered spatial join. The comparison
+ * counts are computed by a Spark action the first time one of them is
+ * requested, rather than with accumulators updated by the comparison itself,
+ * which would over count when tasks or stages are retried. Computing them
+ * compares the geometries again unless the join results are still cached.
+ */
+public class TierJoinMetrics
+{
+	private final String description;
+	private final long leftCount;
+	private final long rightCount;
+	private final long leftBytes;
+	private final long rightBytes;
+	private final int partitions;
+	private final boolean broadcast;
+	private final int hotKeys;
+	// the comparisons and matches of each group of geometries compared
+	// together
+	private final JavaRDD<Tuple2<Long, Long>> groups;
+	private long[] groupTotals = null;
+
+	public TierJoinMetrics(
+			final String description,
+			final long leftCount,
+			final long rightCount,
+			final long leftBytes,
+			final long rightBytes,
+			final int partitions,
+			final boolean broadcast,
+			final int hotKeys,
+			final JavaRDD<Tuple2<Long, Long>> groups ) {
+		this.description = description;
+		this.leftCount = leftCount;
+		this.rightCount = rightCount;
+		this.leftBytes = leftBytes;
+		this.rightBytes = rightBytes;
+		this.partitions = partitions;
+		this.broadcast = broadcast;
+		this.hotKeys = hotKeys;
+		this.groups = groups;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * @return the number of indexed geometries on the left side
+	 */
+	public long getLeftCount() {
+		return leftCount;
+	}
+
+	/**
+	 * @return the number of indexed geometries on the right side
+	 */
+	public long getRightCount() {
+		return rightCount;
+	}
+
+	/**
+	 * @return the estimated in-memory size of the left side
+	 */
+	public long getLeftBytes() {
+		return leftBytes;
+	}
+
+	/**
+	 * @return the estimated in-memory size of the right side
+	 */
+	public long getRightBytes() {
+		return rightBytes;
+	}
+
+	/**
+	 * @return the number of partitions the comparison was shuffled into, or 0
+	 *         if the smaller side was broadcast
+	 */
+	public int getPartitions() {
+		return partitions;
+	}
+
+	public boolean isBroadcast() {
+		return broadcast;
+	}
+
+	/**
+	 * @return the number of index cells that were salted because of their size
+	 */
+	public int getHotKeys() {
+		return hotKeys;
+	}
+
+	/**
+	 * @return the number of geometry pairs the predicate was applied to
+	 */
+	public long getComparisons() {
+		return getGroupTotals()[0];
+	}
+
+	/**
+	 * @return the number of geometry pairs that matched the predicate
+	 */
+	public long getMatches() {
+		return getGroupTotals()[1];
+	}
+
+	/**
+	 * @return the most geometry pairs compared within one (salted) index cell,
+	 *         which bounds the work of the slowest task
+	 */
+	public long getLargestGroup() {
+		return getGroupTotals()[2];
+	}
+
+	private synchronized long[] getGroupTotals() {
+		if (groupTotals == null) {
+			groupTotals = groups.aggregate(
+					new long[3],
+					TierJoinMetrics::addGroup,
+					TierJoinMetrics::mergeTotals);
+		}
+		return groupTotals;
+	}
+
+	private static long[] addGroup(
+			final long[] totals,
+			final Tuple2<Long, Long> group ) {
+		totals[0] += group._1;
+		totals[1] += group._2;
+		totals[2] = Math.max(
+				totals[2],
+				group._1);
+		return totals;
+	}
+
+	private static long[] mergeTotals(
+			final long[] totals1,
+			final long[] totals2 ) {
+		totals1[0] += totals2[0];
+		totals1[1] += totals2[1];
+		totals1[2] = Math.max(
+				totals1[2],
+				totals2[2]);
+		return totals1;
+	}
+
+	@Override
+	public String toString() {
+		return description + ": left=" + leftCount + " (" + leftBytes + " bytes), right=" + rightCount + " ("
+				+ rightBytes + " bytes), partitions=" + partitions + ", broadcast=" + broadcast + ", hotKeys="
+				+ hotKeys + ", comparisons=" + getComparisons() + ", matches=" + getMatches() + ", largestGroup="
+				+ getLargestGroup();
+	}
+}
@@ -10,7 +10,11 @@
  ******************************************************************************/
 package org.locationtech.geowave.analytic.spark.spatial;
 
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -66,10 +70,14 @@ public class TieredSpatialJoin extends
 {
 
 	private final static Logger LOGGER = LoggerFactory.getLogger(TieredSpatialJoin.class);
+	// the JVM overhead of an indexed geometry and of each of its coordinates
+	private final static long ENTRY_OVERHEAD_BYTES = 200;
+	private final static long COORDINATE_BYTES = 40;
 
 	// Combined matching pairs
 	private JavaPairRDD<GeoWaveInputKey, ByteArray> combinedResults = null;
 	private List<JavaPairRDD<GeoWaveInputKey, ByteArray>> tierMatches = Lists.newArrayList();
+	private final List<TierJoinMetrics> tierMetrics = Lists.newArrayList();
 
 	private double bufferDistance = 0.0;
 
@@ -169,28 +177,38 @@ public class TieredSpatialJoin extends
 			rightIndex = rightRDD.getIndexedGeometryRDD();
 		}
 		
+		// Measure the indexed geometries per tier, the sizes drive the
+		// partitioning and the broadcast and skew decisions below
+		JavaFutureAction<List<Tuple2<Byte, TierSize>>> leftFuture = measureTiers(leftIndex
+				.setName("LeftIndex"));
+		JavaFutureAction<List<Tuple2<Byte, TierSize>>> rightFuture = measureTiers(rightIndex
+				.setName("RightIndex"));
+
+		//Get the result of future
+		Map<Byte, TierSize> leftTierSizes = toMap(leftFuture.get());
+		Map<Byte, TierSize> rightTierSizes = toMap(rightFuture.get());
+		List<Byte> rightDataTiers = Lists.newArrayList(
+				rightTierSizes.keySet());
+		
+		long totalCount = 0;
+		for (TierSize size : leftTierSizes.values()) {
+			totalCount += size.count;
+		}
+		for (TierSize size : rightTierSizes.values()) {
+			totalCount += size.count;
+		}
 		int leftPartCount = leftIndex.getNumPartitions();
 		int rightPartCount = rightIndex.getNumPartitions();
 		int highestPartCount = (leftPartCount > rightPartCount) ? leftPartCount : rightPartCount;
-		int largePartitionerCount = (int) (1.5 * highestPartCount);
+		int largePartitionerCount = (int) Math.min(
+				Integer.MAX_VALUE,
+				Math.max(
+						(long) (1.5 * highestPartCount),
+						(totalCount / Math.max(
+								1,
+								joinOpts.getTargetPartitionSize())) + 1));
 		HashPartitioner partitioner = new HashPartitioner(largePartitionerCount);
-		
-		JavaFutureAction<List<Byte>> leftFuture = leftIndex
-				.setName("LeftIndex")
-				.keys()
-				.map(t -> t.getBytes()[0])
-				.distinct(4)
-				.collectAsync();
-		JavaFutureAction<List<Byte>> rightFuture = rightIndex
-				.setName("RightIndex")
-				.keys()
-				.map(t -> t.getBytes()[0])
-				.distinct(4)
-				.collectAsync();
-
-		//Get the result of future
-		List<Byte> rightDataTiers = Lists.newArrayList(
-				rightFuture.get());
+		tierMetrics.clear();
 		
 		//Sort tiers highest to lowest and collect information.
 		Byte[] rightTierArr = rightDataTiers.toArray(new Byte[0]);
@@ -198,7 +216,7 @@ public class TieredSpatialJoin extends
 		int rightTierCount = rightTierArr.length;
 	
 		List<Byte> leftDataTiers = Lists.newArrayList(
-				leftFuture.get());
+				leftTierSizes.keySet());
 		Byte[] leftTierArr =  leftDataTiers.toArray(new Byte[0]);
 		Arrays.sort(leftTierArr);
 		int leftTierCount = leftTierArr.length;
@@ -280,6 +298,9 @@ public class TieredSpatialJoin extends
 				JavaPairRDD<GeoWaveInputKey, ByteArray> finalMatches = this.joinAndCompareTiers(
 						leftTier,
 						rightTier,
+						leftTierSizes.get(leftTierId),
+						rightTierSizes.get(leftTierId),
+						"Tier " + leftTierId,
 						geomPredicate,
 						highestPartCount,
 						partitioner);
@@ -307,6 +328,9 @@ public class TieredSpatialJoin extends
 				JavaPairRDD<GeoWaveInputKey, ByteArray> finalMatches = this.joinAndCompareTiers(
 						leftTier,
 						reprojected,
+						leftTierSizes.get(leftTierId),
+						null,
+						"Tier " + leftTierId + " with higher right tiers",
 						geomPredicate,
 						highestPartCount,
 						partitioner);
@@ -350,6 +374,9 @@ public class TieredSpatialJoin extends
 			finalMatches = this.joinAndCompareTiers(
 					reprojected,
 					rightTier,
+					null,
+					rightTierSizes.get(rightTierId),
+					"Tier " + rightTierId + " with higher left tiers",
 					geomPredicate,
 					highestPartCount,
 					partitioner);
@@ -369,6 +396,11 @@ public class TieredSpatialJoin extends
 		// Wish there was a better way to force evaluation of rdd safely.
 		// isEmpty() triggers take(1) which shouldn't involve a shuffle.
 		this.combinedResults.isEmpty();
+		if (LOGGER.isDebugEnabled()) {
+			for (TierJoinMetrics metrics : tierMetrics) {
+				LOGGER.debug(metrics.toString());
+			}
+		}
 
 		// Join against original dataset to give final joined rdds on each side, and cache results so we don't recalculate
 		if(this.getJoinOptions().isNegativePredicate()) {
@@ -548,9 +580,62 @@ public class TieredSpatialJoin extends
 	private JavaPairRDD<GeoWaveInputKey, ByteArray> joinAndCompareTiers(
 			JavaPairRDD<ByteArray, Tuple2<GeoWaveInputKey, Geometry>> leftTier,
 			JavaPairRDD<ByteArray, Tuple2<GeoWaveInputKey, Geometry>> rightTier,
+			TierSize leftSize,
+			TierSize rightSize,
+			String description,
 			Broadcast<GeomFunction> geomPredicate,
 			int highestPartitionCount, 
 			HashPartitioner partitioner ) {
+		// Reprojected tiers are persisted so measuring them is not wasted work
+		if (leftSize == null) {
+			leftSize = measure(leftTier);
+		}
+		if (rightSize == null) {
+			rightSize = measure(rightTier);
+		}
+
+		// Broadcast the smaller side when it fits, this avoids shuffling the
+		// larger side and any skew in its cells
+		boolean broadcastLeft = leftSize.bytes <= rightSize.bytes;
+		if ((broadcastLeft ? leftSize.bytes : rightSize.bytes) <= joinOpts.getBroadcastThresholdBytes()) {
+			JavaRDD<ComparedGroup> compared = broadcastJoin(
+					broadcastLeft ? leftTier : rightTier,
+					broadcastLeft ? rightTier : leftTier,
+					broadcastLeft,
+					geomPredicate);
+			tierMetrics.add(createMetrics(
+					description,
+					leftSize,
+					rightSize,
+					0,
+					true,
+					0,
+					compared));
+			return toMatches(
+					compared,
+					partitioner);
+		}
+
+		// Salt the hot cells so that no single task has to compare all of
+		// their geometries
+		HashMap<ByteArray, HotKey> hotKeys = findHotKeys(
+				leftTier,
+				rightTier,
+				partitioner.numPartitions());
+		if (!hotKeys.isEmpty()) {
+			Broadcast<HashMap<ByteArray, HotKey>> hotKeysBroadcast = JavaSparkContext.fromSparkContext(
+					leftTier.context()).broadcast(
+					hotKeys);
+			leftTier = salt(
+					leftTier,
+					hotKeysBroadcast,
+					true);
+			rightTier = salt(
+					rightTier,
+					hotKeysBroadcast,
+					false);
+		}
+
 		// Cogroup groups on same tier ByteArrayId and pairs them into Iterable
 		// sets.
 		JavaPairRDD<ByteArray, Tuple2<Iterable<Tuple2<GeoWaveInputKey, Geometry>>, Iterable<Tuple2<GeoWaveInputKey, Geometry>>>> joinedTiers = leftTier
@@ -568,23 +653,351 @@ public class TieredSpatialJoin extends
 				t -> t._2._1.iterator().hasNext() && t._2._2.iterator().hasNext());
 
 		
-		JavaPairRDD<GeoWaveInputKey, ByteArray> finalMatches = joinedTiers.flatMapValues((Function<Tuple2<Iterable<Tuple2<GeoWaveInputKey, Geometry>>, Iterable<Tuple2<GeoWaveInputKey, Geometry>>>, Iterable<GeoWaveInputKey>>) t -> {
+		JavaRDD<ComparedGroup> compared = joinedTiers.map(t -> {
             GeomFunction predicate = geomPredicate.value();
 
             HashSet<GeoWaveInputKey> results = Sets.newHashSet();
-            for (Tuple2<GeoWaveInputKey, Geometry> leftTuple : t._1) {
-                for (Tuple2<GeoWaveInputKey, Geometry> rightTuple : t._2) {
+            long groupComparisons = 0;
+            long groupMatches = 0;
+            for (Tuple2<GeoWaveInputKey, Geometry> leftTuple : t._2._1) {
+                for (Tuple2<GeoWaveInputKey, Geometry> rightTuple : t._2._2) {
+                    groupComparisons++;
                     if (predicate.call(
                             leftTuple._2,
                             rightTuple._2)) {
+                        groupMatches++;
                         results.add(leftTuple._1);
                         results.add(rightTuple._1);
                     }
                 }
             }
-            return results;
-        }).mapToPair(Tuple2::swap).reduceByKey(partitioner,(id1, id2) -> id1).persist(StorageLevel.MEMORY_ONLY_SER());
-		
-		return finalMatches;
+            return new ComparedGroup(
+                    t._1,
+                    results,
+                    groupComparisons,
+                    groupMatches);
+        });
+		tierMetrics.add(createMetrics(
+				description,
+				leftSize,
+				rightSize,
+				partitioner.numPartitions(),
+				false,
+				hotKeys.size(),
+				compared));
+		return toMatches(
+				compared,
+				partitioner);
+	}
+
+	private static JavaPairRDD<GeoWaveInputKey, ByteArray> toMatches(
+			JavaRDD<ComparedGroup> compared,
+			HashPartitioner partitioner ) {
+		return compared.flatMapToPair(
+				(PairFlatMapFunction<ComparedGroup, GeoWaveInputKey, ByteArray>) group -> {
+					List<Tuple2<GeoWaveInputKey, ByteArray>> results = Lists.newArrayListWithCapacity(group.matched
+							.size());
+					for (GeoWaveInputKey key : group.matched) {
+						results.add(new Tuple2<>(
+								key,
+								group.cell));
+					}
+					return results.iterator();
+				}).reduceByKey(partitioner,(id1, id2) -> id1).persist(StorageLevel.MEMORY_ONLY_SER());
+	}
+
+	private static TierJoinMetrics createMetrics(
+			String description,
+			TierSize leftSize,
+			TierSize rightSize,
+			int partitions,
+			boolean broadcast,
+			int hotKeys,
+			JavaRDD<ComparedGroup> compared ) {
+		return new TierJoinMetrics(
+				description,
+				leftSize.count,
+				rightSize.count,
+				leftSize.bytes,
+				rightSize.bytes,
+				partitions,
+				broadcast,
+				hotKeys,
+				compared.map(group -> new Tuple2<>(
+						group.comparisons,
+						group.matches)));
+	}
+
+	private JavaRDD<ComparedGroup> broadcastJoin(
+			JavaPairRDD<ByteArray, Tuple2<GeoWaveInputKey, Geometry>> smallTier,
+			JavaPairRDD<ByteArray, Tuple2<GeoWaveInputKey, Geometry>> largeTier,
+			boolean smallIsLeft,
+			Broadcast<GeomFunction> geomPredicate ) {
+		HashMap<ByteArray, List<Tuple2<GeoWaveInputKey, Geometry>>> smallByCell = new HashMap<>();
+		for (Tuple2<ByteArray, Tuple2<GeoWaveInputKey, Geometry>> t : smallTier.collect()) {
+			smallByCell.computeIfAbsent(
+					t._1,
+					k -> new ArrayList<>()).add(
+					t._2);
+		}
+		Broadcast<HashMap<ByteArray, List<Tuple2<GeoWaveInputKey, Geometry>>>> smallBroadcast = JavaSparkContext
+				.fromSparkContext(
+						largeTier.context())
+				.broadcast(
+						smallByCell);
+		return largeTier.flatMap(
+				t -> {
+					List<Tuple2<GeoWaveInputKey, Geometry>> candidates = smallBroadcast.value().get(
+							t._1);
+					if (candidates == null) {
+						return Collections.<ComparedGroup> emptyIterator();
+					}
+					GeomFunction predicate = geomPredicate.value();
+					HashSet<GeoWaveInputKey> results = Sets.newHashSet();
+					long groupMatches = 0;
+					for (Tuple2<GeoWaveInputKey, Geometry> candidate : candidates) {
+						boolean match = smallIsLeft ? predicate.call(
+								candidate._2,
+								t._2._2) : predicate.call(
+								t._2._2,
+								candidate._2);
+						if (match) {
+							groupMatches++;
+							results.add(candidate._1);
+							results.add(t._2._1);
+						}
+					}
+					return Collections.singletonList(
+							new ComparedGroup(
+									t._1,
+									results,
+									candidates.size(),
+									groupMatches)).iterator();
+				});
+	}
+
+	private HashMap<ByteArray, HotKey> findHotKeys(
+			JavaPairRDD<ByteArray, Tuple2<GeoWaveInputKey, Geometry>> leftTier,
+			JavaPairRDD<ByteArray, Tuple2<GeoWaveInputKey, Geometry>> rightTier,
+			int maxSalts ) {
+		HashMap<ByteArray, HotKey> hotKeys = new HashMap<>();
+		double fraction = joinOpts.getSkewSampleFraction();
+		long threshold = joinOpts.getHotKeyThreshold();
+		if ((fraction <= 0) || (threshold <= 0) || (maxSalts < 2)) {
+			return hotKeys;
+		}
+		Map<ByteArray, Long> leftSampled = sampleHotKeys(
+				leftTier,
+				fraction,
+				threshold);
+		Map<ByteArray, Long> rightSampled = sampleHotKeys(
+				rightTier,
+				fraction,
+				threshold);
+		for (ByteArray key : Sets.union(
+				leftSampled.keySet(),
+				rightSampled.keySet())) {
+			long leftEstimate = (long) (leftSampled.getOrDefault(
+					key,
+					0L) / fraction);
+			long rightEstimate = (long) (rightSampled.getOrDefault(
+					key,
+					0L) / fraction);
+			// Split the larger side of the cell and replicate the other side
+			// to every split
+			long largerEstimate = Math.max(
+					leftEstimate,
+					rightEstimate);
+			int salts = (int) Math.min(
+					maxSalts,
+					(largerEstimate + threshold - 1) / threshold);
+			if (salts > 1) {
+				hotKeys.put(
+						key,
+						new HotKey(
+								salts,
+								leftEstimate >= rightEstimate));
+			}
+		}
+		return hotKeys;
+	}
+
+	private Map<ByteArray, Long> sampleHotKeys(
+			JavaPairRDD<ByteArray, Tuple2<GeoWaveInputKey, Geometry>> tier,
+			double fraction,
+			long threshold ) {
+		double minSampledCount = threshold * fraction;
+		return toMap(tier.sample(
+				false,
+				fraction).mapToPair(
+				t -> new Tuple2<ByteArray, Long>(
+						t._1,
+						1L)).reduceByKey(
+				Long::sum).filter(
+				t -> t._2 >= minSampledCount).collect());
+	}
+
+	private static JavaPairRDD<ByteArray, Tuple2<GeoWaveInputKey, Geometry>> salt(
+			JavaPairRDD<ByteArray, Tuple2<GeoWaveInputKey, Geometry>> tier,
+			Broadcast<HashMap<ByteArray, HotKey>> hotKeys,
+			boolean left ) {
+		return tier.flatMapToPair(
+				(PairFlatMapFunction<Tuple2<ByteArray, Tuple2<GeoWaveInputKey, Geometry>>, ByteArray, Tuple2<GeoWaveInputKey, Geometry>>) t -> {
+					HotKey hotKey = hotKeys.value().get(
+							t._1);
+					if (hotKey == null) {
+						return Collections.singletonList(
+								t).iterator();
+					}
+					if (hotKey.splitLeft == left) {
+						// The salt has to be deterministic so that recomputed
+						// partitions are consistent
+						return Collections.singletonList(
+								new Tuple2<>(
+										hotKey.salt(
+												t._1,
+												Math.floorMod(
+														t._2._1.hashCode(),
+														hotKey.salts)),
+										t._2)).iterator();
+					}
+					List<Tuple2<ByteArray, Tuple2<GeoWaveInputKey, Geometry>>> replicated = Lists
+							.newArrayListWithCapacity(hotKey.salts);
+					for (int salt = 0; salt < hotKey.salts; salt++) {
+						replicated.add(new Tuple2<>(
+								hotKey.salt(
+										t._1,
+										salt),
+								t._2));
+					}
+					return replicated.iterator();
+				});
+	}
+
+	private static JavaFutureAction<List<Tuple2<Byte, TierSize>>> measureTiers(
+			JavaPairRDD<ByteArray, Tuple2<GeoWaveInputKey, Geometry>> indexedRDD ) {
+		return indexedRDD.mapToPair(
+				t -> new Tuple2<Byte, TierSize>(
+						t._1().getBytes()[0],
+						new TierSize(
+								1,
+								estimateSize(t)))).reduceByKey(
+				TierSize::merge,
+				4).collectAsync();
+	}
+
+	private static TierSize measure(
+			JavaPairRDD<ByteArray, Tuple2<GeoWaveInputKey, Geometry>> tier ) {
+		return tier.aggregate(
+				new TierSize(
+						0,
+						0),
+				(size, t) -> size.merge(new TierSize(
+						1,
+						estimateSize(t))),
+				TierSize::merge);
+	}
+
+	/**
+	 * Estimates the memory used by an indexed geometry once it is collected
+	 * and broadcast, which is dominated by the coordinate objects
+	 */
+	private static long estimateSize(
+			Tuple2<ByteArray, Tuple2<GeoWaveInputKey, Geometry>> t ) {
+		ByteArray dataId = t._2._1.getDataId();
+		return ENTRY_OVERHEAD_BYTES + t._1.getBytes().length + (dataId == null ? 0 : dataId.getBytes().length)
+				+ (t._2._2 == null ? 0 : t._2._2.getNumPoints() * COORDINATE_BYTES);
+	}
+
+	private static <K, V> Map<K, V> toMap(
+			List<Tuple2<K, V>> entries ) {
+		Map<K, V> map = new HashMap<>();
+		for (Tuple2<K, V> entry : entries) {
+			map.put(
+					entry._1,
+					entry._2);
+		}
+		return map;
+	}
+
+	/**
+	 * @return the metrics of each tier comparison made by the last join
+	 */
+	public List<TierJoinMetrics> getTierMetrics() {
+		return tierMetrics;
+	}
+
+	private static class TierSize implements
+			Serializable
+	{
+		private static final long serialVersionUID = 1L;
+		private long count;
+		private long bytes;
+
+		public TierSize(
+				long count,
+				long bytes ) {
+			this.count = count;
+			this.bytes = bytes;
+		}
+
+		private TierSize merge(
+				TierSize other ) {
+			count += other.count;
+			bytes += other.bytes;
+			return this;
+		}
+	}
+
+	/**
+	 * The geometries of one comparison group that matched, with the
+	 * comparison counts for the tier metrics
+	 */
+	private static class ComparedGroup implements
+			Serializable
+	{
+		private static final long serialVersionUID = 1L;
+		private final ByteArray cell;
+		private final HashSet<GeoWaveInputKey> matched;
+		private final long comparisons;
+		private final long matches;
+
+		public ComparedGroup(
+				ByteArray cell,
+				HashSet<GeoWaveInputKey> matched,
+				long comparisons,
+				long matches ) {
+			this.cell = cell;
+			this.matched = matched;
+			this.comparisons = comparisons;
+			this.matches = matches;
+		}
+	}
+
+	private static class HotKey implements
+			Serializable
+	{
+		private static final long serialVersionUID = 1L;
+		private final int salts;
+		private final boolean splitLeft;
+
+		public HotKey(
+				int salts,
+				boolean splitLeft ) {
+			this.salts = salts;
+			this.splitLeft = splitLeft;
+		}
+
+		private ByteArray salt(
+				ByteArray key,
+				int salt ) {
+			// Salted keys are longer than the cell ids of the tier so they
+			// cannot collide with them
+			return new ByteArray(
+					ByteBuffer.allocate(
+							key.getBytes().length + 4).put(
+							key.getBytes()).putInt(
+							salt).array());
+		}
 	}
 }
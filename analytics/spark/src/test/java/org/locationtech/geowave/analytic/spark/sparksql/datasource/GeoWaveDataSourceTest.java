@@ -0,0 +1,385 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.analytic.spark.sparksql.datasource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.spark.SparkConf;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SparkSession;
+import org.apache.spark.sql.catalyst.expressions.Expression;
+import org.apache.spark.sql.catalyst.plans.logical.LogicalPlan;
+import org.apache.spark.sql.sources.v2.DataSourceOptions;
+import org.apache.spark.sql.sources.v2.reader.DataReader;
+import org.apache.spark.sql.sources.v2.reader.DataReaderFactory;
+import org.apache.spark.sql.types.StructType;
+import org.geotools.data.DataUtilities;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.locationtech.geowave.adapter.vector.FeatureDataAdapter;
+import org.locationtech.geowave.analytic.spark.GeoWaveSparkConf;
+import org.locationtech.geowave.analytic.spark.sparksql.SimpleFeatureMapper;
+import org.locationtech.geowave.analytic.spark.sparksql.udf.GeomFunctionRegistry;
+import org.locationtech.geowave.analytic.spark.sparksql.udf.GeomWithinDistance;
+import org.locationtech.geowave.analytic.spark.sparksql.util.SchemaConverter;
+import org.locationtech.geowave.core.geotime.ingest.SpatialDimensionalityTypeProvider;
+import org.locationtech.geowave.core.geotime.ingest.SpatialOptions;
+import org.locationtech.geowave.core.store.GeoWaveStoreFinder;
+import org.locationtech.geowave.core.store.StoreFactoryFamilySpi;
+import org.locationtech.geowave.core.store.StoreFactoryOptions;
+import org.locationtech.geowave.core.store.api.DataStore;
+import org.locationtech.geowave.core.store.api.Writer;
+import org.locationtech.geowave.core.store.cli.remote.options.DataStorePluginOptions;
+import org.locationtech.geowave.core.store.memory.MemoryStoreFactoryFamily;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.PropertyIsGreaterThan;
+import org.opengis.filter.PropertyIsLessThan;
+import org.opengis.filter.PropertyIsLessThanOrEqualTo;
+import org.opengis.filter.PropertyIsLike;
+import org.opengis.filter.spatial.Intersects;
+
+public class GeoWaveDataSourceTest
+{
+	private static final String TYPE_NAME = "GeoWaveDataSourceTest";
+	private static final int FEATURE_COUNT = 100;
+	private static final String AREA = "POLYGON ((-1 -1, 1 -1, 1 1, -1 1, -1 -1))";
+
+	private static SparkSession session;
+	private static SimpleFeatureType featureType;
+	private static DataStorePluginOptions storeOptions;
+	private static List<SimpleFeature> features;
+	private static Dataset<Row> geowaveFrame;
+	private static Dataset<Row> localFrame;
+
+	@BeforeClass
+	public static void setup()
+			throws Exception {
+		final StoreFactoryFamilySpi storeFamily = new MemoryStoreFactoryFamily();
+		GeoWaveStoreFinder.getRegisteredStoreFactoryFamilies().put(
+				"memory",
+				storeFamily);
+		final StoreFactoryOptions opts = storeFamily.getDataStoreFactory().createOptionsInstance();
+		opts.setGeowaveNamespace("test_" + GeoWaveDataSourceTest.class.getName());
+		storeOptions = new DataStorePluginOptions(
+				opts);
+
+		featureType = DataUtilities.createType(
+				TYPE_NAME,
+				"geometry:Point:srid=4326,name:String,count:Integer,when:Date");
+		features = new ArrayList<>();
+		final SimpleFeatureBuilder builder = new SimpleFeatureBuilder(
+				featureType);
+		final GeometryFactory factory = new GeometryFactory();
+		for (int i = 0; i < FEATURE_COUNT; i++) {
+			builder.set(
+					"geometry",
+					factory.createPoint(new Coordinate(
+							-5 + (i * 0.1),
+							-5 + (i * 0.1))));
+			builder.set(
+					"name",
+					((i % 2) == 0 ? "even" : "odd") + i);
+			builder.set(
+					"count",
+					i);
+			builder.set(
+					"when",
+					new Date(
+							i * 3600000L));
+			features.add(builder.buildFeature(Integer.toString(i)));
+		}
+		ingest();
+
+		session = GeoWaveSparkConf.createDefaultSession(new SparkConf().setMaster(
+				"local[2]").setAppName(
+				TYPE_NAME).set(
+				"spark.ui.enabled",
+				"false"));
+		GeomFunctionRegistry.registerGeometryFunctions(session);
+		geowaveFrame = session.read().format(
+				GeoWaveDataSource.class.getName()).options(
+				GeoWaveDataSource.getOptions(
+						storeOptions,
+						TYPE_NAME)).load();
+
+		// the same features without push-down to compare results with
+		final StructType schema = SchemaConverter.schemaFromFeatureType(featureType);
+		final SimpleFeatureMapper mapper = new SimpleFeatureMapper(
+				schema);
+		final List<Row> rows = new ArrayList<>();
+		for (final SimpleFeature feature : features) {
+			rows.add(mapper.call(feature));
+		}
+		localFrame = session.createDataFrame(
+				rows,
+				schema);
+	}
+
+	private static void ingest()
+			throws IOException {
+		final DataStore dataStore = storeOptions.createDataStore();
+		final FeatureDataAdapter adapter = new FeatureDataAdapter(
+				featureType);
+		dataStore.addType(
+				adapter,
+				new SpatialDimensionalityTypeProvider().createIndex(new SpatialOptions()));
+		try (Writer<SimpleFeature> writer = dataStore.createWriter(TYPE_NAME)) {
+			for (final SimpleFeature feature : features) {
+				writer.write(feature);
+			}
+		}
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		if (session != null) {
+			session.stop();
+		}
+	}
+
+	@Test
+	public void testConvertComparisons() {
+		assertTrue(assertExact("count > 89") instanceof PropertyIsGreaterThan);
+		assertTrue(assertExact("count <= 4") instanceof PropertyIsLessThanOrEqualTo);
+		// the attribute is on the right
+		assertTrue(assertExact("10 > count") instanceof PropertyIsLessThan);
+		assertExact("count = 42");
+		assertExact("count IN (1, 2, 3)");
+		assertExact("name = 'odd7'");
+		assertExact("count >= 10 AND count < 20");
+		assertExact("count < 5 OR count > 94");
+	}
+
+	@Test
+	public void testConvertStartsWith() {
+		// the optimizer rewrites a prefix LIKE into startsWith
+		assertTrue(assertExact("name LIKE 'even1%'") instanceof PropertyIsLike);
+	}
+
+	@Test
+	public void testConvertTimestamps() {
+		// timestamps are widened by a millisecond so only a superset is
+		// expected
+		assertSuperset("when >= CAST('1970-01-02 00:00:00' AS TIMESTAMP)");
+		assertSuperset("when < CAST('1970-01-01 12:00:00' AS TIMESTAMP)");
+		assertSuperset("when = CAST('1970-01-01 10:00:00' AS TIMESTAMP)");
+	}
+
+	@Test
+	public void testConvertGeometryPredicates() {
+		assertTrue(assertSuperset("GeomIntersects(geom, GeomFromWKT('" + AREA + "'))") instanceof Intersects);
+		assertSuperset("GeomWithin(geom, GeomFromWKT('" + AREA + "'))");
+		assertSuperset("GeomContains(GeomFromWKT('" + AREA + "'), geom)");
+		assertSuperset("GeomDistance(geom, GeomFromWKT('POINT (0 0)')) < 1");
+		assertSuperset("2 > GeomDistance(geom, GeomFromWKT('POINT (0 0)'))");
+	}
+
+	@Test
+	public void testConvertDistanceNearRadius() {
+		// inside the radius, but between two vertices of the radius' buffer
+		// polygon, so outside of the buffer
+		final double angle = Math.toRadians(90.0 / 16);
+		final SimpleFeature nearRadius = pointFeature(
+				0.999 * Math.cos(angle),
+				0.999 * Math.sin(angle));
+		assertTrue(convert(
+				"GeomDistance(geom, GeomFromWKT('POINT (0 0)')) < 1").evaluate(
+				nearRadius));
+		// the registered GeomWithinDistance has a radius of 0.01
+		final SimpleFeature nearWithinDistance = pointFeature(
+				0.00999 * Math.cos(angle),
+				0.00999 * Math.sin(angle));
+		assertTrue(convert(
+				"GeomWithinDistance(geom, GeomFromWKT('POINT (0 0)'))").evaluate(
+				nearWithinDistance));
+		assertTrue(new GeomWithinDistance().apply(
+				(Geometry) nearWithinDistance.getDefaultGeometry(),
+				new GeometryFactory().createPoint(new Coordinate(
+						0,
+						0))));
+	}
+
+	@Test
+	public void testUnconvertibleFilters() {
+		assertNull(convert("length(name) = 5"));
+		assertNull(convert("count + 1 > 5"));
+		assertNull(convert("GeomDisjoint(geom, GeomFromWKT('" + AREA + "'))"));
+		assertNull(convert("GeomDistance(geom, GeomFromWKT('POINT (0 0)')) > 1"));
+		// a disjunction can only be converted as a whole
+		assertNull(convert("count > 5 OR length(name) = 5"));
+		// a conjunction is converted as far as possible
+		final Filter filter = assertSuperset("count < 10 AND length(name) = 5");
+		assertEquals(
+				10,
+				countMatches(filter));
+	}
+
+	@Test
+	public void testReadPrunesColumnsAndFilters()
+			throws IOException {
+		final GeoWaveDataSourceReader reader = (GeoWaveDataSourceReader) new GeoWaveDataSource().createReader(new DataSourceOptions(
+				GeoWaveDataSource.getOptions(
+						storeOptions,
+						TYPE_NAME)));
+		reader.pruneColumns(new StructType().add(reader.readSchema().apply(
+				"name")));
+		final Expression[] filters = new Expression[] {
+			condition("count < 20"),
+			condition("length(name) = 5")
+		};
+		// every filter is returned for spark to evaluate again
+		assertEquals(
+				2,
+				reader.pushCatalystFilters(filters).length);
+		assertEquals(
+				1,
+				reader.pushedCatalystFilters().length);
+
+		int rows = 0;
+		for (final DataReaderFactory<Row> factory : reader.createDataReaderFactories()) {
+			try (DataReader<Row> dataReader = factory.createDataReader()) {
+				while (dataReader.next()) {
+					final Row row = dataReader.get();
+					assertEquals(
+							1,
+							row.size());
+					assertNotNull(row.getString(0));
+					rows++;
+				}
+			}
+		}
+		assertEquals(
+				20,
+				rows);
+	}
+
+	@Test
+	public void testQueryResults() {
+		final String[] predicates = new String[] {
+			"count < 20",
+			"GeomIntersects(geom, GeomFromWKT('" + AREA + "')) AND count > 45",
+			"GeomDistance(geom, GeomFromWKT('POINT (0 0)')) < 1 AND length(name) = 6",
+			"name LIKE 'odd%'"
+		};
+		for (final String predicate : predicates) {
+			final Dataset<Row> results = geowaveFrame.filter(
+					predicate).select(
+					"name");
+			assertEquals(
+					1,
+					results.schema().size());
+			assertEquals(
+					predicate,
+					localFrame.filter(
+							predicate).count(),
+					results.count());
+		}
+	}
+
+	/**
+	 * Checks that the converted filter matches exactly the features that the
+	 * predicate matches.
+	 */
+	private static Filter assertExact(
+			final String predicate ) {
+		final Filter filter = convert(predicate);
+		assertNotNull(
+				predicate,
+				filter);
+		assertEquals(
+				predicate,
+				localFrame.filter(
+						predicate).count(),
+				countMatches(filter));
+		return filter;
+	}
+
+	/**
+	 * Checks that the converted filter matches at least the features that the
+	 * predicate matches.
+	 */
+	private static Filter assertSuperset(
+			final String predicate ) {
+		final Filter filter = convert(predicate);
+		assertNotNull(
+				predicate,
+				filter);
+		final List<Row> expected = localFrame.filter(
+				predicate).select(
+				"count").collectAsList();
+		for (final Row row : expected) {
+			assertTrue(
+					predicate + " should match feature " + row.getInt(0),
+					filter.evaluate(features.get(row.getInt(0))));
+		}
+		return filter;
+	}
+
+	private static SimpleFeature pointFeature(
+			final double x,
+			final double y ) {
+		final SimpleFeatureBuilder builder = new SimpleFeatureBuilder(
+				featureType);
+		builder.set(
+				"geometry",
+				new GeometryFactory().createPoint(new Coordinate(
+						x,
+						y)));
+		return builder.buildFeature("nearRadius");
+	}
+
+	private static Filter convert(
+			final String predicate ) {
+		return new GeoWaveFilterConverter(
+				featureType).convert(condition(predicate));
+	}
+
+	private static int countMatches(
+			final Filter filter ) {
+		int count = 0;
+		for (final SimpleFeature feature : features) {
+			if (filter.evaluate(feature)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return the resolved and optimized catalyst predicate, as it is pushed
+	 *         to the data source
+	 */
+	private static Expression condition(
+			final String predicate ) {
+		LogicalPlan plan = geowaveFrame.filter(
+				predicate).queryExecution().optimizedPlan();
+		while (!(plan instanceof org.apache.spark.sql.catalyst.plans.logical.Filter)) {
+			plan = plan.children().head();
+		}
+		return ((org.apache.spark.sql.catalyst.plans.logical.Filter) plan).condition();
+	}
+}
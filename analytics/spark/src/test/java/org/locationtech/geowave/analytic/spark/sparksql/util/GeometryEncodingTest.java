@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.analytic.spark.sparksql.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.io.ByteOrderValues;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBWriter;
+import org.locationtech.jts.io.WKTReader;
+
+public class GeometryEncodingTest
+{
+	private static final double DELTA = 0.0;
+
+	@Test
+	public void testEmptyGeometries()
+			throws ParseException {
+		for (final String wkt : new String[] {
+			"POINT EMPTY",
+			"LINESTRING EMPTY",
+			"POLYGON EMPTY",
+			"MULTIPOINT EMPTY",
+			"MULTILINESTRING EMPTY",
+			"MULTIPOLYGON EMPTY",
+			"GEOMETRYCOLLECTION EMPTY"
+		}) {
+			final Geometry geometry = roundTrip(wkt);
+			assertTrue(
+					wkt,
+					geometry.isEmpty());
+			assertEquals(
+					wkt,
+					new WKTReader().read(
+							wkt).getGeometryType(),
+					geometry.getGeometryType());
+		}
+	}
+
+	@Test
+	public void testSimpleGeometries()
+			throws ParseException {
+		roundTrip("POINT (1.5 -2.25)");
+		roundTrip("LINESTRING (0 0, 1 1, 2 0)");
+		roundTrip("LINEARRING (0 0, 1 0, 1 1, 0 0)");
+	}
+
+	@Test
+	public void test3DCoordinates()
+			throws ParseException {
+		final Geometry line = roundTrip("LINESTRING (0 0 1, 1 1 2, 2 0 3)");
+		final Coordinate[] coordinates = line.getCoordinates();
+		for (int i = 0; i < coordinates.length; i++) {
+			assertEquals(
+					i + 1,
+					coordinates[i].z,
+					DELTA);
+		}
+		assertEquals(
+				3,
+				((LineString) line).getCoordinateSequence().getDimension());
+		assertEquals(
+				3,
+				roundTrip(
+						"POINT (1 2 3)").getCoordinate().z,
+				DELTA);
+
+		// 2D coordinates do not gain a Z ordinate
+		assertTrue(Double.isNaN(roundTrip(
+				"POINT (1 2)").getCoordinate().z));
+	}
+
+	@Test
+	public void testPolygonWithHoles()
+			throws ParseException {
+		final Polygon polygon = (Polygon) roundTrip("POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0), (1 1, 2 1, 2 2, 1 2, 1 1), (5 5, 6 5, 6 6, 5 6, 5 5))");
+		assertEquals(
+				2,
+				polygon.getNumInteriorRing());
+		assertEquals(
+				100 - 2,
+				polygon.getArea(),
+				DELTA);
+	}
+
+	@Test
+	public void testCollections()
+			throws ParseException {
+		roundTrip("MULTIPOINT ((0 0), (1 1))");
+		roundTrip("MULTILINESTRING ((0 0, 1 1), (2 2, 3 3, 4 2))");
+		roundTrip("MULTIPOLYGON (((0 0, 1 0, 1 1, 0 0)), ((5 5, 10 5, 10 10, 5 10, 5 5), (6 6, 7 6, 7 7, 6 6)))");
+		roundTrip("GEOMETRYCOLLECTION (POINT (1 2), LINESTRING (0 0, 1 1), POLYGON EMPTY, GEOMETRYCOLLECTION (POINT (3 4 5)))");
+	}
+
+	@Test
+	public void testSrid()
+			throws ParseException {
+		final Geometry geometry = new WKTReader().read("POINT (1 2)");
+		geometry.setSRID(4326);
+		assertEquals(
+				4326,
+				GeometryEncoding.decode(
+						GeometryEncoding.encode(geometry)).getSRID());
+	}
+
+	@Test
+	public void testWKBFallback()
+			throws ParseException {
+		for (final String wkt : new String[] {
+			"POINT (1 2)",
+			"LINESTRING (0 0 1, 1 1 2)",
+			"POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0), (1 1, 2 1, 2 2, 1 2, 1 1))",
+			"GEOMETRYCOLLECTION (POINT (1 2), LINESTRING (0 0, 1 1))"
+		}) {
+			final Geometry geometry = new WKTReader().read(wkt);
+			for (final int byteOrder : new int[] {
+				ByteOrderValues.BIG_ENDIAN,
+				ByteOrderValues.LITTLE_ENDIAN
+			}) {
+				final byte[] wkb = new WKBWriter(
+						3,
+						byteOrder).write(geometry);
+				assertTrue(
+						wkt,
+						geometry.equalsExact(GeometryEncoding.decode(wkb)));
+			}
+		}
+	}
+
+	@Test
+	public void testCoordinatesShareStorage()
+			throws ParseException {
+		final LineString line = (LineString) roundTrip("LINESTRING (0 0, 1 1, 2 0)");
+		final CoordinateSequence sequence = line.getCoordinateSequence();
+
+		sequence.setOrdinate(
+				0,
+				CoordinateSequence.X,
+				-1);
+		assertEquals(
+				-1,
+				sequence.getCoordinate(
+						0).x,
+				DELTA);
+		assertEquals(
+				-1,
+				sequence.expandEnvelope(
+						new Envelope()).getMinX(),
+				DELTA);
+
+		// once materialized the coordinates are the storage of the sequence
+		final Coordinate[] coordinates = sequence.toCoordinateArray();
+		assertEquals(
+				-1,
+				coordinates[0].x,
+				DELTA);
+		sequence.setOrdinate(
+				1,
+				CoordinateSequence.Y,
+				5);
+		assertEquals(
+				5,
+				coordinates[1].y,
+				DELTA);
+		assertEquals(
+				5,
+				sequence.getCoordinate(
+						1).y,
+				DELTA);
+		coordinates[2].x = 7;
+		assertEquals(
+				7,
+				sequence.getX(2),
+				DELTA);
+		assertEquals(
+				7,
+				sequence.expandEnvelope(
+						new Envelope()).getMaxX(),
+				DELTA);
+
+		final CoordinateSequence copy = sequence.copy();
+		assertEquals(
+				-1,
+				copy.getX(0),
+				DELTA);
+		assertEquals(
+				5,
+				copy.getY(1),
+				DELTA);
+		assertEquals(
+				7,
+				copy.getX(2),
+				DELTA);
+		// the copy is independent of the original
+		copy.setOrdinate(
+				0,
+				CoordinateSequence.X,
+				-2);
+		assertEquals(
+				-1,
+				sequence.getX(0),
+				DELTA);
+	}
+
+	@Test
+	public void testChangesDontWriteEncodedGeometry()
+			throws ParseException {
+		final byte[] encoded = GeometryEncoding.encode(new WKTReader().read("LINESTRING (0 0, 1 1, 2 0)"));
+		final byte[] original = encoded.clone();
+		final LineString line = (LineString) GeometryEncoding.decode(encoded);
+		line.getCoordinateSequence().setOrdinate(
+				0,
+				CoordinateSequence.X,
+				-1);
+		assertEquals(
+				-1,
+				line.getCoordinateN(
+						0).x,
+				DELTA);
+		assertArrayEquals(
+				original,
+				encoded);
+		// another geometry decoded from the same bytes is unchanged
+		assertEquals(
+				0,
+				((LineString) GeometryEncoding.decode(encoded)).getCoordinateN(
+						0).x,
+				DELTA);
+	}
+
+	private static Geometry roundTrip(
+			final String wkt )
+			throws ParseException {
+		final Geometry geometry = new WKTReader().read(wkt);
+		final Geometry decoded = GeometryEncoding.decode(GeometryEncoding.encode(geometry));
+		assertEquals(
+				wkt,
+				geometry.getClass(),
+				decoded.getClass());
+		assertTrue(
+				wkt,
+				geometry.equalsExact(decoded));
+		assertEquals(
+				wkt,
+				geometry.getEnvelopeInternal(),
+				decoded.getEnvelopeInternal());
+		return decoded;
+	}
+}
@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.analytic.spark.spatial;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.broadcast.Broadcast;
+import org.apache.spark.sql.SparkSession;
+import org.geotools.data.DataUtilities;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.locationtech.geowave.analytic.spark.GeoWaveIndexedRDD;
+import org.locationtech.geowave.analytic.spark.GeoWaveRDD;
+import org.locationtech.geowave.analytic.spark.GeoWaveSparkConf;
+import org.locationtech.geowave.analytic.spark.RDDUtils;
+import org.locationtech.geowave.analytic.spark.sparksql.udf.GeomFunction;
+import org.locationtech.geowave.analytic.spark.sparksql.udf.GeomIntersects;
+import org.locationtech.geowave.core.geotime.ingest.SpatialDimensionalityTypeProvider;
+import org.locationtech.geowave.core.geotime.ingest.SpatialOptions;
+import org.locationtech.geowave.core.index.ByteArray;
+import org.locationtech.geowave.core.index.NumericIndexStrategy;
+import org.locationtech.geowave.mapreduce.input.GeoWaveInputKey;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import scala.Tuple2;
+
+public class TieredSpatialJoinTest
+{
+	private static final short LEFT_ADAPTER = 1;
+	private static final short RIGHT_ADAPTER = 2;
+
+	private static SparkSession session;
+	private static List<SimpleFeature> boxes;
+	private static List<SimpleFeature> points;
+	private static Set<String> expectedLeft;
+	private static Set<String> expectedRight;
+
+	@BeforeClass
+	public static void setup()
+			throws Exception {
+		session = GeoWaveSparkConf.createDefaultSession(new SparkConf().setMaster(
+				"local[2]").setAppName(
+				"TieredSpatialJoinTest").set(
+				"spark.ui.enabled",
+				"false"));
+
+		final SimpleFeatureType boxType = DataUtilities.createType(
+				"boxes",
+				"geometry:Polygon:srid=4326");
+		final SimpleFeatureType pointType = DataUtilities.createType(
+				"points",
+				"geometry:Point:srid=4326");
+		final GeometryFactory factory = new GeometryFactory();
+		boxes = new ArrayList<>();
+		final SimpleFeatureBuilder boxBuilder = new SimpleFeatureBuilder(
+				boxType);
+		for (int i = 0; i < 30; i++) {
+			// boxes of different sizes so they land in different tiers
+			final double x = ((i * 7) % 20) - 10;
+			final double y = ((i * 3) % 20) - 10;
+			final double size = 0.25 * ((i % 4) + 1);
+			boxBuilder.set(
+					"geometry",
+					factory.toGeometry(new Envelope(
+							x,
+							x + size,
+							y,
+							y + size)));
+			boxes.add(boxBuilder.buildFeature("box" + i));
+		}
+		points = new ArrayList<>();
+		final SimpleFeatureBuilder pointBuilder = new SimpleFeatureBuilder(
+				pointType);
+		for (int i = 0; i < 400; i++) {
+			pointBuilder.set(
+					"geometry",
+					factory.createPoint(new Coordinate(
+							(i % 20) - 10 + 0.1,
+							(i / 20) - 10 + 0.1)));
+			points.add(pointBuilder.buildFeature("point" + i));
+		}
+		// most of the points fall into one cell to exercise salting
+		for (int i = 0; i < 100; i++) {
+			pointBuilder.set(
+					"geometry",
+					factory.createPoint(new Coordinate(
+							0.1 + (i * 0.001),
+							0.1)));
+			points.add(pointBuilder.buildFeature("hot" + i));
+		}
+		final SimpleFeatureBuilder hotBoxBuilder = new SimpleFeatureBuilder(
+				boxType);
+		hotBoxBuilder.set(
+				"geometry",
+				factory.toGeometry(new Envelope(
+						0,
+						0.2,
+						0,
+						0.2)));
+		boxes.add(hotBoxBuilder.buildFeature("hotBox"));
+
+		expectedLeft = new HashSet<>();
+		expectedRight = new HashSet<>();
+		for (final SimpleFeature box : boxes) {
+			for (final SimpleFeature point : points) {
+				if (new GeomIntersects().apply(
+						(Geometry) box.getDefaultGeometry(),
+						(Geometry) point.getDefaultGeometry())) {
+					expectedLeft.add(box.getID());
+					expectedRight.add(point.getID());
+				}
+			}
+		}
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		if (session != null) {
+			session.stop();
+		}
+	}
+
+	@Test
+	public void testBroadcastJoin()
+			throws Exception {
+		final JoinOptions options = new JoinOptions();
+		options.setBroadcastThresholdBytes(Long.MAX_VALUE);
+		final TieredSpatialJoin join = join(options);
+
+		assertFalse(join.getTierMetrics().isEmpty());
+		for (final TierJoinMetrics metrics : join.getTierMetrics()) {
+			assertTrue(
+					metrics.toString(),
+					metrics.isBroadcast());
+			assertTrue(metrics.getLeftBytes() > 0);
+			assertTrue(metrics.getRightBytes() > 0);
+		}
+		assertMetrics(join);
+	}
+
+	@Test
+	public void testTieredJoin()
+			throws Exception {
+		final JoinOptions options = new JoinOptions();
+		options.setBroadcastThresholdBytes(0);
+		options.setHotKeyThreshold(10);
+		options.setSkewSampleFraction(1.0);
+		final TieredSpatialJoin join = join(options);
+
+		assertFalse(join.getTierMetrics().isEmpty());
+		for (final TierJoinMetrics metrics : join.getTierMetrics()) {
+			assertFalse(
+					metrics.toString(),
+					metrics.isBroadcast());
+		}
+		assertMetrics(join);
+	}
+
+	private static TieredSpatialJoin join(
+			final JoinOptions options )
+			throws Exception {
+		final TieredSpatialJoin join = new TieredSpatialJoin();
+		join.setJoinOptions(options);
+		final GeomFunction predicate = new GeomIntersects();
+		join.join(
+				session,
+				index(
+						boxes,
+						LEFT_ADAPTER),
+				index(
+						points,
+						RIGHT_ADAPTER),
+				predicate);
+
+		assertEquals(
+				expectedLeft,
+				ids(join.getLeftResults()));
+		assertEquals(
+				expectedRight,
+				ids(join.getRightResults()));
+		return join;
+	}
+
+	private static void assertMetrics(
+			final TieredSpatialJoin join ) {
+		long matches = 0;
+		for (final TierJoinMetrics metrics : join.getTierMetrics()) {
+			assertTrue(metrics.getComparisons() >= metrics.getMatches());
+			assertTrue(metrics.getComparisons() >= metrics.getLargestGroup());
+			matches += metrics.getMatches();
+		}
+		// a pair can match in more than one cell but never in none
+		assertTrue(matches >= expectedRight.size());
+	}
+
+	private static GeoWaveIndexedRDD index(
+			final List<SimpleFeature> features,
+			final short adapterId ) {
+		final List<Tuple2<GeoWaveInputKey, SimpleFeature>> keyed = new ArrayList<>();
+		for (final SimpleFeature feature : features) {
+			keyed.add(new Tuple2<>(
+					new GeoWaveInputKey(
+							adapterId,
+							new ByteArray(
+									feature.getID())),
+					feature));
+		}
+		final JavaSparkContext sc = JavaSparkContext.fromSparkContext(session.sparkContext());
+		final NumericIndexStrategy strategy = new SpatialDimensionalityTypeProvider().createIndex(
+				new SpatialOptions()).getIndexStrategy();
+		return new GeoWaveIndexedRDD(
+				new GeoWaveRDD(
+						sc.parallelizePairs(keyed)),
+				(Broadcast<NumericIndexStrategy>) RDDUtils.broadcastIndexStrategy(
+						session.sparkContext(),
+						strategy));
+	}
+
+	private static Set<String> ids(
+			final GeoWaveRDD results ) {
+		final Set<String> ids = new HashSet<>();
+		for (final SimpleFeature feature : results.getRawRDD().values().collect()) {
+			ids.add(feature.getID());
+		}
+		return ids;
+	}
+}
@@ -37,8 +37,10 @@ import org.locationtech.geowave.core.geotime.store.query.aggregate.CommonIndexTi
 import org.locationtech.geowave.core.geotime.store.query.aggregate.FieldNameParam;
 import org.locationtech.geowave.core.geotime.store.query.aggregate.OptimalVectorBoundingBoxAggregation;
 import org.locationtech.geowave.core.geotime.store.query.aggregate.OptimalVectorTimeRangeAggregation;
+import org.locationtech.geowave.core.geotime.store.query.aggregate.TopKParam;
 import org.locationtech.geowave.core.geotime.store.query.aggregate.VectorBoundingBoxAggregation;
 import org.locationtech.geowave.core.geotime.store.query.aggregate.VectorTimeRangeAggregation;
+import org.locationtech.geowave.core.geotime.store.query.aggregate.VectorTopKAggregation;
 import org.locationtech.geowave.core.geotime.store.query.filter.SpatialQueryFilter;
 import org.locationtech.geowave.core.index.dimension.bin.BasicBinningStrategy;
 import org.locationtech.geowave.core.index.persist.PersistableRegistrySpi;
@@ -143,6 +145,12 @@ public class GeoTimePersistableRegistry implements
 			new PersistableIdAndConstructor(
 					(short) 330,
 					OptimalCQLQuery::new),
+			new PersistableIdAndConstructor(
+					(short) 331,
+					VectorTopKAggregation::new),
+			new PersistableIdAndConstructor(
+					(short) 332,
+					TopKParam::new),
 		};
 	}
 }
@@ -0,0 +1,152 @@
+package org.locationtech.geowave.core.geotime.store.query.aggregate;
+
+import java.nio.ByteBuffer;
+
+import org.locationtech.geowave.core.index.StringUtils;
+import org.locationtech.geowave.core.index.persist.Persistable;
+import org.locationtech.geowave.core.store.data.field.FieldUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The attribute to order features by, the number of features to keep and
+ * optionally the value and feature ID of the last feature of the previous page
+ * to continue after.
+ */
+public class TopKParam implements
+		Persistable
+{
+	private final static Logger LOGGER = LoggerFactory.getLogger(TopKParam.class);
+	private String fieldName;
+	private boolean ascending;
+	private int k;
+	private Object startAfterValue;
+	private String startAfterId;
+
+	public TopKParam() {
+		this(
+				null,
+				true,
+				0);
+	}
+
+	public TopKParam(
+			final String fieldName,
+			final boolean ascending,
+			final int k ) {
+		this(
+				fieldName,
+				ascending,
+				k,
+				null,
+				null);
+	}
+
+	/**
+	 * @param fieldName
+	 *            the attribute to order by
+	 * @param ascending
+	 *            false to keep the largest values
+	 * @param k
+	 *            the number of features to keep
+	 * @param startAfterValue
+	 *            the attribute value of the last feature of the previous page,
+	 *            or null to start with the first feature
+	 * @param startAfterId
+	 *            the feature ID of the last feature of the previous page
+	 */
+	public TopKParam(
+			final String fieldName,
+			final boolean ascending,
+			final int k,
+			final Object startAfterValue,
+			final String startAfterId ) {
+		this.fieldName = fieldName;
+		this.ascending = ascending;
+		this.k = k;
+		this.startAfterValue = startAfterValue;
+		this.startAfterId = startAfterId;
+	}
+
+	public String getFieldName() {
+		return fieldName;
+	}
+
+	public boolean isAscending() {
+		return ascending;
+	}
+
+	public int getK() {
+		return k;
+	}
+
+	public Object getStartAfterValue() {
+		return startAfterValue;
+	}
+
+	public String getStartAfterId() {
+		return startAfterId;
+	}
+
+	@Override
+	public byte[] toBinary() {
+		final byte[] fieldNameBytes = StringUtils.stringToBinary(fieldName);
+		byte[] valueClassBytes = new byte[0];
+		byte[] valueBytes = new byte[0];
+		byte[] idBytes = new byte[0];
+		if (startAfterValue != null) {
+			valueClassBytes = StringUtils.stringToBinary(startAfterValue.getClass().getName());
+			valueBytes = FieldUtils.getDefaultWriterForClass(
+					(Class<Object>) startAfterValue.getClass()).writeField(
+					startAfterValue);
+			if (startAfterId != null) {
+				idBytes = StringUtils.stringToBinary(startAfterId);
+			}
+		}
+		final ByteBuffer buf = ByteBuffer.allocate(21 + fieldNameBytes.length + valueClassBytes.length
+				+ valueBytes.length + idBytes.length);
+		buf.putInt(fieldNameBytes.length);
+		buf.put(fieldNameBytes);
+		buf.put((byte) (ascending ? 1 : 0));
+		buf.putInt(k);
+		buf.putInt(valueClassBytes.length);
+		buf.put(valueClassBytes);
+		buf.putInt(valueBytes.length);
+		buf.put(valueBytes);
+		buf.putInt(idBytes.length);
+		buf.put(idBytes);
+		return buf.array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+		final byte[] fieldNameBytes = new byte[buf.getInt()];
+		buf.get(fieldNameBytes);
+		fieldName = StringUtils.stringFromBinary(fieldNameBytes);
+		ascending = buf.get() > 0;
+		k = buf.getInt();
+		final byte[] valueClassBytes = new byte[buf.getInt()];
+		buf.get(valueClassBytes);
+		final byte[] valueBytes = new byte[buf.getInt()];
+		buf.get(valueBytes);
+		final byte[] idBytes = new byte[buf.getInt()];
+		buf.get(idBytes);
+		startAfterValue = null;
+		startAfterId = null;
+		if (valueClassBytes.length > 0) {
+			try {
+				startAfterValue = FieldUtils.getDefaultReaderForClass(
+						Class.forName(StringUtils.stringFromBinary(valueClassBytes))).readField(
+						valueBytes);
+				startAfterId = StringUtils.stringFromBinary(idBytes);
+			}
+			catch (final ClassNotFoundException e) {
+				LOGGER.error(
+						"Class not found for value to start after",
+						e);
+			}
+		}
+	}
+}
@@ -52,4 +52,20 @@ public class VectorAggregationQueryBuilderImpl<P extends Persistable, R> extends
 				typeName);
 		return this;
 	}
+
+	@Override
+	public VectorAggregationQueryBuilder<P, R> topKOfResults(
+			final String typeName,
+			final String attributeName,
+			final boolean ascending,
+			final int k ) {
+		options = new AggregateTypeQueryOptions(
+				new VectorTopKAggregation(
+						new TopKParam(
+								attributeName,
+								ascending,
+								k)),
+				typeName);
+		return this;
+	}
 }
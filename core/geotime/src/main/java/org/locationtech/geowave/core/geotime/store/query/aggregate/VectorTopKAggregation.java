@@ -0,0 +1,210 @@
+package org.locationtech.geowave.core.geotime.store.query.aggregate;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.locationtech.geowave.core.index.StringUtils;
+import org.locationtech.geowave.core.store.api.Aggregation;
+import org.locationtech.geowave.core.store.data.field.FieldReader;
+import org.locationtech.geowave.core.store.data.field.FieldUtils;
+import org.locationtech.geowave.core.store.data.field.FieldWriter;
+import org.opengis.feature.simple.SimpleFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the attribute values and feature IDs of the first K features in the
+ * order of an attribute, which is bounded so it can run on the server and only
+ * K entries per region are returned to the client. Features with a null value
+ * are left out, and features with the same value are ordered by feature ID so
+ * the next page can continue after the last entry of this one.
+ */
+public class VectorTopKAggregation implements
+		Aggregation<TopKParam, List<Pair<Object, String>>, SimpleFeature>
+{
+	private final static Logger LOGGER = LoggerFactory.getLogger(VectorTopKAggregation.class);
+	private TopKParam params;
+	private Comparator<Pair<Object, String>> comparator;
+	private TreeSet<Pair<Object, String>> topK;
+
+	public VectorTopKAggregation() {
+		this(
+				null);
+	}
+
+	public VectorTopKAggregation(
+			final TopKParam params ) {
+		super();
+		setParameters(params);
+	}
+
+	@Override
+	public TopKParam getParameters() {
+		return params;
+	}
+
+	@Override
+	public void setParameters(
+			final TopKParam params ) {
+		this.params = params;
+		comparator = getComparator(params);
+		topK = new TreeSet<>(
+				comparator);
+	}
+
+	private static Comparator<Pair<Object, String>> getComparator(
+			final TopKParam params ) {
+		final boolean ascending = (params == null) || params.isAscending();
+		return (
+				entry1,
+				entry2 ) -> {
+			final int valueComparison = ((Comparable<Object>) entry1.getLeft()).compareTo(entry2.getLeft());
+			if (valueComparison != 0) {
+				return ascending ? valueComparison : -valueComparison;
+			}
+			return entry1.getRight().compareTo(
+					entry2.getRight());
+		};
+	}
+
+	@Override
+	public byte[] toBinary() {
+		return new byte[0];
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {}
+
+	@Override
+	public List<Pair<Object, String>> getResult() {
+		return new ArrayList<>(
+				topK);
+	}
+
+	@Override
+	public List<Pair<Object, String>> merge(
+			final List<Pair<Object, String>> result1,
+			final List<Pair<Object, String>> result2 ) {
+		if (result1 == null) {
+			return result2;
+		}
+		else if (result2 == null) {
+			return result1;
+		}
+		final TreeSet<Pair<Object, String>> merged = new TreeSet<>(
+				comparator);
+		merged.addAll(result1);
+		merged.addAll(result2);
+		while (merged.size() > params.getK()) {
+			merged.pollLast();
+		}
+		return new ArrayList<>(
+				merged);
+	}
+
+	@Override
+	public byte[] resultToBinary(
+			final List<Pair<Object, String>> result ) {
+		if ((result == null) || result.isEmpty()) {
+			return new byte[0];
+		}
+		// all values are of the binding of the attribute
+		final Class<Object> valueClass = (Class<Object>) result.get(
+				0).getLeft().getClass();
+		final FieldWriter<?, Object> writer = FieldUtils.getDefaultWriterForClass(valueClass);
+		final byte[] valueClassBytes = StringUtils.stringToBinary(valueClass.getName());
+		final List<byte[]> entryBytes = new ArrayList<>();
+		int length = 8 + valueClassBytes.length;
+		for (final Pair<Object, String> entry : result) {
+			final byte[] valueBytes = writer.writeField(entry.getLeft());
+			final byte[] idBytes = StringUtils.stringToBinary(entry.getRight());
+			entryBytes.add(valueBytes);
+			entryBytes.add(idBytes);
+			length += 8 + valueBytes.length + idBytes.length;
+		}
+		final ByteBuffer buf = ByteBuffer.allocate(length);
+		buf.putInt(valueClassBytes.length);
+		buf.put(valueClassBytes);
+		buf.putInt(result.size());
+		for (final byte[] bytes : entryBytes) {
+			buf.putInt(bytes.length);
+			buf.put(bytes);
+		}
+		return buf.array();
+	}
+
+	@Override
+	public List<Pair<Object, String>> resultFromBinary(
+			final byte[] binary ) {
+		final List<Pair<Object, String>> result = new ArrayList<>();
+		if (binary.length == 0) {
+			return result;
+		}
+		final ByteBuffer buf = ByteBuffer.wrap(binary);
+		final byte[] valueClassBytes = new byte[buf.getInt()];
+		buf.get(valueClassBytes);
+		final FieldReader<?> reader;
+		try {
+			reader = FieldUtils.getDefaultReaderForClass(Class.forName(StringUtils.stringFromBinary(valueClassBytes)));
+		}
+		catch (final ClassNotFoundException e) {
+			LOGGER.error(
+					"Class not found for top K values",
+					e);
+			return result;
+		}
+		final int size = buf.getInt();
+		for (int i = 0; i < size; i++) {
+			final byte[] valueBytes = new byte[buf.getInt()];
+			buf.get(valueBytes);
+			final byte[] idBytes = new byte[buf.getInt()];
+			buf.get(idBytes);
+			result.add(new ImmutablePair<Object, String>(
+					reader.readField(valueBytes),
+					StringUtils.stringFromBinary(idBytes)));
+		}
+		return result;
+	}
+
+	@Override
+	public void clearResult() {
+		topK.clear();
+	}
+
+	@Override
+	public void aggregate(
+			final SimpleFeature entry ) {
+		if (params.getK() <= 0) {
+			return;
+		}
+		final Object value = entry.getAttribute(params.getFieldName());
+		if (value == null) {
+			return;
+		}
+		final Pair<Object, String> candidate = new ImmutablePair<>(
+				value,
+				entry.getID());
+		if ((params.getStartAfterValue() != null) && (comparator.compare(
+				candidate,
+				new ImmutablePair<Object, String>(
+						params.getStartAfterValue(),
+						params.getStartAfterId() == null ? "" : params.getStartAfterId())) <= 0)) {
+			return;
+		}
+		if ((topK.size() >= params.getK()) && (comparator.compare(
+				candidate,
+				topK.last()) >= 0)) {
+			return;
+		}
+		topK.add(candidate);
+		if (topK.size() > params.getK()) {
+			topK.pollLast();
+		}
+	}
+}
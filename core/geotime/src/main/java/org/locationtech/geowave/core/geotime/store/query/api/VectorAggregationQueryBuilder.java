@@ -91,4 +91,28 @@ public interface VectorAggregationQueryBuilder<P extends Persistable, R> extends
 	VectorAggregationQueryBuilder<P, R> timeRangeOfResultsForTimeField(
 			String typeName,
 			String timeAttributeName );
+
+	/**
+	 * convenience method for getting the attribute values and feature IDs of
+	 * the first K results of a query in the order of an attribute. Only K
+	 * entries are kept at a time so with server-side processing enabled the
+	 * order is computed on the servers. To get the following page use a
+	 * {@link org.locationtech.geowave.core.geotime.store.query.aggregate.TopKParam}
+	 * that starts after the last entry of this one.
+	 *
+	 * @param typeName
+	 *            the type name
+	 * @param attributeName
+	 *            the attribute to order by
+	 * @param ascending
+	 *            false to get the largest values
+	 * @param k
+	 *            the number of results
+	 * @return this builder
+	 */
+	VectorAggregationQueryBuilder<P, R> topKOfResults(
+			String typeName,
+			String attributeName,
+			boolean ascending,
+			int k );
 }
@@ -12,7 +12,18 @@ package org.locationtech.geowave.core.geotime.store.query.filter;
 
 import java.net.MalformedURLException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+import org.apache.commons.lang3.tuple.Pair;
+import org.geotools.data.DataUtilities;
+import org.geotools.feature.simple.SimpleFeatureImpl;
+import org.geotools.filter.identity.FeatureIdImpl;
 import org.geotools.filter.text.ecql.ECQL;
 import org.locationtech.geowave.core.geotime.store.GeotoolsFeatureDataAdapter;
 import org.locationtech.geowave.core.geotime.util.FilterToCQLTool;
@@ -21,12 +32,19 @@ import org.locationtech.geowave.core.index.StringUtils;
 import org.locationtech.geowave.core.index.persist.PersistenceUtils;
 import org.locationtech.geowave.core.store.adapter.AbstractAdapterPersistenceEncoding;
 import org.locationtech.geowave.core.store.adapter.IndexedAdapterPersistenceEncoding;
+import org.locationtech.geowave.core.store.data.DeferredReadCommonIndexedPersistenceEncoding;
 import org.locationtech.geowave.core.store.data.IndexedPersistenceEncoding;
 import org.locationtech.geowave.core.store.data.PersistentDataset;
+import org.locationtech.geowave.core.store.data.field.FieldReader;
+import org.locationtech.geowave.core.store.flatten.FlattenedFieldInfo;
+import org.locationtech.geowave.core.store.flatten.FlattenedUnreadData;
 import org.locationtech.geowave.core.store.index.CommonIndexModel;
 import org.locationtech.geowave.core.store.index.PrimaryIndex;
 import org.locationtech.geowave.core.store.query.filter.QueryFilter;
 import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.GeometryDescriptor;
+import org.opengis.filter.And;
 import org.opengis.filter.Filter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,8 +53,26 @@ public class CQLQueryFilter implements
 		QueryFilter
 {
 	private final static Logger LOGGER = LoggerFactory.getLogger(CQLQueryFilter.class);
+	// parsing ECQL is expensive and server side iterators receive the same
+	// filter for every range they are initialized with, the parsed filters
+	// are cached per thread because GeoTools filters are not guaranteed to be
+	// thread safe
+	private static final ThreadLocal<Map<String, Filter>> PARSED_FILTERS = ThreadLocal
+			.withInitial(() -> new LinkedHashMap<String, Filter>(
+					16,
+					0.75f,
+					true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(
+						final Map.Entry<String, Filter> eldest ) {
+					return size() > 100;
+				}
+			});
 	private GeotoolsFeatureDataAdapter adapter;
 	private Filter filter;
+	private transient volatile EvaluationPlan plan;
 
 	public CQLQueryFilter() {
 		super();
@@ -47,6 +83,7 @@ public class CQLQueryFilter implements
 			final GeotoolsFeatureDataAdapter adapter ) {
 		this.filter = FilterToCQLTool.fixDWithin(filter);
 		this.adapter = adapter;
+		plan = null;
 	}
 
 	public String getTypeName() {
@@ -58,48 +95,15 @@ public class CQLQueryFilter implements
 			final CommonIndexModel indexModel,
 			final IndexedPersistenceEncoding persistenceEncoding ) {
 		if ((filter != null) && (indexModel != null) && (adapter != null)) {
-			final PersistentDataset<Object> adapterExtendedValues = new PersistentDataset<>();
-			if (persistenceEncoding instanceof AbstractAdapterPersistenceEncoding) {
-				((AbstractAdapterPersistenceEncoding) persistenceEncoding).convertUnknownValues(
+			EvaluationPlan currentPlan = plan;
+			if ((currentPlan == null) || (currentPlan.indexModel != indexModel)) {
+				currentPlan = new EvaluationPlan(
+						filter,
 						adapter,
 						indexModel);
-				final PersistentDataset<Object> existingExtValues = ((AbstractAdapterPersistenceEncoding) persistenceEncoding)
-						.getAdapterExtendedData();
-				if (existingExtValues != null) {
-					adapterExtendedValues.addValues(existingExtValues.getValues());
-				}
-			}
-			final IndexedAdapterPersistenceEncoding encoding = new IndexedAdapterPersistenceEncoding(
-					persistenceEncoding.getInternalAdapterId(),
-					persistenceEncoding.getDataId(),
-					persistenceEncoding.getInsertionPartitionKey(),
-					persistenceEncoding.getInsertionSortKey(),
-					persistenceEncoding.getDuplicateCount(),
-					persistenceEncoding.getCommonData(),
-					new PersistentDataset<byte[]>(),
-					adapterExtendedValues);
-
-			final SimpleFeature feature = adapter.decode(
-					encoding,
-					new PrimaryIndex(
-							null, // because we know the feature data
-									// adapter doesn't use the numeric
-									// index
-									// strategy and only the common
-									// index
-									// model to decode the simple
-									// feature,
-									// we pass along a null strategy to
-									// eliminate the necessity to send a
-									// serialization of the strategy in
-									// the
-									// options of this iterator
-							indexModel));
-			if (feature == null) {
-				return false;
+				plan = currentPlan;
 			}
-			return filter.evaluate(feature);
-
+			return currentPlan.evaluate(persistenceEncoding);
 		}
 		return true;
 	}
@@ -147,13 +151,20 @@ public class CQLQueryFilter implements
 			final byte[] filterBytes = new byte[filterBytesLength];
 			buf.get(filterBytes);
 			final String cql = StringUtils.stringFromBinary(filterBytes);
-			try {
-				filter = ECQL.toFilter(cql);
-			}
-			catch (final Exception e) {
-				throw new IllegalArgumentException(
+			final Map<String, Filter> parsedFilters = PARSED_FILTERS.get();
+			filter = parsedFilters.get(cql);
+			if (filter == null) {
+				try {
+					filter = ECQL.toFilter(cql);
+				}
+				catch (final Exception e) {
+					throw new IllegalArgumentException(
+							cql,
+							e);
+				}
+				parsedFilters.put(
 						cql,
-						e);
+						filter);
 			}
 		}
 		else {
@@ -178,5 +189,259 @@ public class CQLQueryFilter implements
 			LOGGER.warn("Feature Data Adapter is empty bytes");
 			adapter = null;
 		}
+		plan = null;
+	}
+
+	/**
+	 * Evaluates the filter one conjunct at a time, cheapest first, and only
+	 * reads the attributes a conjunct references right before evaluating it.
+	 * Attributes derived from the common index fields (typically the geometry
+	 * and time) are only decoded when a conjunct needs them.
+	 */
+	private static class EvaluationPlan
+	{
+		private final GeotoolsFeatureDataAdapter adapter;
+		private final CommonIndexModel indexModel;
+		private final SimpleFeatureType featureType;
+		private final FieldReader<Object>[] readers;
+		private final int[] positionToAttribute;
+		private final Filter[] conjuncts;
+		// null means the conjunct could reference any attribute
+		private final int[][] conjunctAttributes;
+
+		@SuppressWarnings("unchecked")
+		private EvaluationPlan(
+				final Filter filter,
+				final GeotoolsFeatureDataAdapter adapter,
+				final CommonIndexModel indexModel ) {
+			this.adapter = adapter;
+			this.indexModel = indexModel;
+			featureType = adapter.getFeatureType();
+			final int attributeCount = featureType.getAttributeCount();
+			readers = new FieldReader[attributeCount];
+			int maxPosition = -1;
+			final int[] positions = new int[attributeCount];
+			for (int i = 0; i < attributeCount; i++) {
+				final String name = featureType.getDescriptor(
+						i).getLocalName();
+				readers[i] = adapter.getReader(name);
+				positions[i] = adapter.getPositionOfOrderedField(
+						indexModel,
+						name);
+				maxPosition = Math.max(
+						maxPosition,
+						positions[i]);
+			}
+			positionToAttribute = new int[maxPosition + 1];
+			Arrays.fill(
+					positionToAttribute,
+					-1);
+			for (int i = 0; i < attributeCount; i++) {
+				if (positions[i] >= 0) {
+					positionToAttribute[positions[i]] = i;
+				}
+			}
+
+			final List<Filter> children = filter instanceof And ? ((And) filter).getChildren()
+					: Collections.singletonList(filter);
+			final List<Pair<Filter, int[]>> ordered = new ArrayList<>();
+			for (final Filter child : children) {
+				ordered.add(Pair.of(
+						child,
+						getAttributes(child)));
+			}
+			// non-spatial conjuncts first, then by the number of attributes
+			ordered.sort(Comparator.comparingInt(
+					(final Pair<Filter, int[]> c) -> getCost(c.getRight())).thenComparingInt(
+					c -> c.getRight() == null ? attributeCount : c.getRight().length));
+			conjuncts = new Filter[ordered.size()];
+			conjunctAttributes = new int[ordered.size()][];
+			for (int i = 0; i < conjuncts.length; i++) {
+				conjuncts[i] = ordered.get(
+						i).getLeft();
+				conjunctAttributes[i] = ordered.get(
+						i).getRight();
+			}
+		}
+
+		private int[] getAttributes(
+				final Filter filter ) {
+			final String[] names = DataUtilities.attributeNames(
+					filter,
+					featureType);
+			final int[] attributes = new int[names.length];
+			for (int i = 0; i < names.length; i++) {
+				final int index;
+				if ((names[i] == null) || names[i].isEmpty()) {
+					index = featureType.getGeometryDescriptor() == null ? -1 : featureType.indexOf(featureType
+							.getGeometryDescriptor()
+							.getLocalName());
+				}
+				else {
+					index = featureType.indexOf(names[i]);
+				}
+				if (index < 0) {
+					return null;
+				}
+				attributes[i] = index;
+			}
+			return attributes;
+		}
+
+		private int getCost(
+				final int[] attributes ) {
+			if (attributes == null) {
+				return 2;
+			}
+			for (final int attribute : attributes) {
+				if (featureType.getDescriptor(
+						attribute) instanceof GeometryDescriptor) {
+					return 1;
+				}
+			}
+			return 0;
+		}
+
+		private boolean evaluate(
+				final IndexedPersistenceEncoding persistenceEncoding ) {
+			final Row row = new Row(
+					persistenceEncoding);
+			for (int i = 0; i < conjuncts.length; i++) {
+				if (conjunctAttributes[i] == null) {
+					for (int a = 0; a < row.values.length; a++) {
+						row.read(a);
+					}
+				}
+				else {
+					for (final int a : conjunctAttributes[i]) {
+						row.read(a);
+					}
+				}
+				if (!conjuncts[i].evaluate(row.feature)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private class Row
+		{
+			private final IndexedPersistenceEncoding persistenceEncoding;
+			private final Object[] values;
+			private final boolean[] read;
+			private final byte[][] unreadValues;
+			private final SimpleFeature feature;
+			private boolean commonDataRead = false;
+
+			private Row(
+					final IndexedPersistenceEncoding persistenceEncoding ) {
+				this.persistenceEncoding = persistenceEncoding;
+				values = new Object[readers.length];
+				read = new boolean[readers.length];
+				unreadValues = new byte[readers.length][];
+				if (persistenceEncoding instanceof DeferredReadCommonIndexedPersistenceEncoding) {
+					final FlattenedUnreadData unreadData = ((DeferredReadCommonIndexedPersistenceEncoding) persistenceEncoding)
+							.getUnreadData();
+					if (unreadData != null) {
+						// this only slices the field bytes, no field is
+						// decoded
+						for (final FlattenedFieldInfo field : unreadData.finishRead()) {
+							final int position = field.getFieldPosition();
+							if ((position < positionToAttribute.length) && (positionToAttribute[position] >= 0)) {
+								unreadValues[positionToAttribute[position]] = field.getValue();
+							}
+						}
+					}
+				}
+				feature = new SimpleFeatureImpl(
+						values,
+						featureType,
+						new FeatureIdImpl(
+								persistenceEncoding.getDataId() == null ? null : persistenceEncoding
+										.getDataId()
+										.getString()),
+						false);
+			}
+
+			private void read(
+					final int attribute ) {
+				if (read[attribute]) {
+					return;
+				}
+				read[attribute] = true;
+				final String name = featureType.getDescriptor(
+						attribute).getLocalName();
+				if (unreadValues[attribute] != null) {
+					values[attribute] = readers[attribute].readField(unreadValues[attribute]);
+					return;
+				}
+				if (persistenceEncoding instanceof AbstractAdapterPersistenceEncoding) {
+					final PersistentDataset<Object> extendedData = ((AbstractAdapterPersistenceEncoding) persistenceEncoding)
+							.getAdapterExtendedData();
+					if (extendedData != null) {
+						final Object value = extendedData.getValue(name);
+						if (value != null) {
+							values[attribute] = value;
+							return;
+						}
+					}
+				}
+				final PersistentDataset<byte[]> unknownData = persistenceEncoding.getUnknownData();
+				if (unknownData != null) {
+					final byte[] value = unknownData.getValue(name);
+					if (value != null) {
+						values[attribute] = readers[attribute].readField(value);
+						return;
+					}
+				}
+				readCommonData();
+			}
+
+			/**
+			 * The index field handlers convert the common index values to
+			 * attributes, so this decodes a feature with only those values
+			 */
+			@SuppressWarnings("unchecked")
+			private void readCommonData() {
+				if (commonDataRead) {
+					return;
+				}
+				commonDataRead = true;
+				final SimpleFeature commonFeature = adapter.decode(
+						new IndexedAdapterPersistenceEncoding(
+								persistenceEncoding.getInternalAdapterId(),
+								persistenceEncoding.getDataId(),
+								persistenceEncoding.getInsertionPartitionKey(),
+								persistenceEncoding.getInsertionSortKey(),
+								persistenceEncoding.getDuplicateCount(),
+								persistenceEncoding.getCommonData(),
+								new PersistentDataset<byte[]>(),
+								new PersistentDataset<>()),
+						new PrimaryIndex(
+								null, // because we know the feature data
+										// adapter doesn't use the numeric
+										// index strategy and only the
+										// common index model to decode the
+										// simple feature, we pass along a
+										// null strategy to eliminate the
+										// necessity to send a serialization
+										// of the strategy in the options of
+										// this iterator
+								indexModel));
+				if (commonFeature == null) {
+					return;
+				}
+				for (int i = 0; i < values.length; i++) {
+					if (values[i] == null) {
+						final Object value = commonFeature.getAttribute(featureType.getDescriptor(
+								i).getLocalName());
+						if (value != null) {
+							values[i] = value;
+							read[i] = true;
+						}
+					}
+				}
+			}
+		}
 	}
 }
@@ -20,6 +20,8 @@ import java.util.Set;
 import org.locationtech.geowave.core.geotime.store.dimension.GeometryWrapper;
 import org.locationtech.geowave.core.geotime.util.GeometryUtils;
 import org.locationtech.geowave.core.index.StringUtils;
+import org.locationtech.geowave.core.index.persist.GrowableByteBuffer;
+import org.locationtech.geowave.core.index.persist.PersistenceUtils;
 import org.locationtech.geowave.core.index.sfc.data.BasicNumericDataset;
 import org.locationtech.geowave.core.index.sfc.data.MultiDimensionalNumericData;
 import org.locationtech.geowave.core.index.sfc.data.NumericData;
@@ -324,33 +326,38 @@ public class SpatialQueryFilter extends
 
 	@Override
 	public byte[] toBinary() {
+		return PersistenceUtils.writeBinary(this);
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		readBinary(ByteBuffer.wrap(bytes));
+	}
+
+	@Override
+	public void writeBinary(
+			final GrowableByteBuffer buf ) {
 		final byte[] geometryBinary = preparedGeometryImage.geometryBinary;
 		final byte[] geometryFieldNamesBytes = StringUtils.stringsToBinary(geometryFieldNames.toArray(new String[0]));
-		final byte[] theRest = super.toBinary();
-		final ByteBuffer buf = ByteBuffer.allocate(12 + geometryBinary.length + geometryFieldNamesBytes.length
-				+ theRest.length);
 		buf.putInt(compareOperation.ordinal());
 		buf.putInt(geometryBinary.length);
 		buf.putInt(geometryFieldNamesBytes.length);
 		buf.put(geometryBinary);
 		buf.put(geometryFieldNamesBytes);
-		buf.put(theRest);
-		return buf.array();
+		super.writeBinary(buf);
 	}
 
 	@Override
-	public void fromBinary(
-			final byte[] bytes ) {
-		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+	public void readBinary(
+			final ByteBuffer buf ) {
 		compareOperation = CompareOperation.values()[buf.getInt()];
 		final byte[] geometryBinary = new byte[buf.getInt()];
 		final byte[] geometryFieldNamesBytes = new byte[buf.getInt()];
-		final byte[] theRest = new byte[bytes.length - geometryBinary.length - geometryFieldNamesBytes.length - 12];
 		buf.get(geometryBinary);
 		buf.get(geometryFieldNamesBytes);
 		geometryFieldNames = new HashSet<>(
 				Arrays.asList(StringUtils.stringsFromBinary(geometryFieldNamesBytes)));
-		buf.get(theRest);
 		preparedGeometryImage = geometryImageInterner.intern(new GeometryImage(
 				geometryBinary));
 		// build the the PreparedGeometry and underling Geometry if not
@@ -358,7 +365,7 @@ public class SpatialQueryFilter extends
 		// image.
 		preparedGeometryImage.init();
 
-		super.fromBinary(theRest);
+		super.readBinary(buf);
 	}
 
 	/**
@@ -15,6 +15,8 @@ import java.util.HashSet;
 import java.util.Set;
 
 import org.geotools.filter.visitor.DefaultFilterVisitor;
+import org.opengis.filter.And;
+import org.opengis.filter.Or;
 import org.opengis.filter.expression.PropertyName;
 
 /**
@@ -27,6 +29,27 @@ public class ExtractAttributesFilter extends
 
 	public ExtractAttributesFilter() {}
 
+	@Override
+	public Object visit(
+			final And filter,
+			final Object data ) {
+		// logical filters return the given data, so the attributes of every
+		// child (such as those of LIKE predicates next to spatial ones) have
+		// to be collected into one set
+		return super.visit(
+				filter,
+				data == null ? new HashSet<String>() : data);
+	}
+
+	@Override
+	public Object visit(
+			final Or filter,
+			final Object data ) {
+		return super.visit(
+				filter,
+				data == null ? new HashSet<String>() : data);
+	}
+
 	@Override
 	public Object visit(
 			final PropertyName expression,
@@ -56,8 +56,13 @@ public class PropertyConstraintSet
 		final FilterableConstraints c = constraints.get(index.getFieldName());
 		if (c != null) {
 			// TODO GEOWAVE-1018 how to handle secondary index ranges?
-			result.addAll(index.getIndexStrategy().getQueryRanges(
-					c).getCompositeQueryRanges());
+			final List<ByteArrayRange> ranges = index.getIndexStrategy().getQueryRanges(
+					c).getCompositeQueryRanges();
+			// constraints that can't be turned into ranges (such as LIKE
+			// patterns starting with a wildcard) leave the index unconstrained
+			if (ranges != null) {
+				result.addAll(ranges);
+			}
 		}
 		return result;
 	}
@@ -444,6 +444,19 @@ public class PropertyFilterVisitor extends
 	public Object visit(
 			final PropertyIsLike filter,
 			final Object data ) {
+		final Object leftResult = filter.getExpression().accept(
+				this,
+				data);
+		if ((leftResult instanceof String) && (filter.getLiteral() != null)) {
+			return new PropertyConstraintSet(
+					new TextQueryConstraint(
+							(String) leftResult,
+							filter.getLiteral(),
+							filter.getWildCard(),
+							filter.getSingleChar(),
+							filter.getEscape(),
+							filter.isMatchingCase()));
+		}
 		return new PropertyConstraintSet();
 	}
 
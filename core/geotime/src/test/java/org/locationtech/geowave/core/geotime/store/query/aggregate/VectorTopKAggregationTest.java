@@ -0,0 +1,188 @@
+package org.locationtech.geowave.core.geotime.store.query.aggregate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.geotools.data.DataUtilities;
+import org.geotools.feature.SchemaException;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+public class VectorTopKAggregationTest
+{
+	private static SimpleFeatureType type;
+
+	@BeforeClass
+	public static void setup()
+			throws SchemaException {
+		type = DataUtilities.createType(
+				"topk",
+				"geometry:Point,value:Integer");
+	}
+
+	@Test
+	public void testAggregateAndMerge() {
+		// two regions aggregated separately, like on two tablet servers
+		final VectorTopKAggregation region1 = new VectorTopKAggregation(
+				new TopKParam(
+						"value",
+						true,
+						3));
+		aggregate(
+				region1,
+				"a",
+				5,
+				"b",
+				1,
+				"c",
+				3,
+				"d",
+				null,
+				"e",
+				3);
+		final VectorTopKAggregation region2 = new VectorTopKAggregation(
+				new TopKParam(
+						"value",
+						true,
+						3));
+		aggregate(
+				region2,
+				"f",
+				2,
+				"g",
+				3,
+				"h",
+				0);
+
+		// null values are left out and equal values are ordered by ID
+		assertEquals(
+				entries(
+						1,
+						"b",
+						3,
+						"c",
+						3,
+						"e"),
+				region1.getResult());
+		assertEquals(
+				entries(
+						0,
+						"h",
+						1,
+						"b",
+						2,
+						"f"),
+				region1.merge(
+						region1.getResult(),
+						region2.getResult()));
+	}
+
+	@Test
+	public void testDescendingFromContinuation() {
+		// the previous page ended with the value 3 of feature c
+		final VectorTopKAggregation aggregation = new VectorTopKAggregation(
+				new TopKParam(
+						"value",
+						false,
+						2,
+						3,
+						"c"));
+		aggregate(
+				aggregation,
+				"a",
+				5,
+				"b",
+				1,
+				"c",
+				3,
+				"d",
+				2,
+				"e",
+				3);
+		assertEquals(
+				entries(
+						3,
+						"e",
+						2,
+						"d"),
+				aggregation.getResult());
+	}
+
+	@Test
+	public void testResultSerialization() {
+		final VectorTopKAggregation aggregation = new VectorTopKAggregation(
+				new TopKParam(
+						"value",
+						true,
+						3));
+		final List<Pair<Object, String>> result = entries(
+				1,
+				"b",
+				3,
+				"c",
+				3,
+				"e");
+		assertEquals(
+				result,
+				aggregation.resultFromBinary(aggregation.resultToBinary(result)));
+		assertTrue(aggregation.resultFromBinary(
+				aggregation.resultToBinary(Collections.<Pair<Object, String>> emptyList())).isEmpty());
+
+		// the parameters are serialized separately from the aggregation
+		final TopKParam params = new TopKParam();
+		params.fromBinary(new TopKParam(
+				"value",
+				false,
+				2,
+				3,
+				"c").toBinary());
+		assertEquals(
+				"value",
+				params.getFieldName());
+		assertEquals(
+				false,
+				params.isAscending());
+		assertEquals(
+				2,
+				params.getK());
+		assertEquals(
+				3,
+				params.getStartAfterValue());
+		assertEquals(
+				"c",
+				params.getStartAfterId());
+	}
+
+	private static void aggregate(
+			final VectorTopKAggregation aggregation,
+			final Object... idsAndValues ) {
+		final SimpleFeatureBuilder builder = new SimpleFeatureBuilder(
+				type);
+		for (int i = 0; i < idsAndValues.length; i += 2) {
+			builder.set(
+					"value",
+					idsAndValues[i + 1]);
+			aggregation.aggregate(builder.buildFeature((String) idsAndValues[i]));
+		}
+	}
+
+	private static List<Pair<Object, String>> entries(
+			final Object... valuesAndIds ) {
+		final List<Pair<Object, String>> entries = new ArrayList<>();
+		for (int i = 0; i < valuesAndIds.length; i += 2) {
+			entries.add(new ImmutablePair<>(
+					valuesAndIds[i],
+					(String) valuesAndIds[i + 1]));
+		}
+		return entries;
+	}
+}
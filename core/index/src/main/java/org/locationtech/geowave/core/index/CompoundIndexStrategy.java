@@ -19,6 +19,7 @@ import java.util.List;
 import java.util.Set;
 
 import org.locationtech.geowave.core.index.dimension.NumericDimensionDefinition;
+import org.locationtech.geowave.core.index.persist.GrowableByteBuffer;
 import org.locationtech.geowave.core.index.persist.PersistenceUtils;
 import org.locationtech.geowave.core.index.sfc.data.MultiDimensionalNumericData;
 
@@ -67,26 +68,31 @@ public class CompoundIndexStrategy implements
 
 	@Override
 	public byte[] toBinary() {
-		final byte[] delegateBinary1 = PersistenceUtils.toBinary(subStrategy1);
-		final byte[] delegateBinary2 = PersistenceUtils.toBinary(subStrategy2);
-		final ByteBuffer buf = ByteBuffer.allocate(4 + delegateBinary1.length + delegateBinary2.length);
-		buf.putInt(delegateBinary1.length);
-		buf.put(delegateBinary1);
-		buf.put(delegateBinary2);
-		return buf.array();
+		return PersistenceUtils.writeBinary(this);
 	}
 
 	@Override
 	public void fromBinary(
 			final byte[] bytes ) {
-		final ByteBuffer buf = ByteBuffer.wrap(bytes);
-		final int delegateBinary1Length = buf.getInt();
-		final byte[] delegateBinary1 = new byte[delegateBinary1Length];
-		buf.get(delegateBinary1);
-		final byte[] delegateBinary2 = new byte[bytes.length - delegateBinary1Length - 4];
-		buf.get(delegateBinary2);
-		subStrategy1 = (PartitionIndexStrategy) PersistenceUtils.fromBinary(delegateBinary1);
-		subStrategy2 = (NumericIndexStrategy) PersistenceUtils.fromBinary(delegateBinary2);
+		readBinary(ByteBuffer.wrap(bytes));
+	}
+
+	@Override
+	public void writeBinary(
+			final GrowableByteBuffer buf ) {
+		PersistenceUtils.toBinaryWithLength(
+				subStrategy1,
+				buf);
+		PersistenceUtils.toBinary(
+				subStrategy2,
+				buf);
+	}
+
+	@Override
+	public void readBinary(
+			final ByteBuffer buf ) {
+		subStrategy1 = (PartitionIndexStrategy) PersistenceUtils.fromBinaryWithLength(buf);
+		subStrategy2 = (NumericIndexStrategy) PersistenceUtils.fromBinary(buf);
 
 		defaultMaxDuplication = (int) Math.ceil(Math.pow(
 				2,
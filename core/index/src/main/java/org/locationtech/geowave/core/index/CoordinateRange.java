@@ -13,7 +13,9 @@ package org.locationtech.geowave.core.index;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 
+import org.locationtech.geowave.core.index.persist.GrowableByteBuffer;
 import org.locationtech.geowave.core.index.persist.Persistable;
+import org.locationtech.geowave.core.index.persist.PersistenceUtils;
 
 public class CoordinateRange implements
 		Persistable
@@ -84,23 +86,32 @@ public class CoordinateRange implements
 
 	@Override
 	public byte[] toBinary() {
-		final ByteBuffer buf = ByteBuffer.allocate(16 + (binId == null ? 0 : binId.length));
+		return PersistenceUtils.writeBinary(this);
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		readBinary(ByteBuffer.wrap(bytes));
+	}
+
+	@Override
+	public void writeBinary(
+			final GrowableByteBuffer buf ) {
 		buf.putLong(minCoordinate);
 		buf.putLong(maxCoordinate);
 		if (binId != null) {
 			buf.put(binId);
 		}
-		return buf.array();
 	}
 
 	@Override
-	public void fromBinary(
-			final byte[] bytes ) {
-		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+	public void readBinary(
+			final ByteBuffer buf ) {
 		minCoordinate = buf.getLong();
 		maxCoordinate = buf.getLong();
-		if (bytes.length > 16) {
-			binId = new byte[bytes.length - 16];
+		if (buf.hasRemaining()) {
+			binId = new byte[buf.remaining()];
 			buf.get(binId);
 		}
 		else {
@@ -19,7 +19,9 @@ import java.util.List;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
+import org.locationtech.geowave.core.index.persist.GrowableByteBuffer;
 import org.locationtech.geowave.core.index.persist.Persistable;
+import org.locationtech.geowave.core.index.persist.PersistenceUtils;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Collections2;
@@ -210,44 +212,43 @@ public class InsertionIds implements
 
 	@Override
 	public byte[] toBinary() {
+		return PersistenceUtils.writeBinary(this);
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		readBinary(ByteBuffer.wrap(bytes));
+	}
+
+	@Override
+	public void writeBinary(
+			final GrowableByteBuffer buf ) {
 		if ((partitionKeys != null) && !partitionKeys.isEmpty()) {
-			final List<byte[]> partitionKeysBinary = new ArrayList<>(
-					partitionKeys.size());
-			int totalSize = 4;
+			buf.putInt(partitionKeys.size());
 			for (final SinglePartitionInsertionIds id : partitionKeys) {
-				final byte[] binary = id.toBinary();
-				totalSize += (4 + binary.length);
-				partitionKeysBinary.add(binary);
-			}
-			final ByteBuffer buf = ByteBuffer.allocate(totalSize);
-			buf.putInt(totalSize);
-			for (final byte[] binary : partitionKeysBinary) {
-				buf.putInt(binary.length);
-				buf.put(binary);
+				PersistenceUtils.writeBinaryWithLength(
+						id,
+						buf);
 			}
-			return buf.array();
 		}
 		else {
-			return ByteBuffer.allocate(
-					4).putInt(
-					0).array();
+			buf.putInt(0);
 		}
 	}
 
 	@Override
-	public void fromBinary(
-			final byte[] bytes ) {
-		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+	public void readBinary(
+			final ByteBuffer buf ) {
 		final int size = buf.getInt();
 		if (size > 0) {
 			partitionKeys = new ArrayList<>(
 					size);
 			for (int i = 0; i < size; i++) {
-				final int length = buf.getInt();
-				final byte[] pBytes = new byte[length];
-				buf.get(pBytes);
 				final SinglePartitionInsertionIds pId = new SinglePartitionInsertionIds();
-				pId.fromBinary(pBytes);
+				PersistenceUtils.readBinaryWithLength(
+						pId,
+						buf);
 				partitionKeys.add(pId);
 			}
 		}
@@ -11,10 +11,10 @@
 package org.locationtech.geowave.core.index;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
 
+import org.locationtech.geowave.core.index.persist.GrowableByteBuffer;
 import org.locationtech.geowave.core.index.persist.Persistable;
+import org.locationtech.geowave.core.index.persist.PersistenceUtils;
 
 public class MultiDimensionalCoordinateRanges implements
 		Persistable
@@ -49,40 +49,41 @@ public class MultiDimensionalCoordinateRanges implements
 
 	@Override
 	public byte[] toBinary() {
-		final List<byte[]> serializedRanges = new ArrayList<>();
-		final int idLength = (multiDimensionalId == null ? 0 : multiDimensionalId.length);
+		return PersistenceUtils.writeBinary(this);
+	}
 
-		int byteLength = (4 * getNumDimensions()) + 8 + idLength;
-		final int[] numPerDimension = new int[getNumDimensions()];
-		int d = 0;
-		for (final CoordinateRange[] dim : coordinateRangesPerDimension) {
-			numPerDimension[d++] = dim.length;
-			for (final CoordinateRange range : dim) {
-				final byte[] serializedRange = range.toBinary();
-				byteLength += (serializedRange.length + 4);
-				serializedRanges.add(serializedRange);
-			}
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		readBinary(ByteBuffer.wrap(bytes));
+	}
+
+	@Override
+	public void writeBinary(
+			final GrowableByteBuffer buf ) {
+		if (multiDimensionalId == null) {
+			buf.putInt(0);
 		}
-		final ByteBuffer buf = ByteBuffer.allocate(byteLength);
-		buf.putInt(idLength);
-		if (idLength > 0) {
+		else {
+			buf.putInt(multiDimensionalId.length);
 			buf.put(multiDimensionalId);
 		}
 		buf.putInt(coordinateRangesPerDimension.length);
-		for (final int num : numPerDimension) {
-			buf.putInt(num);
+		for (final CoordinateRange[] dim : coordinateRangesPerDimension) {
+			buf.putInt(dim.length);
 		}
-		for (final byte[] serializedRange : serializedRanges) {
-			buf.putInt(serializedRange.length);
-			buf.put(serializedRange);
+		for (final CoordinateRange[] dim : coordinateRangesPerDimension) {
+			for (final CoordinateRange range : dim) {
+				PersistenceUtils.writeBinaryWithLength(
+						range,
+						buf);
+			}
 		}
-		return buf.array();
 	}
 
 	@Override
-	public void fromBinary(
-			final byte[] bytes ) {
-		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+	public void readBinary(
+			final ByteBuffer buf ) {
 		final int idLength = buf.getInt();
 		if (idLength > 0) {
 			multiDimensionalId = new byte[idLength];
@@ -97,11 +98,10 @@ public class MultiDimensionalCoordinateRanges implements
 		}
 		for (int d = 0; d < coordinateRangesPerDimension.length; d++) {
 			for (int i = 0; i < coordinateRangesPerDimension[d].length; i++) {
-				final byte[] serializedRange = new byte[buf.getInt()];
-				buf.get(serializedRange);
-
 				coordinateRangesPerDimension[d][i] = new CoordinateRange();
-				coordinateRangesPerDimension[d][i].fromBinary(serializedRange);
+				PersistenceUtils.readBinaryWithLength(
+						coordinateRangesPerDimension[d][i],
+						buf);
 			}
 		}
 	}
@@ -12,7 +12,9 @@ package org.locationtech.geowave.core.index;
 
 import java.nio.ByteBuffer;
 
+import org.locationtech.geowave.core.index.persist.GrowableByteBuffer;
 import org.locationtech.geowave.core.index.persist.Persistable;
+import org.locationtech.geowave.core.index.persist.PersistenceUtils;
 
 public class MultiDimensionalCoordinateRangesArray implements
 		Persistable
@@ -32,31 +34,35 @@ public class MultiDimensionalCoordinateRangesArray implements
 
 	@Override
 	public byte[] toBinary() {
-		final byte[][] rangesBinaries = new byte[rangesArray.length][];
-		int binaryLength = 4;
-		for (int i = 0; i < rangesArray.length; i++) {
-			rangesBinaries[i] = rangesArray[i].toBinary();
-			binaryLength += (4 + rangesBinaries[i].length);
-		}
-		final ByteBuffer buf = ByteBuffer.allocate(binaryLength);
-		buf.putInt(rangesBinaries.length);
-		for (final byte[] rangesBinary : rangesBinaries) {
-			buf.putInt(rangesBinary.length);
-			buf.put(rangesBinary);
-		}
-		return buf.array();
+		return PersistenceUtils.writeBinary(this);
 	}
 
 	@Override
 	public void fromBinary(
 			final byte[] bytes ) {
-		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+		readBinary(ByteBuffer.wrap(bytes));
+	}
+
+	@Override
+	public void writeBinary(
+			final GrowableByteBuffer buf ) {
+		buf.putInt(rangesArray.length);
+		for (final MultiDimensionalCoordinateRanges ranges : rangesArray) {
+			PersistenceUtils.writeBinaryWithLength(
+					ranges,
+					buf);
+		}
+	}
+
+	@Override
+	public void readBinary(
+			final ByteBuffer buf ) {
 		rangesArray = new MultiDimensionalCoordinateRanges[buf.getInt()];
 		for (int i = 0; i < rangesArray.length; i++) {
-			final byte[] rangesBinary = new byte[buf.getInt()];
-			buf.get(rangesBinary);
 			rangesArray[i] = new MultiDimensionalCoordinateRanges();
-			rangesArray[i].fromBinary(rangesBinary);
+			PersistenceUtils.readBinaryWithLength(
+					rangesArray[i],
+					buf);
 		}
 	}
 
@@ -80,31 +86,35 @@ public class MultiDimensionalCoordinateRangesArray implements
 
 		@Override
 		public byte[] toBinary() {
-			final byte[][] rangesBinaries = new byte[coordinateArrays.length][];
-			int binaryLength = 4;
-			for (int i = 0; i < coordinateArrays.length; i++) {
-				rangesBinaries[i] = coordinateArrays[i].toBinary();
-				binaryLength += (4 + rangesBinaries[i].length);
-			}
-			final ByteBuffer buf = ByteBuffer.allocate(binaryLength);
-			buf.putInt(rangesBinaries.length);
-			for (final byte[] rangesBinary : rangesBinaries) {
-				buf.putInt(rangesBinary.length);
-				buf.put(rangesBinary);
-			}
-			return buf.array();
+			return PersistenceUtils.writeBinary(this);
 		}
 
 		@Override
 		public void fromBinary(
-				byte[] bytes ) {
-			final ByteBuffer buf = ByteBuffer.wrap(bytes);
+				final byte[] bytes ) {
+			readBinary(ByteBuffer.wrap(bytes));
+		}
+
+		@Override
+		public void writeBinary(
+				final GrowableByteBuffer buf ) {
+			buf.putInt(coordinateArrays.length);
+			for (final MultiDimensionalCoordinateRangesArray coordinateArray : coordinateArrays) {
+				PersistenceUtils.writeBinaryWithLength(
+						coordinateArray,
+						buf);
+			}
+		}
+
+		@Override
+		public void readBinary(
+				final ByteBuffer buf ) {
 			coordinateArrays = new MultiDimensionalCoordinateRangesArray[buf.getInt()];
 			for (int i = 0; i < coordinateArrays.length; i++) {
-				final byte[] rangesBinary = new byte[buf.getInt()];
-				buf.get(rangesBinary);
 				coordinateArrays[i] = new MultiDimensionalCoordinateRangesArray();
-				coordinateArrays[i].fromBinary(rangesBinary);
+				PersistenceUtils.readBinaryWithLength(
+						coordinateArrays[i],
+						buf);
 			}
 		}
 	}
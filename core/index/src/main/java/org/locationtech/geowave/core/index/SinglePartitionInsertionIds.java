@@ -15,7 +15,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import org.locationtech.geowave.core.index.persist.GrowableByteBuffer;
 import org.locationtech.geowave.core.index.persist.Persistable;
+import org.locationtech.geowave.core.index.persist.PersistenceUtils;
 
 public class SinglePartitionInsertionIds implements
 		Persistable
@@ -163,45 +165,40 @@ public class SinglePartitionInsertionIds implements
 
 	@Override
 	public byte[] toBinary() {
-		int pLength;
+		return PersistenceUtils.writeBinary(this);
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		readBinary(ByteBuffer.wrap(bytes));
+	}
+
+	@Override
+	public void writeBinary(
+			final GrowableByteBuffer buf ) {
 		if (partitionKey == null) {
-			pLength = 0;
+			buf.putInt(0);
 		}
 		else {
-			pLength = partitionKey.getBytes().length;
+			buf.putInt(partitionKey.getBytes().length);
+			buf.put(partitionKey.getBytes());
 		}
-		int sSize;
-		int byteBufferSize = 8 + pLength;
 		if (sortKeys == null) {
-			sSize = 0;
+			buf.putInt(0);
 		}
 		else {
-			sSize = sortKeys.size();
-			byteBufferSize += (4 * sSize);
-			for (final ByteArray sKey : sortKeys) {
-				byteBufferSize += sKey.getBytes().length;
-			}
-		}
-		final ByteBuffer buf = ByteBuffer.allocate(byteBufferSize);
-		buf.putInt(pLength);
-		if (pLength > 0) {
-			buf.put(partitionKey.getBytes());
-		}
-		buf.putInt(sSize);
-
-		if (sSize > 0) {
+			buf.putInt(sortKeys.size());
 			for (final ByteArray sKey : sortKeys) {
 				buf.putInt(sKey.getBytes().length);
 				buf.put(sKey.getBytes());
 			}
 		}
-		return buf.array();
 	}
 
 	@Override
-	public void fromBinary(
-			final byte[] bytes ) {
-		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+	public void readBinary(
+			final ByteBuffer buf ) {
 		final int pLength = buf.getInt();
 		if (pLength > 0) {
 			final byte[] pBytes = new byte[pLength];
@@ -228,5 +225,4 @@ public class SinglePartitionInsertionIds implements
 			sortKeys = null;
 		}
 	}
-
 }
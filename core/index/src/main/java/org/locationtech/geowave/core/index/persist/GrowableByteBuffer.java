@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.index.persist;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A byte buffer that grows as it is written to, so that a persistable and all
+ * of the persistables nested within it can be serialized into one buffer
+ * without first serializing each of them to its own byte array.
+ */
+public class GrowableByteBuffer
+{
+	private static final int DEFAULT_CAPACITY = 256;
+	private ByteBuffer buffer;
+
+	public GrowableByteBuffer() {
+		this(
+				DEFAULT_CAPACITY);
+	}
+
+	public GrowableByteBuffer(
+			final int initialCapacity ) {
+		buffer = ByteBuffer.allocate(Math.max(
+				initialCapacity,
+				16));
+	}
+
+	/**
+	 * Make sure at least the given number of bytes can be written without
+	 * growing the buffer
+	 */
+	public GrowableByteBuffer ensureRemaining(
+			final int length ) {
+		if (buffer.remaining() < length) {
+			final ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(
+					buffer.position() + length,
+					buffer.capacity() * 2));
+			buffer.flip();
+			newBuffer.put(buffer);
+			buffer = newBuffer;
+		}
+		return this;
+	}
+
+	public GrowableByteBuffer put(
+			final byte value ) {
+		ensureRemaining(1).buffer.put(value);
+		return this;
+	}
+
+	public GrowableByteBuffer put(
+			final byte[] value ) {
+		return put(
+				value,
+				0,
+				value.length);
+	}
+
+	public GrowableByteBuffer put(
+			final byte[] value,
+			final int offset,
+			final int length ) {
+		ensureRemaining(length).buffer.put(
+				value,
+				offset,
+				length);
+		return this;
+	}
+
+	/**
+	 * Copy the remaining bytes of the source buffer
+	 */
+	public GrowableByteBuffer put(
+			final ByteBuffer value ) {
+		ensureRemaining(value.remaining()).buffer.put(value);
+		return this;
+	}
+
+	public GrowableByteBuffer putShort(
+			final short value ) {
+		ensureRemaining(2).buffer.putShort(value);
+		return this;
+	}
+
+	public GrowableByteBuffer putInt(
+			final int value ) {
+		ensureRemaining(4).buffer.putInt(value);
+		return this;
+	}
+
+	public GrowableByteBuffer putInt(
+			final int index,
+			final int value ) {
+		buffer.putInt(
+				index,
+				value);
+		return this;
+	}
+
+	public GrowableByteBuffer putLong(
+			final long value ) {
+		ensureRemaining(8).buffer.putLong(value);
+		return this;
+	}
+
+	public GrowableByteBuffer putDouble(
+			final double value ) {
+		ensureRemaining(8).buffer.putDouble(value);
+		return this;
+	}
+
+	/**
+	 * Reserve space for the length of the bytes that follow
+	 *
+	 * @return the position to pass to {@link #endLength(int)} once those bytes
+	 *         have been written
+	 */
+	public int startLength() {
+		final int start = buffer.position();
+		putInt(0);
+		return start;
+	}
+
+	/**
+	 * Fill in a length reserved with {@link #startLength()} with the number of
+	 * bytes written since
+	 */
+	public void endLength(
+			final int start ) {
+		buffer.putInt(
+				start,
+				buffer.position() - start - 4);
+	}
+
+	public int position() {
+		return buffer.position();
+	}
+
+	public int capacity() {
+		return buffer.capacity();
+	}
+
+	public GrowableByteBuffer clear() {
+		buffer.clear();
+		return this;
+	}
+
+	/**
+	 * @return a read only view of the bytes written so far
+	 */
+	public ByteBuffer asReadOnlyBuffer() {
+		final ByteBuffer readOnly = buffer.asReadOnlyBuffer();
+		readOnly.flip();
+		return readOnly;
+	}
+
+	/**
+	 * @return a copy of the bytes written so far
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOf(
+				buffer.array(),
+				buffer.position());
+	}
+}
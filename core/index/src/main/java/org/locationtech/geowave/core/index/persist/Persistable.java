@@ -10,6 +10,8 @@
  ******************************************************************************/
 package org.locationtech.geowave.core.index.persist;
 
+import java.nio.ByteBuffer;
+
 /**
  * 
  * A simple interface for persisting objects, PersistenceUtils provides
@@ -34,4 +36,44 @@ public interface Persistable
 	public void fromBinary(
 			byte[] bytes );
 
+	/**
+	 * Write the same binary form as {@link #toBinary()} into a buffer. By
+	 * default the result of toBinary() is copied into the buffer; an
+	 * implementation that overrides this should implement toBinary() with
+	 * {@link PersistenceUtils#writeBinary(Persistable)}.
+	 *
+	 * @param buffer
+	 *            the buffer to append to
+	 */
+	public default void writeBinary(
+			final GrowableByteBuffer buffer ) {
+		buffer.put(toBinary());
+	}
+
+	/**
+	 * Read fields and data within an object from all of the remaining bytes of
+	 * a buffer, which may be a slice of a larger buffer. By default the bytes
+	 * are passed to {@link #fromBinary(byte[])}, only copying them if the
+	 * buffer does not wrap exactly one array; an implementation that overrides
+	 * this should implement fromBinary(byte[]) by wrapping the bytes.
+	 *
+	 * @param buffer
+	 *            the buffer to read, positioned at the first byte of this
+	 *            object and limited to its last
+	 */
+	public default void readBinary(
+			final ByteBuffer buffer ) {
+		final byte[] bytes;
+		if (buffer.hasArray() && (buffer.arrayOffset() == 0) && (buffer.position() == 0)
+				&& (buffer.limit() == buffer.array().length)) {
+			bytes = buffer.array();
+		}
+		else {
+			bytes = new byte[buffer.remaining()];
+			buffer.duplicate().get(
+					bytes);
+		}
+		buffer.position(buffer.limit());
+		fromBinary(bytes);
+	}
 }
@@ -27,26 +27,42 @@ public class PersistenceUtils
 {
 	private final static Logger LOGGER = LoggerFactory.getLogger(PersistenceUtils.class);
 
+	private static final int MAX_SHARED_BUFFER_CAPACITY = 1024 * 1024;
+	private static final ThreadLocal<GrowableByteBuffer> SHARED_BUFFERS = new ThreadLocal<>();
+
 	public static byte[] toBinary(
 			final Collection<? extends Persistable> persistables ) {
 		if (persistables.isEmpty()) {
 			return new byte[] {};
 		}
-		int byteCount = 4;
+		final GrowableByteBuffer buf = borrowSharedBuffer();
+		try {
+			toBinary(
+					persistables,
+					buf);
+			return buf.toByteArray();
+		}
+		finally {
+			returnSharedBuffer(buf);
+		}
+	}
 
-		final List<byte[]> persistableBinaries = new ArrayList<byte[]>();
-		for (final Persistable persistable : persistables) {
-			final byte[] binary = toBinary(persistable);
-			byteCount += (4 + binary.length);
-			persistableBinaries.add(binary);
+	/**
+	 * Write the same binary form as {@link #toBinary(Collection)} into a
+	 * buffer
+	 */
+	public static void toBinary(
+			final Collection<? extends Persistable> persistables,
+			final GrowableByteBuffer buf ) {
+		if (persistables.isEmpty()) {
+			return;
 		}
-		final ByteBuffer buf = ByteBuffer.allocate(byteCount);
 		buf.putInt(persistables.size());
-		for (final byte[] binary : persistableBinaries) {
-			buf.putInt(binary.length);
-			buf.put(binary);
+		for (final Persistable persistable : persistables) {
+			toBinaryWithLength(
+					persistable,
+					buf);
 		}
-		return buf.array();
 	}
 
 	public static byte[] toClassId(
@@ -97,6 +113,70 @@ public class PersistenceUtils
 		return retVal;
 	}
 
+	/**
+	 * Serialize a persistable that overrides
+	 * {@link Persistable#writeBinary(GrowableByteBuffer)}, without its class
+	 * ID. This is intended to implement {@link Persistable#toBinary()} and
+	 * must not be used with a persistable that relies on the default
+	 * writeBinary.
+	 */
+	public static byte[] writeBinary(
+			final Persistable persistable ) {
+		final GrowableByteBuffer buf = borrowSharedBuffer();
+		try {
+			persistable.writeBinary(buf);
+			return buf.toByteArray();
+		}
+		finally {
+			returnSharedBuffer(buf);
+		}
+	}
+
+	/**
+	 * Write the same binary form as {@link #toBinary(Persistable)} into a
+	 * buffer
+	 */
+	public static void toBinary(
+			final Persistable persistable,
+			final GrowableByteBuffer buf ) {
+		if (persistable == null) {
+			return;
+		}
+		final Short classId = PersistableFactory.getInstance().getClassIdMapping().get(
+				persistable.getClass());
+		if (classId != null) {
+			buf.putShort(classId);
+			persistable.writeBinary(buf);
+		}
+	}
+
+	/**
+	 * Write the length of the binary form of a persistable followed by the
+	 * binary form, as read by {@link #fromBinaryWithLength(ByteBuffer)}
+	 */
+	public static void toBinaryWithLength(
+			final Persistable persistable,
+			final GrowableByteBuffer buf ) {
+		final int start = buf.startLength();
+		toBinary(
+				persistable,
+				buf);
+		buf.endLength(start);
+	}
+
+	/**
+	 * Write the length of the binary form of a persistable, without its class
+	 * ID, followed by the binary form, as read by
+	 * {@link #readBinaryWithLength(Persistable, ByteBuffer)}
+	 */
+	public static void writeBinaryWithLength(
+			final Persistable persistable,
+			final GrowableByteBuffer buf ) {
+		final int start = buf.startLength();
+		persistable.writeBinary(buf);
+		buf.endLength(start);
+	}
+
 	public static byte[] toBinary(
 			final Persistable persistable ) {
 		if (persistable == null) {
@@ -105,29 +185,42 @@ public class PersistenceUtils
 		final Short classId = PersistableFactory.getInstance().getClassIdMapping().get(
 				persistable.getClass());
 		if (classId != null) {
-			final byte[] persistableBinary = persistable.toBinary();
-			final ByteBuffer buf = ByteBuffer.allocate(2 + persistableBinary.length);
-			buf.putShort(classId);
-			buf.put(persistableBinary);
-			return buf.array();
+			final GrowableByteBuffer buf = borrowSharedBuffer();
+			try {
+				buf.putShort(classId);
+				persistable.writeBinary(buf);
+				return buf.toByteArray();
+			}
+			finally {
+				returnSharedBuffer(buf);
+			}
 		}
 		return new byte[0];
 	}
 
 	public static List<Persistable> fromBinaryAsList(
 			final byte[] bytes ) {
-		final List<Persistable> persistables = new ArrayList<Persistable>();
 		if ((bytes == null) || (bytes.length < 4)) {
 			// the original binary didn't even contain the size of the
 			// array, assume that nothing was persisted
+			return new ArrayList<Persistable>();
+		}
+		return fromBinaryAsList(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * Read a list of persistables from the remaining bytes of a buffer without
+	 * copying the bytes of each persistable
+	 */
+	public static List<Persistable> fromBinaryAsList(
+			final ByteBuffer buf ) {
+		final List<Persistable> persistables = new ArrayList<Persistable>();
+		if (buf.remaining() < 4) {
 			return persistables;
 		}
-		final ByteBuffer buf = ByteBuffer.wrap(bytes);
 		final int size = buf.getInt();
 		for (int i = 0; i < size; i++) {
-			final byte[] persistableBinary = new byte[buf.getInt()];
-			buf.get(persistableBinary);
-			persistables.add(fromBinary(persistableBinary));
+			persistables.add(fromBinaryWithLength(buf));
 		}
 		return persistables;
 	}
@@ -137,15 +230,81 @@ public class PersistenceUtils
 		if ((bytes == null) || (bytes.length < 2)) {
 			return null;
 		}
-		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+		return fromBinary(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * Read a persistable from the remaining bytes of a buffer, which may be a
+	 * slice of a larger buffer
+	 */
+	public static Persistable fromBinary(
+			final ByteBuffer buf ) {
+		if (buf.remaining() < 2) {
+			buf.position(buf.limit());
+			return null;
+		}
 		final short classId = buf.getShort();
 
 		final Persistable retVal = PersistableFactory.getInstance().newInstance(
 				classId);
 
-		final byte[] persistableBinary = new byte[bytes.length - 2];
-		buf.get(persistableBinary);
-		retVal.fromBinary(persistableBinary);
+		retVal.readBinary(buf);
 		return retVal;
 	}
+
+	/**
+	 * Read a persistable written by
+	 * {@link #toBinaryWithLength(Persistable, GrowableByteBuffer)}, advancing
+	 * the buffer past it
+	 */
+	public static Persistable fromBinaryWithLength(
+			final ByteBuffer buf ) {
+		return fromBinary(slice(
+				buf,
+				buf.getInt()));
+	}
+
+	/**
+	 * Read the fields of a persistable written by
+	 * {@link #writeBinaryWithLength(Persistable, GrowableByteBuffer)},
+	 * advancing the buffer past it
+	 */
+	public static void readBinaryWithLength(
+			final Persistable persistable,
+			final ByteBuffer buf ) {
+		persistable.readBinary(slice(
+				buf,
+				buf.getInt()));
+	}
+
+	/**
+	 * @return a view of the next length bytes of the buffer, which is advanced
+	 *         past them
+	 */
+	public static ByteBuffer slice(
+			final ByteBuffer buf,
+			final int length ) {
+		final ByteBuffer slice = buf.slice();
+		slice.limit(length);
+		buf.position(buf.position() + length);
+		return slice;
+	}
+
+	private static GrowableByteBuffer borrowSharedBuffer() {
+		final GrowableByteBuffer buf = SHARED_BUFFERS.get();
+		if (buf == null) {
+			// either this thread has no buffer yet or it is already in use
+			// further up the stack
+			return new GrowableByteBuffer();
+		}
+		SHARED_BUFFERS.remove();
+		return buf.clear();
+	}
+
+	private static void returnSharedBuffer(
+			final GrowableByteBuffer buf ) {
+		if (buf.capacity() <= MAX_SHARED_BUFFER_CAPACITY) {
+			SHARED_BUFFERS.set(buf);
+		}
+	}
 }
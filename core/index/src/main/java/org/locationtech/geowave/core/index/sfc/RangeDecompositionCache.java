@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.index.sfc;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import org.locationtech.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+
+/**
+ * A thread-safe cache of space filling curve range decompositions that can be
+ * shared by any SpaceFillingCurve implementation. Entries are keyed on the
+ * curve (by equality, so equivalent curves share entries) and the query
+ * window, and are weighted by the number of ranges in the decomposition so
+ * that the capacity bounds the number of cached ranges rather than the number
+ * of queries.
+ *
+ * The capacity of the default instance can be set with the system property
+ * {@value #MAX_CACHED_RANGES_PROPERTY} or replaced at runtime with
+ * {@link #setDefault(RangeDecompositionCache)}.
+ */
+public class RangeDecompositionCache
+{
+	public static final String MAX_CACHED_RANGES_PROPERTY = "geowave.sfc.decompositionCache.maxRanges";
+	public static final long DEFAULT_MAX_CACHED_RANGES = 100000L;
+	// the default of the cache builder
+	private static final int DEFAULT_CONCURRENCY_LEVEL = 4;
+
+	private static volatile RangeDecompositionCache defaultCache;
+
+	private final Cache<DecompositionCacheKey, RangeDecomposition> cache;
+	private final long maxCachedRanges;
+
+	/**
+	 * @param maxCachedRanges
+	 *            the maximum total number of ranges held by the cache, 0
+	 *            disables caching
+	 */
+	public RangeDecompositionCache(
+			final long maxCachedRanges ) {
+		this(
+				maxCachedRanges,
+				DEFAULT_CONCURRENCY_LEVEL);
+	}
+
+	/**
+	 * @param maxCachedRanges
+	 *            the maximum total number of ranges held by the cache, 0
+	 *            disables caching
+	 * @param concurrencyLevel
+	 *            the number of segments of the cache, the maximum number of
+	 *            ranges is split evenly across the segments so a segment
+	 *            evicts its entries once it holds its share
+	 */
+	RangeDecompositionCache(
+			final long maxCachedRanges,
+			final int concurrencyLevel ) {
+		this.maxCachedRanges = maxCachedRanges;
+		final Weigher<DecompositionCacheKey, RangeDecomposition> rangeCountWeigher = (
+				key,
+				value ) -> Math.max(
+				1,
+				value.getRanges().length);
+		cache = CacheBuilder
+				.newBuilder()
+				.concurrencyLevel(
+						concurrencyLevel)
+				.maximumWeight(
+						maxCachedRanges)
+				.weigher(
+						rangeCountWeigher)
+				.recordStats()
+				.build();
+	}
+
+	public static RangeDecompositionCache getDefault() {
+		RangeDecompositionCache retVal = defaultCache;
+		if (retVal == null) {
+			synchronized (RangeDecompositionCache.class) {
+				retVal = defaultCache;
+				if (retVal == null) {
+					retVal = new RangeDecompositionCache(
+							Long.getLong(
+									MAX_CACHED_RANGES_PROPERTY,
+									DEFAULT_MAX_CACHED_RANGES));
+					defaultCache = retVal;
+				}
+			}
+		}
+		return retVal;
+	}
+
+	public static void setDefault(
+			final RangeDecompositionCache cache ) {
+		defaultCache = cache;
+	}
+
+	/**
+	 * Get the cached decomposition for the query or compute and cache it
+	 *
+	 * @param sfc
+	 *            the space filling curve performing the decomposition
+	 * @param query
+	 *            the query window
+	 * @param overInclusiveOnEdge
+	 *            the edge inclusivity flag passed to the decomposition
+	 * @param maxRanges
+	 *            the maximum ranges passed to the decomposition
+	 * @param decomposer
+	 *            computes the decomposition on a cache miss
+	 * @return the range decomposition
+	 */
+	public RangeDecomposition getOrDecompose(
+			final SpaceFillingCurve sfc,
+			final MultiDimensionalNumericData query,
+			final boolean overInclusiveOnEdge,
+			final int maxRanges,
+			final Supplier<RangeDecomposition> decomposer ) {
+		if (maxCachedRanges <= 0) {
+			return decomposer.get();
+		}
+		final DecompositionCacheKey key = new DecompositionCacheKey(
+				sfc,
+				query.getMinValuesPerDimension(),
+				query.getMaxValuesPerDimension(),
+				overInclusiveOnEdge,
+				maxRanges);
+		RangeDecomposition rangeDecomp = cache.getIfPresent(key);
+		if (rangeDecomp == null) {
+			rangeDecomp = decomposer.get();
+			cache.put(
+					key,
+					rangeDecomp);
+		}
+		return rangeDecomp;
+	}
+
+	public long getMaxCachedRanges() {
+		return maxCachedRanges;
+	}
+
+	public long getHitCount() {
+		return cache.stats().hitCount();
+	}
+
+	public long getMissCount() {
+		return cache.stats().missCount();
+	}
+
+	public long getEvictionCount() {
+		return cache.stats().evictionCount();
+	}
+
+	public long getCachedDecompositionCount() {
+		return cache.size();
+	}
+
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	private static class DecompositionCacheKey
+	{
+		private final SpaceFillingCurve sfc;
+		private final double[] minsPerDimension;
+		private final double[] maxesPerDimension;
+		private final boolean overInclusiveOnEdge;
+		private final int maxRanges;
+		private final int hashCode;
+
+		public DecompositionCacheKey(
+				final SpaceFillingCurve sfc,
+				final double[] minsPerDimension,
+				final double[] maxesPerDimension,
+				final boolean overInclusiveOnEdge,
+				final int maxRanges ) {
+			this.sfc = sfc;
+			this.minsPerDimension = minsPerDimension;
+			this.maxesPerDimension = maxesPerDimension;
+			this.overInclusiveOnEdge = overInclusiveOnEdge;
+			this.maxRanges = maxRanges;
+			hashCode = computeHashCode();
+		}
+
+		private int computeHashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = (prime * result) + maxRanges;
+			result = (prime * result) + Arrays.hashCode(maxesPerDimension);
+			result = (prime * result) + Arrays.hashCode(minsPerDimension);
+			result = (prime * result) + (overInclusiveOnEdge ? 1231 : 1237);
+			result = (prime * result) + sfc.hashCode();
+			return result;
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(
+				final Object obj ) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null) {
+				return false;
+			}
+			if (getClass() != obj.getClass()) {
+				return false;
+			}
+			final DecompositionCacheKey other = (DecompositionCacheKey) obj;
+			if (maxRanges != other.maxRanges) {
+				return false;
+			}
+			if (overInclusiveOnEdge != other.overInclusiveOnEdge) {
+				return false;
+			}
+			if (!Arrays.equals(
+					maxesPerDimension,
+					other.maxesPerDimension)) {
+				return false;
+			}
+			if (!Arrays.equals(
+					minsPerDimension,
+					other.minsPerDimension)) {
+				return false;
+			}
+			return sfc.equals(other.sfc);
+		}
+	}
+}
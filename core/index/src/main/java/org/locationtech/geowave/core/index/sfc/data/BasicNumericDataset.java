@@ -11,10 +11,9 @@
 package org.locationtech.geowave.core.index.sfc.data;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 
+import org.locationtech.geowave.core.index.persist.GrowableByteBuffer;
 import org.locationtech.geowave.core.index.persist.PersistenceUtils;
 
 /**
@@ -138,32 +137,33 @@ public class BasicNumericDataset implements
 
 	@Override
 	public byte[] toBinary() {
-		int totalBytes = 4;
-		final List<byte[]> serializedData = new ArrayList<byte[]>();
-		for (final NumericData data : dataPerDimension) {
-			final byte[] binary = PersistenceUtils.toBinary(data);
-			totalBytes += (binary.length + 4);
-			serializedData.add(binary);
-		}
-		final ByteBuffer buf = ByteBuffer.allocate(totalBytes);
-		buf.putInt(dataPerDimension.length);
-		for (final byte[] binary : serializedData) {
-			buf.putInt(binary.length);
-			buf.put(binary);
-		}
-		return buf.array();
+		return PersistenceUtils.writeBinary(this);
 	}
 
 	@Override
 	public void fromBinary(
 			final byte[] bytes ) {
-		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+		readBinary(ByteBuffer.wrap(bytes));
+	}
+
+	@Override
+	public void writeBinary(
+			final GrowableByteBuffer buf ) {
+		buf.putInt(dataPerDimension.length);
+		for (final NumericData data : dataPerDimension) {
+			PersistenceUtils.toBinaryWithLength(
+					data,
+					buf);
+		}
+	}
+
+	@Override
+	public void readBinary(
+			final ByteBuffer buf ) {
 		final int numDimensions = buf.getInt();
 		dataPerDimension = new NumericData[numDimensions];
 		for (int d = 0; d < numDimensions; d++) {
-			final byte[] binary = new byte[buf.getInt()];
-			buf.get(binary);
-			dataPerDimension[d] = (NumericData) PersistenceUtils.fromBinary(binary);
+			dataPerDimension[d] = (NumericData) PersistenceUtils.fromBinaryWithLength(buf);
 		}
 	}
 }
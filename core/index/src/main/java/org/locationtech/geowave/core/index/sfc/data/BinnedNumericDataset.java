@@ -19,6 +19,7 @@ import java.util.List;
 import org.locationtech.geowave.core.index.ByteArrayUtils;
 import org.locationtech.geowave.core.index.dimension.NumericDimensionDefinition;
 import org.locationtech.geowave.core.index.dimension.bin.BinRange;
+import org.locationtech.geowave.core.index.persist.GrowableByteBuffer;
 import org.locationtech.geowave.core.index.persist.PersistenceUtils;
 
 /**
@@ -201,23 +202,30 @@ public class BinnedNumericDataset implements
 
 	@Override
 	public byte[] toBinary() {
-		final byte[] indexRangesBinary = PersistenceUtils.toBinary(indexRanges);
-		final ByteBuffer buf = ByteBuffer.allocate(4 + indexRangesBinary.length + binId.length);
-		buf.putInt(binId.length);
-		buf.put(binId);
-		buf.put(indexRangesBinary);
-		return null;
+		return PersistenceUtils.writeBinary(this);
 	}
 
 	@Override
 	public void fromBinary(
 			final byte[] bytes ) {
-		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+		readBinary(ByteBuffer.wrap(bytes));
+	}
+
+	@Override
+	public void writeBinary(
+			final GrowableByteBuffer buf ) {
+		buf.putInt(binId.length);
+		buf.put(binId);
+		PersistenceUtils.toBinary(
+				indexRanges,
+				buf);
+	}
+
+	@Override
+	public void readBinary(
+			final ByteBuffer buf ) {
 		binId = new byte[buf.getInt()];
 		buf.get(binId);
-
-		final byte[] indexRangesBinary = new byte[bytes.length - 5 - binId.length];
-		buf.get(indexRangesBinary);
-		indexRanges = (MultiDimensionalNumericData) PersistenceUtils.fromBinary(indexRangesBinary);
+		indexRanges = (MultiDimensionalNumericData) PersistenceUtils.fromBinary(buf);
 	}
 }
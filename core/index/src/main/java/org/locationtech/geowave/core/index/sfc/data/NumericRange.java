@@ -11,6 +11,8 @@
 package org.locationtech.geowave.core.index.sfc.data;
 
 import java.nio.ByteBuffer;
+import org.locationtech.geowave.core.index.persist.GrowableByteBuffer;
+import org.locationtech.geowave.core.index.persist.PersistenceUtils;
 
 /**
  * Concrete implementation defining a numeric range associated with a space
@@ -115,16 +117,25 @@ public class NumericRange implements
 
 	@Override
 	public byte[] toBinary() {
-		final ByteBuffer buf = ByteBuffer.allocate(16);
-		buf.putDouble(min);
-		buf.putDouble(max);
-		return buf.array();
+		return PersistenceUtils.writeBinary(this);
 	}
 
 	@Override
 	public void fromBinary(
 			final byte[] bytes ) {
-		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+		readBinary(ByteBuffer.wrap(bytes));
+	}
+
+	@Override
+	public void writeBinary(
+			final GrowableByteBuffer buf ) {
+		buf.putDouble(min);
+		buf.putDouble(max);
+	}
+
+	@Override
+	public void readBinary(
+			final ByteBuffer buf ) {
 		min = buf.getDouble();
 		max = buf.getDouble();
 	}
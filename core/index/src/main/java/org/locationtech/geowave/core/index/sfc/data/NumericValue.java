@@ -11,6 +11,8 @@
 package org.locationtech.geowave.core.index.sfc.data;
 
 import java.nio.ByteBuffer;
+import org.locationtech.geowave.core.index.persist.GrowableByteBuffer;
+import org.locationtech.geowave.core.index.persist.PersistenceUtils;
 
 /**
  * Concrete implementation defining a single numeric value associated with a
@@ -109,15 +111,24 @@ public class NumericValue implements
 
 	@Override
 	public byte[] toBinary() {
-		final ByteBuffer buf = ByteBuffer.allocate(8);
-		buf.putDouble(value);
-		return buf.array();
+		return PersistenceUtils.writeBinary(this);
 	}
 
 	@Override
 	public void fromBinary(
 			final byte[] bytes ) {
-		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+		readBinary(ByteBuffer.wrap(bytes));
+	}
+
+	@Override
+	public void writeBinary(
+			final GrowableByteBuffer buf ) {
+		buf.putDouble(value);
+	}
+
+	@Override
+	public void readBinary(
+			final ByteBuffer buf ) {
 		value = buf.getDouble();
 	}
 }
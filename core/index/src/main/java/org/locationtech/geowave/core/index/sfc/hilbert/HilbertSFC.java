@@ -10,18 +10,16 @@
  ******************************************************************************/
 package org.locationtech.geowave.core.index.sfc.hilbert;
 
-import java.io.Serializable;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.locationtech.geowave.core.index.ByteArrayUtils;
 import org.locationtech.geowave.core.index.persist.PersistenceUtils;
 import org.locationtech.geowave.core.index.sfc.RangeDecomposition;
+import org.locationtech.geowave.core.index.sfc.RangeDecompositionCache;
 import org.locationtech.geowave.core.index.sfc.SFCDimensionDefinition;
 import org.locationtech.geowave.core.index.sfc.SpaceFillingCurve;
 import org.locationtech.geowave.core.index.sfc.data.MultiDimensionalNumericData;
@@ -36,82 +34,10 @@ import com.google.uzaygezen.core.MultiDimensionalSpec;
 public class HilbertSFC implements
 		SpaceFillingCurve
 {
-	private static class QueryCacheKey
-	{
-		private final double[] minsPerDimension;
-		private final double[] maxesPerDimension;
-		private final boolean overInclusiveOnEdge;
-		private final int maxFilteredIndexedRanges;
-
-		public QueryCacheKey(
-				final double[] minsPerDimension,
-				final double[] maxesPerDimension,
-				final boolean overInclusiveOnEdge,
-				final int maxFilteredIndexedRanges ) {
-			this.minsPerDimension = minsPerDimension;
-			this.maxesPerDimension = maxesPerDimension;
-			this.overInclusiveOnEdge = overInclusiveOnEdge;
-			this.maxFilteredIndexedRanges = maxFilteredIndexedRanges;
-		}
-
-		@Override
-		public int hashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = (prime * result) + maxFilteredIndexedRanges;
-			result = (prime * result) + Arrays.hashCode(maxesPerDimension);
-			result = (prime * result) + Arrays.hashCode(minsPerDimension);
-			result = (prime * result) + (overInclusiveOnEdge ? 1231 : 1237);
-			return result;
-		}
-
-		@Override
-		public boolean equals(
-				final Object obj ) {
-			if (this == obj) {
-				return true;
-			}
-			if (obj == null) {
-				return false;
-			}
-			if (getClass() != obj.getClass()) {
-				return false;
-			}
-			final QueryCacheKey other = (QueryCacheKey) obj;
-			if (maxFilteredIndexedRanges != other.maxFilteredIndexedRanges) {
-				return false;
-			}
-			if (!Arrays.equals(
-					maxesPerDimension,
-					other.maxesPerDimension)) {
-				return false;
-			}
-			if (!Arrays.equals(
-					minsPerDimension,
-					other.minsPerDimension)) {
-				return false;
-			}
-			if (overInclusiveOnEdge != other.overInclusiveOnEdge) {
-				return false;
-			}
-			return true;
-		}
-	}
-
-	private static final int MAX_CACHED_QUERIES = 500;
-	private final Map<QueryCacheKey, RangeDecomposition> queryDecompositionCache = new LinkedHashMap<QueryCacheKey, RangeDecomposition>(
-			MAX_CACHED_QUERIES + 1,
-			.75F,
-			true) {
-		private static final long serialVersionUID = 1L;
-
-		@Override
-		public boolean removeEldestEntry(
-				final Map.Entry<QueryCacheKey, RangeDecomposition> eldest ) {
-			return size() > MAX_CACHED_QUERIES;
-		}
-	};
 	protected CompactHilbertCurve compactHilbertCurve;
+	// CompactHilbertCurve keeps mutable scratch state while indexing, so rather
+	// than serializing every caller on one instance each thread gets its own
+	private ThreadLocal<CompactHilbertCurve> threadLocalCurves;
 	protected SFCDimensionDefinition[] dimensionDefinitions;
 	protected int totalPrecision;
 
@@ -142,9 +68,12 @@ public class HilbertSFC implements
 			totalPrecision += dimension.getBitsOfPrecision();
 		}
 
+		final MultiDimensionalSpec spec = new MultiDimensionalSpec(
+				bitsPerDimension);
 		compactHilbertCurve = new CompactHilbertCurve(
-				new MultiDimensionalSpec(
-						bitsPerDimension));
+				spec);
+		threadLocalCurves = ThreadLocal.withInitial(() -> new CompactHilbertCurve(
+				spec));
 
 		dimensionDefinitions = dimensionDefs;
 		setOptimalOperations(
@@ -195,6 +124,17 @@ public class HilbertSFC implements
 		}
 	}
 
+	/**
+	 * Get the compact Hilbert curve instance owned by the calling thread. The
+	 * operations are free to mutate the curve's internal state without any
+	 * synchronization as long as they are given the curve returned here.
+	 *
+	 * @return the compact Hilbert curve for the current thread
+	 */
+	protected CompactHilbertCurve getThreadLocalCurve() {
+		return threadLocalCurves.get();
+	}
+
 	/***
 	 * {@inheritDoc}
 	 */
@@ -203,7 +143,7 @@ public class HilbertSFC implements
 			final double[] values ) {
 		return getIdOperations.convertToHilbert(
 				values,
-				compactHilbertCurve,
+				getThreadLocalCurve(),
 				dimensionDefinitions);
 	}
 
@@ -227,30 +167,21 @@ public class HilbertSFC implements
 	public RangeDecomposition decomposeRange(
 			final MultiDimensionalNumericData query,
 			final boolean overInclusiveOnEdge,
-			int maxFilteredIndexedRanges ) {
-		if (maxFilteredIndexedRanges == -1) {
-			maxFilteredIndexedRanges = Integer.MAX_VALUE;
-		}
-		final QueryCacheKey key = new QueryCacheKey(
-				query.getMinValuesPerDimension(),
-				query.getMaxValuesPerDimension(),
+			final int maxFilteredIndexedRanges ) {
+		final int maxRanges = (maxFilteredIndexedRanges == -1) ? Integer.MAX_VALUE : maxFilteredIndexedRanges;
+		return RangeDecompositionCache.getDefault().getOrDecompose(
+				this,
+				query,
 				overInclusiveOnEdge,
-				maxFilteredIndexedRanges);
-		RangeDecomposition rangeDecomp = queryDecompositionCache.get(key);
-		if (rangeDecomp == null) {
-			rangeDecomp = decomposeQueryOperations.decomposeRange(
-					query.getDataPerDimension(),
-					compactHilbertCurve,
-					dimensionDefinitions,
-					totalPrecision,
-					maxFilteredIndexedRanges,
-					REMOVE_VACUUM,
-					overInclusiveOnEdge);
-			queryDecompositionCache.put(
-					key,
-					rangeDecomp);
-		}
-		return rangeDecomp;
+				maxRanges,
+				() -> decomposeQueryOperations.decomposeRange(
+						query.getDataPerDimension(),
+						getThreadLocalCurve(),
+						dimensionDefinitions,
+						totalPrecision,
+						maxRanges,
+						REMOVE_VACUUM,
+						overInclusiveOnEdge));
 	}
 
 	protected static byte[] fitExpectedByteCount(
@@ -365,7 +296,7 @@ public class HilbertSFC implements
 			final byte[] id ) {
 		return getIdOperations.convertFromHilbert(
 				id,
-				compactHilbertCurve,
+				getThreadLocalCurve(),
 				dimensionDefinitions);
 	}
 
@@ -386,7 +317,7 @@ public class HilbertSFC implements
 			final byte[] id ) {
 		return getIdOperations.indicesFromHilbert(
 				id,
-				compactHilbertCurve,
+				getThreadLocalCurve(),
 				dimensionDefinitions);
 	}
 
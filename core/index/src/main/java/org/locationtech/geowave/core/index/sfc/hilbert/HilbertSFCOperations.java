@@ -26,6 +26,10 @@ import com.google.uzaygezen.core.CompactHilbertCurve;
  * adequately represented by primitives) and non-primitive based operations for
  * unbounded bits of precision.
  *
+ * CompactHilbertCurve is not thread-safe, so implementations assume the curve
+ * they are given is confined to the calling thread for the duration of the
+ * call.
+ *
  */
 public interface HilbertSFCOperations
 {
@@ -50,6 +50,9 @@ import com.google.uzaygezen.core.ranges.LongRangeHome;
  * for query decomposition it is currently used if the total precision is <= 62
  * bits.
  *
+ * These operations hold no lock on the compact Hilbert curve, the caller is
+ * responsible for never passing the same curve instance from multiple threads
+ * concurrently (HilbertSFC hands out a curve per thread).
  *
  */
 public class PrimitiveHilbertSFCOperations implements
@@ -140,12 +143,10 @@ public class PrimitiveHilbertSFCOperations implements
 			bitVectors[i] = BitVectorFactories.OPTIMAL.apply(dimensionDefinitions[i].getBitsOfPrecision());
 			bitVectors[i].copyFrom(values.get(i));
 		}
-		synchronized (compactHilbertCurve) {
-			compactHilbertCurve.index(
-					bitVectors,
-					0,
-					hilbertBitVector);
-		}
+		compactHilbertCurve.index(
+				bitVectors,
+				0,
+				hilbertBitVector);
 		return hilbertBitVector;
 	}
 
@@ -216,11 +217,9 @@ public class PrimitiveHilbertSFCOperations implements
 			perDimensionBitVectors[i] = BitVectorFactories.OPTIMAL.apply(dimensionDefinitions[i].getBitsOfPrecision());
 		}
 
-		synchronized (compactHilbertCurve) {
-			compactHilbertCurve.indexInverse(
-					hilbertBitVector,
-					perDimensionBitVectors);
-		}
+		compactHilbertCurve.indexInverse(
+				hilbertBitVector,
+				perDimensionBitVectors);
 		return perDimensionBitVectors;
 	}
 
@@ -390,11 +389,9 @@ public class PrimitiveHilbertSFCOperations implements
 				removeVacuum,
 				LongRangeHome.INSTANCE,
 				zero);
-		synchronized (compactHilbertCurve) {
-			compactHilbertCurve.accept(new ZoomingSpaceVisitorAdapter(
-					compactHilbertCurve,
-					queryBuilder));
-		}
+		compactHilbertCurve.accept(new ZoomingSpaceVisitorAdapter(
+				compactHilbertCurve,
+				queryBuilder));
 		final List<FilteredIndexRange<LongRange, LongRange>> hilbertRanges = queryBuilder
 				.get()
 				.getFilteredIndexRanges();
@@ -39,6 +39,7 @@ import org.locationtech.geowave.core.index.SinglePartitionQueryRanges;
 import org.locationtech.geowave.core.index.StringUtils;
 import org.locationtech.geowave.core.index.dimension.NumericDimensionDefinition;
 import org.locationtech.geowave.core.index.dimension.bin.BinRange;
+import org.locationtech.geowave.core.index.persist.GrowableByteBuffer;
 import org.locationtech.geowave.core.index.persist.PersistenceUtils;
 import org.locationtech.geowave.core.index.sfc.RangeDecomposition;
 import org.locationtech.geowave.core.index.sfc.SpaceFillingCurve;
@@ -480,46 +481,42 @@ public class TieredSFCIndexStrategy implements
 
 	@Override
 	public byte[] toBinary() {
-		int byteBufferLength = 20 + (2 * orderedSfcIndexToTierId.size());
-		final List<byte[]> orderedSfcBinaries = new ArrayList<byte[]>(
-				orderedSfcs.length);
-		final List<byte[]> dimensionBinaries = new ArrayList<byte[]>(
-				baseDefinitions.length);
-		for (final SpaceFillingCurve sfc : orderedSfcs) {
-			final byte[] sfcBinary = PersistenceUtils.toBinary(sfc);
-			byteBufferLength += (4 + sfcBinary.length);
-			orderedSfcBinaries.add(sfcBinary);
-		}
-		for (final NumericDimensionDefinition dimension : baseDefinitions) {
-			final byte[] dimensionBinary = PersistenceUtils.toBinary(dimension);
-			byteBufferLength += (4 + dimensionBinary.length);
-			dimensionBinaries.add(dimensionBinary);
-		}
-		final ByteBuffer buf = ByteBuffer.allocate(byteBufferLength);
+		return PersistenceUtils.writeBinary(this);
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		readBinary(ByteBuffer.wrap(bytes));
+	}
+
+	@Override
+	public void writeBinary(
+			final GrowableByteBuffer buf ) {
+		buf.ensureRemaining(20 + (2 * orderedSfcIndexToTierId.size()));
 		buf.putInt(orderedSfcs.length);
 		buf.putInt(baseDefinitions.length);
 		buf.putInt(orderedSfcIndexToTierId.size());
 		buf.putLong(maxEstimatedDuplicateIdsPerDimension);
-		for (final byte[] sfcBinary : orderedSfcBinaries) {
-			buf.putInt(sfcBinary.length);
-			buf.put(sfcBinary);
+		for (final SpaceFillingCurve sfc : orderedSfcs) {
+			PersistenceUtils.toBinaryWithLength(
+					sfc,
+					buf);
 		}
-		for (final byte[] dimensionBinary : dimensionBinaries) {
-			buf.putInt(dimensionBinary.length);
-			buf.put(dimensionBinary);
+		for (final NumericDimensionDefinition dimension : baseDefinitions) {
+			PersistenceUtils.toBinaryWithLength(
+					dimension,
+					buf);
 		}
 		for (final Entry<Integer, Byte> entry : orderedSfcIndexToTierId.entrySet()) {
 			buf.put(entry.getKey().byteValue());
 			buf.put(entry.getValue());
 		}
-
-		return buf.array();
 	}
 
 	@Override
-	public void fromBinary(
-			final byte[] bytes ) {
-		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+	public void readBinary(
+			final ByteBuffer buf ) {
 		final int numSfcs = buf.getInt();
 		final int numDimensions = buf.getInt();
 		final int mappingSize = buf.getInt();
@@ -527,14 +524,10 @@ public class TieredSFCIndexStrategy implements
 		orderedSfcs = new SpaceFillingCurve[numSfcs];
 		baseDefinitions = new NumericDimensionDefinition[numDimensions];
 		for (int i = 0; i < numSfcs; i++) {
-			final byte[] sfc = new byte[buf.getInt()];
-			buf.get(sfc);
-			orderedSfcs[i] = (SpaceFillingCurve) PersistenceUtils.fromBinary(sfc);
+			orderedSfcs[i] = (SpaceFillingCurve) PersistenceUtils.fromBinaryWithLength(buf);
 		}
 		for (int i = 0; i < numDimensions; i++) {
-			final byte[] dim = new byte[buf.getInt()];
-			buf.get(dim);
-			baseDefinitions[i] = (NumericDimensionDefinition) PersistenceUtils.fromBinary(dim);
+			baseDefinitions[i] = (NumericDimensionDefinition) PersistenceUtils.fromBinaryWithLength(buf);
 		}
 		final Builder<Integer, Byte> bimapBuilder = ImmutableBiMap.builder();
 		for (int i = 0; i < mappingSize; i++) {
@@ -24,6 +24,7 @@ import org.locationtech.geowave.core.index.ByteArrayUtils;
 import org.locationtech.geowave.core.index.ByteArrayRange.MergeOperation;
 import org.locationtech.geowave.core.index.persist.PersistenceUtils;
 import org.locationtech.geowave.core.index.sfc.RangeDecomposition;
+import org.locationtech.geowave.core.index.sfc.RangeDecompositionCache;
 import org.locationtech.geowave.core.index.sfc.SFCDimensionDefinition;
 import org.locationtech.geowave.core.index.sfc.SpaceFillingCurve;
 import org.locationtech.geowave.core.index.sfc.data.BasicNumericDataset;
@@ -360,8 +361,21 @@ public class XZOrderSFC implements
 
 	@Override
 	public RangeDecomposition decomposeRange(
+			final MultiDimensionalNumericData query,
+			final boolean overInclusiveOnEdge,
+			final int maxRanges ) {
+		return RangeDecompositionCache.getDefault().getOrDecompose(
+				this,
+				query,
+				overInclusiveOnEdge,
+				maxRanges,
+				() -> decomposeRangeInternal(
+						query,
+						maxRanges));
+	}
+
+	private RangeDecomposition decomposeRangeInternal(
 			MultiDimensionalNumericData query,
-			boolean overInclusiveOnEdge,
 			int maxRanges ) {
 
 		// normalize query values
@@ -553,6 +567,38 @@ public class XZOrderSFC implements
 		init();
 	}
 
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		final String className = getClass().getName();
+		result = (prime * result) + ((className == null) ? 0 : className.hashCode());
+		result = (prime * result) + Arrays.hashCode(dimensionDefs);
+		return result;
+	}
+
+	@Override
+	public boolean equals(
+			final Object obj ) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		final XZOrderSFC other = (XZOrderSFC) obj;
+
+		if (!Arrays.equals(
+				dimensionDefs,
+				other.dimensionDefs)) {
+			return false;
+		}
+		return true;
+	}
+
 	@Override
 	public double[] getInsertionIdRangePerDimension() {
 		double normalizedSize = Math.pow(
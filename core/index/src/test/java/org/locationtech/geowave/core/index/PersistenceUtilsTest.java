@@ -10,14 +10,20 @@
  ******************************************************************************/
 package org.locationtech.geowave.core.index;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.locationtech.geowave.core.index.persist.GrowableByteBuffer;
 import org.locationtech.geowave.core.index.persist.Persistable;
 import org.locationtech.geowave.core.index.persist.PersistenceUtils;
+import org.locationtech.geowave.core.index.sfc.data.BasicNumericDataset;
+import org.locationtech.geowave.core.index.sfc.data.NumericData;
+import org.locationtech.geowave.core.index.sfc.data.NumericRange;
+import org.locationtech.geowave.core.index.sfc.data.NumericValue;
 
 public class PersistenceUtilsTest
 {
@@ -63,4 +69,74 @@ public class PersistenceUtilsTest
 					persistable
 				}))).size() == 2);
 	}
+
+	@Test
+	public void testNestedRoundTrip() {
+		final BasicNumericDataset dataset = new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							-10,
+							20),
+					new NumericValue(
+							5)
+				});
+		final byte[] binary = PersistenceUtils.toBinary(dataset);
+		Assert.assertEquals(
+				dataset,
+				PersistenceUtils.fromBinary(binary));
+
+		// the same bytes can be read from the middle of a larger buffer
+		final GrowableByteBuffer buf = new GrowableByteBuffer();
+		buf.putInt(42);
+		PersistenceUtils.toBinaryWithLength(
+				dataset,
+				buf);
+		buf.putInt(43);
+		final ByteBuffer readBuf = buf.asReadOnlyBuffer();
+		Assert.assertEquals(
+				42,
+				readBuf.getInt());
+		Assert.assertEquals(
+				dataset,
+				PersistenceUtils.fromBinaryWithLength(readBuf));
+		Assert.assertEquals(
+				43,
+				readBuf.getInt());
+	}
+
+	@Test
+	public void testLegacyLayout() {
+		final NumericRange range = new NumericRange(
+				-10,
+				20);
+		final ByteBuffer legacy = ByteBuffer.allocate(16);
+		legacy.putDouble(-10);
+		legacy.putDouble(20);
+		Assert.assertArrayEquals(
+				legacy.array(),
+				range.toBinary());
+
+		final InsertionIds ids = new InsertionIds(
+				Arrays.asList(
+						new SinglePartitionInsertionIds(
+								new ByteArray(
+										"a"),
+								Arrays.asList(
+										new ByteArray(
+												"1"),
+										new ByteArray(
+												"2"))),
+						new SinglePartitionInsertionIds(
+								new ByteArray(
+										"b"),
+								new ByteArray(
+										"3"))));
+		final InsertionIds readIds = new InsertionIds();
+		readIds.fromBinary(ids.toBinary());
+		Assert.assertEquals(
+				new ArrayList<>(
+						ids.getPartitionKeys()),
+				new ArrayList<>(
+						readIds.getPartitionKeys()));
+	}
 }
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *   
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.index.sfc;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.locationtech.geowave.core.index.ByteArray;
+import org.locationtech.geowave.core.index.ByteArrayRange;
+import org.locationtech.geowave.core.index.dimension.BasicDimensionDefinition;
+import org.locationtech.geowave.core.index.sfc.data.BasicNumericDataset;
+import org.locationtech.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import org.locationtech.geowave.core.index.sfc.data.NumericData;
+import org.locationtech.geowave.core.index.sfc.data.NumericRange;
+import org.locationtech.geowave.core.index.sfc.zorder.ZOrderSFC;
+
+public class RangeDecompositionCacheTest
+{
+	private static final SpaceFillingCurve SFC = new ZOrderSFC(
+			new SFCDimensionDefinition[] {
+				new SFCDimensionDefinition(
+						new BasicDimensionDefinition(
+								-180.0,
+								180.0),
+						20),
+				new SFCDimensionDefinition(
+						new BasicDimensionDefinition(
+								-90.0,
+								90.0),
+						20)
+			});
+
+	@Test
+	public void testHitsAndMisses() {
+		final RangeDecompositionCache cache = new RangeDecompositionCache(
+				100);
+		final AtomicInteger decompositions = new AtomicInteger();
+		for (int i = 0; i < 3; i++) {
+			cache.getOrDecompose(
+					SFC,
+					query(0),
+					true,
+					-1,
+					() -> {
+						decompositions.incrementAndGet();
+						return decomposition(10);
+					});
+		}
+		Assert.assertEquals(
+				1,
+				decompositions.get());
+		Assert.assertEquals(
+				1,
+				cache.getMissCount());
+		Assert.assertEquals(
+				2,
+				cache.getHitCount());
+	}
+
+	@Test
+	public void testEvictionByRangeCount() {
+		// a single segment holds the whole capacity, with more segments each
+		// one only holds its share of it
+		final RangeDecompositionCache cache = new RangeDecompositionCache(
+				100,
+				1);
+		for (int i = 0; i < 10; i++) {
+			cache.getOrDecompose(
+					SFC,
+					query(i),
+					true,
+					-1,
+					() -> decomposition(40));
+		}
+		// two decompositions of 40 ranges fit in 100 ranges
+		Assert.assertEquals(
+				2,
+				cache.getCachedDecompositionCount());
+		Assert.assertEquals(
+				8,
+				cache.getEvictionCount());
+
+		// the most recent decompositions are kept
+		final AtomicInteger decompositions = new AtomicInteger();
+		for (int i = 8; i < 10; i++) {
+			cache.getOrDecompose(
+					SFC,
+					query(i),
+					true,
+					-1,
+					() -> {
+						decompositions.incrementAndGet();
+						return decomposition(40);
+					});
+		}
+		Assert.assertEquals(
+				0,
+				decompositions.get());
+	}
+
+	private static MultiDimensionalNumericData query(
+			final int offset ) {
+		return new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							offset,
+							offset + 1),
+					new NumericRange(
+							offset,
+							offset + 1)
+				});
+	}
+
+	private static RangeDecomposition decomposition(
+			final int rangeCount ) {
+		final ByteArrayRange[] ranges = new ByteArrayRange[rangeCount];
+		for (int i = 0; i < rangeCount; i++) {
+			ranges[i] = new ByteArrayRange(
+					new ByteArray(
+							new byte[] {
+								(byte) i
+							}),
+					new ByteArray(
+							new byte[] {
+								(byte) i
+							}));
+		}
+		return new RangeDecomposition(
+				ranges);
+	}
+}
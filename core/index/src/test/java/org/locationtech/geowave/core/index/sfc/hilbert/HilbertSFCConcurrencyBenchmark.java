@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *   
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.index.sfc.hilbert;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures Hilbert encoding throughput with a single HilbertSFC shared by an
+ * increasing number of threads. Throughput should scale roughly linearly with
+ * the thread count now that encoding does not contend on a shared curve.
+ *
+ * Run with the test classpath, for example from an IDE, using the main method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HilbertSFCConcurrencyBenchmark
+{
+	@Param({
+		"20",
+		"31"
+	})
+	public int bitsPerDimension;
+
+	private HilbertSFC sfc;
+
+	@Setup
+	public void setup() {
+		sfc = HilbertSFCConcurrencyTest.createSFC(bitsPerDimension);
+	}
+
+	@Benchmark
+	public byte[] getId() {
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		return sfc.getId(new double[] {
+			(random.nextDouble() * 360) - 180,
+			(random.nextDouble() * 180) - 90
+		});
+	}
+
+	public static void main(
+			final String[] args )
+			throws RunnerException {
+		for (final int threads : new int[] {
+			1,
+			2,
+			4,
+			8,
+			16,
+			32
+		}) {
+			final Options opt = new OptionsBuilder()
+					.include(
+							HilbertSFCConcurrencyBenchmark.class.getSimpleName())
+					.threads(
+							threads)
+					.build();
+			new Runner(
+					opt).run();
+		}
+	}
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *   
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.index.sfc.hilbert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.locationtech.geowave.core.index.dimension.BasicDimensionDefinition;
+import org.locationtech.geowave.core.index.sfc.SFCDimensionDefinition;
+
+public class HilbertSFCConcurrencyTest
+{
+	private static final int THREADS = 8;
+	private static final int VALUES_PER_THREAD = 10000;
+	private static final int BITS_PER_DIMENSION = 31;
+
+	@Test
+	public void testConcurrentGetIdMatchesSerial()
+			throws Exception {
+		final HilbertSFC sfc = createSFC(BITS_PER_DIMENSION);
+		final double[][] values = createValues();
+		final byte[][] expected = new byte[values.length][];
+		final long[][] expectedCoordinates = new long[values.length][];
+		for (int i = 0; i < values.length; i++) {
+			expected[i] = sfc.getId(values[i]);
+			expectedCoordinates[i] = getCellCoordinates(values[i]);
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				final int offset = t * VALUES_PER_THREAD;
+				futures.add(executor.submit(() -> {
+					for (int i = offset; i < (offset + VALUES_PER_THREAD); i++) {
+						final byte[] id = sfc.getId(values[i]);
+						Assert.assertArrayEquals(
+								expected[i],
+								id);
+						Assert.assertArrayEquals(
+								expectedCoordinates[i],
+								sfc.getCoordinates(id));
+					}
+				}));
+			}
+			for (final Future<?> f : futures) {
+				f.get();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static double[][] createValues() {
+		final Random random = new Random(
+				42);
+		final double[][] values = new double[THREADS * VALUES_PER_THREAD][];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = new double[] {
+				(random.nextDouble() * 360) - 180,
+				(random.nextDouble() * 180) - 90
+			};
+		}
+		return values;
+	}
+
+	/**
+	 * the cell of each value along its dimension, computed from the bounds of
+	 * the dimensions rather than by the curve
+	 */
+	private static long[] getCellCoordinates(
+			final double[] value ) {
+		final long bins = 1L << BITS_PER_DIMENSION;
+		return new long[] {
+			getCell(
+					(value[0] + 180.0) / 360.0,
+					bins),
+			getCell(
+					(value[1] + 90.0) / 180.0,
+					bins)
+		};
+	}
+
+	private static long getCell(
+			final double normalizedValue,
+			final long bins ) {
+		// the upper edge of a cell belongs to that cell
+		return (long) Math.max(
+				Math.ceil(normalizedValue * bins) - 1L,
+				0);
+	}
+
+	protected static HilbertSFC createSFC(
+			final int bitsPerDimension ) {
+		return new HilbertSFC(
+				new SFCDimensionDefinition[] {
+					new SFCDimensionDefinition(
+							new BasicDimensionDefinition(
+									-180.0,
+									180.0),
+							bitsPerDimension),
+					new SFCDimensionDefinition(
+							new BasicDimensionDefinition(
+									-90.0,
+									90.0),
+							bitsPerDimension)
+				});
+	}
+}
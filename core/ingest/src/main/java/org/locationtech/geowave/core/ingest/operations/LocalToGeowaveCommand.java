@@ -59,6 +59,9 @@ public class LocalToGeowaveCommand extends
 	}, description = "number of threads to use for ingest, default to 1 (optional)")
 	private int threads = 1;
 
+	@Parameter(names = "--bulkIngest", description = "Write sorted files that are loaded into the data store, rather than writing each entry, for data stores that support it (optional)")
+	private boolean bulkIngest = false;
+
 	private DataStorePluginOptions inputStoreOptions = null;
 
 	private List<IndexPluginOptions> inputIndexOptions = null;
@@ -137,6 +140,15 @@ public class LocalToGeowaveCommand extends
 		this.threads = threads;
 	}
 
+	public boolean isBulkIngest() {
+		return bulkIngest;
+	}
+
+	public void setBulkIngest(
+			final boolean bulkIngest ) {
+		this.bulkIngest = bulkIngest;
+	}
+
 	public DataStorePluginOptions getInputStoreOptions() {
 		return inputStoreOptions;
 	}
@@ -168,6 +180,9 @@ public class LocalToGeowaveCommand extends
 					"Cannot find store name: " + inputStoreLoader.getStoreName());
 		}
 		inputStoreOptions = inputStoreLoader.getDataStorePlugin();
+		if (bulkIngest) {
+			inputStoreOptions.setBulkIngest(true);
+		}
 
 		final IndexLoader indexLoader = new IndexLoader(
 				indexList);
@@ -62,6 +62,9 @@ public class LocalToMapReduceToGeowaveCommand extends
 	@ParametersDelegate
 	private IngestFormatPluginOptions pluginFormats = new IngestFormatPluginOptions();
 
+	@Parameter(names = "--bulkIngest", description = "Write sorted files that are loaded into the data store, rather than writing each entry, for data stores that support it (optional)")
+	private boolean bulkIngest = false;
+
 	private DataStorePluginOptions inputStoreOptions = null;
 
 	private List<IndexPluginOptions> inputIndexOptions = null;
@@ -116,6 +119,15 @@ public class LocalToMapReduceToGeowaveCommand extends
 		parameters.add(indexList);
 	}
 
+	public boolean isBulkIngest() {
+		return bulkIngest;
+	}
+
+	public void setBulkIngest(
+			final boolean bulkIngest ) {
+		this.bulkIngest = bulkIngest;
+	}
+
 	public DataStorePluginOptions getInputStoreOptions() {
 		return inputStoreOptions;
 	}
@@ -186,6 +198,9 @@ public class LocalToMapReduceToGeowaveCommand extends
 					"Cannot find store name: " + inputStoreLoader.getStoreName());
 		}
 		inputStoreOptions = inputStoreLoader.getDataStorePlugin();
+		if (bulkIngest) {
+			inputStoreOptions.setBulkIngest(true);
+		}
 
 		final IndexLoader indexLoader = new IndexLoader(
 				indexList);
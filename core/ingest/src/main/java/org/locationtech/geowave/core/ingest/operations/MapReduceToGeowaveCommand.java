@@ -60,6 +60,9 @@ public class MapReduceToGeowaveCommand extends
 	@ParametersDelegate
 	private IngestFormatPluginOptions pluginFormats = new IngestFormatPluginOptions();
 
+	@Parameter(names = "--bulkIngest", description = "Write sorted files that are loaded into the data store, rather than writing each entry, for data stores that support it (optional)")
+	private boolean bulkIngest = false;
+
 	private DataStorePluginOptions inputStoreOptions = null;
 
 	private List<IndexPluginOptions> inputIndexOptions = null;
@@ -151,6 +154,15 @@ public class MapReduceToGeowaveCommand extends
 		this.pluginFormats = pluginFormats;
 	}
 
+	public boolean isBulkIngest() {
+		return bulkIngest;
+	}
+
+	public void setBulkIngest(
+			final boolean bulkIngest ) {
+		this.bulkIngest = bulkIngest;
+	}
+
 	public DataStorePluginOptions getInputStoreOptions() {
 		return inputStoreOptions;
 	}
@@ -184,6 +196,9 @@ public class MapReduceToGeowaveCommand extends
 					"Cannot find store name: " + inputStoreLoader.getStoreName());
 		}
 		inputStoreOptions = inputStoreLoader.getDataStorePlugin();
+		if (bulkIngest) {
+			inputStoreOptions.setBulkIngest(true);
+		}
 
 		final IndexLoader indexLoader = new IndexLoader(
 				indexList);
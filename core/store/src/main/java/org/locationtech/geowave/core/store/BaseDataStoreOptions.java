@@ -10,6 +10,8 @@
  ******************************************************************************/
 package org.locationtech.geowave.core.store;
 
+import org.locationtech.geowave.core.store.query.filter.DedupeFilter;
+
 import com.beust.jcommander.Parameter;
 
 public class BaseDataStoreOptions implements
@@ -30,6 +32,36 @@ public class BaseDataStoreOptions implements
 	@Parameter(names = "--aggregationMaxRangeDecomposition", arity = 1)
 	protected int configuredAggregationMaxRangeDecomposition = Integer.MIN_VALUE;
 
+	@Parameter(names = "--writerEncodeThreads", arity = 1, description = "The number of threads a writer uses to encode entries in parallel, 0 encodes within the calling thread")
+	protected int writerEncodeThreads = 0;
+
+	@Parameter(names = "--writerQueueSize", arity = 1, description = "The maximum number of encoded entries a parallel writer will buffer before blocking")
+	protected int writerQueueSize = 1000;
+
+	@Parameter(names = "--dedupeFalsePositiveRate", arity = 1, description = "When greater than 0, queries deduplicate data IDs with a Bloom filter of bounded size that drops about this fraction of unique rows, 0 deduplicates exactly")
+	protected double dedupeFalsePositiveRate = 0;
+
+	@Parameter(names = "--dedupeExpectedDataIds", arity = 1, description = "The number of distinct data IDs the deduplication Bloom filter is sized for")
+	protected long dedupeExpectedDataIds = DedupeFilter.DEFAULT_EXPECTED_DATA_IDS;
+
+	@Parameter(names = "--metadataCacheSize", arity = 1, description = "The maximum number of metadata objects, such as adapters and indices, each metadata store caches")
+	protected int metadataCacheSize = 100;
+
+	@Parameter(names = "--metadataCacheTtl", arity = 1, description = "The number of milliseconds a cached metadata object is used before it is read again, 0 keeps it until it is evicted")
+	protected long metadataCacheTtlMillis = 0;
+
+	@Parameter(names = "--metadataCacheMissingTtl", arity = 1, description = "The number of milliseconds a metadata object that was not found is remembered as missing, 0 looks it up every time")
+	protected long metadataCacheMissingTtlMillis = 5000;
+
+	@Parameter(names = "--metadataVersionCheckInterval", arity = 1, description = "The number of milliseconds between checks of the metadata version written by other processes, which clear the cache when it changes, 0 disables the check")
+	protected long metadataVersionCheckMillis = 10000;
+
+	@Parameter(names = "--bulkIngest", arity = 1, description = "Whether writers produce sorted files that are loaded into the store when they are flushed or closed, rather than writing each entry.  Only supported by HBase and RocksDB, other stores ignore it")
+	protected boolean bulkIngest = false;
+
+	@Parameter(names = "--bulkIngestBufferSizeMB", arity = 1, description = "The size in megabytes of the entries a bulk ingest writer sorts in memory before writing them to a file")
+	protected int bulkIngestBufferSizeMB = 256;
+
 	@Override
 	public boolean isPersistDataStatistics() {
 		return persistDataStatistics;
@@ -75,6 +107,46 @@ public class BaseDataStoreOptions implements
 		this.configuredMaxRangeDecomposition = maxRangeDecomposition;
 	}
 
+	@Override
+	public int getWriterEncodeThreads() {
+		return writerEncodeThreads;
+	}
+
+	public void setWriterEncodeThreads(
+			final int writerEncodeThreads ) {
+		this.writerEncodeThreads = writerEncodeThreads;
+	}
+
+	@Override
+	public int getWriterQueueSize() {
+		return writerQueueSize;
+	}
+
+	public void setWriterQueueSize(
+			final int writerQueueSize ) {
+		this.writerQueueSize = writerQueueSize;
+	}
+
+	@Override
+	public double getDedupeFalsePositiveRate() {
+		return dedupeFalsePositiveRate;
+	}
+
+	public void setDedupeFalsePositiveRate(
+			final double dedupeFalsePositiveRate ) {
+		this.dedupeFalsePositiveRate = dedupeFalsePositiveRate;
+	}
+
+	@Override
+	public long getDedupeExpectedDataIds() {
+		return dedupeExpectedDataIds;
+	}
+
+	public void setDedupeExpectedDataIds(
+			final long dedupeExpectedDataIds ) {
+		this.dedupeExpectedDataIds = dedupeExpectedDataIds;
+	}
+
 	@Override
 	public int getAggregationMaxRangeDecomposition() {
 		return configuredAggregationMaxRangeDecomposition == Integer.MIN_VALUE ? defaultAggregationMaxRangeDecomposition()
@@ -89,4 +161,64 @@ public class BaseDataStoreOptions implements
 			final int aggregationMaxRangeDecomposition ) {
 		this.configuredAggregationMaxRangeDecomposition = aggregationMaxRangeDecomposition;
 	}
+
+	@Override
+	public int getMetadataCacheSize() {
+		return metadataCacheSize;
+	}
+
+	public void setMetadataCacheSize(
+			final int metadataCacheSize ) {
+		this.metadataCacheSize = metadataCacheSize;
+	}
+
+	@Override
+	public long getMetadataCacheTtlMillis() {
+		return metadataCacheTtlMillis;
+	}
+
+	public void setMetadataCacheTtlMillis(
+			final long metadataCacheTtlMillis ) {
+		this.metadataCacheTtlMillis = metadataCacheTtlMillis;
+	}
+
+	@Override
+	public long getMetadataCacheMissingTtlMillis() {
+		return metadataCacheMissingTtlMillis;
+	}
+
+	public void setMetadataCacheMissingTtlMillis(
+			final long metadataCacheMissingTtlMillis ) {
+		this.metadataCacheMissingTtlMillis = metadataCacheMissingTtlMillis;
+	}
+
+	@Override
+	public long getMetadataVersionCheckMillis() {
+		return metadataVersionCheckMillis;
+	}
+
+	public void setMetadataVersionCheckMillis(
+			final long metadataVersionCheckMillis ) {
+		this.metadataVersionCheckMillis = metadataVersionCheckMillis;
+	}
+
+	@Override
+	public boolean isBulkIngest() {
+		return bulkIngest;
+	}
+
+	public void setBulkIngest(
+			final boolean bulkIngest ) {
+		this.bulkIngest = bulkIngest;
+	}
+
+	@Override
+	public int getBulkIngestBufferSizeMB() {
+		return bulkIngestBufferSizeMB;
+	}
+
+	public void setBulkIngestBufferSizeMB(
+			final int bulkIngestBufferSizeMB ) {
+		this.bulkIngestBufferSizeMB = bulkIngestBufferSizeMB;
+	}
 }
@@ -21,4 +21,24 @@ public interface DataStoreOptions
 	public int getMaxRangeDecomposition();
 
 	public int getAggregationMaxRangeDecomposition();
+
+	public int getWriterEncodeThreads();
+
+	public int getWriterQueueSize();
+
+	public double getDedupeFalsePositiveRate();
+
+	public long getDedupeExpectedDataIds();
+
+	public int getMetadataCacheSize();
+
+	public long getMetadataCacheTtlMillis();
+
+	public long getMetadataCacheMissingTtlMillis();
+
+	public long getMetadataVersionCheckMillis();
+
+	public boolean isBulkIngest();
+
+	public int getBulkIngestBufferSizeMB();
 }
@@ -37,6 +37,8 @@ import org.locationtech.geowave.core.store.index.temporal.DateRangeFilter;
 import org.locationtech.geowave.core.store.index.temporal.TemporalIndexStrategy;
 import org.locationtech.geowave.core.store.index.text.TextExactMatchFilter;
 import org.locationtech.geowave.core.store.index.text.TextIndexStrategy;
+import org.locationtech.geowave.core.store.index.text.TextNGramIndexStrategy;
+import org.locationtech.geowave.core.store.index.text.TextPatternFilter;
 import org.locationtech.geowave.core.store.query.aggregate.CountAggregation;
 import org.locationtech.geowave.core.store.query.aggregate.DataStatisticsAggregation;
 import org.locationtech.geowave.core.store.query.constraints.BasicQuery;
@@ -217,7 +219,13 @@ public class StorePersistableRegistry implements
 					InsertionIdQuery::new),
 			new PersistableIdAndConstructor(
 					(short) 253,
-					EverythingQuery::new)
+					EverythingQuery::new),
+			new PersistableIdAndConstructor(
+					(short) 254,
+					TextPatternFilter::new),
+			new PersistableIdAndConstructor(
+					(short) 255,
+					TextNGramIndexStrategy::new)
 		};
 	}
 }
@@ -13,9 +13,20 @@ package org.locationtech.geowave.core.store.adapter.statistics;
 import java.io.Closeable;
 import java.io.Flushable;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.commons.lang3.tuple.Pair;
+import org.locationtech.geowave.core.index.ByteArray;
 import org.locationtech.geowave.core.store.DataStoreStatisticsProvider;
 import org.locationtech.geowave.core.store.adapter.InternalDataAdapter;
 import org.locationtech.geowave.core.store.api.DataTypeAdapter;
@@ -33,6 +44,13 @@ import org.slf4j.LoggerFactory;
  * null or the provided data adapter does not implement
  * {@link DataStatisticsStore}.
  *
+ * Each thread that reports entries accumulates statistics in its own set of
+ * builders, so concurrent writers do not contend on a shared lock. On flush
+ * the accumulated statistics of every thread are merged and incorporated into
+ * the statistics store. Statistics that could not be incorporated are kept and
+ * retried on the next flush. When and where flushes happen is determined by
+ * the {@link FlushPolicy}.
+ *
  * @param <T>
  *            Entry type
  */
@@ -46,14 +64,31 @@ public class StatsCompositionTool<T> implements
 {
 	private final static Logger LOGGER = LoggerFactory.getLogger(StatsCompositionTool.class);
 	public static final int FLUSH_STATS_THRESHOLD = 1000000;
+	// the number of updates a thread counts on its own before adding them to
+	// the count shared by all threads
+	private static final int LOCAL_COUNT_BATCH = 1024;
 
-	int updateCount = 0;
 	DataStatisticsStore statisticsStore;
-	List<DataStatisticsBuilder<T, ?, ?>> statisticsBuilders = null;
-	final Object MUTEX = new Object();
+	private final Index index;
+	private final DataTypeAdapter<T> adapter;
+	private final DataStoreStatisticsProvider<T> statisticsProvider;
+	private final StatisticsId[] statisticsIds;
+	private final FlushPolicy flushPolicy;
+	private final int localCountBatch;
+	private final List<Accumulator<T>> accumulators = new CopyOnWriteArrayList<>();
+	private final ThreadLocal<Accumulator<T>> threadAccumulator = ThreadLocal.withInitial(
+			this::newAccumulator);
+	// drained statistics that have not been incorporated yet, by statistics
+	// ID, then extended ID and visibility
+	private final List<Map<Pair<String, ByteArray>, InternalDataStatistics<T, ?, ?>>> pendingStatistics;
+	private final AtomicLong updateCount = new AtomicLong();
+	private final AtomicBoolean flushPending = new AtomicBoolean();
+	private final Object flushMutex = new Object();
+	private ScheduledFuture<?> periodicFlush;
+	private volatile boolean closed = false;
 	protected boolean skipFlush = false;
 	private boolean overwrite;
-	private short adapterId;
+	private final short adapterId;
 
 	public StatsCompositionTool(
 			final DataStoreStatisticsProvider<T> statisticsProvider,
@@ -74,29 +109,40 @@ public class StatsCompositionTool<T> implements
 			final Index index,
 			final InternalDataAdapter<T> adapter,
 			final boolean overwrite ) {
-		this.statisticsStore = statisticsStore;
-		this.overwrite = overwrite;
-		this.adapterId = adapter.getAdapterId();
-		this.init(
+		this(
+				statisticsProvider,
+				statisticsStore,
 				index,
-				adapter.getAdapter(),
-				statisticsProvider);
+				adapter,
+				overwrite,
+				FlushPolicy.fromSystemProperties());
 	}
 
-	private void init(
+	public StatsCompositionTool(
+			final DataStoreStatisticsProvider<T> statisticsProvider,
+			final DataStatisticsStore statisticsStore,
 			final Index index,
-			final DataTypeAdapter<T> adapter,
-			final DataStoreStatisticsProvider<T> statisticsProvider ) {
-		final StatisticsId[] statisticsIds = statisticsProvider.getSupportedStatistics();
-		statisticsBuilders = new ArrayList<>(
+			final InternalDataAdapter<T> adapter,
+			final boolean overwrite,
+			final FlushPolicy flushPolicy ) {
+		this.statisticsStore = statisticsStore;
+		this.overwrite = overwrite;
+		this.adapterId = adapter.getAdapterId();
+		this.index = index;
+		this.adapter = adapter.getAdapter();
+		this.statisticsProvider = statisticsProvider;
+		this.flushPolicy = flushPolicy;
+		statisticsIds = statisticsProvider.getSupportedStatistics();
+		pendingStatistics = new ArrayList<>(
 				statisticsIds.length);
-		for (final StatisticsId id : statisticsIds) {
-			statisticsBuilders.add(new DataStatisticsBuilder<>(
-					index,
-					adapter,
-					statisticsProvider,
-					id));
+		for (int i = 0; i < statisticsIds.length; i++) {
+			pendingStatistics.add(new HashMap<>());
 		}
+		localCountBatch = (int) Math.max(
+				1,
+				Math.min(
+						LOCAL_COUNT_BATCH,
+						flushPolicy.getFlushThreshold()));
 		try {
 			final Object v = System.getProperty("StatsCompositionTool.skipFlush");
 			skipFlush = ((v != null) && v.toString().equalsIgnoreCase(
@@ -107,45 +153,122 @@ public class StatsCompositionTool<T> implements
 					"Unable to determine property StatsCompositionTool.skipFlush",
 					ex);
 		}
+		if (!skipFlush && (flushPolicy.getMaxStalenessMillis() > 0)) {
+			periodicFlush = FlushExecutor.EXECUTOR.scheduleWithFixedDelay(
+					this::backgroundFlush,
+					flushPolicy.getMaxStalenessMillis(),
+					flushPolicy.getMaxStalenessMillis(),
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private Accumulator<T> newAccumulator() {
+		final Accumulator<T> accumulator = new Accumulator<>(
+				newBuilders());
+		accumulators.add(accumulator);
+		return accumulator;
+	}
+
+	private List<DataStatisticsBuilder<T, ?, ?>> newBuilders() {
+		final List<DataStatisticsBuilder<T, ?, ?>> builders = new ArrayList<>(
+				statisticsIds.length);
+		for (final StatisticsId id : statisticsIds) {
+			builders.add(new DataStatisticsBuilder<>(
+					index,
+					adapter,
+					statisticsProvider,
+					id));
+		}
+		return builders;
 	}
 
 	@Override
 	public void entryDeleted(
 			final T entry,
 			final GeoWaveRow... kvs ) {
-		if (statisticsBuilders == null) {
-			return;
-		}
-		synchronized (MUTEX) {
-			for (final DataStatisticsBuilder<T, ?, ?> builder : statisticsBuilders) {
+		final Accumulator<T> accumulator = threadAccumulator.get();
+		// only contended while this thread's statistics are being flushed
+		synchronized (accumulator) {
+			for (final DataStatisticsBuilder<T, ?, ?> builder : accumulator.builders) {
 				builder.entryDeleted(
 						entry,
 						kvs);
 			}
-			updateCount++;
-			checkStats();
 		}
-
+		entryUpdated(accumulator);
 	}
 
 	@Override
 	public void entryScanned(
 			final T entry,
 			final GeoWaveRow kv ) {
-		if (statisticsBuilders == null) {
-			return;
-		}
-
-		synchronized (MUTEX) {
-			for (final DataStatisticsBuilder<T, ?, ?> builder : statisticsBuilders) {
+		final Accumulator<T> accumulator = threadAccumulator.get();
+		synchronized (accumulator) {
+			for (final DataStatisticsBuilder<T, ?, ?> builder : accumulator.builders) {
 				builder.entryScanned(
 						entry,
 						kv);
 			}
-			updateCount++;
-			checkStats();
 		}
+		entryUpdated(accumulator);
+	}
 
+	@Override
+	public void entryIngested(
+			final T entry,
+			final GeoWaveRow... kvs ) {
+		final Accumulator<T> accumulator = threadAccumulator.get();
+		synchronized (accumulator) {
+			for (final DataStatisticsBuilder<T, ?, ?> builder : accumulator.builders) {
+				builder.entryIngested(
+						entry,
+						kvs);
+			}
+		}
+		entryUpdated(accumulator);
+	}
+
+	private void entryUpdated(
+			final Accumulator<T> accumulator ) {
+		// the local count is only ever touched by the owning thread
+		if (++accumulator.localCount >= localCountBatch) {
+			final long count = updateCount.addAndGet(accumulator.localCount);
+			accumulator.localCount = 0;
+			if (!skipFlush && (count >= flushPolicy.getFlushThreshold())) {
+				if (flushPolicy.isAsync()) {
+					requestBackgroundFlush();
+				}
+				else {
+					flush();
+				}
+			}
+		}
+	}
+
+	private void requestBackgroundFlush() {
+		// coalesce requests so that at most one flush is queued at a time
+		if (!closed && flushPending.compareAndSet(
+				false,
+				true)) {
+			FlushExecutor.EXECUTOR.execute(() -> {
+				flushPending.set(false);
+				backgroundFlush();
+			});
+		}
+	}
+
+	private void backgroundFlush() {
+		if (closed) {
+			return;
+		}
+		try {
+			flush();
+		}
+		catch (final Exception e) {
+			LOGGER.warn(
+					"Unable to flush statistics",
+					e);
+		}
 	}
 
 	/**
@@ -153,15 +276,12 @@ public class StatsCompositionTool<T> implements
 	 */
 	@Override
 	public void flush() {
-		if (statisticsBuilders == null) {
-			return;
-		}
-
-		synchronized (MUTEX) {
-			for (final DataStatisticsBuilder<T, ?, ?> builder : statisticsBuilders) {
-				final Collection<InternalDataStatistics<T, ?, ?>> statistics = (Collection) builder.getStatistics();
+		synchronized (flushMutex) {
+			updateCount.set(0);
+			drain();
+			for (int i = 0; i < statisticsIds.length; i++) {
 				if (overwrite) {
-					final StatisticsId id = builder.getStatisticsId();
+					final StatisticsId id = statisticsIds[i];
 					// TODO how should we deal with authorizations/visibilities
 					// here
 					statisticsStore.removeStatistics(
@@ -169,10 +289,46 @@ public class StatsCompositionTool<T> implements
 							id.getExtendedId(),
 							id.getType());
 				}
-				for (final InternalDataStatistics<T, ?, ?> s : statistics) {
+				final Iterator<InternalDataStatistics<T, ?, ?>> it = pendingStatistics.get(
+						i).values().iterator();
+				while (it.hasNext()) {
+					// a statistic is only dropped once it is incorporated so
+					// that a failed flush is retried with everything that has
+					// not reached the store
+					statisticsStore.incorporateStatistics(it.next());
+					it.remove();
+				}
+			}
+			// just overwrite the initial set of values
+			overwrite = false;
+		}
+	}
+
+	/**
+	 * Swap out the builders of every thread that has accumulated statistics
+	 * and merge their statistics into the pending statistics by statistics ID,
+	 * extended ID and visibility
+	 */
+	private void drain() {
+		for (final Accumulator<T> accumulator : accumulators) {
+			final List<DataStatisticsBuilder<T, ?, ?>> builders;
+			synchronized (accumulator) {
+				if (accumulator.isEmpty()) {
+					continue;
+				}
+				builders = accumulator.builders;
+				accumulator.builders = newBuilders();
+			}
+			// the swapped out builders are no longer visible to the writing
+			// thread so they can be merged without holding its lock
+			for (int i = 0; i < builders.size(); i++) {
+				final Map<Pair<String, ByteArray>, InternalDataStatistics<T, ?, ?>> merged = pendingStatistics.get(i);
+				for (final InternalDataStatistics<T, ?, ?> s : builders.get(
+						i).getStatistics()) {
 					// using a set and simply checking instanceof this is the
 					// simplest approach to enable per partition statistics
-					// within the current design
+					// within the current design, a set can't be merged as a
+					// whole so its statistics are merged individually
 
 					// at some point stats should be re-designed to be simpler,
 					// reducing the complexity of a stats builder wrapping a
@@ -180,19 +336,38 @@ public class StatsCompositionTool<T> implements
 					// which is used by the stats manager within a feature data
 					// adapter etc.
 					if (s instanceof DataStatisticsSet) {
-						for (final InternalDataStatistics<T, ?, ?> statInSet : ((DataStatisticsSet) s)
+						for (final InternalDataStatistics<T, ?, ?> statInSet : ((DataStatisticsSet<T, ?, ?, ?, ?>) s)
 								.getStatisticsSet()) {
-							statisticsStore.incorporateStatistics(statInSet);
+							merge(
+									merged,
+									statInSet);
 						}
 					}
 					else {
-						statisticsStore.incorporateStatistics(s);
+						merge(
+								merged,
+								s);
 					}
 				}
-				statistics.clear();
 			}
-			// just overwrite the initial set of values
-			overwrite = false;
+		}
+	}
+
+	private static <T> void merge(
+			final Map<Pair<String, ByteArray>, InternalDataStatistics<T, ?, ?>> merged,
+			final InternalDataStatistics<T, ?, ?> s ) {
+		final Pair<String, ByteArray> key = Pair.of(
+				s.getExtendedId(),
+				new ByteArray(
+						s.getVisibility()));
+		final InternalDataStatistics<T, ?, ?> existing = merged.get(key);
+		if (existing == null) {
+			merged.put(
+					key,
+					s);
+		}
+		else {
+			existing.merge(s);
 		}
 	}
 
@@ -200,39 +375,26 @@ public class StatsCompositionTool<T> implements
 	 * Reset statistics, losing and updates since last flush
 	 */
 	public void reset() {
-		if (statisticsBuilders == null) {
-			return;
-		}
-
-		synchronized (MUTEX) {
-			for (final DataStatisticsBuilder<T, ?, ?> builder : statisticsBuilders) {
-				final Collection<InternalDataStatistics<T, ?, ?>> statistics = (Collection) builder.getStatistics();
-				statistics.clear();
+		synchronized (flushMutex) {
+			for (final Accumulator<T> accumulator : accumulators) {
+				synchronized (accumulator) {
+					accumulator.builders = newBuilders();
+				}
 			}
-		}
-	}
-
-	@Override
-	public void entryIngested(
-			final T entry,
-			final GeoWaveRow... kvs ) {
-		if (statisticsBuilders == null) {
-			return;
-		}
-
-		synchronized (MUTEX) {
-			for (final DataStatisticsBuilder<T, ?, ?> builder : statisticsBuilders) {
-				builder.entryIngested(
-						entry,
-						kvs);
+			for (final Map<Pair<String, ByteArray>, InternalDataStatistics<T, ?, ?>> pending : pendingStatistics) {
+				pending.clear();
 			}
-			updateCount++;
-			checkStats();
+			updateCount.set(0);
 		}
 	}
 
 	@Override
 	public void close() {
+		closed = true;
+		if (periodicFlush != null) {
+			periodicFlush.cancel(false);
+		}
+		// waits for any background flush in progress
 		flush();
 	}
 
@@ -241,11 +403,111 @@ public class StatsCompositionTool<T> implements
 		this.statisticsStore = statisticsStore;
 	}
 
-	private void checkStats() {
-		if (!skipFlush && (updateCount >= FLUSH_STATS_THRESHOLD)) {
-			updateCount = 0;
-			flush();
+	private static class Accumulator<T>
+	{
+		private List<DataStatisticsBuilder<T, ?, ?>> builders;
+		private int localCount = 0;
+
+		private Accumulator(
+				final List<DataStatisticsBuilder<T, ?, ?>> builders ) {
+			this.builders = builders;
+		}
+
+		private boolean isEmpty() {
+			for (final DataStatisticsBuilder<T, ?, ?> builder : builders) {
+				if (!builder.getStatistics().isEmpty()) {
+					return false;
+				}
+			}
+			return true;
 		}
 	}
 
+	private static class FlushExecutor
+	{
+		private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+			final Thread t = new Thread(
+					r,
+					"geowave-stats-flush");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Determines when accumulated statistics are flushed to the statistics
+	 * store. Statistics are flushed after a number of updates, either in the
+	 * reporting thread or in the background, and optionally also in the
+	 * background at a fixed interval which bounds how stale the statistics in
+	 * the store can be. Statistics are always flushed on close.
+	 */
+	public static class FlushPolicy
+	{
+		private final long flushThreshold;
+		private final boolean async;
+		private final long maxStalenessMillis;
+
+		/**
+		 * @param flushThreshold
+		 *            the number of updates after which to flush
+		 * @param async
+		 *            whether flushes triggered by the number of updates run
+		 *            in the background rather than in the reporting thread
+		 * @param maxStalenessMillis
+		 *            the interval at which to flush in the background, or 0
+		 *            to only flush by the number of updates
+		 */
+		public FlushPolicy(
+				final long flushThreshold,
+				final boolean async,
+				final long maxStalenessMillis ) {
+			this.flushThreshold = flushThreshold;
+			this.async = async;
+			this.maxStalenessMillis = maxStalenessMillis;
+		}
+
+		public long getFlushThreshold() {
+			return flushThreshold;
+		}
+
+		public boolean isAsync() {
+			return async;
+		}
+
+		public long getMaxStalenessMillis() {
+			return maxStalenessMillis;
+		}
+
+		/**
+		 * Read the policy from the system properties
+		 * StatsCompositionTool.flushThreshold,
+		 * StatsCompositionTool.asyncFlush and
+		 * StatsCompositionTool.maxStalenessMillis, defaulting to
+		 * {@link StatsCompositionTool#FLUSH_STATS_THRESHOLD} updates flushed in
+		 * the background
+		 */
+		public static FlushPolicy fromSystemProperties() {
+			long flushThreshold = FLUSH_STATS_THRESHOLD;
+			boolean async = true;
+			long maxStalenessMillis = 0;
+			try {
+				flushThreshold = Long.getLong(
+						"StatsCompositionTool.flushThreshold",
+						flushThreshold);
+				async = !"false".equalsIgnoreCase(System.getProperty("StatsCompositionTool.asyncFlush"));
+				maxStalenessMillis = Long.getLong(
+						"StatsCompositionTool.maxStalenessMillis",
+						maxStalenessMillis);
+			}
+			catch (final Exception ex) {
+				LOGGER.error(
+						"Unable to determine statistics flush properties",
+						ex);
+			}
+			return new FlushPolicy(
+					flushThreshold,
+					async,
+					maxStalenessMillis);
+		}
+	}
 }
@@ -64,6 +64,42 @@ public interface QueryBuilder<T, R extends QueryBuilder<T, R>> extends
 	 */
 	R allFields();
 
+	/**
+	 * skip the first results, which are counted against the limit; the
+	 * skipped results are still read so deep pages are better read by
+	 * continuing after the last row of the previous page
+	 *
+	 * @param offset
+	 *            the number of results to skip
+	 * @return this builder
+	 * @see #startAfter(byte[])
+	 */
+	R offset(
+			int offset );
+
+	/**
+	 * return the results of a single index in the order of their row keys
+	 * rather than the order the data store reads them in, by reading one range
+	 * at a time
+	 *
+	 * @return this builder
+	 */
+	R orderBySortKey();
+
+	/**
+	 * continue an ordered query after the last row of a previous page, which a
+	 * {@link org.locationtech.geowave.core.store.callback.ContinuationTokenCallback}
+	 * keeps, restarting the range scan at that row; this implies
+	 * {@link #orderBySortKey()}
+	 *
+	 * @param continuationToken
+	 *            the opaque token of the last row of the previous page, or
+	 *            null to start from the first row
+	 * @return this builder
+	 */
+	R startAfter(
+			byte[] continuationToken );
+
 	/**
 	 * get a default query builder
 	 *
@@ -17,6 +17,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -243,6 +244,12 @@ public class BaseDataStore implements
 			final boolean delete ) {
 
 		final List<CloseableIterator<Object>> results = new ArrayList<>();
+		final int offset = delete ? 0 : queryOptions.getOffset();
+		final Integer limit = queryOptions.getLimit();
+		if ((offset > 0) && (limit != null) && (limit > 0)) {
+			// the skipped results count against the limit of each index
+			queryOptions.setLimit(limit + offset);
+		}
 
 		// If CQL filter is set
 		if (constraints instanceof TypeConstraintQuery) {
@@ -273,7 +280,9 @@ public class BaseDataStore implements
 		final boolean isConstraintsAdapterIndexSpecific = sanitizedConstraints instanceof AdapterAndIndexBasedQueryConstraints;
 		final boolean isAggregationAdapterIndexSpecific = (queryOptions.getAggregation() != null)
 				&& (queryOptions.getAggregation().getRight() instanceof AdapterAndIndexBasedAggregation);
-		final DedupeFilter filter = new DedupeFilter();
+		final DedupeFilter filter = new DedupeFilter(
+				baseOptions.getDedupeFalsePositiveRate(),
+				baseOptions.getDedupeExpectedDataIds());
 		MemoryPersistentAdapterStore tempAdapterStore;
 		final List<DataStoreCallbackManager> deleteCallbacks = new ArrayList<>();
 
@@ -407,6 +416,25 @@ public class BaseDataStore implements
 					"Failed to resolve adapter or index for query",
 					e1);
 		}
+		if (queryOptions.isOrderedBySortKey() && !delete && (results.size() > 1)) {
+			for (final CloseableIterator<Object> result : results) {
+				result.close();
+			}
+			throw new IllegalArgumentException(
+					"Results can only be ordered by sort key for a query of a single index that can read all types in one scan");
+		}
+		Iterator<T> it = Iterators.concat(new CastIterator<T>(
+				results.iterator()));
+		if (offset > 0) {
+			Iterators.advance(
+					it,
+					offset);
+			if ((limit != null) && (limit > 0)) {
+				it = Iterators.limit(
+						it,
+						limit);
+			}
+		}
 		return new CloseableIteratorWrapper<>(
 				new Closeable() {
 
@@ -422,8 +450,7 @@ public class BaseDataStore implements
 					}
 
 				},
-				Iterators.concat(new CastIterator<T>(
-						results.iterator())));
+				it);
 	}
 
 	private boolean isAllAdapters(
@@ -581,6 +608,9 @@ public class BaseDataStore implements
 						statisticsStore,
 						sanitizedQueryOptions.getAuthorizations()),
 				sanitizedQueryOptions.getAuthorizations());
+		if (sanitizedQueryOptions.isOrderedBySortKey()) {
+			constraintsQuery.orderBySortKey(sanitizedQueryOptions.getContinuationToken());
+		}
 
 		return constraintsQuery.query(
 				baseOperations,
@@ -688,6 +718,15 @@ public class BaseDataStore implements
 			final DataStoreOptions baseOptions,
 			final IngestCallback<T> callback,
 			final Closeable closable ) {
+		if (baseOptions.getWriterEncodeThreads() > 0) {
+			return new ParallelEncodingIndexWriter<>(
+					adapter,
+					index,
+					baseOperations,
+					baseOptions,
+					callback,
+					closable);
+		}
 		return new BaseIndexWriter<>(
 				adapter,
 				index,
@@ -140,6 +140,9 @@ public class BaseDataStoreUtils
 			}
 		}
 
+		final CodecPlan plan = CodecPlan.getPlan(
+				decodePackage.getDataAdapter(),
+				index);
 		for (final GeoWaveValue value : geowaveRow.getFieldValues()) {
 			byte[] byteValue = value.getValue();
 			byte[] fieldMask = value.getFieldMask();
@@ -157,12 +160,21 @@ public class BaseDataStoreUtils
 				fieldMask = newBitmask;
 			}
 
-			readValue(
-					decodePackage,
-					new GeoWaveValueImpl(
-							fieldMask,
-							value.getVisibility(),
-							byteValue));
+			if (plan != null) {
+				plan.decode(
+						fieldMask,
+						value.getVisibility(),
+						byteValue,
+						decodePackage);
+			}
+			else {
+				readValue(
+						decodePackage,
+						new GeoWaveValueImpl(
+								fieldMask,
+								value.getVisibility(),
+								byteValue));
+			}
 		}
 
 		return getDecodedRow(
@@ -294,19 +306,54 @@ public class BaseDataStoreUtils
 			final InternalDataAdapter<T> adapter,
 			final Index index,
 			final VisibilityWriter<T> customFieldVisibilityWriter ) {
-		final CommonIndexModel indexModel = index.getIndexModel();
-
 		final AdapterPersistenceEncoding encodedData = adapter.encode(
 				entry,
-				indexModel);
-		final InsertionIds insertionIds = encodedData.getInsertionIds(index);
+				index.getIndexModel());
+		return getWriteInfo(
+				entry,
+				adapter,
+				index,
+				customFieldVisibilityWriter,
+				encodedData,
+				encodedData.getInsertionIds(index));
+	}
 
-		final List<FieldInfo<?>> fieldInfoList = new ArrayList<>();
+	/**
+	 * Build the rows for an entry that has already been encoded by the adapter
+	 * and assigned insertion IDs, this allows the field serialization to be
+	 * performed separately from the adapter encoding
+	 */
+	protected static <T> IntermediaryWriteEntryInfo getWriteInfo(
+			final T entry,
+			final InternalDataAdapter<T> adapter,
+			final Index index,
+			final VisibilityWriter<T> customFieldVisibilityWriter,
+			final AdapterPersistenceEncoding encodedData,
+			final InsertionIds insertionIds ) {
+		final CommonIndexModel indexModel = index.getIndexModel();
 
 		final byte[] dataId = adapter.getDataId(
 				entry).getBytes();
 		final short internalAdapterId = adapter.getAdapterId();
+		GeoWaveValue[] fieldValues = null;
 		if (!insertionIds.isEmpty()) {
+			final CodecPlan<T> plan = CodecPlan.getPlan(
+					adapter,
+					index);
+			if (plan != null) {
+				fieldValues = plan.encode(
+						entry,
+						encodedData,
+						customFieldVisibilityWriter);
+			}
+		}
+		else {
+			LOGGER.warn("Indexing failed to produce insertion ids; entry [" + adapter.getDataId(
+					entry).getString() + "] not saved.");
+			fieldValues = new GeoWaveValue[0];
+		}
+		if (fieldValues == null) {
+			final List<FieldInfo<?>> fieldInfoList = new ArrayList<>();
 			for (final Entry<String, CommonIndexValue> fieldValue : encodedData.getCommonData().getValues().entrySet()) {
 				final FieldInfo<?> fieldInfo = getFieldInfo(
 						indexModel,
@@ -331,20 +378,17 @@ public class BaseDataStoreUtils
 					}
 				}
 			}
-		}
-		else {
-			LOGGER.warn("Indexing failed to produce insertion ids; entry [" + adapter.getDataId(
-					entry).getString() + "] not saved.");
+			fieldValues = BaseDataStoreUtils.composeFlattenedFields(
+					fieldInfoList,
+					indexModel,
+					adapter);
 		}
 
 		return new IntermediaryWriteEntryInfo(
 				dataId,
 				internalAdapterId,
 				insertionIds,
-				BaseDataStoreUtils.composeFlattenedFields(
-						fieldInfoList,
-						index.getIndexModel(),
-						adapter));
+				fieldValues);
 	}
 
 	/**
@@ -409,6 +453,16 @@ public class BaseDataStoreUtils
 			int totalLength = 0;
 			final SortedSet<Integer> fieldPositions = new TreeSet<>();
 			final List<Pair<Integer, FieldInfo<?>>> fieldInfoList = entry.getValue();
+			if (fieldInfoList.size() == 1) {
+				// a single field is read back without a length prefix, even
+				// when other fields share a visibility
+				final Pair<Integer, FieldInfo<?>> fieldInfo = fieldInfoList.get(0);
+				retVal.add(new GeoWaveValueImpl(
+						BitmaskUtils.generateCompositeBitmask(fieldInfo.getLeft()),
+						entry.getKey().getBytes(),
+						fieldInfo.getRight().getWrittenValue()));
+				continue;
+			}
 			Collections.sort(
 					fieldInfoList,
 					new BitmaskedPairComparator());
@@ -135,7 +135,7 @@ class BaseIndexWriter<T> implements
 		}
 	}
 
-	private void verifyVisibility(
+	protected void verifyVisibility(
 			final VisibilityWriter customFieldVisibilityWriter,
 			final IntermediaryWriteEntryInfo ingestInfo ) {
 		if (customFieldVisibilityWriter != DataStoreUtils.UNCONSTRAINED_VISIBILITY) {
@@ -11,6 +11,7 @@
 package org.locationtech.geowave.core.store.base;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.lang3.tuple.Pair;
@@ -30,6 +31,7 @@ import org.locationtech.geowave.core.store.callback.ScanCallback;
 import org.locationtech.geowave.core.store.callback.ScanCallbackList;
 import org.locationtech.geowave.core.store.data.visibility.DifferingFieldVisibilityEntryCount;
 import org.locationtech.geowave.core.store.data.visibility.FieldVisibilityCount;
+import org.locationtech.geowave.core.store.entities.GeoWaveRow;
 import org.locationtech.geowave.core.store.entities.GeoWaveRowIteratorTransformer;
 import org.locationtech.geowave.core.store.flatten.BitmaskUtils;
 import org.locationtech.geowave.core.store.operations.DataStoreOperations;
@@ -37,8 +39,11 @@ import org.locationtech.geowave.core.store.operations.Deleter;
 import org.locationtech.geowave.core.store.operations.ReaderParams;
 import org.locationtech.geowave.core.store.operations.ReaderParamsBuilder;
 import org.locationtech.geowave.core.store.operations.RowReader;
+import org.locationtech.geowave.core.store.query.ContinuationToken;
 import org.locationtech.geowave.core.store.query.filter.QueryFilter;
 
+import com.google.common.collect.Iterators;
+
 /**
  * This class is used internally to perform query operations against a base data
  * store. The query is defined by the set of parameters passed into the
@@ -55,6 +60,8 @@ abstract class BaseQuery
 	protected final FieldVisibilityCount visibilityCounts;
 	protected final String[] authorizations;
 	protected final ScanCallbackList<?, ?> scanCallback;
+	protected boolean orderedBySortKey = false;
+	protected ContinuationToken startAfter = null;
 
 	public BaseQuery(
 			final Index index,
@@ -95,6 +102,20 @@ abstract class BaseQuery
 				callbacks);
 	}
 
+	/**
+	 * Reads the ranges one at a time so the rows are returned in key order.
+	 * This doesn't apply to aggregations and deletes.
+	 *
+	 * @param startAfter
+	 *            the last row of the previous page, or null to start with the
+	 *            first row
+	 */
+	public void orderBySortKey(
+			final ContinuationToken startAfter ) {
+		orderedBySortKey = true;
+		this.startAfter = startAfter;
+	}
+
 	protected <C> RowReader<C> getReader(
 			final DataStoreOperations operations,
 			final DataStoreOptions options,
@@ -115,11 +136,15 @@ abstract class BaseQuery
 					.getMaxRangeDecomposition();
 		}
 
-		ReaderParams<C> readerParams = new ReaderParamsBuilder<C>(
+		final boolean ordered = orderedBySortKey && !delete && !isAggregation();
+		final QueryRanges ranges = getRanges(
+				maxRangeDecomposition,
+				targetResolutionPerDimensionForHierarchicalIndex);
+		final ReaderParamsBuilder<C> readerParamsBuilder = new ReaderParamsBuilder<C>(
 				index,
 				adapterStore,
 				internalAdapterStore,
-				rowTransformer).adapterIds(
+				ordered && (startAfter != null) ? skipUpToContinuationToken(rowTransformer) : rowTransformer).adapterIds(
 				adapterIds).maxResolutionSubsamplingPerDimension(
 				maxResolutionSubsamplingPerDimension).aggregation(
 				getAggregation()).fieldSubsets(
@@ -128,16 +153,24 @@ abstract class BaseQuery
 				isAuthorizationsLimiting()).isServersideAggregation(
 				isServerSideAggregation(options)).isClientsideRowMerging(
 				isRowMerging(adapterStore)).queryRanges(
-				getRanges(
-						maxRangeDecomposition,
-						targetResolutionPerDimensionForHierarchicalIndex)).filter(
+				ranges).filter(
 				getServerFilter(options)).limit(
 				limit).maxRangeDecomposition(
 				maxRangeDecomposition).coordinateRanges(
 				getCoordinateRanges()).constraints(
 				getConstraints()).additionalAuthorizations(
-				getAdditionalAuthorizations()).build();
+				getAdditionalAuthorizations());
 
+		if (ordered) {
+			return new SortKeyOrderedReader<>(
+					operations,
+					readerParamsBuilder,
+					SortKeyOrderedReader.getRangesInOrder(
+							ranges,
+							index.getIndexStrategy().getPredefinedSplits(),
+							startAfter));
+		}
+		final ReaderParams<C> readerParams = readerParamsBuilder.build();
 		if (delete) {
 			scanCallback.waitUntilCallbackAdded();
 			final Deleter<C> deleter = operations.createDeleter(readerParams);
@@ -147,6 +180,25 @@ abstract class BaseQuery
 		return operations.createReader(readerParams);
 	}
 
+	/**
+	 * a range can only be clipped to start at the sort key of the continuation
+	 * token, the rows with the same sort key up to the token are skipped here
+	 */
+	private <C> GeoWaveRowIteratorTransformer<C> skipUpToContinuationToken(
+			final GeoWaveRowIteratorTransformer<C> rowTransformer ) {
+		final ContinuationToken token = startAfter;
+		return new GeoWaveRowIteratorTransformer<C>() {
+
+			@Override
+			public Iterator<C> apply(
+					final Iterator<GeoWaveRow> input ) {
+				return rowTransformer.apply(Iterators.filter(
+						input,
+						row -> token.isBefore(row)));
+			}
+		};
+	}
+
 	public boolean isRowMerging(
 			final PersistentAdapterStore adapterStore ) {
 		if (adapterIds != null) {
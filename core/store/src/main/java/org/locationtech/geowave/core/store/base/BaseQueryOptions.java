@@ -35,6 +35,7 @@ import org.locationtech.geowave.core.store.api.Query;
 import org.locationtech.geowave.core.store.callback.ScanCallback;
 import org.locationtech.geowave.core.store.entities.GeoWaveRow;
 import org.locationtech.geowave.core.store.index.IndexStore;
+import org.locationtech.geowave.core.store.query.ContinuationToken;
 import org.locationtech.geowave.core.store.query.options.AggregateTypeQueryOptions;
 import org.locationtech.geowave.core.store.query.options.CommonQueryOptions;
 import org.locationtech.geowave.core.store.query.options.DataTypeQueryOptions;
@@ -68,6 +69,9 @@ public class BaseQueryOptions
 	private transient Index index = null;
 	private Pair<InternalDataAdapter<?>, Aggregation<?, ?, ?>> aggregationAdapterPair;
 	private Integer limit = -1;
+	private int offset = 0;
+	private boolean orderedBySortKey = false;
+	private ContinuationToken continuationToken = null;
 	private Integer maxRangeDecomposition = null;
 	private double[] maxResolutionSubsamplingPerDimension = null;
 	private double[] targetResolutionPerDimensionForHierarchicalIndex = null;
@@ -147,6 +151,14 @@ public class BaseQueryOptions
 				DataStoreUtils.MAX_RESOLUTION_SUBSAMPLING_PER_DIMENSION);
 		targetResolutionPerDimensionForHierarchicalIndex = (double[]) commonOptions.getHints().get(
 				DataStoreUtils.TARGET_RESOLUTION_PER_DIMENSION_FOR_HIERARCHICAL_INDEX);
+		if (commonOptions.getOffset() != null) {
+			setOffset(commonOptions.getOffset());
+		}
+		orderedBySortKey = commonOptions.isOrderedBySortKey();
+		final byte[] token = commonOptions.getContinuationToken();
+		if (token != null) {
+			continuationToken = ContinuationToken.fromBinary(token);
+		}
 		authorizations = commonOptions.getAuthorizations();
 
 		if ((typeOptions instanceof AggregateTypeQueryOptions)
@@ -434,6 +446,54 @@ public class BaseQueryOptions
 		this.limit = limit;
 	}
 
+	/**
+	 *
+	 * @return the number of data items to skip
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * a value <= 0 indicates no offset
+	 *
+	 * @param offset
+	 */
+	public void setOffset(
+			final int offset ) {
+		this.offset = Math.max(
+				offset,
+				0);
+	}
+
+	/**
+	 *
+	 * @return true if the results are returned in the order of their row keys,
+	 *         which is implied by a continuation token
+	 */
+	public boolean isOrderedBySortKey() {
+		return orderedBySortKey || (continuationToken != null);
+	}
+
+	public void setOrderedBySortKey(
+			final boolean orderedBySortKey ) {
+		this.orderedBySortKey = orderedBySortKey;
+	}
+
+	/**
+	 *
+	 * @return the last row of the previous page, or null to start with the
+	 *         first row
+	 */
+	public ContinuationToken getContinuationToken() {
+		return continuationToken;
+	}
+
+	public void setContinuationToken(
+			final ContinuationToken continuationToken ) {
+		this.continuationToken = continuationToken;
+	}
+
 	/**
 	 *
 	 * @return authorizations to apply to the query in addition to the
@@ -0,0 +1,453 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.store.base;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.locationtech.geowave.core.store.adapter.AdapterPersistenceEncoding;
+import org.locationtech.geowave.core.store.adapter.InternalDataAdapter;
+import org.locationtech.geowave.core.store.api.DataTypeAdapter;
+import org.locationtech.geowave.core.store.api.Index;
+import org.locationtech.geowave.core.store.data.DataWriter;
+import org.locationtech.geowave.core.store.data.VisibilityWriter;
+import org.locationtech.geowave.core.store.data.field.FieldReader;
+import org.locationtech.geowave.core.store.data.field.FieldWriter;
+import org.locationtech.geowave.core.store.entities.GeoWaveValue;
+import org.locationtech.geowave.core.store.entities.GeoWaveValueImpl;
+import org.locationtech.geowave.core.store.flatten.BitmaskUtils;
+import org.locationtech.geowave.core.store.index.CommonIndexModel;
+import org.locationtech.geowave.core.store.index.CommonIndexValue;
+import org.locationtech.geowave.core.store.util.DataStoreUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * The field layout of one adapter within one index, resolved once and reused
+ * for every row that is encoded or decoded. Each field's position, reader,
+ * writer and bitmask is looked up from the adapter and index model the first
+ * time the field is seen, so the per row work is reduced to array accesses by
+ * position when reading and a single map lookup by field name when writing.
+ *
+ * Values are laid out exactly as by BaseDataStoreUtils.composeFlattenedFields
+ * and read as by DataStoreUtils.decomposeFlattenedFields. Setting the system
+ * property geowave.codecPlan.enabled to false falls back to those methods.
+ */
+class CodecPlan<T>
+{
+	private static final Logger LOGGER = LoggerFactory.getLogger(CodecPlan.class);
+	private static final String ENABLED_PROPERTY = "geowave.codecPlan.enabled";
+
+	private static volatile boolean enabled = !"false".equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY));
+	private static final int MAX_CACHED_LAYOUTS = 1000;
+
+	// layouts are keyed by the type's adapter instance from the adapter store
+	// rather than the InternalDataAdapter wrapper that is created per query,
+	// and by index model, both compared by identity. A layout doesn't
+	// reference either key so that entries are released along with them, and
+	// the size bound keeps field readers or writers that do reference them
+	// from pinning entries indefinitely.
+	private static final LoadingCache<Object, LoadingCache<CommonIndexModel, FieldLayout>> LAYOUTS = CacheBuilder
+			.newBuilder()
+			.weakKeys()
+			.maximumSize(
+					MAX_CACHED_LAYOUTS)
+			.build(
+					new CacheLoader<Object, LoadingCache<CommonIndexModel, FieldLayout>>() {
+						@Override
+						public LoadingCache<CommonIndexModel, FieldLayout> load(
+								final Object adapter ) {
+							return CacheBuilder
+									.newBuilder()
+									.weakKeys()
+									.maximumSize(
+											MAX_CACHED_LAYOUTS)
+									.build(
+											new CacheLoader<CommonIndexModel, FieldLayout>() {
+												@Override
+												public FieldLayout load(
+														final CommonIndexModel indexModel ) {
+													return new FieldLayout();
+												}
+											});
+						}
+					});
+
+	private final InternalDataAdapter<T> adapter;
+	private final CommonIndexModel indexModel;
+	private final FieldLayout layout;
+
+	private CodecPlan(
+			final InternalDataAdapter<T> adapter,
+			final CommonIndexModel indexModel,
+			final FieldLayout layout ) {
+		this.adapter = adapter;
+		this.indexModel = indexModel;
+		this.layout = layout;
+	}
+
+	/**
+	 * @return the plan for the adapter and index, or null if plans are
+	 *         disabled
+	 */
+	static <T> CodecPlan<T> getPlan(
+			final InternalDataAdapter<T> adapter,
+			final Index index ) {
+		if (!enabled || (adapter == null) || (index == null) || (index.getIndexModel() == null)) {
+			return null;
+		}
+		final DataTypeAdapter<T> typeAdapter = adapter.getAdapter();
+		return new CodecPlan<>(
+				adapter,
+				index.getIndexModel(),
+				LAYOUTS.getUnchecked(
+						typeAdapter != null ? typeAdapter : adapter).getUnchecked(
+						index.getIndexModel()));
+	}
+
+	static long getCachedLayoutCount() {
+		LAYOUTS.cleanUp();
+		return LAYOUTS.size();
+	}
+
+	static void setEnabled(
+			final boolean enabled ) {
+		CodecPlan.enabled = enabled;
+	}
+
+	/**
+	 * Serialize the fields of an encoded entry, combining fields that share a
+	 * visibility into a single value
+	 *
+	 * @return the values to write, or null if a field's position could not be
+	 *         resolved and the entry should be composed without a plan
+	 */
+	GeoWaveValue[] encode(
+			final T entry,
+			final AdapterPersistenceEncoding encodedData,
+			final VisibilityWriter<T> customFieldVisibilityWriter ) {
+		final Map<String, CommonIndexValue> commonValues = encodedData.getCommonData().getValues();
+		final Map<String, Object> extendedValues = encodedData.getAdapterExtendedData().getValues();
+		final int maxFields = commonValues.size() + extendedValues.size();
+		final FieldPlan[] fields = new FieldPlan[maxFields];
+		final byte[][] values = new byte[maxFields][];
+		final byte[][] visibilities = new byte[maxFields][];
+		int numFields = 0;
+		for (final Entry<String, CommonIndexValue> fieldValue : commonValues.entrySet()) {
+			final FieldPlan field = getWriteField(
+					layout.commonFields,
+					indexModel,
+					fieldValue.getKey());
+			if ((field.writer != null) && (field.position < 0)) {
+				return null;
+			}
+			if (writeField(
+					field,
+					fieldValue.getValue(),
+					entry,
+					customFieldVisibilityWriter,
+					values,
+					visibilities,
+					numFields)) {
+				fields[numFields++] = field;
+			}
+		}
+		for (final Entry<String, Object> fieldValue : extendedValues.entrySet()) {
+			if (fieldValue.getValue() == null) {
+				continue;
+			}
+			final FieldPlan field = getWriteField(
+					layout.extendedFields,
+					adapter,
+					fieldValue.getKey());
+			if ((field.writer != null) && (field.position < 0)) {
+				return null;
+			}
+			if (writeField(
+					field,
+					fieldValue.getValue(),
+					entry,
+					customFieldVisibilityWriter,
+					values,
+					visibilities,
+					numFields)) {
+				fields[numFields++] = field;
+			}
+		}
+		// group fields by visibility, in the order each visibility is first seen
+		final int[] groupOf = new int[numFields];
+		final int[] groupFirstField = new int[numFields];
+		int numGroups = 0;
+		for (int i = 0; i < numFields; i++) {
+			int g = 0;
+			while ((g < numGroups) && !Arrays.equals(
+					visibilities[groupFirstField[g]],
+					visibilities[i])) {
+				g++;
+			}
+			if (g == numGroups) {
+				groupFirstField[numGroups++] = i;
+			}
+			groupOf[i] = g;
+		}
+		final GeoWaveValue[] retVal = new GeoWaveValue[numGroups];
+		if (numGroups == numFields) {
+			for (int i = 0; i < numFields; i++) {
+				retVal[i] = new GeoWaveValueImpl(
+						fields[i].bitmask,
+						visibilities[i],
+						values[i]);
+			}
+			return retVal;
+		}
+		final int[] groupFields = new int[numFields];
+		for (int g = 0; g < numGroups; g++) {
+			int groupSize = 0;
+			for (int i = groupFirstField[g]; i < numFields; i++) {
+				if (groupOf[i] == g) {
+					// insertion sort by position, the groups are small
+					int j = groupSize++;
+					while ((j > 0) && (fields[groupFields[j - 1]].position > fields[i].position)) {
+						groupFields[j] = groupFields[j - 1];
+						j--;
+					}
+					groupFields[j] = i;
+				}
+			}
+			final byte[] visibility = visibilities[groupFirstField[g]];
+			if (groupSize == 1) {
+				final int i = groupFields[0];
+				retVal[g] = new GeoWaveValueImpl(
+						fields[i].bitmask,
+						visibility,
+						values[i]);
+				continue;
+			}
+			int totalLength = 0;
+			for (int f = 0; f < groupSize; f++) {
+				totalLength += 4 + values[groupFields[f]].length;
+			}
+			final ByteBuffer allFields = ByteBuffer.allocate(totalLength);
+			final byte[] compositeBitmask = new byte[(fields[groupFields[groupSize - 1]].position / 8) + 1];
+			for (int f = 0; f < groupSize; f++) {
+				final int i = groupFields[f];
+				allFields.putInt(values[i].length);
+				allFields.put(values[i]);
+				final byte[] bitmask = fields[i].bitmask;
+				for (int b = 0; b < bitmask.length; b++) {
+					compositeBitmask[b] |= bitmask[b];
+				}
+			}
+			retVal[g] = new GeoWaveValueImpl(
+					compositeBitmask,
+					visibility,
+					allFields.array());
+		}
+		return retVal;
+	}
+
+	@SuppressWarnings({
+		"rawtypes",
+		"unchecked"
+	})
+	private boolean writeField(
+			final FieldPlan field,
+			final Object fieldValue,
+			final T entry,
+			final VisibilityWriter<T> customFieldVisibilityWriter,
+			final byte[][] values,
+			final byte[][] visibilities,
+			final int index ) {
+		final FieldWriter fieldWriter = field.writer;
+		if (fieldWriter == null) {
+			if (fieldValue != null) {
+				LOGGER.warn("Data writer does not support field for " + fieldValue);
+			}
+			return false;
+		}
+		values[index] = fieldWriter.writeField(fieldValue);
+		visibilities[index] = DataStoreUtils.mergeVisibilities(
+				customFieldVisibilityWriter.getFieldVisibilityHandler(
+						field.fieldName).getVisibility(
+						entry,
+						field.fieldName,
+						fieldValue),
+				fieldWriter.getVisibility(
+						entry,
+						field.fieldName,
+						fieldValue));
+		return true;
+	}
+
+	/**
+	 * Read the fields of a single value into the decode package
+	 */
+	void decode(
+			final byte[] fieldMask,
+			final byte[] visibility,
+			final byte[] value,
+			final IntermediaryReadEntryInfo<T> decodePackage ) {
+		int numFields = 0;
+		for (final byte b : fieldMask) {
+			numFields += Integer.bitCount(b & 0xFF);
+		}
+		if (numFields == 0) {
+			return;
+		}
+		final ByteBuffer input = numFields > 1 ? ByteBuffer.wrap(value) : null;
+		for (int b = 0; b < fieldMask.length; b++) {
+			int bits = fieldMask[b] & 0xFF;
+			while (bits != 0) {
+				final int position = (b * 8) + Integer.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+				final byte[] fieldValue;
+				if (input == null) {
+					fieldValue = value;
+				}
+				else {
+					fieldValue = new byte[input.getInt()];
+					input.get(fieldValue);
+				}
+				readField(
+						getReadField(position),
+						visibility,
+						fieldValue,
+						decodePackage);
+			}
+		}
+	}
+
+	private void readField(
+			final FieldPlan field,
+			final byte[] visibility,
+			final byte[] fieldValue,
+			final IntermediaryReadEntryInfo<T> decodePackage ) {
+		if (field.indexField) {
+			final CommonIndexValue indexValue = (CommonIndexValue) field.reader.readField(fieldValue);
+			indexValue.setVisibility(visibility);
+			decodePackage.getIndexData().addValue(
+					field.fieldName,
+					indexValue);
+		}
+		else if (field.reader != null) {
+			// TODO GEOWAVE-1018, do we care about visibility
+			decodePackage.getExtendedData().addValue(
+					field.fieldName,
+					field.reader.readField(fieldValue));
+		}
+		else {
+			LOGGER.error("field reader not found for data entry, the value may be ignored");
+			decodePackage.getUnknownData().addValue(
+					field.fieldName,
+					fieldValue);
+		}
+	}
+
+	private FieldPlan getWriteField(
+			final Map<String, FieldPlan> fields,
+			final DataWriter<?, ?> dataWriter,
+			final String fieldName ) {
+		FieldPlan field = fields.get(fieldName);
+		if (field == null) {
+			final int position = adapter.getPositionOfOrderedField(
+					indexModel,
+					fieldName);
+			field = new FieldPlan(
+					fieldName,
+					position,
+					dataWriter.getWriter(fieldName),
+					null,
+					false);
+			final FieldPlan existing = fields.putIfAbsent(
+					fieldName,
+					field);
+			if (existing != null) {
+				field = existing;
+			}
+		}
+		return field;
+	}
+
+	private FieldPlan getReadField(
+			final int position ) {
+		FieldPlan[] fields = layout.fieldsByPosition;
+		if ((position < fields.length) && (fields[position] != null)) {
+			return fields[position];
+		}
+		synchronized (layout) {
+			fields = layout.fieldsByPosition;
+			if ((position < fields.length) && (fields[position] != null)) {
+				return fields[position];
+			}
+			final String fieldName = adapter.getFieldNameForPosition(
+					indexModel,
+					position);
+			final FieldReader<?> indexFieldReader = indexModel.getReader(fieldName);
+			final FieldPlan field = new FieldPlan(
+					fieldName,
+					position,
+					null,
+					indexFieldReader != null ? indexFieldReader : adapter.getReader(fieldName),
+					indexFieldReader != null);
+			// copy on write so readers never see a partially built array
+			final FieldPlan[] newFields = Arrays.copyOf(
+					fields,
+					Math.max(
+							fields.length,
+							position + 1));
+			newFields[position] = field;
+			layout.fieldsByPosition = newFields;
+			return field;
+		}
+	}
+
+	/**
+	 * The resolved fields of one type within one index, shared by every plan
+	 * for that type and index
+	 */
+	private static class FieldLayout
+	{
+		private final Map<String, FieldPlan> commonFields = new ConcurrentHashMap<>();
+		private final Map<String, FieldPlan> extendedFields = new ConcurrentHashMap<>();
+		private volatile FieldPlan[] fieldsByPosition = new FieldPlan[0];
+	}
+
+	private static class FieldPlan
+	{
+		private final String fieldName;
+		private final int position;
+		private final byte[] bitmask;
+		private final FieldWriter<?, ?> writer;
+		private final FieldReader<?> reader;
+		private final boolean indexField;
+
+		private FieldPlan(
+				final String fieldName,
+				final int position,
+				final FieldWriter<?, ?> writer,
+				final FieldReader<?> reader,
+				final boolean indexField ) {
+			this.fieldName = fieldName;
+			this.position = position;
+			this.writer = writer;
+			this.reader = reader;
+			this.indexField = indexField;
+			bitmask = position >= 0 ? BitmaskUtils.generateCompositeBitmask(position) : null;
+		}
+	}
+}
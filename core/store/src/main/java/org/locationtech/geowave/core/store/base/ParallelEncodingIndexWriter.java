@@ -0,0 +1,403 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.store.base;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.locationtech.geowave.core.index.InsertionIds;
+import org.locationtech.geowave.core.store.DataStoreOptions;
+import org.locationtech.geowave.core.store.adapter.AdapterPersistenceEncoding;
+import org.locationtech.geowave.core.store.adapter.InternalDataAdapter;
+import org.locationtech.geowave.core.store.api.Index;
+import org.locationtech.geowave.core.store.callback.IngestCallback;
+import org.locationtech.geowave.core.store.data.VisibilityWriter;
+import org.locationtech.geowave.core.store.entities.GeoWaveRow;
+import org.locationtech.geowave.core.store.operations.DataStoreOperations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An index writer that moves field serialization and row construction off of
+ * the calling thread. The calling thread only runs the adapter encoding that
+ * is needed to return the insertion IDs, the remaining work is done by a set
+ * of encoding lanes and the finished rows are funneled through a bounded queue
+ * to a single thread that owns the backing RowWriter. Each lane runs one entry
+ * at a time on a thread pool that is shared by all writers, so the number of
+ * encoding threads doesn't grow with the number of open writers.
+ *
+ * Entries are assigned to a lane by data ID so that rows sharing a key are
+ * always written in the order they were submitted. The number of entries that
+ * are submitted but not yet written is bounded by the queue size and callers
+ * block once that limit is reached. Because adapter encoding happens in each
+ * calling thread without holding the writer lock, the adapter must be safe to
+ * use from multiple threads when the writer is shared.
+ *
+ * An entry that fails to be encoded or written after its insertion IDs were
+ * returned is reported by throwing the first such failure from the next call
+ * to write, flush or close. If the write thread stops, the entries that
+ * weren't written are reported the same way and further writes are rejected.
+ */
+class ParallelEncodingIndexWriter<T> extends
+		BaseIndexWriter<T>
+{
+	private final static Logger LOGGER = LoggerFactory.getLogger(ParallelEncodingIndexWriter.class);
+	public static final String ENCODE_POOL_SIZE_PROPERTY = "geowave.encode.poolSize";
+	private static final EncodedEntry<?> END_OF_QUEUE = new EncodedEntry<>(
+			null,
+			null);
+	private static final ExecutorService ENCODE_POOL = createEncodePool();
+
+	private final EncodingLane[] encodingLanes;
+	private final BlockingQueue<EncodedEntry<T>> writeQueue;
+	private final Semaphore inFlight;
+	private final int maxInFlight;
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+	private volatile boolean closed = false;
+	private volatile boolean writeStopped = false;
+	private Thread writeThread;
+
+	public ParallelEncodingIndexWriter(
+			final InternalDataAdapter<T> adapter,
+			final Index index,
+			final DataStoreOperations operations,
+			final DataStoreOptions options,
+			final IngestCallback<T> callback,
+			final Closeable closable ) {
+		super(
+				adapter,
+				index,
+				operations,
+				options,
+				callback,
+				closable);
+		maxInFlight = Math.max(
+				1,
+				options.getWriterQueueSize());
+		inFlight = new Semaphore(
+				maxInFlight);
+		writeQueue = new ArrayBlockingQueue<>(
+				maxInFlight + 1);
+		encodingLanes = new EncodingLane[Math.max(
+				1,
+				options.getWriterEncodeThreads())];
+		for (int i = 0; i < encodingLanes.length; i++) {
+			encodingLanes[i] = new EncodingLane();
+		}
+	}
+
+	private static ExecutorService createEncodePool() {
+		final int poolSize = Integer.getInteger(
+				ENCODE_POOL_SIZE_PROPERTY,
+				Runtime.getRuntime().availableProcessors());
+		final AtomicInteger threadCount = new AtomicInteger();
+		final ThreadPoolExecutor pool = new ThreadPoolExecutor(
+				poolSize,
+				poolSize,
+				60,
+				TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(),
+				r -> {
+					final Thread t = new Thread(
+							r,
+							"geowave-encode-" + threadCount.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				});
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
+
+	@Override
+	public InsertionIds write(
+			final T entry,
+			final VisibilityWriter<T> fieldVisibilityWriter ) {
+		if (closed) {
+			throw new IllegalStateException(
+					"Writer for type '" + adapter.getTypeName() + "' is closed");
+		}
+		throwIfFailed();
+		if (writeStopped) {
+			throw new IllegalStateException(
+					"Write thread for type '" + adapter.getTypeName() + "' has stopped");
+		}
+		ensureOpen();
+		if (writer == null) {
+			LOGGER.error("Null writer - empty list returned");
+			return new InsertionIds();
+		}
+		final AdapterPersistenceEncoding encodedData = adapter.encode(
+				entry,
+				index.getIndexModel());
+		final InsertionIds insertionIds = encodedData.getInsertionIds(index);
+		inFlight.acquireUninterruptibly();
+		if (closed) {
+			// the writer was closed while waiting for a permit
+			inFlight.release();
+			throw new IllegalStateException(
+					"Writer for type '" + adapter.getTypeName() + "' is closed");
+		}
+		getLane(
+				entry).execute(
+				() -> encode(
+						entry,
+						fieldVisibilityWriter,
+						encodedData,
+						insertionIds));
+		return insertionIds;
+	}
+
+	private Executor getLane(
+			final T entry ) {
+		if (encodingLanes.length == 1) {
+			return encodingLanes[0];
+		}
+		return encodingLanes[Math.abs(adapter.getDataId(
+				entry).hashCode() % encodingLanes.length)];
+	}
+
+	private void encode(
+			final T entry,
+			final VisibilityWriter<T> fieldVisibilityWriter,
+			final AdapterPersistenceEncoding encodedData,
+			final InsertionIds insertionIds ) {
+		try {
+			final IntermediaryWriteEntryInfo entryInfo = BaseDataStoreUtils.getWriteInfo(
+					entry,
+					adapter,
+					index,
+					fieldVisibilityWriter,
+					encodedData,
+					insertionIds);
+			verifyVisibility(
+					fieldVisibilityWriter,
+					entryInfo);
+			writeQueue.put(new EncodedEntry<>(
+					entry,
+					entryInfo.getRows()));
+			if (writeStopped) {
+				// the write thread may have stopped after its last drain
+				discardUnwritten();
+			}
+		}
+		catch (final Exception e) {
+			recordFailure(
+					"Unable to encode entry",
+					e);
+			inFlight.release();
+		}
+	}
+
+	private void writeLoop() {
+		try {
+			while (true) {
+				final EncodedEntry<T> encodedEntry = writeQueue.take();
+				if (encodedEntry == END_OF_QUEUE) {
+					return;
+				}
+				try {
+					writer.write(encodedEntry.rows);
+					callback.entryIngested(
+							encodedEntry.entry,
+							encodedEntry.rows);
+				}
+				catch (final Exception e) {
+					recordFailure(
+							"Unable to write entry",
+							e);
+				}
+				finally {
+					inFlight.release();
+				}
+			}
+		}
+		catch (final InterruptedException e) {
+			recordFailure(
+					"Writer thread interrupted",
+					e);
+		}
+		finally {
+			// nothing writes the queued entries anymore, so return their
+			// permits or flush and close would wait for them forever
+			writeStopped = true;
+			discardUnwritten();
+		}
+	}
+
+	/**
+	 * removes the entries that are queued after the write thread stopped and
+	 * returns their permits
+	 */
+	private void discardUnwritten() {
+		EncodedEntry<T> encodedEntry;
+		while ((encodedEntry = writeQueue.poll()) != null) {
+			if (encodedEntry != END_OF_QUEUE) {
+				recordFailure(
+						"Entry was not written",
+						new IllegalStateException(
+								"Write thread for type '" + adapter.getTypeName() + "' has stopped"));
+				inFlight.release();
+			}
+		}
+	}
+
+	private void recordFailure(
+			final String message,
+			final Throwable e ) {
+		LOGGER.error(
+				message,
+				e);
+		failure.compareAndSet(
+				null,
+				e);
+	}
+
+	/**
+	 * throws the first failure since the last one that was thrown
+	 */
+	private void throwIfFailed() {
+		final Throwable e = failure.getAndSet(null);
+		if (e != null) {
+			throw new RuntimeException(
+					"Unable to write entries of type '" + adapter.getTypeName() + "'",
+					e);
+		}
+	}
+
+	@Override
+	protected synchronized void ensureOpen() {
+		super.ensureOpen();
+		if ((writer != null) && (writeThread == null)) {
+			writeThread = new Thread(
+					this::writeLoop,
+					"geowave-write-" + adapter.getTypeName());
+			writeThread.setDaemon(true);
+			writeThread.start();
+		}
+	}
+
+	/**
+	 * Block until every submitted entry has been written, the caller holds all
+	 * of the in flight permits on return and must release them
+	 */
+	private void awaitWritten() {
+		inFlight.acquireUninterruptibly(maxInFlight);
+	}
+
+	@Override
+	public synchronized void flush() {
+		awaitWritten();
+		try {
+			super.flush();
+		}
+		finally {
+			inFlight.release(maxInFlight);
+		}
+		throwIfFailed();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void close() {
+		boolean interrupted = false;
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			awaitWritten();
+			try {
+				if (writeThread != null) {
+					writeQueue.add((EncodedEntry<T>) END_OF_QUEUE);
+					writeThread.join(TimeUnit.MINUTES.toMillis(1));
+					writeThread = null;
+				}
+			}
+			catch (final InterruptedException e) {
+				recordFailure(
+						"Interrupted waiting for writer thread to finish",
+						e);
+				interrupted = true;
+			}
+			finally {
+				inFlight.release(maxInFlight);
+			}
+		}
+		super.close();
+		if (interrupted) {
+			// report the interrupt to the caller once the writer is closed
+			Thread.currentThread().interrupt();
+		}
+		throwIfFailed();
+	}
+
+	/**
+	 * Runs its tasks one at a time and in the order they were submitted on the
+	 * shared encoding pool
+	 */
+	private static class EncodingLane implements
+			Executor
+	{
+		private final Queue<Runnable> tasks = new ArrayDeque<>();
+		private boolean running = false;
+
+		@Override
+		public void execute(
+				final Runnable task ) {
+			synchronized (this) {
+				tasks.add(task);
+				if (running) {
+					return;
+				}
+				running = true;
+			}
+			ENCODE_POOL.execute(this::runTasks);
+		}
+
+		private void runTasks() {
+			while (true) {
+				final Runnable task;
+				synchronized (this) {
+					task = tasks.poll();
+					if (task == null) {
+						running = false;
+						return;
+					}
+				}
+				task.run();
+			}
+		}
+	}
+
+	private static class EncodedEntry<T>
+	{
+		private final T entry;
+		private final GeoWaveRow[] rows;
+
+		public EncodedEntry(
+				final T entry,
+				final GeoWaveRow[] rows ) {
+			this.entry = entry;
+			this.rows = rows;
+		}
+	}
+}
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.store.base;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.locationtech.geowave.core.index.ByteArray;
+import org.locationtech.geowave.core.index.ByteArrayRange;
+import org.locationtech.geowave.core.index.ByteArrayRange.MergeOperation;
+import org.locationtech.geowave.core.index.QueryRanges;
+import org.locationtech.geowave.core.index.SinglePartitionQueryRanges;
+import org.locationtech.geowave.core.store.operations.DataStoreOperations;
+import org.locationtech.geowave.core.store.operations.ReaderParamsBuilder;
+import org.locationtech.geowave.core.store.operations.RowReader;
+import org.locationtech.geowave.core.store.query.ContinuationToken;
+
+/**
+ * Reads the ranges of a query one at a time in the order of their keys, so the
+ * rows are returned in key order regardless of how the data store reads
+ * several ranges. A reader is only created for a range once the previous range
+ * is exhausted, so a limited query doesn't scan the ranges after its last row.
+ * Each reader is flagged as ordered, so the data store reads its single range
+ * in key order.
+ */
+class SortKeyOrderedReader<T> implements
+		RowReader<T>
+{
+	private final static Logger LOGGER = Logger.getLogger(SortKeyOrderedReader.class);
+
+	private final DataStoreOperations operations;
+	private final ReaderParamsBuilder<T> readerParamsBuilder;
+	private final Iterator<QueryRanges> ranges;
+	private RowReader<T> currentReader = null;
+
+	public SortKeyOrderedReader(
+			final DataStoreOperations operations,
+			final ReaderParamsBuilder<T> readerParamsBuilder,
+			final List<QueryRanges> rangesInOrder ) {
+		this.operations = operations;
+		this.readerParamsBuilder = readerParamsBuilder;
+		ranges = rangesInOrder.iterator();
+	}
+
+	@Override
+	public boolean hasNext() {
+		while ((currentReader == null) || !currentReader.hasNext()) {
+			closeCurrentReader();
+			if (!ranges.hasNext()) {
+				return false;
+			}
+			currentReader = operations.createReader(readerParamsBuilder.queryRanges(
+					ranges.next()).isOrdered(
+					true).build());
+		}
+		return true;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return currentReader.next();
+	}
+
+	@Override
+	public void close()
+			throws Exception {
+		if (currentReader != null) {
+			currentReader.close();
+			currentReader = null;
+		}
+	}
+
+	private void closeCurrentReader() {
+		try {
+			close();
+		}
+		catch (final Exception e) {
+			LOGGER.warn(
+					"Unable to close reader",
+					e);
+		}
+	}
+
+	/**
+	 * Splits the query ranges into one range per query in the order of their
+	 * keys, dropping the ranges up to the row of the continuation token and
+	 * starting the range that contains it at its sort key. Partitions without
+	 * sort key ranges are read as a whole, so the rows of such a partition up
+	 * to the token still have to be filtered.
+	 *
+	 * @param queryRanges
+	 *            the ranges of the query
+	 * @param partitionKeys
+	 *            the partitions of an unconstrained query, may be empty if the
+	 *            index isn't partitioned
+	 * @param startAfter
+	 *            the last row of the previous page, or null
+	 * @return the ranges to read one after the other
+	 */
+	public static List<QueryRanges> getRangesInOrder(
+			final QueryRanges queryRanges,
+			final Set<ByteArray> partitionKeys,
+			final ContinuationToken startAfter ) {
+		Collection<SinglePartitionQueryRanges> partitions = queryRanges.getPartitionQueryRanges();
+		if (partitions == null) {
+			if ((partitionKeys == null) || partitionKeys.isEmpty()) {
+				// a single read of the whole table, the reader has to return it
+				// in key order rather than reading the tablets or regions in
+				// parallel, stores that can't do that reject the read
+				return Collections.singletonList(queryRanges);
+			}
+			partitions = new QueryRanges(
+					partitionKeys).getPartitionQueryRanges();
+		}
+		final List<SinglePartitionQueryRanges> sortedPartitions = new ArrayList<>(
+				partitions);
+		sortedPartitions.sort((
+				p1,
+				p2 ) -> compare(
+				p1.getPartitionKey(),
+				p2.getPartitionKey()));
+		ByteArray tokenPartitionKey = null;
+		ByteArray tokenSortKey = null;
+		if (startAfter != null) {
+			tokenPartitionKey = new ByteArray(
+					startAfter.getPartitionKey());
+			tokenSortKey = new ByteArray(
+					startAfter.getSortKey());
+		}
+		final List<QueryRanges> rangesInOrder = new ArrayList<>();
+		for (final SinglePartitionQueryRanges partition : sortedPartitions) {
+			final int partitionComparison = startAfter == null ? 1 : compare(
+					partition.getPartitionKey(),
+					tokenPartitionKey);
+			if (partitionComparison < 0) {
+				continue;
+			}
+			if ((partition.getSortKeyRanges() == null) || partition.getSortKeyRanges().isEmpty()) {
+				rangesInOrder.add(new QueryRanges(
+						Collections.singletonList(partition)));
+				continue;
+			}
+			// merging the ranges also sorts them
+			for (final ByteArrayRange range : ByteArrayRange.mergeIntersections(
+					partition.getSortKeyRanges(),
+					MergeOperation.UNION)) {
+				ByteArrayRange rangeToRead = range;
+				if (partitionComparison == 0) {
+					if (range.getEndAsNextPrefix().compareTo(
+							tokenSortKey) <= 0) {
+						continue;
+					}
+					if (range.getStart().compareTo(
+							tokenSortKey) < 0) {
+						rangeToRead = new ByteArrayRange(
+								tokenSortKey,
+								range.getEnd());
+					}
+				}
+				rangesInOrder.add(new QueryRanges(
+						Collections.singletonList(new SinglePartitionQueryRanges(
+								partition.getPartitionKey(),
+								Collections.singletonList(rangeToRead)))));
+			}
+		}
+		return rangesInOrder;
+	}
+
+	private static int compare(
+			final ByteArray partitionKey1,
+			final ByteArray partitionKey2 ) {
+		// no partition sorts like an empty partition key
+		return (partitionKey1 == null ? new ByteArray() : partitionKey1).compareTo(partitionKey2 == null ? new ByteArray()
+				: partitionKey2);
+	}
+}
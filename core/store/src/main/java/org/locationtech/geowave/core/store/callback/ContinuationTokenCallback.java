@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.store.callback;
+
+import org.locationtech.geowave.core.store.entities.GeoWaveRow;
+import org.locationtech.geowave.core.store.query.ContinuationToken;
+
+/**
+ * Keeps the row of the last entry scanned so the next page of a query ordered
+ * by sort key can start after it. Entries are scanned as they are read from
+ * the results, so the token is the one of the last entry of a page when the
+ * page is read to the end of its limit.
+ *
+ * @param <T>
+ *            the type of the entries
+ */
+public class ContinuationTokenCallback<T> implements
+		ScanCallback<T, GeoWaveRow>
+{
+	private GeoWaveRow lastRow = null;
+
+	@Override
+	public void entryScanned(
+			final T entry,
+			final GeoWaveRow row ) {
+		lastRow = row;
+	}
+
+	/**
+	 * @return the opaque token to pass to the next query, or null if no entry
+	 *         has been scanned
+	 */
+	public byte[] getContinuationToken() {
+		if (lastRow == null) {
+			return null;
+		}
+		return new ContinuationToken(
+				lastRow).toBinary();
+	}
+}
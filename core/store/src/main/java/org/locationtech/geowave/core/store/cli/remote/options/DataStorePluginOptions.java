@@ -14,6 +14,8 @@ import java.util.Map;
 
 import org.locationtech.geowave.core.cli.api.DefaultPluginOptions;
 import org.locationtech.geowave.core.cli.api.PluginOptions;
+import org.locationtech.geowave.core.store.BaseDataStoreOptions;
+import org.locationtech.geowave.core.store.DataStoreOptions;
 import org.locationtech.geowave.core.store.GeoWaveStoreFinder;
 import org.locationtech.geowave.core.store.StoreFactoryFamilySpi;
 import org.locationtech.geowave.core.store.StoreFactoryOptions;
@@ -128,6 +130,21 @@ public class DataStorePluginOptions extends
 		return factoryOptions;
 	}
 
+	/**
+	 * Have the writers of stores that support it produce sorted files that are
+	 * loaded into the store, rather than writing each entry
+	 *
+	 * @param bulkIngest
+	 *            whether to bulk ingest
+	 */
+	public void setBulkIngest(
+			final boolean bulkIngest ) {
+		final DataStoreOptions storeOptions = getFactoryOptions().getStoreOptions();
+		if (storeOptions instanceof BaseDataStoreOptions) {
+			((BaseDataStoreOptions) storeOptions).setBulkIngest(bulkIngest);
+		}
+	}
+
 	public DataStore createDataStore() {
 		return getFactoryFamily().getDataStoreFactory().createStore(
 				getFactoryOptions());
@@ -54,6 +54,13 @@ public class DeferredReadCommonIndexedPersistenceEncoding extends
 
 	}
 
+	/**
+	 * @return the fields that have not been read yet, or null if there are none
+	 */
+	public FlattenedUnreadData getUnreadData() {
+		return unreadData;
+	}
+
 	@Override
 	public void convertUnknownValues(
 			final DataTypeAdapter<?> adapter,
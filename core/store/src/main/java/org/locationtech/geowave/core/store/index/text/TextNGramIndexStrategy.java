@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.store.index.text;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.locationtech.geowave.core.index.ByteArray;
+import org.locationtech.geowave.core.index.ByteArrayRange;
+import org.locationtech.geowave.core.index.IndexMetaData;
+import org.locationtech.geowave.core.index.InsertionIds;
+import org.locationtech.geowave.core.index.QueryRanges;
+import org.locationtech.geowave.core.index.StringUtils;
+import org.locationtech.geowave.core.store.index.FieldIndexStrategy;
+import org.locationtech.geowave.core.store.index.text.TextQueryConstraint.Term;
+
+/**
+ * A text index that supports exact, prefix and LIKE queries. Values are
+ * normalized to lower case and indexed once as a whole, which prefix queries
+ * scan as a range, and once per n-gram. The n-grams of the last characters are
+ * shortened to the end of the value, so every substring shorter than an n-gram
+ * is the start of an indexed n-gram and can be scanned as a range as well.
+ *
+ * Case sensitivity is left to the filter of the query, the ranges are a
+ * superset of the matches.
+ */
+public class TextNGramIndexStrategy implements
+		FieldIndexStrategy<TextQueryConstraint, String>
+{
+	public static final int DEFAULT_NGRAM_LENGTH = 3;
+	private static final String ID = "TEXT_NGRAM";
+	private static final byte VALUE = 0;
+	private static final byte NGRAM = 1;
+
+	private int nGramLength;
+
+	public TextNGramIndexStrategy() {
+		this(
+				DEFAULT_NGRAM_LENGTH);
+	}
+
+	public TextNGramIndexStrategy(
+			final int nGramLength ) {
+		super();
+		this.nGramLength = nGramLength;
+	}
+
+	public int getNGramLength() {
+		return nGramLength;
+	}
+
+	@Override
+	public byte[] toBinary() {
+		return ByteBuffer.allocate(
+				4).putInt(
+				nGramLength).array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		nGramLength = ByteBuffer.wrap(
+				bytes).getInt();
+	}
+
+	@Override
+	public String getId() {
+		return ID + "_" + nGramLength;
+	}
+
+	@Override
+	public List<IndexMetaData> createMetaData() {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public QueryRanges getQueryRanges(
+			final TextQueryConstraint indexedRange,
+			final IndexMetaData... hints ) {
+		return getQueryRangeSets(
+				indexedRange).get(
+				0);
+	}
+
+	@Override
+	public QueryRanges getQueryRanges(
+			final TextQueryConstraint indexedRange,
+			final int maxEstimatedRangeDecomposition,
+			final IndexMetaData... hints ) {
+		return getQueryRanges(
+				indexedRange,
+				hints);
+	}
+
+	/**
+	 * Every value that matches the constraint is in all of the returned range
+	 * sets, so a store that can intersect the results of several scans may
+	 * scan more than the first set, which is the most selective. Constraints
+	 * with several alternatives are returned as one set of the most selective
+	 * ranges of every alternative.
+	 *
+	 * @param indexedRange
+	 *            the constraint
+	 * @return the range sets to intersect, most selective first
+	 */
+	public List<QueryRanges> getQueryRangeSets(
+			final TextQueryConstraint indexedRange ) {
+		final List<List<Term>> alternatives = indexedRange.getAlternatives();
+		if (alternatives.size() == 1) {
+			final List<ByteArrayRange> ranges = getRanges(alternatives.get(0));
+			if (ranges.isEmpty()) {
+				return Collections.singletonList(new QueryRanges());
+			}
+			final List<QueryRanges> rangeSets = new ArrayList<>();
+			for (final ByteArrayRange range : ranges) {
+				rangeSets.add(new QueryRanges(
+						range));
+			}
+			return rangeSets;
+		}
+		final List<QueryRanges> union = new ArrayList<>();
+		for (final List<Term> terms : alternatives) {
+			final List<ByteArrayRange> ranges = getRanges(terms);
+			if (ranges.isEmpty()) {
+				return Collections.singletonList(new QueryRanges());
+			}
+			union.add(new QueryRanges(
+					ranges.get(0)));
+		}
+		return Collections.singletonList(new QueryRanges(
+				union));
+	}
+
+	/**
+	 * @return the ranges every match of all of the terms is in, the longest
+	 *         keys first
+	 */
+	private List<ByteArrayRange> getRanges(
+			final List<Term> terms ) {
+		final Map<ByteArray, Integer> keys = new LinkedHashMap<>();
+		for (final Term term : terms) {
+			if (term.getPrefix() != null) {
+				final String prefix = normalize(term.getPrefix());
+				// an anchored prefix is more selective than an n-gram of the
+				// same length
+				addKey(
+						keys,
+						toKey(
+								VALUE,
+								prefix),
+						term.isExact() ? Integer.MAX_VALUE : prefix.length() + 1);
+				if (term.isExact()) {
+					continue;
+				}
+			}
+			for (final String literal : term.getLiterals()) {
+				final String normalized = normalize(literal);
+				if (normalized.length() < nGramLength) {
+					if (!normalized.isEmpty()) {
+						addKey(
+								keys,
+								toKey(
+										NGRAM,
+										normalized),
+								normalized.length());
+					}
+					continue;
+				}
+				for (int i = 0; (i + nGramLength) <= normalized.length(); i++) {
+					addKey(
+							keys,
+							toKey(
+									NGRAM,
+									normalized.substring(
+											i,
+											i + nGramLength)),
+							nGramLength);
+				}
+			}
+		}
+		final List<Entry<ByteArray, Integer>> sorted = new ArrayList<>(
+				keys.entrySet());
+		sorted.sort((
+				e1,
+				e2 ) -> Integer.compare(
+				e2.getValue(),
+				e1.getValue()));
+		final List<ByteArrayRange> ranges = new ArrayList<>();
+		for (final Entry<ByteArray, Integer> entry : sorted) {
+			ranges.add(new ByteArrayRange(
+					entry.getKey(),
+					entry.getKey()));
+		}
+		return ranges;
+	}
+
+	private static void addKey(
+			final Map<ByteArray, Integer> keys,
+			final ByteArray key,
+			final int selectivity ) {
+		final Integer existing = keys.get(key);
+		if ((existing == null) || (existing < selectivity)) {
+			keys.put(
+					key,
+					selectivity);
+		}
+	}
+
+	@Override
+	public InsertionIds getInsertionIds(
+			final String indexedData ) {
+		final String normalized = normalize(indexedData);
+		final Set<ByteArray> keys = new LinkedHashSet<>();
+		keys.add(toKey(
+				VALUE,
+				normalized));
+		for (int i = 0; i < normalized.length(); i++) {
+			keys.add(toKey(
+					NGRAM,
+					normalized.substring(
+							i,
+							Math.min(
+									i + nGramLength,
+									normalized.length()))));
+		}
+		return new InsertionIds(
+				new ArrayList<>(
+						keys));
+	}
+
+	@Override
+	public InsertionIds getInsertionIds(
+			final String indexedData,
+			final int maxEstimatedDuplicateIds ) {
+		return getInsertionIds(indexedData);
+	}
+
+	@Override
+	public String getRangeForId(
+			final ByteArray partitionKey,
+			final ByteArray sortKey ) {
+		final byte[] bytes = sortKey.getBytes();
+		final byte[] text = new byte[bytes.length - 1];
+		System.arraycopy(
+				bytes,
+				1,
+				text,
+				0,
+				text.length);
+		return StringUtils.stringFromBinary(text);
+	}
+
+	private static String normalize(
+			final String value ) {
+		return value.toLowerCase(Locale.ROOT);
+	}
+
+	private static ByteArray toKey(
+			final byte type,
+			final String text ) {
+		final byte[] textBytes = StringUtils.stringToBinary(text);
+		final byte[] key = new byte[textBytes.length + 1];
+		key[0] = type;
+		System.arraycopy(
+				textBytes,
+				0,
+				key,
+				1,
+				textBytes.length);
+		return new ByteArray(
+				key);
+	}
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.store.index.text;
+
+import java.nio.ByteBuffer;
+import java.util.regex.Pattern;
+
+import org.locationtech.geowave.core.index.ByteArray;
+import org.locationtech.geowave.core.index.StringUtils;
+import org.locationtech.geowave.core.store.data.IndexedPersistenceEncoding;
+import org.locationtech.geowave.core.store.index.CommonIndexModel;
+import org.locationtech.geowave.core.store.query.filter.QueryFilter;
+
+/**
+ * Accepts text values that the start of a regular expression matches, which is
+ * how {@link TextQueryConstraint} filters LIKE patterns
+ */
+public class TextPatternFilter implements
+		QueryFilter
+{
+
+	private String fieldName;
+	private String regex;
+	private transient Pattern pattern;
+
+	public TextPatternFilter() {
+		super();
+	}
+
+	public TextPatternFilter(
+			final String fieldName,
+			final String regex ) {
+		super();
+		this.fieldName = fieldName;
+		this.regex = regex;
+	}
+
+	public String getFieldName() {
+		return fieldName;
+	}
+
+	public String getRegex() {
+		return regex;
+	}
+
+	@Override
+	public boolean accept(
+			final CommonIndexModel indexModel,
+			final IndexedPersistenceEncoding<?> persistenceEncoding ) {
+		final ByteArray stringBytes = (ByteArray) persistenceEncoding.getCommonData().getValue(
+				fieldName);
+		if (stringBytes != null) {
+			if (pattern == null) {
+				pattern = Pattern.compile(
+						regex,
+						Pattern.DOTALL);
+			}
+			return pattern.matcher(
+					stringBytes.getString()).lookingAt();
+		}
+		return false;
+	}
+
+	@Override
+	public byte[] toBinary() {
+		final byte[] fieldNameBytes = StringUtils.stringToBinary(fieldName);
+		final byte[] regexBytes = StringUtils.stringToBinary(regex);
+		final ByteBuffer bb = ByteBuffer.allocate(4 + fieldNameBytes.length + 4 + regexBytes.length);
+		bb.putInt(fieldNameBytes.length);
+		bb.put(fieldNameBytes);
+		bb.putInt(regexBytes.length);
+		bb.put(regexBytes);
+		return bb.array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer bb = ByteBuffer.wrap(bytes);
+		final byte[] fieldNameBytes = new byte[bb.getInt()];
+		bb.get(fieldNameBytes);
+		fieldName = StringUtils.stringFromBinary(fieldNameBytes);
+		final byte[] regexBytes = new byte[bb.getInt()];
+		bb.get(regexBytes);
+		regex = StringUtils.stringFromBinary(regexBytes);
+		pattern = null;
+	}
+}
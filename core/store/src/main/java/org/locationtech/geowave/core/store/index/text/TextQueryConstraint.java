@@ -10,6 +10,11 @@
  ******************************************************************************/
 package org.locationtech.geowave.core.store.index.text;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
 import org.locationtech.geowave.core.index.ByteArray;
 import org.locationtech.geowave.core.index.ByteArrayRange;
 import org.locationtech.geowave.core.index.QueryRanges;
@@ -17,7 +22,10 @@ import org.locationtech.geowave.core.store.index.FilterableConstraints;
 import org.locationtech.geowave.core.store.query.filter.QueryFilter;
 
 /**
- * A class based on FilterableConstraints that uses a text value for query
+ * A class based on FilterableConstraints that uses a text value or a LIKE
+ * pattern for query. Constraints on the same field that are intersected or
+ * unioned are kept as alternatives of terms that all have to match, so the
+ * index strategy can pick the most selective ranges of each alternative.
  *
  */
 
@@ -25,17 +33,56 @@ public class TextQueryConstraint implements
 		FilterableConstraints
 {
 	private final String fieldName;
-	private final String matchValue;
-	private final boolean caseSensitive;
+	private final List<List<Term>> alternatives;
 
 	public TextQueryConstraint(
 			final String fieldName,
 			final String matchValue,
 			final boolean caseSensitive ) {
+		this(
+				fieldName,
+				Collections.singletonList(Collections.singletonList(new Term(
+						matchValue,
+						caseSensitive))));
+	}
+
+	/**
+	 * @param fieldName
+	 *            the field to match
+	 * @param pattern
+	 *            the LIKE pattern
+	 * @param wildCard
+	 *            the wildcard matching any number of characters
+	 * @param singleChar
+	 *            the wildcard matching a single character
+	 * @param escape
+	 *            the escape of wildcards, may be empty
+	 * @param caseSensitive
+	 *            false for ILIKE
+	 */
+	public TextQueryConstraint(
+			final String fieldName,
+			final String pattern,
+			final String wildCard,
+			final String singleChar,
+			final String escape,
+			final boolean caseSensitive ) {
+		this(
+				fieldName,
+				Collections.singletonList(Collections.singletonList(new Term(
+						pattern,
+						wildCard,
+						singleChar,
+						escape,
+						caseSensitive))));
+	}
+
+	private TextQueryConstraint(
+			final String fieldName,
+			final List<List<Term>> alternatives ) {
 		super();
 		this.fieldName = fieldName;
-		this.matchValue = matchValue;
-		this.caseSensitive = caseSensitive;
+		this.alternatives = alternatives;
 	}
 
 	@Override
@@ -53,36 +100,265 @@ public class TextQueryConstraint implements
 		return fieldName;
 	}
 
+	/**
+	 * @return the alternatives of which one has to match, each a list of terms
+	 *         that all have to match
+	 */
+	List<List<Term>> getAlternatives() {
+		return alternatives;
+	}
+
 	@Override
 	public QueryFilter getFilter() {
-		return new TextExactMatchFilter(
+		if ((alternatives.size() == 1) && (alternatives.get(
+				0).size() == 1) && alternatives.get(
+				0).get(
+				0).isExact()) {
+			final Term term = alternatives.get(
+					0).get(
+					0);
+			return new TextExactMatchFilter(
+					fieldName,
+					term.getPrefix(),
+					term.isCaseSensitive());
+		}
+		// every term is a look ahead that has to match the whole value
+		final StringBuilder regex = new StringBuilder();
+		for (final List<Term> terms : alternatives) {
+			if (regex.length() > 0) {
+				regex.append('|');
+			}
+			regex.append("(?:");
+			for (final Term term : terms) {
+				regex.append(
+						term.isCaseSensitive() ? "(?=(?:" : "(?=(?iu:").append(
+						term.getRegex()).append(
+						")\\z)");
+			}
+			regex.append(')');
+		}
+		return new TextPatternFilter(
 				fieldName,
-				matchValue,
-				caseSensitive);
+				regex.toString());
 	}
 
+	/**
+	 * @return the ranges of an index of the unmodified values, which can only
+	 *         be constrained by case sensitive exact values and prefixes, or
+	 *         by the characters without case at the start of case insensitive
+	 *         ones
+	 */
 	public QueryRanges getQueryRanges() {
-		// TODO case sensitivity
+		final List<QueryRanges> ranges = new ArrayList<>();
+		for (final List<Term> terms : alternatives) {
+			String start = null;
+			for (final Term term : terms) {
+				if (term.isExact() && term.isCaseSensitive()) {
+					start = term.getPrefix();
+					break;
+				}
+				final String prefix = getIndexedPrefix(term);
+				if ((prefix != null) && ((start == null) || (prefix.length() > start.length()))) {
+					start = prefix;
+				}
+			}
+			if (start == null) {
+				return new QueryRanges();
+			}
+			ranges.add(new QueryRanges(
+					new ByteArrayRange(
+							new ByteArray(
+									start),
+							new ByteArray(
+									start))));
+		}
+		if (ranges.size() == 1) {
+			return ranges.get(0);
+		}
 		return new QueryRanges(
-				new ByteArrayRange(
-						new ByteArray(
-								matchValue),
-						new ByteArray(
-								matchValue)));
+				ranges);
+	}
+
+	/**
+	 * @return the prefix that every indexed value matching the term starts
+	 *         with, or null if there is none
+	 */
+	private static String getIndexedPrefix(
+			final Term term ) {
+		final String prefix = term.getPrefix();
+		if ((prefix == null) || term.isCaseSensitive()) {
+			return prefix;
+		}
+		// a case insensitive match can only be constrained by the characters
+		// that every other casing of the value shares
+		int length = 0;
+		while ((length < prefix.length()) && isCaseless(prefix.charAt(length))) {
+			length++;
+		}
+		return length == 0 ? null : prefix.substring(
+				0,
+				length);
+	}
+
+	private static boolean isCaseless(
+			final char c ) {
+		return (Character.toUpperCase(c) == c) && (Character.toLowerCase(c) == c) && (Character.toTitleCase(c) == c);
 	}
 
 	@Override
 	public FilterableConstraints intersect(
 			final FilterableConstraints constaints ) {
-		// TODO Auto-generated method stub
-		return null;
+		if ((constaints instanceof TextQueryConstraint) && ((TextQueryConstraint) constaints).fieldName
+				.equals(fieldName)) {
+			final List<List<Term>> intersection = new ArrayList<>();
+			for (final List<Term> terms : alternatives) {
+				for (final List<Term> otherTerms : ((TextQueryConstraint) constaints).alternatives) {
+					final List<Term> both = new ArrayList<>(
+							terms);
+					both.addAll(otherTerms);
+					intersection.add(both);
+				}
+			}
+			return new TextQueryConstraint(
+					fieldName,
+					intersection);
+		}
+		return this;
 	}
 
 	@Override
 	public FilterableConstraints union(
 			final FilterableConstraints constaints ) {
-		// TODO Auto-generated method stub
-		return null;
+		if ((constaints instanceof TextQueryConstraint) && ((TextQueryConstraint) constaints).fieldName
+				.equals(fieldName)) {
+			final List<List<Term>> union = new ArrayList<>(
+					alternatives);
+			union.addAll(((TextQueryConstraint) constaints).alternatives);
+			return new TextQueryConstraint(
+					fieldName,
+					union);
+		}
+		return this;
 	}
 
+	/**
+	 * An exact value or a LIKE pattern, split into the literal text between
+	 * its wildcards
+	 */
+	static class Term
+	{
+		private final List<String> literals;
+		private final String prefix;
+		private final boolean exact;
+		private final String regex;
+		private final boolean caseSensitive;
+
+		private Term(
+				final String matchValue,
+				final boolean caseSensitive ) {
+			literals = Collections.singletonList(matchValue);
+			prefix = matchValue;
+			exact = true;
+			regex = Pattern.quote(matchValue);
+			this.caseSensitive = caseSensitive;
+		}
+
+		private Term(
+				final String pattern,
+				final String wildCard,
+				final String singleChar,
+				final String escape,
+				final boolean caseSensitive ) {
+			literals = new ArrayList<>();
+			final StringBuilder regexBuilder = new StringBuilder();
+			final StringBuilder literal = new StringBuilder();
+			String firstLiteral = null;
+			int i = 0;
+			while (i < pattern.length()) {
+				String wildCardRegex = null;
+				if ((escape != null) && !escape.isEmpty() && pattern.startsWith(
+						escape,
+						i) && ((i + escape.length()) < pattern.length())) {
+					i += escape.length();
+					literal.append(pattern.charAt(i));
+					i++;
+					continue;
+				}
+				else if ((wildCard != null) && !wildCard.isEmpty() && pattern.startsWith(
+						wildCard,
+						i)) {
+					wildCardRegex = ".*";
+					i += wildCard.length();
+				}
+				else if ((singleChar != null) && !singleChar.isEmpty() && pattern.startsWith(
+						singleChar,
+						i)) {
+					wildCardRegex = ".";
+					i += singleChar.length();
+				}
+				else {
+					literal.append(pattern.charAt(i));
+					i++;
+					continue;
+				}
+				if (firstLiteral == null) {
+					firstLiteral = literal.toString();
+				}
+				addLiteral(
+						literal,
+						regexBuilder);
+				regexBuilder.append(wildCardRegex);
+			}
+			exact = firstLiteral == null;
+			if (exact) {
+				firstLiteral = literal.toString();
+			}
+			addLiteral(
+					literal,
+					regexBuilder);
+			prefix = exact || !firstLiteral.isEmpty() ? firstLiteral : null;
+			regex = regexBuilder.toString();
+			this.caseSensitive = caseSensitive;
+		}
+
+		private void addLiteral(
+				final StringBuilder literal,
+				final StringBuilder regexBuilder ) {
+			if (literal.length() > 0) {
+				literals.add(literal.toString());
+				regexBuilder.append(Pattern.quote(literal.toString()));
+				literal.setLength(0);
+			}
+		}
+
+		/**
+		 * @return the literal text between wildcards
+		 */
+		List<String> getLiterals() {
+			return literals;
+		}
+
+		/**
+		 * @return the text every match starts with, or null if the pattern
+		 *         starts with a wildcard
+		 */
+		String getPrefix() {
+			return prefix;
+		}
+
+		/**
+		 * @return true if there are no wildcards and the prefix is the value
+		 */
+		boolean isExact() {
+			return exact;
+		}
+
+		String getRegex() {
+			return regex;
+		}
+
+		boolean isCaseSensitive() {
+			return caseSensitive;
+		}
+	}
 }
@@ -16,14 +16,16 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Objects;
-import java.util.SortedSet;
-import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.log4j.Logger;
@@ -81,10 +83,11 @@ public class MemoryDataStoreOperations implements
 		DataStoreOperations
 {
 	private final static Logger LOGGER = Logger.getLogger(MemoryDataStoreOperations.class);
-	private final Map<String, SortedSet<MemoryStoreEntry>> storeData = Collections
-			.synchronizedMap(new HashMap<String, SortedSet<MemoryStoreEntry>>());
-	private final Map<MetadataType, SortedSet<MemoryMetadataEntry>> metadataStore = Collections
-			.synchronizedMap(new HashMap<MetadataType, SortedSet<MemoryMetadataEntry>>());
+	// skip lists allow concurrent reads and writes without a global lock, and
+	// their iterators are weakly consistent so readers can stream results
+	// without copying them while writers continue
+	private final Map<String, ConcurrentNavigableMap<MemoryStoreEntry, GeoWaveRow>> storeData = new ConcurrentHashMap<>();
+	private final Map<MetadataType, NavigableSet<MemoryMetadataEntry>> metadataStore = new ConcurrentHashMap<>();
 	private final DataStoreOptions options;
 
 	public MemoryDataStoreOperations() {
@@ -155,142 +158,119 @@ public class MemoryDataStoreOperations implements
 				authorizations);
 	}
 
-	protected SortedSet<MemoryStoreEntry> getRowsForIndex(
+	protected ConcurrentNavigableMap<MemoryStoreEntry, GeoWaveRow> getRowsForIndex(
 			final String id ) {
-		SortedSet<MemoryStoreEntry> set = storeData.get(id);
-		if (set == null) {
-			set = Collections.synchronizedSortedSet(new TreeSet<MemoryStoreEntry>());
-			storeData.put(
-					id,
-					set);
-		}
-		return set;
+		return storeData.computeIfAbsent(
+				id,
+				k -> new ConcurrentSkipListMap<>());
 	}
 
 	@Override
 	public <T> RowReader<T> createReader(
 			final ReaderParams<T> readerParams ) {
-		final SortedSet<MemoryStoreEntry> internalData = storeData.get(readerParams.getIndex().getName());
-		int counter = 0;
-		List<MemoryStoreEntry> retVal = new ArrayList<>();
+		final ConcurrentNavigableMap<MemoryStoreEntry, GeoWaveRow> internalData = storeData.get(readerParams
+				.getIndex()
+				.getName());
+		if (internalData == null) {
+			return new MyIndexReader<>(
+					Collections.emptyIterator(),
+					readerParams.getRowTransformer());
+		}
 		final Collection<SinglePartitionQueryRanges> partitionRanges = readerParams
 				.getQueryRanges()
 				.getPartitionQueryRanges();
+		Iterator<GeoWaveRow> rows;
 		if ((partitionRanges == null) || partitionRanges.isEmpty()) {
-			retVal.addAll(internalData);
-			// remove unauthorized
-			final Iterator<MemoryStoreEntry> it = retVal.iterator();
-			while (it.hasNext()) {
-				if (!isAuthorized(
-						it.next(),
-						readerParams.getAdditionalAuthorizations())) {
-					it.remove();
-				}
-			}
-			if ((readerParams.getLimit() != null) && (readerParams.getLimit() > 0)
-					&& (retVal.size() > readerParams.getLimit())) {
-				retVal = retVal.subList(
-						0,
-						readerParams.getLimit());
-			}
+			rows = internalData.values().iterator();
 		}
 		else {
-			for (final SinglePartitionQueryRanges p : partitionRanges) {
-				for (final ByteArrayRange r : p.getSortKeyRanges()) {
-					final SortedSet<MemoryStoreEntry> set;
-					if (r.isSingleValue()) {
-						set = internalData.subSet(
-								new MemoryStoreEntry(
-										p.getPartitionKey(),
-										r.getStart()),
-								new MemoryStoreEntry(
-										p.getPartitionKey(),
-										new ByteArray(
-												r.getStart().getNextPrefix())));
-					}
-					else {
-						set = internalData.tailSet(
-								new MemoryStoreEntry(
-										p.getPartitionKey(),
-										r.getStart())).headSet(
-								new MemoryStoreEntry(
-										p.getPartitionKey(),
-										r.getEndAsNextPrefix()));
-					}
-					// remove unauthorized
-					final Iterator<MemoryStoreEntry> it = set.iterator();
-					while (it.hasNext()) {
+			// each range is only looked up once the previous range has been
+			// consumed
+			rows = Iterators.concat(partitionRanges.stream().flatMap(
+					p -> p.getSortKeyRanges().stream().map(
+							r -> getRange(
+									internalData,
+									p.getPartitionKey(),
+									r))).iterator());
+		}
+		rows = Iterators.filter(
+				rows,
+				new Predicate<GeoWaveRow>() {
+					@Override
+					public boolean apply(
+							final GeoWaveRow input ) {
 						if (!isAuthorized(
-								it.next(),
+								input,
 								readerParams.getAdditionalAuthorizations())) {
-							it.remove();
+							return false;
 						}
-					}
-					if ((readerParams.getLimit() != null) && (readerParams.getLimit() > 0)
-							&& ((counter + set.size()) > readerParams.getLimit())) {
-						final List<MemoryStoreEntry> subset = new ArrayList<>(
-								set);
-						retVal.addAll(subset.subList(
-								0,
-								readerParams.getLimit() - counter));
-						break;
-					}
-					else {
-						retVal.addAll(set);
-						counter += set.size();
-						if ((readerParams.getLimit() != null) && (readerParams.getLimit() > 0)
-								&& (counter >= readerParams.getLimit())) {
-							break;
+						if ((readerParams.getFilter() != null) && options.isServerSideLibraryEnabled()) {
+							final PersistentDataset<CommonIndexValue> commonData = new PersistentDataset<>();
+							final List<FlattenedUnreadData> unreadData = new ArrayList<>();
+							final List<String> commonIndexFieldNames = DataStoreUtils
+									.getUniqueDimensionFields(readerParams.getIndex().getIndexModel());
+							for (final GeoWaveValue v : input.getFieldValues()) {
+								unreadData.add(DataStoreUtils.aggregateFieldData(
+										input,
+										v,
+										commonData,
+										readerParams.getIndex().getIndexModel(),
+										commonIndexFieldNames));
+							}
+							return readerParams.getFilter().accept(
+									readerParams.getIndex().getIndexModel(),
+									new DeferredReadCommonIndexedPersistenceEncoding(
+											input.getAdapterId(),
+											new ByteArray(
+													input.getDataId()),
+											new ByteArray(
+													input.getPartitionKey()),
+											new ByteArray(
+													input.getSortKey()),
+											input.getNumberOfDuplicates(),
+											commonData,
+											unreadData.isEmpty() ? null : new UnreadFieldDataList(
+													unreadData)));
 						}
+						return true;
 					}
-				}
-			}
-		}
-		return new MyIndexReader(
-				Iterators.filter(
-						retVal.iterator(),
-						new Predicate<MemoryStoreEntry>() {
-							@Override
-							public boolean apply(
-									final MemoryStoreEntry input ) {
-								if ((readerParams.getFilter() != null) && options.isServerSideLibraryEnabled()) {
-									final PersistentDataset<CommonIndexValue> commonData = new PersistentDataset<>();
-									final List<FlattenedUnreadData> unreadData = new ArrayList<>();
-									final List<String> commonIndexFieldNames = DataStoreUtils
-											.getUniqueDimensionFields(readerParams.getIndex().getIndexModel());
-									for (final GeoWaveValue v : input.getRow().getFieldValues()) {
-										unreadData.add(DataStoreUtils.aggregateFieldData(
-												input.getRow(),
-												v,
-												commonData,
-												readerParams.getIndex().getIndexModel(),
-												commonIndexFieldNames));
-									}
-									return readerParams.getFilter().accept(
-											readerParams.getIndex().getIndexModel(),
-											new DeferredReadCommonIndexedPersistenceEncoding(
-													input.getRow().getAdapterId(),
-													new ByteArray(
-															input.getRow().getDataId()),
-													new ByteArray(
-															input.getRow().getPartitionKey()),
-													new ByteArray(
-															input.getRow().getSortKey()),
-													input.getRow().getNumberOfDuplicates(),
-													commonData,
-													unreadData.isEmpty() ? null : new UnreadFieldDataList(
-															unreadData)));
-								}
-								return true;
-							}
-						}),
+				});
+		if ((readerParams.getLimit() != null) && (readerParams.getLimit() > 0)) {
+			// stop iterating the underlying skip list once the limit is reached
+			rows = Iterators.limit(
+					rows,
+					readerParams.getLimit());
+		}
+		return new MyIndexReader<>(
+				rows,
 				readerParams.getRowTransformer());
 	}
 
+	private static Iterator<GeoWaveRow> getRange(
+			final ConcurrentNavigableMap<MemoryStoreEntry, GeoWaveRow> internalData,
+			final ByteArray partitionKey,
+			final ByteArrayRange range ) {
+		final MemoryStoreEntry start = new MemoryStoreEntry(
+				partitionKey,
+				range.getStart());
+		final MemoryStoreEntry end = new MemoryStoreEntry(
+				partitionKey,
+				range.isSingleValue() ? new ByteArray(
+						range.getStart().getNextPrefix()) : range.getEndAsNextPrefix());
+		if (start.compareTo(end) >= 0) {
+			return Collections.emptyIterator();
+		}
+		return internalData.subMap(
+				start,
+				true,
+				end,
+				false).values().iterator();
+	}
+
 	private boolean isAuthorized(
-			final MemoryStoreEntry row,
+			final GeoWaveRow row,
 			final String... authorizations ) {
-		for (final GeoWaveValue value : row.getRow().getFieldValues()) {
+		for (final GeoWaveValue value : row.getFieldValues()) {
 			if (!MemoryStoreUtils.isAuthorized(
 					value.getVisibility(),
 					authorizations)) {
@@ -306,15 +286,10 @@ public class MemoryDataStoreOperations implements
 		private final Iterator<T> it;
 
 		public MyIndexReader(
-				final Iterator<MemoryStoreEntry> it,
+				final Iterator<GeoWaveRow> it,
 				final GeoWaveRowIteratorTransformer<T> rowTransformer ) {
 			super();
-			this.it = rowTransformer
-					.apply(
-							Iterators
-									.transform(
-											it,
-											e -> e.row));
+			this.it = rowTransformer.apply(it);
 		}
 
 		@Override
@@ -370,22 +345,12 @@ public class MemoryDataStoreOperations implements
 		@Override
 		public void write(
 				final GeoWaveRow row ) {
-			SortedSet<MemoryStoreEntry> rowTreeSet = storeData.get(indexName);
-			if (rowTreeSet == null) {
-				rowTreeSet = new TreeSet<>();
-				storeData.put(
-						indexName,
-						rowTreeSet);
-			}
-			if (rowTreeSet.contains(new MemoryStoreEntry(
-					row))) {
-				rowTreeSet.remove(new MemoryStoreEntry(
-						row));
-			}
-			if (!rowTreeSet.add(new MemoryStoreEntry(
-					row))) {
-				LOGGER.warn("Unable to add new entry");
-			}
+			// replaces any existing row with the same key atomically
+			getRowsForIndex(
+					indexName).put(
+					new MemoryStoreEntry(
+							row),
+					row);
 		}
 	}
 
@@ -409,14 +374,13 @@ public class MemoryDataStoreOperations implements
 		@Override
 		public void delete(
 				final GeoWaveRow row ) {
-			final MemoryStoreEntry entry = new MemoryStoreEntry(
-					row);
 			if (isAuthorized(
-					entry,
+					row,
 					authorizations)) {
-				final SortedSet<MemoryStoreEntry> rowTreeSet = storeData.get(indexName);
-				if (rowTreeSet != null) {
-					if (!rowTreeSet.remove(entry)) {
+				final ConcurrentNavigableMap<MemoryStoreEntry, GeoWaveRow> rows = storeData.get(indexName);
+				if (rows != null) {
+					if (rows.remove(new MemoryStoreEntry(
+							row)) == null) {
 						LOGGER.warn("Unable to remove entry");
 					}
 				}
@@ -555,11 +519,11 @@ public class MemoryDataStoreOperations implements
 		@Override
 		public CloseableIterator<GeoWaveMetadata> query(
 				final MetadataQuery query ) {
-			final SortedSet<MemoryMetadataEntry> typeStore = metadataStore.get(type);
+			final NavigableSet<MemoryMetadataEntry> typeStore = metadataStore.get(type);
 			if (typeStore == null) {
 				return new CloseableIterator.Empty<>();
 			}
-			final SortedSet<MemoryMetadataEntry> set = typeStore.subSet(
+			final NavigableSet<MemoryMetadataEntry> set = typeStore.subSet(
 					new MemoryMetadataEntry(
 							new GeoWaveMetadata(
 									query.getPrimaryId(),
@@ -670,14 +634,10 @@ public class MemoryDataStoreOperations implements
 							}
 						});
 			}
-			// convert to and from array just to avoid concurrent modification
-			// issues on the iterator that is linked back to the metadataStore
-			// sortedSet (basically clone the iterator, so for example deletes
-			// can occur while iterating through this query result)
+			// the skip list iterator is weakly consistent so for example
+			// deletes can occur while iterating through this query result
 			return new CloseableIterator.Wrapper(
-					Iterators.forArray(Iterators.toArray(
-							itTransformed,
-							GeoWaveMetadata.class)));
+					itTransformed);
 		}
 
 	}
@@ -749,20 +709,11 @@ public class MemoryDataStoreOperations implements
 		@Override
 		public void write(
 				final GeoWaveMetadata metadata ) {
-			SortedSet<MemoryMetadataEntry> typeStore = metadataStore.get(type);
-			if (typeStore == null) {
-				typeStore = new TreeSet<>();
-				metadataStore.put(
-						type,
-						typeStore);
-			}
-			if (typeStore.contains(new MemoryMetadataEntry(
-					metadata))) {
-				typeStore.remove(new MemoryMetadataEntry(
-						metadata));
-			}
-			if (!typeStore.add(new MemoryMetadataEntry(
-					metadata))) {
+			if (!metadataStore.computeIfAbsent(
+					type,
+					k -> new ConcurrentSkipListSet<>()).add(
+					new MemoryMetadataEntry(
+							metadata))) {
 				LOGGER.warn("Unable to add new metadata");
 			}
 
@@ -11,12 +11,17 @@
 package org.locationtech.geowave.core.store.metadata;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import org.locationtech.geowave.core.index.ByteArray;
 import org.locationtech.geowave.core.index.persist.Persistable;
 import org.locationtech.geowave.core.index.persist.PersistenceUtils;
+import org.locationtech.geowave.core.store.BaseDataStoreOptions;
 import org.locationtech.geowave.core.store.CloseableIterator;
+import org.locationtech.geowave.core.store.CloseableIteratorWrapper;
 import org.locationtech.geowave.core.store.DataStoreOptions;
 import org.locationtech.geowave.core.store.entities.GeoWaveMetadata;
 import org.locationtech.geowave.core.store.operations.DataStoreOperations;
@@ -28,17 +33,23 @@ import org.locationtech.geowave.core.store.operations.MetadataWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.google.common.collect.Iterators;
 
 /**
  * This abstract class does most of the work for storing persistable objects in
  * Geowave datastores and can be easily extended for any object that needs to be
  * persisted.
  *
- * There is an LRU cache associated with it so staying in sync with external
- * updates is not practical - it assumes the objects are not updated often or at
- * all. The objects are stored in their own table.
+ * There is a cache associated with it, bounded in size and optionally in age
+ * by the data store options. Objects that are not found are also cached for a
+ * short time. To stay in sync with other processes every write also replaces a
+ * version stamp in the metadata table, and the cache is cleared whenever a
+ * periodic check finds that the stamp has changed. The objects are stored in
+ * their own table.
  *
  * @param <T>
  *            The type of persistable object that this stores
@@ -47,18 +58,32 @@ public abstract class AbstractGeoWavePersistence<T extends Persistable>
 {
 	private final static Logger LOGGER = LoggerFactory.getLogger(AbstractGeoWavePersistence.class);
 
-	// TODO: should we concern ourselves with multiple distributed processes
-	// updating and looking up objects simultaneously that would require some
-	// locking/synchronization mechanism, and even possibly update
-	// notifications?
-	protected static final int MAX_ENTRIES = 100;
 	public final static String METADATA_TABLE = "GEOWAVE_METADATA";
+	// no primary ID of a persisted object starts with 0xFF, internal adapter
+	// IDs are positive and names are UTF-8
+	private static final ByteArray VERSION_ID = new ByteArray(
+			new byte[] {
+				(byte) 0xFF,
+				'V',
+				'E',
+				'R',
+				'S',
+				'I',
+				'O',
+				'N'
+			});
+	// cached in place of an object that was not found
+	private static final Object MISSING = new Object();
 	protected final DataStoreOperations operations;
 	protected final DataStoreOptions options;
 	protected final MetadataType type;
 
 	@SuppressWarnings("rawtypes")
 	protected Cache cache;
+	private final boolean cacheMissing;
+	private final long versionCheckMillis;
+	private volatile long lastVersionCheck = Long.MIN_VALUE;
+	private volatile ByteArray version;
 
 	public AbstractGeoWavePersistence(
 			final DataStoreOperations operations,
@@ -67,13 +92,66 @@ public abstract class AbstractGeoWavePersistence<T extends Persistable>
 		this.operations = operations;
 		this.options = options;
 		this.type = type;
+		final DataStoreOptions cacheOptions = getCacheOptions();
+		cacheMissing = cacheOptions.getMetadataCacheMissingTtlMillis() > 0;
+		versionCheckMillis = cacheOptions.getMetadataVersionCheckMillis();
 		buildCache();
 	}
 
+	protected DataStoreOptions getCacheOptions() {
+		return options == null ? new BaseDataStoreOptions() : options;
+	}
+
 	protected void buildCache() {
-		final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().maximumSize(
-				MAX_ENTRIES);
-		this.cache = cacheBuilder.<ByteArray, T> build();
+		final DataStoreOptions cacheOptions = getCacheOptions();
+		final long ttlNanos = toNanos(cacheOptions.getMetadataCacheTtlMillis());
+		final long missingTtlNanos = Math.min(
+				toNanos(cacheOptions.getMetadataCacheMissingTtlMillis()),
+				ttlNanos);
+		this.cache = Caffeine.newBuilder().maximumSize(
+				cacheOptions.getMetadataCacheSize()).expireAfter(
+				new Expiry<Object, Object>() {
+					@Override
+					public long expireAfterCreate(
+							final Object key,
+							final Object value,
+							final long currentTime ) {
+						return value == MISSING ? missingTtlNanos : ttlNanos;
+					}
+
+					@Override
+					public long expireAfterUpdate(
+							final Object key,
+							final Object value,
+							final long currentTime,
+							final long currentDuration ) {
+						return expireAfterCreate(
+								key,
+								value,
+								currentTime);
+					}
+
+					@Override
+					public long expireAfterRead(
+							final Object key,
+							final Object value,
+							final long currentTime,
+							final long currentDuration ) {
+						return currentDuration;
+					}
+				}).recordStats().<ByteArray, Object> build();
+	}
+
+	private static long toNanos(
+			final long millis ) {
+		return millis > 0 ? TimeUnit.MILLISECONDS.toNanos(millis) : Long.MAX_VALUE;
+	}
+
+	/**
+	 * @return the hits, misses and evictions of this store's cache
+	 */
+	public CacheStats getCacheStats() {
+		return cache.stats();
 	}
 
 	protected MetadataType getType() {
@@ -148,6 +226,138 @@ public abstract class AbstractGeoWavePersistence<T extends Persistable>
 		return false;
 	}
 
+	@SuppressWarnings("unchecked")
+	private void addMissingToCache(
+			final ByteArray primaryId,
+			final ByteArray secondaryId ) {
+		if (cacheMissing) {
+			cache.put(
+					getCombinedId(
+							primaryId,
+							secondaryId),
+					MISSING);
+		}
+	}
+
+	/**
+	 * @return whether writes to this store replace the version stamp that other
+	 *         processes check to clear their cache, stores that cache
+	 *         differently or write too often to stamp every write should return
+	 *         false
+	 */
+	protected boolean isVersioned() {
+		return true;
+	}
+
+	/**
+	 * Clear the cache if the version stamp has been replaced since it was last
+	 * checked, at most once per check interval
+	 */
+	protected void checkVersion() {
+		if (!isVersioned() || (versionCheckMillis <= 0)) {
+			return;
+		}
+		final long now = System.currentTimeMillis();
+		if ((lastVersionCheck != Long.MIN_VALUE) && ((now - lastVersionCheck) < versionCheckMillis)) {
+			return;
+		}
+		lastVersionCheck = now;
+		final ByteArray currentVersion = readVersion();
+		if ((currentVersion != null) && !currentVersion.equals(version)) {
+			version = currentVersion;
+			cache.invalidateAll();
+		}
+	}
+
+	private ByteArray readVersion() {
+		try {
+			if (!operations.metadataExists(getType())) {
+				return null;
+			}
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"Unable to check for existence of metadata to read version",
+					e);
+			return null;
+		}
+		ByteArray latest = null;
+		final MetadataReader reader = operations.createMetadataReader(getType());
+		try (final CloseableIterator<GeoWaveMetadata> it = reader.query(new MetadataQuery(
+				VERSION_ID.getBytes(),
+				null))) {
+			// stores that keep more than one value take the latest
+			while (it.hasNext()) {
+				final GeoWaveMetadata entry = it.next();
+				if (isVersion(entry) && (entry.getValue() != null) && (entry.getValue().length == 16)
+						&& ((latest == null) || (ByteBuffer.wrap(
+								entry.getValue()).getLong() > ByteBuffer.wrap(
+								latest.getBytes()).getLong()))) {
+					latest = new ByteArray(
+							entry.getValue());
+				}
+			}
+		}
+		return latest;
+	}
+
+	/**
+	 * Replace the version stamp with the current time and a random number so
+	 * that other processes clear their cache
+	 */
+	protected void writeVersion() {
+		if (!isVersioned()) {
+			return;
+		}
+		final byte[] value = ByteBuffer.allocate(
+				16).putLong(
+				System.currentTimeMillis()).putLong(
+				ThreadLocalRandom.current().nextLong()).array();
+		try (final MetadataDeleter deleter = operations.createMetadataDeleter(getType())) {
+			deleter.delete(new MetadataQuery(
+					VERSION_ID.getBytes(),
+					null));
+		}
+		catch (final Exception e) {
+			LOGGER.warn(
+					"Unable to delete metadata version",
+					e);
+		}
+		try (final MetadataWriter writer = operations.createMetadataWriter(getType())) {
+			if (writer != null) {
+				writer.write(new GeoWaveMetadata(
+						VERSION_ID.getBytes(),
+						null,
+						null,
+						value));
+			}
+		}
+		catch (final Exception e) {
+			LOGGER.warn(
+					"Unable to write metadata version",
+					e);
+			return;
+		}
+		// this process's cache already reflects its own writes
+		version = new ByteArray(
+				value);
+	}
+
+	private static boolean isVersion(
+			final GeoWaveMetadata entry ) {
+		return VERSION_ID.equals(new ByteArray(
+				entry.getPrimaryId()));
+	}
+
+	private static CloseableIterator<GeoWaveMetadata> withoutVersion(
+			final CloseableIterator<GeoWaveMetadata> it ) {
+		return new CloseableIteratorWrapper<>(
+				it,
+				Iterators.filter(
+						it,
+						entry -> !isVersion(entry)));
+	}
+
 	public void remove(
 			final ByteArray adapterId ) {
 		deleteObject(
@@ -201,6 +411,20 @@ public abstract class AbstractGeoWavePersistence<T extends Persistable>
 				id,
 				secondaryId,
 				object);
+		writeObject(
+				id,
+				secondaryId,
+				object);
+		writeVersion();
+	}
+
+	/**
+	 * Write an object to the metadata table without updating the cache
+	 */
+	protected void writeObject(
+			final ByteArray id,
+			final ByteArray secondaryId,
+			final T object ) {
 		try (final MetadataWriter writer = operations.createMetadataWriter(getType())) {
 			if (writer != null) {
 				final GeoWaveMetadata metadata = new GeoWaveMetadata(
@@ -250,10 +474,14 @@ public abstract class AbstractGeoWavePersistence<T extends Persistable>
 			final ByteArray secondaryId,
 			final boolean warnIfNotExists,
 			final String... authorizations ) {
+		checkVersion();
 		final Object cacheResult = getObjectFromCache(
 				primaryId,
 				secondaryId,
 				authorizations);
+		if (cacheResult == MISSING) {
+			return null;
+		}
 		if (cacheResult != null) {
 			return (T) cacheResult;
 		}
@@ -265,6 +493,9 @@ public abstract class AbstractGeoWavePersistence<T extends Persistable>
 							primaryId,
 							secondaryId).getString() + "' not found. '" + METADATA_TABLE + "' table does not exist");
 				}
+				addMissingToCache(
+						primaryId,
+						secondaryId);
 				return null;
 			}
 		}
@@ -281,15 +512,19 @@ public abstract class AbstractGeoWavePersistence<T extends Persistable>
 				primaryId.getBytes(),
 				secondaryId == null ? null : secondaryId.getBytes(),
 				authorizations))) {
-			if (!it.hasNext()) {
+			final CloseableIterator<GeoWaveMetadata> entries = withoutVersion(it);
+			if (!entries.hasNext()) {
 				if (warnIfNotExists) {
 					LOGGER.warn("Object '" + getCombinedId(
 							primaryId,
 							secondaryId).getString() + "' not found");
 				}
+				addMissingToCache(
+						primaryId,
+						secondaryId);
 				return null;
 			}
-			final GeoWaveMetadata entry = it.next();
+			final GeoWaveMetadata entry = entries.next();
 			return entryToValue(
 					entry,
 					authorizations);
@@ -331,7 +566,7 @@ public abstract class AbstractGeoWavePersistence<T extends Persistable>
 		final MetadataReader reader = operations.createMetadataReader(getType());
 		final CloseableIterator<GeoWaveMetadata> it = reader.query(query);
 		return new NativeIteratorWrapper(
-				it,
+				withoutVersion(it),
 				query.getAuthorizations());
 	}
 
@@ -370,13 +605,17 @@ public abstract class AbstractGeoWavePersistence<T extends Persistable>
 			final ByteArray primaryId,
 			final ByteArray secondaryId,
 			final String... authorizations ) {
-		return deleteObjects(
+		if (deleteObjects(
 				primaryId,
 				secondaryId,
 				operations,
 				getType(),
 				this,
-				authorizations);
+				authorizations)) {
+			writeVersion();
+			return true;
+		}
+		return false;
 	}
 
 	protected static boolean deleteObjects(
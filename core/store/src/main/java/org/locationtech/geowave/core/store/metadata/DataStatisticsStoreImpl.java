@@ -10,10 +10,17 @@
  ******************************************************************************/
 package org.locationtech.geowave.core.store.metadata;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.locationtech.geowave.core.index.ByteArray;
 import org.locationtech.geowave.core.index.ByteArrayUtils;
@@ -28,8 +35,10 @@ import org.locationtech.geowave.core.store.entities.GeoWaveMetadata;
 import org.locationtech.geowave.core.store.operations.DataStoreOperations;
 import org.locationtech.geowave.core.store.operations.MetadataQuery;
 import org.locationtech.geowave.core.store.operations.MetadataType;
+import org.locationtech.geowave.core.store.util.VisibilityExpression;
 
-import com.google.common.cache.CacheBuilder;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.collect.Iterators;
 import com.google.common.primitives.Bytes;
 
@@ -53,6 +62,12 @@ public class DataStatisticsStoreImpl extends
 
 	private static final long STATISTICS_CACHE_TIMEOUT = 60 * 1000; // 1 Minute
 
+	// tracks writes so that a query overlapping a write does not cache results
+	// that are missing it, or that already include statistics merged into the
+	// cache after the query
+	private final AtomicLong writeCount = new AtomicLong();
+	private final AtomicInteger pendingWrites = new AtomicInteger();
+
 	public DataStatisticsStoreImpl(
 			final DataStoreOperations operations,
 			final DataStoreOptions options ) {
@@ -64,14 +79,25 @@ public class DataStatisticsStoreImpl extends
 
 	@Override
 	protected void buildCache() {
-		final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().maximumSize(
-				MAX_ENTRIES).expireAfterWrite(
+		cache = Caffeine.newBuilder().maximumSize(
+				getCacheOptions().getMetadataCacheSize()).expireAfterWrite(
 				STATISTICS_CACHE_TIMEOUT,
-				TimeUnit.MILLISECONDS);
-		cache = cacheBuilder.<ByteArray, Map<String, InternalDataStatistics<?, ?, ?>>> build();
+				TimeUnit.MILLISECONDS).recordStats().<StatisticsQueryKey, List<InternalDataStatistics<?, ?, ?>>> build();
+	}
+
+	@Override
+	protected boolean isVersioned() {
+		// statistics are written with every ingest and are merged by the
+		// combiner, cached results are kept up to date in place instead
+		return false;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Cache<StatisticsQueryKey, List<InternalDataStatistics<?, ?, ?>>> getStatisticsCache() {
+		return cache;
 	}
 
-	private String getCombinedAuths(
+	private static String getCombinedAuths(
 			final String[] authorizations ) {
 		final StringBuilder sb = new StringBuilder();
 		if (authorizations != null) {
@@ -89,56 +115,197 @@ public class DataStatisticsStoreImpl extends
 	@Override
 	public void incorporateStatistics(
 			final InternalDataStatistics<?, ?, ?> statistics ) {
-		// because we're using the combiner, we should simply be able to add the
-		// object
-		addObject(statistics);
-		deleteObjectFromCache(
-				getPrimaryId(statistics),
-				getSecondaryId(statistics));
+		startWrite();
+		try {
+			// because we're using the combiner, we should simply be able to add
+			// the object
+			writeObject(
+					getPrimaryId(statistics),
+					getSecondaryId(statistics),
+					statistics);
+			mergeIntoCache(statistics);
+		}
+		finally {
+			endWrite();
+		}
+	}
+
+	private void mergeIntoCache(
+			final InternalDataStatistics<?, ?, ?> statistics ) {
+		// rather than evicting cached results, which would make the next query
+		// scan and merge every row of these statistics again, merge the new
+		// statistics into them
+		final ConcurrentMap<StatisticsQueryKey, List<InternalDataStatistics<?, ?, ?>>> cached = getStatisticsCache()
+				.asMap();
+		for (final StatisticsQueryKey key : cached.keySet()) {
+			if (key.includes(statistics)) {
+				if (key.isVisible(statistics.getVisibility())) {
+					cached.computeIfPresent(
+							key,
+							(k, results) -> merge(
+									results,
+									statistics));
+				}
+				else if (key.authorizations.isEmpty()) {
+					// some data stores do not filter by visibility without
+					// authorizations so leave it to the next query
+					cached.remove(key);
+				}
+			}
+		}
+	}
+
+	private void startWrite() {
+		pendingWrites.incrementAndGet();
+		writeCount.incrementAndGet();
+	}
+
+	private void endWrite() {
+		pendingWrites.decrementAndGet();
+	}
+
+	private static List<InternalDataStatistics<?, ?, ?>> merge(
+			final List<InternalDataStatistics<?, ?, ?>> results,
+			final InternalDataStatistics<?, ?, ?> statistics ) {
+		final List<InternalDataStatistics<?, ?, ?>> mergedResults = new ArrayList<>(
+				results.size() + 1);
+		boolean merged = false;
+		for (final InternalDataStatistics<?, ?, ?> result : results) {
+			if (!merged && isSameStatistic(
+					result,
+					statistics)) {
+				// cached statistics are never modified as they may be in use by
+				// a query that has not yet copied them
+				final InternalDataStatistics<?, ?, ?> mergedResult = copy(result);
+				mergedResult.merge(statistics);
+				mergedResults.add(mergedResult);
+				merged = true;
+			}
+			else {
+				mergedResults.add(result);
+			}
+		}
+		if (!merged) {
+			mergedResults.add(copy(statistics));
+		}
+		return Collections.unmodifiableList(mergedResults);
+	}
+
+	private static boolean isSameStatistic(
+			final InternalDataStatistics<?, ?, ?> statistics1,
+			final InternalDataStatistics<?, ?, ?> statistics2 ) {
+		// statistics of each visibility are kept apart as they are in the
+		// data store
+		return Objects.equals(
+				statistics1.getAdapterId(),
+				statistics2.getAdapterId()) && statistics1.getType().equals(
+				statistics2.getType()) && getExtendedId(
+				statistics1).equals(
+				getExtendedId(statistics2)) && Arrays.equals(
+				getVisibilityOrEmpty(statistics1),
+				getVisibilityOrEmpty(statistics2));
+	}
+
+	private static byte[] getVisibilityOrEmpty(
+			final InternalDataStatistics<?, ?, ?> statistics ) {
+		return statistics.getVisibility() == null ? new byte[0] : statistics.getVisibility();
+	}
+
+	private static String getExtendedId(
+			final InternalDataStatistics<?, ?, ?> statistics ) {
+		return statistics.getExtendedId() == null ? "" : statistics.getExtendedId();
+	}
+
+	private static InternalDataStatistics<?, ?, ?> copy(
+			final InternalDataStatistics<?, ?, ?> statistics ) {
+		final InternalDataStatistics<?, ?, ?> copy = statistics.duplicate();
+		// the visibility is not part of the binary representation
+		copy.setVisibility(statistics.getVisibility());
+		return copy;
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	protected void addObjectToCache(
 			final ByteArray primaryId,
 			final ByteArray secondaryId,
 			final InternalDataStatistics<?, ?, ?> object,
 			final String... authorizations ) {
-		final ByteArray combinedId = getCombinedId(
-				primaryId,
-				secondaryId);
-
-		Map<String, InternalDataStatistics<?, ?, ?>> cached = (Map<String, InternalDataStatistics<?, ?, ?>>) cache
-				.getIfPresent(combinedId);
-		if (cached == null) {
-			cached = new ConcurrentHashMap<>();
-			cache.put(
-					combinedId,
-					cached);
+		// only whole query results are cached, this is called when statistics
+		// are overwritten
+		final ConcurrentMap<StatisticsQueryKey, List<InternalDataStatistics<?, ?, ?>>> cached = getStatisticsCache()
+				.asMap();
+		for (final StatisticsQueryKey key : cached.keySet()) {
+			if (key.includes(object)) {
+				cached.remove(key);
+			}
 		}
-		cached.put(
-				getCombinedAuths(authorizations),
-				object);
+	}
 
+	@Override
+	protected void addObject(
+			final ByteArray id,
+			final ByteArray secondaryId,
+			final InternalDataStatistics<?, ?, ?> object ) {
+		startWrite();
+		try {
+			super.addObject(
+					id,
+					secondaryId,
+					object);
+			// invalidate again in case a query cached the results while the
+			// object was being written
+			addObjectToCache(
+					id,
+					secondaryId,
+					object);
+		}
+		finally {
+			endWrite();
+		}
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	protected Object getObjectFromCache(
 			final ByteArray primaryId,
 			final ByteArray secondaryId,
 			final String... authorizations ) {
-		final ByteArray combinedId = getCombinedId(
-				primaryId,
-				secondaryId);
-		final Map<String, InternalDataStatistics<?, ?, ?>> cached = (Map<String, InternalDataStatistics<?, ?, ?>>) cache
-				.getIfPresent(combinedId);
-		if (cached != null) {
-			return cached.get(getCombinedAuths(authorizations));
-		}
+		// only whole query results are cached
 		return null;
 	}
 
+	@Override
+	protected boolean deleteObjectFromCache(
+			final ByteArray primaryId,
+			final ByteArray secondaryId ) {
+		writeCount.incrementAndGet();
+		boolean present = false;
+		final ConcurrentMap<StatisticsQueryKey, List<InternalDataStatistics<?, ?, ?>>> cached = getStatisticsCache()
+				.asMap();
+		for (final StatisticsQueryKey key : cached.keySet()) {
+			if (((primaryId == null) || startsWith(
+					primaryId.getBytes(),
+					key.primaryIdPrefix.getBytes())) && ((secondaryId == null) || (key.adapterId == null)
+					|| secondaryId.equals(shortToByteArrayId(key.adapterId)))) {
+				present |= cached.remove(key) != null;
+			}
+		}
+		return present;
+	}
+
+	private static boolean startsWith(
+			final byte[] bytes,
+			final byte[] prefix ) {
+		if (bytes.length < prefix.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (bytes[i] != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	protected ByteArray shortToByteArrayId(
 			final short internalAdapterId ) {
 		return new ByteArray(
@@ -158,41 +325,70 @@ public class DataStatisticsStoreImpl extends
 		return internalGetDataStatistics(
 				adapterId,
 				statisticsType,
+				null,
+				false,
 				authorizations);
 	}
 
 	protected CloseableIterator<InternalDataStatistics<?, ?, ?>> internalGetDataStatistics(
 			final Short adapterId,
-			final ByteArray primaryId,
+			final StatisticsType<?, ?> statisticsType,
+			final String extendedId,
+			final boolean exactExtendedId,
 			final String... authorizations ) {
-
-		final ByteArray secondaryId = adapterId == null ? null : shortToByteArrayId(adapterId);
-		final Object cacheResult = getObjectFromCache(
-				primaryId,
-				secondaryId,
+		final StatisticsQueryKey key = new StatisticsQueryKey(
+				adapterId,
+				statisticsType,
+				extendedId,
+				exactExtendedId,
 				authorizations);
-
-		// if there's an exact match in the cache return a singleton
-		if (cacheResult != null) {
-			return new CloseableIterator.Wrapper<>(
-					Iterators.singletonIterator((InternalDataStatistics<?, ?, ?>) cacheResult));
+		List<InternalDataStatistics<?, ?, ?>> results = getStatisticsCache().getIfPresent(
+				key);
+		if (results == null) {
+			final long writesBefore = writeCount.get();
+			final boolean writePending = pendingWrites.get() > 0;
+			final ByteArray secondaryId = adapterId == null ? null : shortToByteArrayId(adapterId);
+			results = new ArrayList<>();
+			// scan every extended ID with the prefix, some data stores match
+			// the primary ID exactly or match other statistics types or
+			// extended IDs with the same prefix so the results are also
+			// filtered here
+			try (CloseableIterator<InternalDataStatistics<?, ?, ?>> it = internalGetObjects(new MetadataQuery(
+					key.primaryIdPrefix.getBytes(),
+					secondaryId == null ? null : secondaryId.getBytes(),
+					!exactExtendedId,
+					authorizations))) {
+				while (it.hasNext()) {
+					final InternalDataStatistics<?, ?, ?> statistics = it.next();
+					if ((statistics != null) && key.includes(statistics)) {
+						results.add(statistics);
+					}
+				}
+			}
+			results = Collections.unmodifiableList(results);
+			// a result that overlaps a write may be missing it
+			if (!writePending && (pendingWrites.get() == 0) && (writeCount.get() == writesBefore)) {
+				getStatisticsCache().put(
+						key,
+						results);
+				if (writeCount.get() != writesBefore) {
+					getStatisticsCache().invalidate(
+							key);
+				}
+			}
 		}
-
-		// otherwise scan
-		// TODO issue 1443 will enable prefix scans on the primary ID
-		return internalGetObjects(new MetadataQuery(
-				primaryId.getBytes(),
-				secondaryId == null ? null : secondaryId.getBytes(),
-				authorizations));
+		return new CloseableIterator.Wrapper<>(
+				Iterators.transform(
+						results.iterator(),
+						DataStatisticsStoreImpl::copy));
 	}
 
 	@Override
 	protected InternalDataStatistics<?, ?, ?> entryToValue(
 			final GeoWaveMetadata entry,
 			final String... authorizations ) {
-		final InternalDataStatistics<?, ?, ?> stats = super.entryToValue(
-				entry,
-				authorizations);
+		// statistics are cached by query rather than by row
+		final InternalDataStatistics<?, ?, ?> stats = fromValue(entry);
 		if (stats != null) {
 			return setFields(
 					entry,
@@ -322,9 +518,9 @@ public class DataStatisticsStoreImpl extends
 			final String... authorizations ) {
 		return internalGetDataStatistics(
 				adapterId,
-				getPrimaryId(
-						statisticsType,
-						extendedId),
+				statisticsType,
+				extendedId,
+				true,
 				authorizations);
 	}
 
@@ -349,6 +545,8 @@ public class DataStatisticsStoreImpl extends
 		return internalGetDataStatistics(
 				null,
 				statisticsType,
+				null,
+				false,
 				authorizations);
 	}
 
@@ -359,9 +557,96 @@ public class DataStatisticsStoreImpl extends
 			final String... authorizations ) {
 		return internalGetDataStatistics(
 				null,
-				getPrimaryId(
-						statisticsType,
-						extendedIdPrefix),
+				statisticsType,
+				extendedIdPrefix,
+				false,
 				authorizations);
 	}
+
+	/**
+	 * Identifies the results of a statistics query in the cache
+	 */
+	private static class StatisticsQueryKey
+	{
+		private final Short adapterId;
+		private final ByteArray type;
+		private final String extendedIdPrefix;
+		private final boolean exactExtendedId;
+		private final ByteArray primaryIdPrefix;
+		private final Set<String> authorizations;
+		private final String combinedAuthorizations;
+
+		private StatisticsQueryKey(
+				final Short adapterId,
+				final StatisticsType<?, ?> type,
+				final String extendedIdPrefix,
+				final boolean exactExtendedId,
+				final String[] authorizations ) {
+			this.adapterId = adapterId;
+			this.type = new ByteArray(
+					type.getBytes());
+			this.extendedIdPrefix = extendedIdPrefix == null ? "" : extendedIdPrefix;
+			this.exactExtendedId = exactExtendedId;
+			primaryIdPrefix = getPrimaryId(
+					type,
+					this.extendedIdPrefix);
+			this.authorizations = authorizations == null ? Collections.emptySet() : new HashSet<>(
+					Arrays.asList(authorizations));
+			combinedAuthorizations = getCombinedAuths(authorizations);
+		}
+
+		/**
+		 * @return whether the statistics belong in the results of this query,
+		 *         regardless of their visibility
+		 */
+		private boolean includes(
+				final InternalDataStatistics<?, ?, ?> statistics ) {
+			if (((adapterId != null) && !adapterId.equals(statistics.getAdapterId())) || !Arrays.equals(
+					type.getBytes(),
+					statistics.getType().getBytes())) {
+				return false;
+			}
+			final String extendedId = getExtendedId(statistics);
+			return exactExtendedId ? extendedId.equals(extendedIdPrefix) : extendedId.startsWith(extendedIdPrefix);
+		}
+
+		private boolean isVisible(
+				final byte[] visibility ) {
+			if ((visibility == null) || (visibility.length == 0)) {
+				return true;
+			}
+			if (authorizations.isEmpty()) {
+				return false;
+			}
+			return VisibilityExpression.evaluate(
+					StringUtils.stringFromBinary(visibility),
+					authorizations);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(
+					adapterId,
+					type,
+					extendedIdPrefix,
+					exactExtendedId,
+					combinedAuthorizations);
+		}
+
+		@Override
+		public boolean equals(
+				final Object obj ) {
+			if (this == obj) {
+				return true;
+			}
+			if ((obj == null) || (getClass() != obj.getClass())) {
+				return false;
+			}
+			final StatisticsQueryKey other = (StatisticsQueryKey) obj;
+			return Objects.equals(
+					adapterId,
+					other.adapterId) && type.equals(other.type) && extendedIdPrefix.equals(other.extendedIdPrefix)
+					&& (exactExtendedId == other.exactExtendedId) && combinedAuthorizations.equals(other.combinedAuthorizations);
+		}
+	}
 }
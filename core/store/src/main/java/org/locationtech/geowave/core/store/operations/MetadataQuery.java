@@ -14,14 +14,34 @@ public class MetadataQuery
 {
 	private final byte[] primaryId;
 	private final byte[] secondaryId;
+	private final boolean primaryIdPrefix;
 	private final String[] authorizations;
 
 	public MetadataQuery(
 			final byte[] primaryId,
 			final byte[] secondaryId,
 			final String... authorizations ) {
+		this(
+				primaryId,
+				secondaryId,
+				false,
+				authorizations);
+	}
+
+	/**
+	 * @param primaryIdPrefix
+	 *            whether to match every primary ID starting with the given
+	 *            primary ID rather than only the exact primary ID, data stores
+	 *            that cannot scan by prefix may still only match exactly
+	 */
+	public MetadataQuery(
+			final byte[] primaryId,
+			final byte[] secondaryId,
+			final boolean primaryIdPrefix,
+			final String... authorizations ) {
 		this.primaryId = primaryId;
 		this.secondaryId = secondaryId;
+		this.primaryIdPrefix = primaryIdPrefix;
 		this.authorizations = authorizations;
 	}
 
@@ -37,6 +57,10 @@ public class MetadataQuery
 		return (primaryId != null) && (primaryId.length > 0);
 	}
 
+	public boolean isPrimaryIdPrefix() {
+		return primaryIdPrefix;
+	}
+
 	public boolean hasSecondaryId() {
 		return (secondaryId != null) && (secondaryId.length > 0);
 	}
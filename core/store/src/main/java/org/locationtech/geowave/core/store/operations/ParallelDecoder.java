@@ -1,6 +1,6 @@
 /*******************************************************************************
  * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
- *   
+ *
  *  See the NOTICE file distributed with this work for additional
  *  information regarding copyright ownership.
  *  All rights reserved. This program and the accompanying materials
@@ -12,18 +12,24 @@ package org.locationtech.geowave.core.store.operations;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.locationtech.geowave.core.store.entities.GeoWaveRow;
 import org.locationtech.geowave.core.store.entities.GeoWaveRowIteratorTransformer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * An abstract class that offers data stores a way to scan and decode rows in
@@ -31,9 +37,16 @@ import org.locationtech.geowave.core.store.entities.GeoWaveRowIteratorTransforme
  * implementations of {@link ParallelDecoder.RowProvider} to be used for
  * providing rows from the underlying database.
  *
+ * Decoding runs on a process-wide pool that is shared by every decoder, its
+ * size is set with the system property {@value #DECODE_POOL_SIZE_PROPERTY}.
+ * Decoded results are handed to the consumer in batches through a bounded
+ * queue. When that queue is full a decode task parks itself and releases its
+ * pool thread rather than waiting, and the consumer resumes a parked task each
+ * time it takes a batch, so a slow consumer never ties up the shared pool.
+ *
  * Note: The row transformer passed in MUST be thread-safe, as decoding happens
  * in parallel.
- * 
+ *
  * @param <T>
  *            the type of the decoded rows
  */
@@ -41,57 +54,126 @@ public abstract class ParallelDecoder<T> implements
 		Iterator<T>,
 		Closeable
 {
-	private BlockingQueue<Object> results;
-	private ExecutorService threadPool;
+	private final static Logger LOGGER = LoggerFactory.getLogger(ParallelDecoder.class);
+
+	public static final String DECODE_POOL_SIZE_PROPERTY = "geowave.decode.poolSize";
+	public static final String DECODE_QUEUE_DEPTH_PROPERTY = "geowave.decode.queueDepth";
+	public static final String DECODE_BATCH_SIZE_PROPERTY = "geowave.decode.batchSize";
+	private static final int DEFAULT_NUM_THREADS = 8;
+	private static final int DEFAULT_QUEUE_DEPTH = Integer.getInteger(
+			DECODE_QUEUE_DEPTH_PROPERTY,
+			100);
+	private static final int DEFAULT_BATCH_SIZE = Integer.getInteger(
+			DECODE_BATCH_SIZE_PROPERTY,
+			100);
+	private static final ExecutorService DECODE_POOL = createDecodePool();
+	private static final Object[] TASK_END_MARKER = new Object[0];
+	private static final long POLL_TIMEOUT_MILLIS = 100;
+
+	private final BlockingQueue<Object[]> results;
+	private final Queue<DecodeTask<T>> pausedTasks = new ConcurrentLinkedQueue<>();
+	private final Queue<DecodeTask<T>> unstartedTasks = new ConcurrentLinkedQueue<>();
 	private final GeoWaveRowIteratorTransformer<T> rowTransformer;
-	private static int RESULT_BUFFER_SIZE = 10000;
-	private int remainingTasks = 0;
 	private final int numThreads;
-	private static Object TASK_END_MARKER = new Object();
+	private final int batchSize;
+	private final AtomicInteger remainingTasks = new AtomicInteger();
+	private int activeTasks = 0;
+	private volatile boolean closed = false;
 
 	private Exception exception = null;
 
+	private Object[] currentBatch = null;
+	private int currentBatchIndex = 0;
+
 	/**
 	 * Create a parallel decoder with the given row transformer.
-	 * 
+	 *
 	 * @param rowTransformer
 	 *            the thread-safe row transformer to use for decoding rows
 	 */
 	public ParallelDecoder(
-			GeoWaveRowIteratorTransformer<T> rowTransformer ) {
+			final GeoWaveRowIteratorTransformer<T> rowTransformer ) {
 		this(
 				rowTransformer,
-				8);
+				DEFAULT_NUM_THREADS);
 	}
 
 	/**
 	 * Create a parallel decoder with the given row transformer and number of
 	 * threads.
-	 * 
+	 *
 	 * @param rowTransformer
 	 *            the thread-safe row transformer to use for decoding rows
 	 * @param numThreads
-	 *            the number of threads to allow in the thread pool
+	 *            the maximum number of row providers to decode concurrently
 	 */
 	public ParallelDecoder(
-			GeoWaveRowIteratorTransformer<T> rowTransformer,
-			int numThreads ) {
-		this.numThreads = numThreads;
-		this.rowTransformer = rowTransformer;
-		this.threadPool = new ThreadPoolExecutor(
-				numThreads,
+			final GeoWaveRowIteratorTransformer<T> rowTransformer,
+			final int numThreads ) {
+		this(
+				rowTransformer,
 				numThreads,
+				DEFAULT_QUEUE_DEPTH,
+				DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Create a parallel decoder with the given row transformer, number of
+	 * threads, result queue depth and batch size.
+	 *
+	 * @param rowTransformer
+	 *            the thread-safe row transformer to use for decoding rows
+	 * @param numThreads
+	 *            the maximum number of row providers to decode concurrently
+	 * @param queueDepth
+	 *            the number of decoded batches to buffer for the consumer
+	 * @param batchSize
+	 *            the maximum number of decoded results in a batch
+	 */
+	public ParallelDecoder(
+			final GeoWaveRowIteratorTransformer<T> rowTransformer,
+			final int numThreads,
+			final int queueDepth,
+			final int batchSize ) {
+		this.numThreads = Math.max(
+				1,
+				numThreads);
+		this.rowTransformer = rowTransformer;
+		this.batchSize = Math.max(
+				1,
+				batchSize);
+		results = new ArrayBlockingQueue<>(
+				Math.max(
+						1,
+						queueDepth));
+	}
+
+	private static ExecutorService createDecodePool() {
+		final int poolSize = Integer.getInteger(
+				DECODE_POOL_SIZE_PROPERTY,
+				Math.max(
+						DEFAULT_NUM_THREADS,
+						Runtime.getRuntime().availableProcessors() * 2));
+		final AtomicInteger threadCount = new AtomicInteger();
+		final ThreadPoolExecutor pool = new ThreadPoolExecutor(
+				poolSize,
+				poolSize,
 				60,
 				TimeUnit.SECONDS,
 				new LinkedBlockingQueue<Runnable>(),
-				Executors.defaultThreadFactory());
-		((ThreadPoolExecutor) this.threadPool).allowCoreThreadTimeOut(true);
-		results = new ArrayBlockingQueue<Object>(
-				RESULT_BUFFER_SIZE);
+				r -> {
+					final Thread t = new Thread(
+							r,
+							"geowave-decode-" + threadCount.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				});
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
 	}
 
 	/**
-	 * @return the number of threads allowed in the thread pool
+	 * @return the maximum number of row providers decoded concurrently
 	 */
 	protected int getNumThreads() {
 		return numThreads;
@@ -105,127 +187,255 @@ public abstract class ParallelDecoder<T> implements
 	protected abstract List<RowProvider> getRowProviders()
 			throws Exception;
 
-	private synchronized void setDecodeException(
-			Exception e ) {
+	/**
+	 * Subclasses that add row providers with
+	 * {@link #addRowProvider(RowProvider)} after the decode has started return
+	 * true until the last one has been added, so that the decoder does not
+	 * finish early.
+	 *
+	 * @return true if more row providers may still be added
+	 */
+	protected boolean isAddingRowProviders() {
+		return false;
+	}
+
+	/**
+	 * Add a row provider to decode, this may be called from any thread after
+	 * the decode has started.
+	 *
+	 * @param rowProvider
+	 *            the row provider to decode
+	 */
+	protected void addRowProvider(
+			final RowProvider rowProvider ) {
+		remainingTasks.incrementAndGet();
+		unstartedTasks.add(new DecodeTask<>(
+				rowProvider,
+				this));
+		startTasks();
+	}
+
+	protected synchronized void setDecodeException(
+			final Exception e ) {
 		if (exception == null) {
-			this.exception = e;
-			this.threadPool.shutdownNow();
+			exception = e;
 		}
 	}
 
 	private synchronized boolean hasException() {
-		return this.exception != null;
+		return exception != null;
 	}
 
 	private synchronized Exception getException() {
-		return this.exception;
+		return exception;
 	}
 
 	/**
 	 * Start the parallel decode.
-	 * 
+	 *
 	 * @throws Exception
 	 */
 	public void startDecode()
 			throws Exception {
-		List<RowProvider> rowProviders = getRowProviders();
-		remainingTasks = rowProviders.size();
-		for (RowProvider rowProvider : rowProviders) {
-			threadPool.submit(new DecodeTask<T>(
+		final List<RowProvider> rowProviders = getRowProviders();
+		remainingTasks.addAndGet(rowProviders.size());
+		for (final RowProvider rowProvider : rowProviders) {
+			unstartedTasks.add(new DecodeTask<>(
 					rowProvider,
 					this));
 		}
+		startTasks();
+	}
+
+	private synchronized void startTasks() {
+		while ((activeTasks < numThreads) && !closed) {
+			final DecodeTask<T> task = unstartedTasks.poll();
+			if (task == null) {
+				return;
+			}
+			activeTasks++;
+			submit(task);
+		}
+	}
+
+	private synchronized void taskFinished() {
+		activeTasks--;
+		startTasks();
+	}
+
+	private void submit(
+			final DecodeTask<T> task ) {
+		if (!closed) {
+			DECODE_POOL.execute(task);
+		}
+	}
+
+	private void resumePausedTask() {
+		final DecodeTask<T> task = pausedTasks.poll();
+		if (task != null) {
+			submit(task);
+		}
 	}
 
 	/**
-	 * Task to decode the rows from a single row provider.
-	 * 
+	 * Task to decode the rows from a single row provider. The task keeps its
+	 * position between runs so that it can give up its thread whenever the
+	 * results queue is full and be resubmitted once there is space.
+	 *
 	 * @param <T>
 	 *            the type of the decoded rows
 	 */
 	private static class DecodeTask<T> implements
 			Runnable
 	{
-
 		private final RowProvider rowProvider;
 		private final ParallelDecoder<T> parent;
+		private Iterator<T> transformed = null;
+		private Object[] pendingBatch = null;
+		private boolean finished = false;
 
 		public DecodeTask(
-				RowProvider rowProvider,
-				ParallelDecoder<T> parent ) {
+				final RowProvider rowProvider,
+				final ParallelDecoder<T> parent ) {
 			this.rowProvider = rowProvider;
 			this.parent = parent;
 		}
 
-		private boolean shouldTerminate() {
-			return Thread.currentThread().isInterrupted();
+		/**
+		 * Hand a batch to the consumer, or park this task if the results queue
+		 * is full
+		 *
+		 * @return true if the batch was accepted, false if the task has been
+		 *         parked and the current run must return immediately
+		 */
+		private boolean offerBatch(
+				final Object[] batch ) {
+			if (parent.results.offer(batch)) {
+				return true;
+			}
+			pendingBatch = batch;
+			parent.pausedTasks.add(this);
+			// the consumer may have drained the queue before this task was
+			// registered as paused, if so reclaim it to avoid a lost wake-up
+			if ((parent.results.remainingCapacity() > 0) && parent.pausedTasks.remove(this)) {
+				parent.submit(this);
+			}
+			else if (parent.closed && parent.pausedTasks.remove(this)) {
+				closeRowProvider();
+			}
+			return false;
 		}
 
-		private void offerResult(
-				Object result )
-				throws InterruptedException {
-			while (!shouldTerminate() && !parent.results.offer(result)) {
-				// Results buffer is full, wait until there is some space
-				Thread.sleep(1);
+		private Object[] nextBatch() {
+			Object[] batch = new Object[parent.batchSize];
+			int i = 0;
+			while ((i < batch.length) && transformed.hasNext()) {
+				batch[i++] = transformed.next();
+			}
+			if (i < batch.length) {
+				batch = Arrays.copyOf(
+						batch,
+						i);
 			}
+			return batch;
 		}
 
 		@Override
 		public void run() {
 			try {
-				rowProvider.init();
-				Iterator<T> transformed = parent.rowTransformer.apply(rowProvider);
-				while (transformed.hasNext() && !shouldTerminate()) {
-					offerResult(transformed.next());
+				if (transformed == null) {
+					rowProvider.init();
+					transformed = parent.rowTransformer.apply(rowProvider);
 				}
-				// No more rows, signal the end of this task.
-				offerResult(TASK_END_MARKER);
-			}
-			catch (Exception e) {
-				// Don't overwrite the original exception if there is one
-				if (!parent.hasException()) {
-					parent.setDecodeException(e);
-				}
-			}
-			finally {
-				try {
-					rowProvider.close();
+				if (pendingBatch != null) {
+					final Object[] batch = pendingBatch;
+					pendingBatch = null;
+					if (!offerBatch(batch)) {
+						return;
+					}
 				}
-				catch (IOException e) {
-					// Ignore
+				while (!finished) {
+					if (parent.closed || parent.hasException()) {
+						closeRowProvider();
+						return;
+					}
+					final Object[] batch;
+					if (transformed.hasNext()) {
+						batch = nextBatch();
+					}
+					else {
+						// No more rows, signal the end of this task.
+						batch = TASK_END_MARKER;
+						finished = true;
+					}
+					if (!offerBatch(batch)) {
+						return;
+					}
 				}
+				closeRowProvider();
+				parent.taskFinished();
+			}
+			catch (final Exception e) {
+				// Don't overwrite the original exception if there is one
+				parent.setDecodeException(e);
+				closeRowProvider();
 			}
 		}
 
+		private void closeRowProvider() {
+			try {
+				rowProvider.close();
+			}
+			catch (final IOException e) {
+				LOGGER.debug(
+						"Unable to close row provider",
+						e);
+			}
+		}
 	}
 
 	@Override
 	public void close()
 			throws IOException {
-		threadPool.shutdownNow();
+		closed = true;
+		unstartedTasks.clear();
+		DecodeTask<T> task;
+		while ((task = pausedTasks.poll()) != null) {
+			task.closeRowProvider();
+		}
+		results.clear();
 	}
 
-	Object nextResult = null;
-
 	private void computeNext() {
 		try {
-			nextResult = null;
-			while (remainingTasks > 0) {
-				while (!hasException() && (nextResult = results.poll()) == null) {
+			// check whether providers are still being added before the count,
+			// every provider added before that is then included in the count
+			while ((isAddingRowProviders() || (remainingTasks.get() > 0))
+					&& ((currentBatch == null) || (currentBatchIndex >= currentBatch.length))) {
+				currentBatch = null;
+				final Object[] batch = results.poll(
+						POLL_TIMEOUT_MILLIS,
+						TimeUnit.MILLISECONDS);
+				if (hasException()) {
+					break;
+				}
+				if (batch == null) {
 					// No results available, but there are still tasks running,
 					// wait for more results.
-					Thread.sleep(1);
+					continue;
 				}
+				// space was freed in the queue, let a parked task continue
+				resumePausedTask();
 				// task end was signaled, reduce remaining task count.
-				if (nextResult == TASK_END_MARKER) {
-					remainingTasks--;
-					nextResult = null;
+				if (batch == TASK_END_MARKER) {
+					remainingTasks.decrementAndGet();
 					continue;
 				}
-				break;
+				currentBatch = batch;
+				currentBatchIndex = 0;
 			}
 		}
-		catch (InterruptedException e) {
+		catch (final InterruptedException e) {
 			setDecodeException(e);
 		}
 		if (hasException()) {
@@ -236,21 +446,19 @@ public abstract class ParallelDecoder<T> implements
 
 	@Override
 	public boolean hasNext() {
-		if (nextResult == null) {
+		if ((currentBatch == null) || (currentBatchIndex >= currentBatch.length)) {
 			computeNext();
 		}
-		return nextResult != null;
+		return (currentBatch != null) && (currentBatchIndex < currentBatch.length);
 	}
 
 	@SuppressWarnings("unchecked")
 	@Override
 	public T next() {
-		if (nextResult == null) {
-			computeNext();
+		if (!hasNext()) {
+			throw new NoSuchElementException();
 		}
-		Object next = nextResult;
-		nextResult = null;
-		return (T) next;
+		return (T) currentBatch[currentBatchIndex++];
 	}
 
 	/**
@@ -33,6 +33,7 @@ public class ReaderParams<T> extends
 	private final QueryFilter filter;
 	private final List<MultiDimensionalCoordinateRangesArray> coordinateRanges;
 	private final List<MultiDimensionalNumericData> constraints;
+	private final boolean isOrdered;
 
 	public ReaderParams(
 			final Index index,
@@ -54,6 +55,50 @@ public class ReaderParams<T> extends
 			final List<MultiDimensionalNumericData> constraints,
 			final GeoWaveRowIteratorTransformer<T> rowTransformer,
 			final String[] additionalAuthorizations ) {
+		this(
+				index,
+				adapterStore,
+				internalAdapterStore,
+				adapterIds,
+				maxResolutionSubsamplingPerDimension,
+				aggregation,
+				fieldSubsets,
+				isMixedVisibility,
+				isAuthorizationsLimiting,
+				isServersideAggregation,
+				isClientsideRowMerging,
+				queryRanges,
+				filter,
+				limit,
+				maxRangeDecomposition,
+				coordinateRanges,
+				constraints,
+				rowTransformer,
+				additionalAuthorizations,
+				false);
+	}
+
+	public ReaderParams(
+			final Index index,
+			final PersistentAdapterStore adapterStore,
+			final InternalAdapterStore internalAdapterStore,
+			final short[] adapterIds,
+			final double[] maxResolutionSubsamplingPerDimension,
+			final Pair<InternalDataAdapter<?>, Aggregation<?, ?, ?>> aggregation,
+			final Pair<String[], InternalDataAdapter<?>> fieldSubsets,
+			final boolean isMixedVisibility,
+			final boolean isAuthorizationsLimiting,
+			final boolean isServersideAggregation,
+			final boolean isClientsideRowMerging,
+			final QueryRanges queryRanges,
+			final QueryFilter filter,
+			final Integer limit,
+			final Integer maxRangeDecomposition,
+			final List<MultiDimensionalCoordinateRangesArray> coordinateRanges,
+			final List<MultiDimensionalNumericData> constraints,
+			final GeoWaveRowIteratorTransformer<T> rowTransformer,
+			final String[] additionalAuthorizations,
+			final boolean isOrdered ) {
 		super(
 				index,
 				adapterStore,
@@ -74,6 +119,7 @@ public class ReaderParams<T> extends
 		this.filter = filter;
 		this.coordinateRanges = coordinateRanges;
 		this.constraints = constraints;
+		this.isOrdered = isOrdered;
 	}
 
 	@Override
@@ -95,6 +141,14 @@ public class ReaderParams<T> extends
 		return isServersideAggregation;
 	}
 
+	/**
+	 * @return true if the rows of the query ranges have to be returned in key
+	 *         order, which rules out decoding them in parallel
+	 */
+	public boolean isOrdered() {
+		return isOrdered;
+	}
+
 	public QueryRanges getQueryRanges() {
 		return queryRanges;
 	}
@@ -21,6 +21,7 @@ public class ReaderParamsBuilder<T> extends
 	protected QueryFilter filter = null;
 	protected List<MultiDimensionalCoordinateRangesArray> coordinateRanges = null;
 	protected List<MultiDimensionalNumericData> constraints = null;
+	protected boolean isOrdered = false;
 
 	public ReaderParamsBuilder(
 			final Index index,
@@ -75,6 +76,12 @@ public class ReaderParamsBuilder<T> extends
 		return builder();
 	}
 
+	public ReaderParamsBuilder<T> isOrdered(
+			final boolean isOrdered ) {
+		this.isOrdered = isOrdered;
+		return builder();
+	}
+
 	public ReaderParams<T> build() {
 		if (queryRanges == null) {
 			queryRanges = new QueryRanges();
@@ -101,6 +108,7 @@ public class ReaderParamsBuilder<T> extends
 				coordinateRanges,
 				constraints,
 				rowTransformer,
-				additionalAuthorizations);
+				additionalAuthorizations,
+				isOrdered);
 	}
 }
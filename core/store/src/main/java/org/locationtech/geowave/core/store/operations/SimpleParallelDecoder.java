@@ -12,71 +12,93 @@ package org.locationtech.geowave.core.store.operations;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
 
 import org.locationtech.geowave.core.store.entities.GeoWaveRow;
 import org.locationtech.geowave.core.store.entities.GeoWaveRowIteratorTransformer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * An implementation of {@link ParallelDecoder} that consumes a single
  * {@link GeoWaveRow} iterator and decodes it in parallel.
  *
+ * A dedicated thread reads the source iterator into chunks of rows and adds
+ * each full chunk as a row provider, so decode tasks on the shared pool never
+ * wait for rows. At most a few chunks per decode thread are read ahead.
+ *
  * @param <T>
  *            the type of the decoded rows
  */
 public class SimpleParallelDecoder<T> extends
 		ParallelDecoder<T>
 {
-	private ArrayBlockingQueue<GeoWaveRow> consumedRows;
-	private Thread consumerThread;
-	private volatile boolean isTerminating = false;
-	private static final int CONSUMED_ROW_BUFFER_SIZE = 10000;
+	private final static Logger LOGGER = LoggerFactory.getLogger(SimpleParallelDecoder.class);
+	private static final int CHUNK_SIZE = 1000;
+	private static final int CHUNKS_PER_THREAD = 2;
+	private final Semaphore pendingChunks;
+	private final Thread producerThread;
+	private volatile boolean producing = true;
 
 	public SimpleParallelDecoder(
-			GeoWaveRowIteratorTransformer<T> rowTransformer,
-			Iterator<GeoWaveRow> sourceIterator ) {
+			final GeoWaveRowIteratorTransformer<T> rowTransformer,
+			final Iterator<GeoWaveRow> sourceIterator ) {
 		super(
 				rowTransformer);
-		consumedRows = new ArrayBlockingQueue<GeoWaveRow>(
-				CONSUMED_ROW_BUFFER_SIZE);
-		consumerThread = new Thread(
+		pendingChunks = new Semaphore(
+				getNumThreads() * CHUNKS_PER_THREAD);
+		producerThread = new Thread(
 				new Runnable() {
 					@Override
 					public void run() {
-						while (sourceIterator.hasNext()) {
-							GeoWaveRow next = sourceIterator.next();
-							while (!consumedRows.offer(next)) {
-								// queue is full, wait for space
-								try {
-									Thread.sleep(1);
-								}
-								catch (InterruptedException e) {
-									isTerminating = true;
-									return;
+						try {
+							while (sourceIterator.hasNext()) {
+								final List<GeoWaveRow> chunk = new ArrayList<>(
+										CHUNK_SIZE);
+								while ((chunk.size() < CHUNK_SIZE) && sourceIterator.hasNext()) {
+									chunk.add(sourceIterator.next());
 								}
+								pendingChunks.acquire();
+								addRowProvider(new ChunkRowProvider(
+										chunk));
 							}
 						}
-						isTerminating = true;
+						catch (final InterruptedException e) {
+							LOGGER.debug(
+									"Row producer interrupted",
+									e);
+						}
+						catch (final Exception e) {
+							setDecodeException(e);
+						}
+						finally {
+							producing = false;
+						}
 					}
 				});
-		consumerThread.setDaemon(true);
-
+		producerThread.setDaemon(true);
 	}
 
 	@Override
 	public void startDecode()
 			throws Exception {
-		consumerThread.start();
 		super.startDecode();
+		producerThread.start();
+	}
+
+	@Override
+	protected boolean isAddingRowProviders() {
+		return producing;
 	}
 
 	@Override
 	public void close()
 			throws IOException {
-		if (consumerThread.isAlive()) {
-			consumerThread.interrupt();
+		if (producerThread.isAlive()) {
+			producerThread.interrupt();
 		}
 		super.close();
 	}
@@ -84,70 +106,42 @@ public class SimpleParallelDecoder<T> extends
 	@Override
 	protected List<RowProvider> getRowProviders()
 			throws Exception {
-		int numThreads = getNumThreads();
-		List<RowProvider> rowProviders = new ArrayList<RowProvider>(
-				numThreads);
-		for (int i = 0; i < numThreads; i++) {
-			rowProviders.add(new BlockingQueueRowProvider<T>(
-					this));
-		}
-		return rowProviders;
+		// row providers are added by the producer thread as rows are read
+		return Collections.emptyList();
 	}
 
 	/*
-	 * Simple row provider that provides the next result from the blocking
-	 * queue.
+	 * Row provider over a chunk of rows that were already read from the source
+	 * iterator, its read-ahead permit is returned when it is closed.
 	 */
-	private static class BlockingQueueRowProvider<T> extends
+	private class ChunkRowProvider extends
 			ParallelDecoder.RowProvider
 	{
+		private final Iterator<GeoWaveRow> rows;
+		private boolean closed = false;
 
-		private final SimpleParallelDecoder<T> source;
-
-		public BlockingQueueRowProvider(
-				SimpleParallelDecoder<T> source ) {
-			this.source = source;
+		public ChunkRowProvider(
+				final List<GeoWaveRow> rows ) {
+			this.rows = rows.iterator();
 		}
 
 		@Override
-		public void close()
+		public synchronized void close()
 				throws IOException {
-			// Do nothing
-		}
-
-		private GeoWaveRow next = null;
-
-		private void computeNext() {
-			while ((next = source.consumedRows.poll()) == null) {
-				if (source.isTerminating) {
-					next = source.consumedRows.poll();
-					break;
-				}
-				try {
-					Thread.sleep(1);
-				}
-				catch (InterruptedException e) {
-					return;
-				}
+			if (!closed) {
+				closed = true;
+				pendingChunks.release();
 			}
 		}
 
 		@Override
 		public boolean hasNext() {
-			if (next == null) {
-				computeNext();
-			}
-			return next != null;
+			return rows.hasNext();
 		}
 
 		@Override
 		public GeoWaveRow next() {
-			if (next == null) {
-				computeNext();
-			}
-			GeoWaveRow retVal = next;
-			next = null;
-			return retVal;
+			return rows.next();
 		}
 
 		@Override
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.store.query;
+
+import java.nio.ByteBuffer;
+
+import org.locationtech.geowave.core.index.ByteArray;
+import org.locationtech.geowave.core.store.entities.GeoWaveKey;
+import org.locationtech.geowave.core.store.entities.GeoWaveKeyImpl;
+
+/**
+ * The key of the last row of a page of results ordered by sort key. A query
+ * that starts after the token restarts its range scan at this key rather than
+ * reading and discarding the rows of the previous pages.
+ *
+ * The binary form is opaque to clients, it is the row key preceded by the
+ * length of its partition key.
+ */
+public class ContinuationToken
+{
+	private final GeoWaveKey key;
+	private final ByteArray rowKey;
+
+	public ContinuationToken(
+			final GeoWaveKey key ) {
+		this.key = key;
+		rowKey = new ByteArray(
+				GeoWaveKey.getCompositeId(key));
+	}
+
+	public static ContinuationToken fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+		final int partitionKeyLength = buf.getInt();
+		final byte[] rowKey = new byte[buf.remaining()];
+		buf.get(rowKey);
+		return new ContinuationToken(
+				new GeoWaveKeyImpl(
+						rowKey,
+						partitionKeyLength));
+	}
+
+	public byte[] toBinary() {
+		final byte[] rowKeyBytes = rowKey.getBytes();
+		final ByteBuffer buf = ByteBuffer.allocate(4 + rowKeyBytes.length);
+		buf.putInt(key.getPartitionKey().length);
+		buf.put(rowKeyBytes);
+		return buf.array();
+	}
+
+	public byte[] getPartitionKey() {
+		return key.getPartitionKey();
+	}
+
+	public byte[] getSortKey() {
+		return key.getSortKey();
+	}
+
+	/**
+	 * @param other
+	 *            a row of the same index
+	 * @return true if the row comes after the row of this token in key order
+	 */
+	public boolean isBefore(
+			final GeoWaveKey other ) {
+		return new ByteArray(
+				GeoWaveKey.getCompositeId(other)).compareTo(rowKey) > 0;
+	}
+}
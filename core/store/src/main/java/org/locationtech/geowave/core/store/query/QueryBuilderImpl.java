@@ -3,6 +3,7 @@ package org.locationtech.geowave.core.store.query;
 import org.apache.commons.lang.ArrayUtils;
 import org.locationtech.geowave.core.store.api.Query;
 import org.locationtech.geowave.core.store.api.QueryBuilder;
+import org.locationtech.geowave.core.store.query.options.CommonQueryOptions;
 import org.locationtech.geowave.core.store.query.options.FilterByTypeQueryOptions;
 
 public class QueryBuilderImpl<T, R extends QueryBuilder<T, R>> extends
@@ -11,6 +12,9 @@ public class QueryBuilderImpl<T, R extends QueryBuilder<T, R>> extends
 {
 	protected String[] typeNames = new String[0];
 	protected String[] fieldNames = null;
+	protected Integer offset = null;
+	protected boolean orderedBySortKey = false;
+	protected byte[] continuationToken = null;
 
 	@Override
 	public R allTypes() {
@@ -71,6 +75,37 @@ public class QueryBuilderImpl<T, R extends QueryBuilder<T, R>> extends
 		return (R) this;
 	}
 
+	@Override
+	public R offset(
+			final int offset ) {
+		this.offset = offset;
+		return (R) this;
+	}
+
+	@Override
+	public R orderBySortKey() {
+		orderedBySortKey = true;
+		return (R) this;
+	}
+
+	@Override
+	public R startAfter(
+			final byte[] continuationToken ) {
+		this.continuationToken = continuationToken;
+		return (R) this;
+	}
+
+	@Override
+	protected CommonQueryOptions newCommonQueryOptions() {
+		return new CommonQueryOptions(
+				limit,
+				offset,
+				orderedBySortKey,
+				continuationToken,
+				hints,
+				authorizations);
+	}
+
 	protected FilterByTypeQueryOptions<T> newFilterByTypeQueryOptions() {
 		return typeNames.length == 1 ? new FilterByTypeQueryOptions<>(
 				typeNames[0],
@@ -18,6 +18,7 @@ import java.util.Map;
 
 import org.locationtech.geowave.core.index.ByteArray;
 import org.locationtech.geowave.core.index.FloatCompareUtils;
+import org.locationtech.geowave.core.index.persist.GrowableByteBuffer;
 import org.locationtech.geowave.core.index.persist.PersistenceUtils;
 import org.locationtech.geowave.core.index.sfc.data.BasicNumericDataset;
 import org.locationtech.geowave.core.index.sfc.data.BinnedNumericDataset;
@@ -270,50 +271,55 @@ public class BasicQueryFilter implements
 
 	@Override
 	public byte[] toBinary() {
-		int byteBufferLength = 8;
+		return PersistenceUtils.writeBinary(this);
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		readBinary(ByteBuffer.wrap(bytes));
+	}
+
+	@Override
+	public void writeBinary(
+			final GrowableByteBuffer buf ) {
 		final int dimensions = Math.min(
 				constraints.getDimensionCount(),
 				dimensionFields.length);
-		final byte[][] lengthDimensionAndQueryBinaries = new byte[dimensions][];
 		final NumericData[] dataPerDimension = constraints.getDataPerDimension();
+		buf.putInt(this.compareOp.ordinal());
+		buf.putInt(dimensions);
 		for (int d = 0; d < dimensions; d++) {
-			final NumericDimensionField<?> dimension = dimensionFields[d];
 			final NumericData data = dataPerDimension[d];
-			final byte[] dimensionBinary = PersistenceUtils.toBinary(dimension);
-			final int currentDimensionByteBufferLength = (20 + dimensionBinary.length);
-
-			final ByteBuffer buf = ByteBuffer.allocate(currentDimensionByteBufferLength);
-			buf.putInt(dimensionBinary.length);
+			// the length of the dimension precedes the query range
+			final int lengthPosition = buf.startLength();
 			buf.putDouble(data.getMin());
 			buf.putDouble(data.getMax());
-			buf.put(dimensionBinary);
-			byteBufferLength += currentDimensionByteBufferLength;
-			lengthDimensionAndQueryBinaries[d] = buf.array();
-		}
-		final ByteBuffer buf = ByteBuffer.allocate(byteBufferLength);
-		buf.putInt(this.compareOp.ordinal());
-		buf.putInt(dimensions);
-		for (final byte[] binary : lengthDimensionAndQueryBinaries) {
-			buf.put(binary);
+			final int dimensionPosition = buf.position();
+			PersistenceUtils.toBinary(
+					dimensionFields[d],
+					buf);
+			buf.putInt(
+					lengthPosition,
+					buf.position() - dimensionPosition);
 		}
-		return buf.array();
 	}
 
 	@Override
-	public void fromBinary(
-			final byte[] bytes ) {
-		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+	public void readBinary(
+			final ByteBuffer buf ) {
 		this.compareOp = BasicQueryCompareOperation.values()[buf.getInt()];
 		final int numDimensions = buf.getInt();
 		dimensionFields = new NumericDimensionField<?>[numDimensions];
 		final NumericData[] data = new NumericData[numDimensions];
 		for (int d = 0; d < numDimensions; d++) {
-			final byte[] field = new byte[buf.getInt()];
+			final int fieldLength = buf.getInt();
 			data[d] = new NumericRange(
 					buf.getDouble(),
 					buf.getDouble());
-			buf.get(field);
-			dimensionFields[d] = (NumericDimensionField<?>) PersistenceUtils.fromBinary(field);
+			dimensionFields[d] = (NumericDimensionField<?>) PersistenceUtils.fromBinary(PersistenceUtils.slice(
+					buf,
+					fieldLength));
 		}
 		constraints = new BasicNumericDataset(
 				data);
@@ -17,6 +17,7 @@ import org.locationtech.geowave.core.index.MultiDimensionalCoordinateRangesArray
 import org.locationtech.geowave.core.index.MultiDimensionalCoordinates;
 import org.locationtech.geowave.core.index.NumericIndexStrategy;
 import org.locationtech.geowave.core.index.MultiDimensionalCoordinateRangesArray.ArrayOfArrays;
+import org.locationtech.geowave.core.index.persist.GrowableByteBuffer;
 import org.locationtech.geowave.core.index.persist.PersistenceUtils;
 import org.locationtech.geowave.core.store.data.IndexedPersistenceEncoding;
 import org.locationtech.geowave.core.store.index.CommonIndexModel;
@@ -68,31 +69,32 @@ public class CoordinateRangeQueryFilter implements
 
 	@Override
 	public byte[] toBinary() {
-		final byte[] indexStrategyBytes = PersistenceUtils.toBinary(indexStrategy);
-		final byte[] coordinateRangesBinary = new ArrayOfArrays(
-				coordinateRanges).toBinary();
-
-		final ByteBuffer buf = ByteBuffer.allocate(coordinateRangesBinary.length + indexStrategyBytes.length + 4);
-
-		buf.putInt(indexStrategyBytes.length);
-		buf.put(indexStrategyBytes);
-		buf.put(coordinateRangesBinary);
-		return buf.array();
+		return PersistenceUtils.writeBinary(this);
 	}
 
 	@Override
 	public void fromBinary(
 			final byte[] bytes ) {
-		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+		readBinary(ByteBuffer.wrap(bytes));
+	}
+
+	@Override
+	public void writeBinary(
+			final GrowableByteBuffer buf ) {
+		PersistenceUtils.toBinaryWithLength(
+				indexStrategy,
+				buf);
+		new ArrayOfArrays(
+				coordinateRanges).writeBinary(buf);
+	}
+
+	@Override
+	public void readBinary(
+			final ByteBuffer buf ) {
 		try {
-			final int indexStrategyLength = buf.getInt();
-			final byte[] indexStrategyBytes = new byte[indexStrategyLength];
-			buf.get(indexStrategyBytes);
-			indexStrategy = (NumericIndexStrategy) PersistenceUtils.fromBinary(indexStrategyBytes);
-			final byte[] coordRangeBytes = new byte[bytes.length - indexStrategyLength - 4];
-			buf.get(coordRangeBytes);
+			indexStrategy = (NumericIndexStrategy) PersistenceUtils.fromBinaryWithLength(buf);
 			final ArrayOfArrays arrays = new ArrayOfArrays();
-			arrays.fromBinary(coordRangeBytes);
+			arrays.readBinary(buf);
 			coordinateRanges = arrays.getCoordinateArrays();
 			rangeCache = RangeLookupFactory.createMultiRangeLookup(coordinateRanges);
 		}
@@ -101,7 +103,6 @@ public class CoordinateRangeQueryFilter implements
 					"Unable to read parameters",
 					e);
 		}
-
 	}
 
 	public NumericIndexStrategy getIndexStrategy() {
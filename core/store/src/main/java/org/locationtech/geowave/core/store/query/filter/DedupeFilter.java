@@ -1,6 +1,6 @@
 /*******************************************************************************
  * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
- *   
+ *
  *  See the NOTICE file distributed with this work for additional
  *  information regarding copyright ownership.
  *  All rights reserved. This program and the accompanying materials
@@ -10,30 +10,74 @@
  ******************************************************************************/
 package org.locationtech.geowave.core.store.query.filter;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.nio.ByteBuffer;
 
 import org.locationtech.geowave.core.index.ByteArray;
 import org.locationtech.geowave.core.store.data.IndexedPersistenceEncoding;
 import org.locationtech.geowave.core.store.index.CommonIndexModel;
 
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.PrimitiveSink;
+
 /**
  * This filter will perform de-duplication using the combination of data adapter
  * ID and data ID to determine uniqueness. It can be performed client-side
  * and/or distributed.
- * 
+ *
+ * Visited IDs are kept as 128-bit hashes in lock-striped primitive hash tables
+ * rather than as wrapped byte arrays. When deduplicating within a single index
+ * the number of duplicates stored with each row is known, so an ID is dropped
+ * once every copy has been seen.
+ *
+ * Alternatively, a false positive rate can be set to track visited IDs in a
+ * fixed size Bloom filter. Memory is then bounded regardless of the number of
+ * IDs, at the cost of dropping roughly that fraction of rows that have not
+ * actually been seen.
  */
 public class DedupeFilter implements
 		QueryFilter
 {
-	private final Map<Short, Set<ByteArray>> adapterIdToVisitedDataIdMap;
+	public static final long DEFAULT_EXPECTED_DATA_IDS = 10000000L;
+	private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+	// a count of other copies that is never decremented, used when the number
+	// of copies is unknown
+	private static final int UNKNOWN_COPIES = -1;
+
+	private VisitedDataIds visitedDataIds;
 
 	private boolean dedupAcrossIndices = false;
+	private double falsePositiveRate = 0;
+	private long expectedDataIds = DEFAULT_EXPECTED_DATA_IDS;
 
 	public DedupeFilter() {
-		adapterIdToVisitedDataIdMap = new HashMap<Short, Set<ByteArray>>();
+		visitedDataIds = new StripedVisitedDataIds();
+	}
+
+	/**
+	 * @param falsePositiveRate
+	 *            the fraction of unseen IDs that may be dropped, greater than 0
+	 *            to use a Bloom filter or 0 to deduplicate exactly
+	 * @param expectedDataIds
+	 *            the number of distinct IDs the Bloom filter is sized for
+	 */
+	public DedupeFilter(
+			final double falsePositiveRate,
+			final long expectedDataIds ) {
+		this.falsePositiveRate = falsePositiveRate;
+		this.expectedDataIds = expectedDataIds;
+		visitedDataIds = createVisitedDataIds();
+	}
+
+	private VisitedDataIds createVisitedDataIds() {
+		if (falsePositiveRate > 0) {
+			return new BloomFilterVisitedDataIds(
+					falsePositiveRate,
+					expectedDataIds);
+		}
+		return new StripedVisitedDataIds();
 	}
 
 	@Override
@@ -54,20 +98,21 @@ public class DedupeFilter implements
 		}
 		final short adapterId = persistenceEncoding.getInternalAdapterId();
 		final ByteArray dataId = persistenceEncoding.getDataId();
-		synchronized (adapterIdToVisitedDataIdMap) {
-			Set<ByteArray> visitedDataIds = adapterIdToVisitedDataIdMap.get(adapterId);
-			if (visitedDataIds == null) {
-				visitedDataIds = new HashSet<ByteArray>();
-				adapterIdToVisitedDataIdMap.put(
-						adapterId,
-						visitedDataIds);
-			}
-			else if (visitedDataIds.contains(dataId)) {
-				return false;
-			}
-			visitedDataIds.add(dataId);
-			return true;
-		}
+		final byte[] hash = HASH_FUNCTION
+				.newHasher()
+				.putShort(
+						adapterId)
+				.putBytes(
+						dataId.getBytes())
+				.hash()
+				.asBytes();
+		final ByteBuffer buf = ByteBuffer.wrap(hash);
+		// the duplicate count is per index so it can't be relied on when
+		// deduplicating across indices
+		return visitedDataIds.visit(
+				buf.getLong(),
+				buf.getLong(),
+				isDedupAcrossIndices() ? UNKNOWN_COPIES : persistenceEncoding.getDuplicateCount());
 	}
 
 	public void setDedupAcrossIndices(
@@ -79,12 +124,224 @@ public class DedupeFilter implements
 		return dedupAcrossIndices;
 	}
 
+	public double getFalsePositiveRate() {
+		return falsePositiveRate;
+	}
+
+	public long getExpectedDataIds() {
+		return expectedDataIds;
+	}
+
 	@Override
 	public byte[] toBinary() {
-		return new byte[] {};
+		if (falsePositiveRate <= 0) {
+			// keep the original empty encoding for exact deduplication
+			return new byte[] {};
+		}
+		final ByteBuffer buf = ByteBuffer.allocate(16);
+		buf.putDouble(falsePositiveRate);
+		buf.putLong(expectedDataIds);
+		return buf.array();
 	}
 
 	@Override
 	public void fromBinary(
-			final byte[] bytes ) {}
+			final byte[] bytes ) {
+		if ((bytes == null) || (bytes.length == 0)) {
+			falsePositiveRate = 0;
+			expectedDataIds = DEFAULT_EXPECTED_DATA_IDS;
+		}
+		else {
+			final ByteBuffer buf = ByteBuffer.wrap(bytes);
+			falsePositiveRate = buf.getDouble();
+			expectedDataIds = buf.getLong();
+		}
+		visitedDataIds = createVisitedDataIds();
+	}
+
+	private static interface VisitedDataIds
+	{
+		/**
+		 * Record a visit to an ID
+		 *
+		 * @param hashHigh
+		 *            the upper 64 bits of the ID hash
+		 * @param hashLow
+		 *            the lower 64 bits of the ID hash
+		 * @param otherCopies
+		 *            the number of other copies of this ID that may be visited,
+		 *            or -1 if unknown
+		 * @return true if this is the first visit to the ID
+		 */
+		boolean visit(
+				long hashHigh,
+				long hashLow,
+				int otherCopies );
+	}
+
+	private static class BloomFilterVisitedDataIds implements
+			VisitedDataIds
+	{
+		private final BloomFilter<long[]> bloomFilter;
+
+		public BloomFilterVisitedDataIds(
+				final double falsePositiveRate,
+				final long expectedDataIds ) {
+			bloomFilter = BloomFilter.create(
+					HashFunnel.INSTANCE,
+					expectedDataIds,
+					falsePositiveRate);
+		}
+
+		@Override
+		public boolean visit(
+				final long hashHigh,
+				final long hashLow,
+				final int otherCopies ) {
+			// put is thread-safe and only reports a change when the ID has
+			// definitely not been seen before
+			return bloomFilter.put(new long[] {
+				hashHigh,
+				hashLow
+			});
+		}
+	}
+
+	private static enum HashFunnel implements
+			Funnel<long[]> {
+		INSTANCE;
+
+		@Override
+		public void funnel(
+				final long[] from,
+				final PrimitiveSink into ) {
+			into.putLong(
+					from[0]).putLong(
+					from[1]);
+		}
+	}
+
+	private static class StripedVisitedDataIds implements
+			VisitedDataIds
+	{
+		private static final int NUM_STRIPES = 64;
+		private final Stripe[] stripes = new Stripe[NUM_STRIPES];
+
+		public StripedVisitedDataIds() {
+			for (int i = 0; i < NUM_STRIPES; i++) {
+				stripes[i] = new Stripe();
+			}
+		}
+
+		@Override
+		public boolean visit(
+				final long hashHigh,
+				final long hashLow,
+				final int otherCopies ) {
+			return stripes[(int) (hashHigh & (NUM_STRIPES - 1))].visit(
+					hashHigh,
+					hashLow,
+					otherCopies);
+		}
+	}
+
+	/**
+	 * An open addressing hash table of ID hashes and the number of copies left
+	 * to visit, using linear probing so entries can be removed without
+	 * tombstones
+	 */
+	private static class Stripe
+	{
+		private static final int INITIAL_CAPACITY = 64;
+		private long[] hashHighs = new long[INITIAL_CAPACITY];
+		private long[] hashLows = new long[INITIAL_CAPACITY];
+		// 0 marks an empty slot
+		private int[] remainingCopies = new int[INITIAL_CAPACITY];
+		private int size = 0;
+
+		private synchronized boolean visit(
+				final long hashHigh,
+				final long hashLow,
+				final int otherCopies ) {
+			final int mask = remainingCopies.length - 1;
+			int i = slot(
+					hashLow,
+					mask);
+			while (remainingCopies[i] != 0) {
+				if ((hashLows[i] == hashLow) && (hashHighs[i] == hashHigh)) {
+					if ((remainingCopies[i] != UNKNOWN_COPIES) && (--remainingCopies[i] == 0)) {
+						// every copy has been seen
+						removeAt(i);
+					}
+					return false;
+				}
+				i = (i + 1) & mask;
+			}
+			if (otherCopies == 0) {
+				return true;
+			}
+			hashHighs[i] = hashHigh;
+			hashLows[i] = hashLow;
+			remainingCopies[i] = otherCopies > 0 ? otherCopies : UNKNOWN_COPIES;
+			if (++size > (remainingCopies.length >> 1)) {
+				resize();
+			}
+			return true;
+		}
+
+		private static int slot(
+				final long hashLow,
+				final int mask ) {
+			return (int) (hashLow ^ (hashLow >>> 32)) & mask;
+		}
+
+		private void removeAt(
+				int i ) {
+			final int mask = remainingCopies.length - 1;
+			int j = i;
+			while (true) {
+				j = (j + 1) & mask;
+				if (remainingCopies[j] == 0) {
+					break;
+				}
+				final int k = slot(
+						hashLows[j],
+						mask);
+				// leave the entry if its ideal slot is cyclically within (i, j]
+				if ((i <= j) ? ((i < k) && (k <= j)) : ((i < k) || (k <= j))) {
+					continue;
+				}
+				hashHighs[i] = hashHighs[j];
+				hashLows[i] = hashLows[j];
+				remainingCopies[i] = remainingCopies[j];
+				i = j;
+			}
+			remainingCopies[i] = 0;
+			size--;
+		}
+
+		private void resize() {
+			final long[] oldHighs = hashHighs;
+			final long[] oldLows = hashLows;
+			final int[] oldRemaining = remainingCopies;
+			final int capacity = oldRemaining.length << 1;
+			final int mask = capacity - 1;
+			hashHighs = new long[capacity];
+			hashLows = new long[capacity];
+			remainingCopies = new int[capacity];
+			for (int o = 0; o < oldRemaining.length; o++) {
+				if (oldRemaining[o] != 0) {
+					int i = slot(
+							oldLows[o],
+							mask);
+					while (remainingCopies[i] != 0) {
+						i = (i + 1) & mask;
+					}
+					hashHighs[i] = oldHighs[o];
+					hashLows[i] = oldLows[o];
+					remainingCopies[i] = oldRemaining[o];
+				}
+			}
+		}
+	}
 }
@@ -14,6 +14,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.locationtech.geowave.core.index.persist.GrowableByteBuffer;
 import org.locationtech.geowave.core.index.persist.PersistenceUtils;
 import org.locationtech.geowave.core.store.data.IndexedPersistenceEncoding;
 import org.locationtech.geowave.core.store.index.CommonIndexModel;
@@ -67,36 +68,36 @@ public class FilterList implements
 
 	@Override
 	public byte[] toBinary() {
-		int byteBufferLength = 8;
-		final List<byte[]> filterBinaries = new ArrayList<byte[]>(
-				filters.size());
-		for (final QueryFilter filter : filters) {
-			final byte[] filterBinary = PersistenceUtils.toBinary(filter);
-			byteBufferLength += (4 + filterBinary.length);
-			filterBinaries.add(filterBinary);
-		}
-		final ByteBuffer buf = ByteBuffer.allocate(byteBufferLength);
+		return PersistenceUtils.writeBinary(this);
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		readBinary(ByteBuffer.wrap(bytes));
+	}
+
+	@Override
+	public void writeBinary(
+			final GrowableByteBuffer buf ) {
 		buf.putInt(logicalAnd ? 1 : 0);
 		buf.putInt(filters.size());
-		for (final byte[] filterBinary : filterBinaries) {
-			buf.putInt(filterBinary.length);
-			buf.put(filterBinary);
+		for (final QueryFilter filter : filters) {
+			PersistenceUtils.toBinaryWithLength(
+					filter,
+					buf);
 		}
-		return buf.array();
 	}
 
 	@Override
-	public void fromBinary(
-			final byte[] bytes ) {
-		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+	public void readBinary(
+			final ByteBuffer buf ) {
 		logicalAnd = buf.getInt() > 0;
 		final int numFilters = buf.getInt();
 		filters = new ArrayList<>(
 				numFilters);
 		for (int i = 0; i < numFilters; i++) {
-			final byte[] filter = new byte[buf.getInt()];
-			buf.get(filter);
-			filters.add((QueryFilter) PersistenceUtils.fromBinary(filter));
+			filters.add((QueryFilter) PersistenceUtils.fromBinaryWithLength(buf));
 		}
 	}
 }
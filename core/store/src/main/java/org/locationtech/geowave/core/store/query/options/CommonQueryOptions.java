@@ -63,6 +63,9 @@ public class CommonQueryOptions implements
 
 	private Map<HintKey<?>, Object> hints;
 	private Integer limit;
+	private Integer offset;
+	private boolean orderedBySortKey;
+	private byte[] continuationToken;
 	private String[] authorizations;
 
 	public CommonQueryOptions(
@@ -86,9 +89,44 @@ public class CommonQueryOptions implements
 			final Integer limit,
 			final Map<HintKey<?>, Object> hints,
 			final String... authorizations ) {
+		this(
+				limit,
+				null,
+				false,
+				null,
+				hints,
+				authorizations);
+	}
+
+	/**
+	 * @param limit
+	 *            the maximum number of results, or null for no limit
+	 * @param offset
+	 *            the number of results to skip, or null to skip none
+	 * @param orderedBySortKey
+	 *            whether the results are returned in the order of their row
+	 *            keys
+	 * @param continuationToken
+	 *            the binary continuation token of the last row of a previous
+	 *            page, or null
+	 * @param hints
+	 *            the query hints
+	 * @param authorizations
+	 *            the authorizations
+	 */
+	public CommonQueryOptions(
+			final Integer limit,
+			final Integer offset,
+			final boolean orderedBySortKey,
+			final byte[] continuationToken,
+			final Map<HintKey<?>, Object> hints,
+			final String... authorizations ) {
 		super();
 		this.hints = hints;
 		this.limit = limit;
+		this.offset = offset;
+		this.orderedBySortKey = orderedBySortKey;
+		this.continuationToken = continuationToken;
 		this.authorizations = authorizations;
 	}
 
@@ -100,6 +138,18 @@ public class CommonQueryOptions implements
 		return limit;
 	}
 
+	public Integer getOffset() {
+		return offset;
+	}
+
+	public boolean isOrderedBySortKey() {
+		return orderedBySortKey;
+	}
+
+	public byte[] getContinuationToken() {
+		return continuationToken;
+	}
+
 	public String[] getAuthorizations() {
 		return authorizations;
 	}
@@ -136,7 +186,9 @@ public class CommonQueryOptions implements
 		else {
 			authsBinary = StringUtils.stringsToBinary(authorizations);
 		}
-		final ByteBuffer buf = ByteBuffer.allocate((hintsBinary.length * 4) + 12 + authsBinary.length + hintsLength);
+		final byte[] tokenBinary = continuationToken == null ? new byte[0] : continuationToken;
+		final ByteBuffer buf = ByteBuffer.allocate((hintsBinary.length * 4) + 21 + authsBinary.length + hintsLength
+				+ tokenBinary.length);
 		buf.putInt(limitForBinary);
 		buf.putInt(authsBinary.length);
 		buf.put(authsBinary);
@@ -145,6 +197,10 @@ public class CommonQueryOptions implements
 			buf.putInt(h.length);
 			buf.put(h);
 		}
+		buf.putInt(offset == null ? -1 : offset);
+		buf.put(orderedBySortKey ? (byte) 1 : (byte) 0);
+		buf.putInt(continuationToken == null ? -1 : tokenBinary.length);
+		buf.put(tokenBinary);
 		return buf.array();
 	}
 
@@ -169,7 +225,7 @@ public class CommonQueryOptions implements
 		else {
 			authorizations = new String[0];
 		}
-		final int hintsLength = hints.size();
+		final int hintsLength = buf.getInt();
 		final Map<HintKey<?>, Object> hints = new HashMap<>(
 				hintsLength);
 		for (int i = 0; i < hintsLength; i++) {
@@ -188,6 +244,25 @@ public class CommonQueryOptions implements
 					key.reader.apply(vBytes));
 		}
 		this.hints = hints;
+		// options serialized before offsets and ordering were added end here
+		if (buf.hasRemaining()) {
+			final int offset = buf.getInt();
+			this.offset = offset < 0 ? null : offset;
+			orderedBySortKey = buf.get() != 0;
+			final int tokenLength = buf.getInt();
+			if (tokenLength < 0) {
+				continuationToken = null;
+			}
+			else {
+				continuationToken = new byte[tokenLength];
+				buf.get(continuationToken);
+			}
+		}
+		else {
+			offset = null;
+			orderedBySortKey = false;
+			continuationToken = null;
+		}
 	}
 
 	@Override
@@ -197,6 +272,9 @@ public class CommonQueryOptions implements
 		result = prime * result + Arrays.hashCode(authorizations);
 		result = prime * result + ((hints == null) ? 0 : hints.hashCode());
 		result = prime * result + ((limit == null) ? 0 : limit.hashCode());
+		result = prime * result + ((offset == null) ? 0 : offset.hashCode());
+		result = prime * result + (orderedBySortKey ? 1231 : 1237);
+		result = prime * result + Arrays.hashCode(continuationToken);
 		return result;
 	}
 
@@ -218,6 +296,14 @@ public class CommonQueryOptions implements
 			if (other.limit != null) return false;
 		}
 		else if (!limit.equals(other.limit)) return false;
+		if (offset == null) {
+			if (other.offset != null) return false;
+		}
+		else if (!offset.equals(other.offset)) return false;
+		if (orderedBySortKey != other.orderedBySortKey) return false;
+		if (!Arrays.equals(
+				continuationToken,
+				other.continuationToken)) return false;
 		return true;
 	}
 
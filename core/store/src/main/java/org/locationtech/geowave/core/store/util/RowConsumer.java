@@ -13,6 +13,7 @@ package org.locationtech.geowave.core.store.util;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,10 +25,27 @@ public class RowConsumer<T> implements
 	public static final Object POISON = new Object();
 	private Object nextRow = null;
 	private final BlockingQueue<Object> blockingQueue;
+	private final AtomicReference<Throwable> producerFailure;
 
 	public RowConsumer(
 			final BlockingQueue<Object> blockingQueue ) {
+		this(
+				blockingQueue,
+				new AtomicReference<>());
+	}
+
+	/**
+	 * @param blockingQueue
+	 *            the queue of rows, ended with {@link #POISON}
+	 * @param producerFailure
+	 *            set by a producer that failed before putting {@link #POISON}
+	 *            so that the consumer throws it instead of ending early
+	 */
+	public RowConsumer(
+			final BlockingQueue<Object> blockingQueue,
+			final AtomicReference<Throwable> producerFailure ) {
 		this.blockingQueue = blockingQueue;
+		this.producerFailure = producerFailure;
 	}
 
 	@Override
@@ -59,6 +77,12 @@ public class RowConsumer<T> implements
 						e);
 			}
 			nextRow = null;
+			final Throwable failure = producerFailure.get();
+			if (failure != null) {
+				throw new RuntimeException(
+						"Unable to read all rows",
+						failure);
+			}
 			return false;
 		}
 	}
@@ -18,6 +18,7 @@ import org.locationtech.geowave.core.store.adapter.MockComponents.MockIndexStrat
 import org.locationtech.geowave.core.store.adapter.MockComponents.TestDimensionField;
 import org.locationtech.geowave.core.store.adapter.MockComponents.TestIndexModel;
 import org.locationtech.geowave.core.store.adapter.MockComponents.TestPersistentIndexFieldHandler;
+import org.locationtech.geowave.core.store.base.PagedQueryTest.RangePerValueIndexStrategy;
 import org.locationtech.geowave.core.store.query.BasicQueryTest.ExampleDimensionOne;
 import org.locationtech.geowave.core.store.query.BasicQueryTest.ExampleNumericIndexStrategy;
 
@@ -54,7 +55,10 @@ public class TestStorePersistableRegistry implements
 					ExampleDimensionOne::new),
 			new PersistableIdAndConstructor(
 					(short) 10208,
-					TestIndexFieldHandler::new)
+					TestIndexFieldHandler::new),
+			new PersistableIdAndConstructor(
+					(short) 10209,
+					RangePerValueIndexStrategy::new)
 		};
 	}
 }
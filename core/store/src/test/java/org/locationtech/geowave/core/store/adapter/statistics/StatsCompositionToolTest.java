@@ -0,0 +1,375 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.store.adapter.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import org.locationtech.geowave.core.index.ByteArray;
+import org.locationtech.geowave.core.store.CloseableIterator;
+import org.locationtech.geowave.core.store.DataStoreStatisticsProvider;
+import org.locationtech.geowave.core.store.EntryVisibilityHandler;
+import org.locationtech.geowave.core.store.StoreFactoryFamilySpi;
+import org.locationtech.geowave.core.store.adapter.InternalDataAdapter;
+import org.locationtech.geowave.core.store.adapter.InternalDataAdapterWrapper;
+import org.locationtech.geowave.core.store.adapter.MockComponents;
+import org.locationtech.geowave.core.store.api.DataTypeAdapter;
+import org.locationtech.geowave.core.store.adapter.statistics.histogram.ByteUtils;
+import org.locationtech.geowave.core.store.api.Index;
+import org.locationtech.geowave.core.store.entities.GeoWaveKeyImpl;
+import org.locationtech.geowave.core.store.entities.GeoWaveRow;
+import org.locationtech.geowave.core.store.entities.GeoWaveRowImpl;
+import org.locationtech.geowave.core.store.entities.GeoWaveValue;
+import org.locationtech.geowave.core.store.index.CommonIndexModel;
+import org.locationtech.geowave.core.store.index.PrimaryIndex;
+import org.locationtech.geowave.core.store.memory.MemoryRequiredOptions;
+import org.locationtech.geowave.core.store.memory.MemoryStoreFactoryFamily;
+
+public class StatsCompositionToolTest
+{
+	private static final int THREADS = 8;
+	private static final int ENTRIES_PER_THREAD = 10000;
+
+	@Test
+	public void testConcurrentUpdates()
+			throws Exception {
+		final InternalDataAdapter<Integer> adapter = createAdapter();
+		final DataStatisticsStore statisticsStore = createStatisticsStore("concurrent");
+		final StatsCompositionTool<Integer> tool = createTool(
+				adapter,
+				statisticsStore,
+				new StatsCompositionTool.FlushPolicy(
+						100,
+						true,
+						0));
+		final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < ENTRIES_PER_THREAD; i++) {
+						tool.entryIngested(i);
+					}
+				}));
+			}
+			for (final Future<?> future : futures) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+		tool.close();
+		assertEquals(
+				THREADS * ENTRIES_PER_THREAD,
+				getCount(
+						adapter,
+						statisticsStore));
+	}
+
+	@Test
+	public void testMaxStaleness()
+			throws Exception {
+		final InternalDataAdapter<Integer> adapter = createAdapter();
+		final DataStatisticsStore statisticsStore = createStatisticsStore("staleness");
+		try (StatsCompositionTool<Integer> tool = createTool(
+				adapter,
+				statisticsStore,
+				new StatsCompositionTool.FlushPolicy(
+						Long.MAX_VALUE,
+						true,
+						10))) {
+			for (int i = 0; i < 10; i++) {
+				tool.entryIngested(i);
+			}
+			// the statistics reach the store without a flush
+			final long deadline = System.currentTimeMillis() + 10000;
+			while ((getCount(
+					adapter,
+					statisticsStore) < 10) && (System.currentTimeMillis() < deadline)) {
+				Thread.sleep(10);
+			}
+			assertEquals(
+					10,
+					getCount(
+							adapter,
+							statisticsStore));
+		}
+	}
+
+	@Test
+	public void testStatisticsSetFromTwoThreads()
+			throws Exception {
+		final InternalDataAdapter<Integer> adapter = createAdapter();
+		final DataStatisticsStore statisticsStore = createStatisticsStore("set");
+		final Index index = createIndex();
+		final StatsCompositionTool<Integer> tool = new StatsCompositionTool<>(
+				new HistogramStatisticsProvider(
+						adapter,
+						index),
+				statisticsStore,
+				index,
+				adapter,
+				false,
+				new StatsCompositionTool.FlushPolicy(
+						Long.MAX_VALUE,
+						false,
+						0));
+		// each thread accumulates its own statistics set, which are merged
+		// partition by partition on close
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 2; t++) {
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < ENTRIES_PER_THREAD; i++) {
+						tool.entryIngested(
+								i,
+								row(
+										adapter.getAdapterId(),
+										i));
+					}
+				}));
+			}
+			for (final Future<?> future : futures) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+		tool.close();
+		final Map<String, Long> countPerPartition = new HashMap<>();
+		try (CloseableIterator<InternalDataStatistics<?, ?, ?>> it = statisticsStore.getDataStatistics(
+				adapter.getAdapterId(),
+				RowRangeHistogramStatistics.STATS_TYPE)) {
+			while (it.hasNext()) {
+				final RowRangeHistogramStatistics<?> histogram = (RowRangeHistogramStatistics<?>) it.next();
+				countPerPartition.merge(
+						histogram.getExtendedId(),
+						histogram.getTotalCount(),
+						Long::sum);
+			}
+		}
+		assertEquals(
+				2,
+				countPerPartition.size());
+		for (final long count : countPerPartition.values()) {
+			assertEquals(
+					ENTRIES_PER_THREAD,
+					count);
+		}
+	}
+
+	@Test
+	public void testFailedFlushIsRetried()
+			throws Exception {
+		final InternalDataAdapter<Integer> adapter = createAdapter();
+		final DataStatisticsStore statisticsStore = createStatisticsStore("retry");
+		final AtomicBoolean failNext = new AtomicBoolean(
+				true);
+		final DataStatisticsStore failingStore = (DataStatisticsStore) Proxy.newProxyInstance(
+				DataStatisticsStore.class.getClassLoader(),
+				new Class<?>[] {
+					DataStatisticsStore.class
+				},
+				(
+						proxy,
+						method,
+						args ) -> {
+					if ("incorporateStatistics".equals(method.getName()) && failNext.getAndSet(false)) {
+						throw new IllegalStateException(
+								"Statistics store unavailable");
+					}
+					try {
+						return method.invoke(
+								statisticsStore,
+								args);
+					}
+					catch (final InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+		final StatsCompositionTool<Integer> tool = createTool(
+				adapter,
+				failingStore,
+				new StatsCompositionTool.FlushPolicy(
+						Long.MAX_VALUE,
+						false,
+						0));
+		for (int i = 0; i < 10; i++) {
+			tool.entryIngested(i);
+		}
+		try {
+			tool.flush();
+			fail("The statistics store failure should be thrown");
+		}
+		catch (final IllegalStateException e) {
+			// expected
+		}
+		for (int i = 0; i < 5; i++) {
+			tool.entryIngested(i);
+		}
+		tool.close();
+		assertEquals(
+				15,
+				getCount(
+						adapter,
+						statisticsStore));
+	}
+
+	private static GeoWaveRow row(
+			final short adapterId,
+			final int entry ) {
+		return new GeoWaveRowImpl(
+				new GeoWaveKeyImpl(
+						new ByteArray(
+								"entry" + entry).getBytes(),
+						adapterId,
+						new byte[] {
+							(byte) ((entry % 2) + 1)
+						},
+						ByteUtils.toBytes((double) entry),
+						0),
+				new GeoWaveValue[0]);
+	}
+
+	private static Index createIndex() {
+		return new PrimaryIndex(
+				new MockComponents.MockIndexStrategy(),
+				new MockComponents.TestIndexModel());
+	}
+
+	private static InternalDataAdapter<Integer> createAdapter() {
+		return new InternalDataAdapterWrapper<>(
+				new MockComponents.MockAbstractDataAdapter(),
+				(short) 1);
+	}
+
+	private static DataStatisticsStore createStatisticsStore(
+			final String name ) {
+		final StoreFactoryFamilySpi storeFamily = new MemoryStoreFactoryFamily();
+		final MemoryRequiredOptions options = new MemoryRequiredOptions();
+		options.setGeowaveNamespace("test_" + StatsCompositionToolTest.class.getName() + "_" + name);
+		return storeFamily.getDataStatisticsStoreFactory().createStore(
+				options);
+	}
+
+	private static StatsCompositionTool<Integer> createTool(
+			final InternalDataAdapter<Integer> adapter,
+			final DataStatisticsStore statisticsStore,
+			final StatsCompositionTool.FlushPolicy flushPolicy ) {
+		final Index index = createIndex();
+		return new StatsCompositionTool<>(
+				new CountStatisticsProvider(
+						adapter,
+						index),
+				statisticsStore,
+				index,
+				adapter,
+				false,
+				flushPolicy);
+	}
+
+	private static long getCount(
+			final InternalDataAdapter<Integer> adapter,
+			final DataStatisticsStore statisticsStore ) {
+		long count = 0;
+		try (CloseableIterator<InternalDataStatistics<?, ?, ?>> it = statisticsStore.getDataStatistics(
+				adapter.getAdapterId(),
+				CountDataStatistics.STATS_TYPE)) {
+			while (it.hasNext()) {
+				count += ((CountDataStatistics<?>) it.next()).getCount();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Only provides the count statistic, which does not need rows to determine
+	 * its visibility
+	 */
+	private static class CountStatisticsProvider extends
+			DataStoreStatisticsProvider<Integer>
+	{
+		private CountStatisticsProvider(
+				final InternalDataAdapter<Integer> adapter,
+				final Index index ) {
+			super(
+					adapter,
+					index,
+					true);
+		}
+
+		@Override
+		public StatisticsId[] getSupportedStatistics() {
+			return new StatisticsId[] {
+				CountDataStatistics.STATS_TYPE.newBuilder().build().getId()
+			};
+		}
+
+		@Override
+		public EntryVisibilityHandler<Integer> getVisibilityHandler(
+				final CommonIndexModel indexModel,
+				final DataTypeAdapter<Integer> adapter,
+				final StatisticsId statisticsId ) {
+			return new EmptyStatisticVisibility<>();
+		}
+	}
+
+	/**
+	 * Only provides the row range histogram set, which keeps one histogram per
+	 * partition
+	 */
+	private static class HistogramStatisticsProvider extends
+			DataStoreStatisticsProvider<Integer>
+	{
+		private final Index index;
+
+		private HistogramStatisticsProvider(
+				final InternalDataAdapter<Integer> adapter,
+				final Index index ) {
+			super(
+					adapter,
+					index,
+					true);
+			this.index = index;
+		}
+
+		@Override
+		public StatisticsId[] getSupportedStatistics() {
+			return new StatisticsId[] {
+				RowRangeHistogramStatisticsSet.STATS_TYPE.newBuilder().indexName(
+						index.getName()).build().getId()
+			};
+		}
+
+		@Override
+		public EntryVisibilityHandler<Integer> getVisibilityHandler(
+				final CommonIndexModel indexModel,
+				final DataTypeAdapter<Integer> adapter,
+				final StatisticsId statisticsId ) {
+			return new EmptyStatisticVisibility<>();
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.store.base;
+
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.geowave.core.index.InsertionIds;
+import org.locationtech.geowave.core.store.adapter.AdapterPersistenceEncoding;
+import org.locationtech.geowave.core.store.adapter.InternalDataAdapter;
+import org.locationtech.geowave.core.store.adapter.exceptions.AdapterException;
+import org.locationtech.geowave.core.store.api.Index;
+import org.locationtech.geowave.core.store.data.VisibilityWriter;
+import org.locationtech.geowave.core.store.data.visibility.GlobalVisibilityHandler;
+import org.locationtech.geowave.core.store.entities.GeoWaveRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the rows encoded and decoded per millisecond with and without a
+ * codec plan. Only the field serialization is measured, the adapter encoding
+ * and insertion IDs are computed once up front and rows are decoded without
+ * building the native type.
+ *
+ * Run with the test classpath, for example from an IDE, using the main method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecPlanBenchmark
+{
+	private static final int ENTRY = 12345;
+
+	@Param({
+		"true",
+		"false"
+	})
+	public boolean plan;
+
+	@Param({
+		"shared",
+		"distinct"
+	})
+	public String visibility;
+
+	@Param({
+		"4",
+		"32"
+	})
+	public int numFields;
+
+	private InternalDataAdapter<Integer> adapter;
+	private Index index;
+	private VisibilityWriter<Integer> visibilityWriter;
+	private AdapterPersistenceEncoding encodedData;
+	private InsertionIds insertionIds;
+	private GeoWaveRow row;
+
+	@Setup
+	public void setup() {
+		CodecPlan.setEnabled(plan);
+		adapter = CodecPlanTest.createAdapter(numFields);
+		index = CodecPlanTest.createIndex();
+		if ("shared".equals(visibility)) {
+			visibilityWriter = fieldName -> new GlobalVisibilityHandler<>(
+					"a&b");
+		}
+		else {
+			visibilityWriter = fieldName -> new GlobalVisibilityHandler<>(
+					fieldName);
+		}
+		encodedData = CodecPlanTest.createEncoding(
+				ENTRY,
+				numFields);
+		insertionIds = CodecPlanTest.createInsertionIds();
+		row = encode().getRows()[0];
+	}
+
+	@TearDown
+	public void tearDown() {
+		CodecPlan.setEnabled(true);
+	}
+
+	@Benchmark
+	public IntermediaryWriteEntryInfo encode() {
+		return BaseDataStoreUtils.getWriteInfo(
+				ENTRY,
+				adapter,
+				index,
+				visibilityWriter,
+				encodedData,
+				insertionIds);
+	}
+
+	@Benchmark
+	public Object decode()
+			throws AdapterException {
+		return BaseDataStoreUtils.decodeRow(
+				row,
+				null,
+				adapter,
+				null,
+				index,
+				null,
+				null,
+				false);
+	}
+
+	public static void main(
+			final String[] args )
+			throws RunnerException {
+		final Options opt = new OptionsBuilder().include(
+				CodecPlanBenchmark.class.getSimpleName()).build();
+		new Runner(
+				opt).run();
+	}
+}
@@ -0,0 +1,296 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.store.base;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Test;
+import org.locationtech.geowave.core.index.ByteArray;
+import org.locationtech.geowave.core.index.InsertionIds;
+import org.locationtech.geowave.core.store.adapter.AdapterPersistenceEncoding;
+import org.locationtech.geowave.core.store.adapter.IndexedAdapterPersistenceEncoding;
+import org.locationtech.geowave.core.store.adapter.InternalDataAdapter;
+import org.locationtech.geowave.core.store.adapter.InternalDataAdapterWrapper;
+import org.locationtech.geowave.core.store.adapter.MockComponents;
+import org.locationtech.geowave.core.store.adapter.exceptions.AdapterException;
+import org.locationtech.geowave.core.store.api.Index;
+import org.locationtech.geowave.core.store.data.PersistentDataset;
+import org.locationtech.geowave.core.store.data.VisibilityWriter;
+import org.locationtech.geowave.core.store.data.field.FieldReader;
+import org.locationtech.geowave.core.store.data.field.FieldUtils;
+import org.locationtech.geowave.core.store.data.field.FieldWriter;
+import org.locationtech.geowave.core.store.data.visibility.GlobalVisibilityHandler;
+import org.locationtech.geowave.core.store.entities.GeoWaveValue;
+import org.locationtech.geowave.core.store.index.CommonIndexModel;
+import org.locationtech.geowave.core.store.index.CommonIndexValue;
+import org.locationtech.geowave.core.store.index.PrimaryIndex;
+
+public class CodecPlanTest
+{
+	private static final int NUM_FIELDS = 8;
+	private static final String DIMENSION_FIELD = new MockComponents.TestDimensionField().getFieldName();
+	private static final String FIELD_PREFIX = "field";
+
+	@After
+	public void enablePlans() {
+		CodecPlan.setEnabled(true);
+	}
+
+	@Test
+	public void testSharedVisibility()
+			throws AdapterException {
+		assertPlanMatchesLegacy(fieldName -> new GlobalVisibilityHandler<>(
+				"a"));
+	}
+
+	@Test
+	public void testDistinctVisibilities()
+			throws AdapterException {
+		assertPlanMatchesLegacy(fieldName -> new GlobalVisibilityHandler<>(
+				fieldName));
+	}
+
+	@Test
+	public void testMixedVisibilities()
+			throws AdapterException {
+		// the first field is alone in its visibility while the rest share one
+		assertPlanMatchesLegacy(fieldName -> new GlobalVisibilityHandler<>(
+				(FIELD_PREFIX + 0).equals(fieldName) ? "b" : "a"));
+	}
+
+	@Test
+	public void testWrappersShareLayout() {
+		// queries wrap the type's adapter in a new InternalDataAdapter each
+		// time, which must not add a cache entry per query
+		final InternalDataAdapter<Integer> adapter = createAdapter(NUM_FIELDS);
+		final Index index = createIndex();
+		CodecPlan.getPlan(
+				adapter,
+				index);
+		final long layouts = CodecPlan.getCachedLayoutCount();
+		for (int i = 0; i < 100; i++) {
+			CodecPlan.getPlan(
+					new InternalDataAdapterWrapper<>(
+							adapter.getAdapter(),
+							adapter.getAdapterId()),
+					index);
+		}
+		assertTrue(CodecPlan.getCachedLayoutCount() <= layouts);
+	}
+
+	private static void assertPlanMatchesLegacy(
+			final VisibilityWriter<Integer> visibilityWriter )
+			throws AdapterException {
+		final InternalDataAdapter<Integer> adapter = createAdapter(NUM_FIELDS);
+		final Index index = createIndex();
+		for (int entry = 0; entry < 100; entry++) {
+			CodecPlan.setEnabled(true);
+			final IntermediaryWriteEntryInfo planInfo = write(
+					entry,
+					adapter,
+					index,
+					visibilityWriter);
+			CodecPlan.setEnabled(false);
+			final IntermediaryWriteEntryInfo legacyInfo = write(
+					entry,
+					adapter,
+					index,
+					visibilityWriter);
+			final GeoWaveValue[] planValues = planInfo.getValues();
+			final GeoWaveValue[] legacyValues = legacyInfo.getValues();
+			assertEquals(
+					legacyValues.length,
+					planValues.length);
+			for (int i = 0; i < legacyValues.length; i++) {
+				assertArrayEquals(
+						legacyValues[i].getFieldMask(),
+						planValues[i].getFieldMask());
+				assertArrayEquals(
+						legacyValues[i].getVisibility(),
+						planValues[i].getVisibility());
+				assertArrayEquals(
+						legacyValues[i].getValue(),
+						planValues[i].getValue());
+			}
+
+			for (final boolean enabled : new boolean[] {
+				true,
+				false
+			}) {
+				CodecPlan.setEnabled(enabled);
+				final IndexedAdapterPersistenceEncoding decoded = (IndexedAdapterPersistenceEncoding) BaseDataStoreUtils
+						.decodeRow(
+								planInfo.getRows()[0],
+								null,
+								adapter,
+								null,
+								index,
+								null,
+								null,
+								false);
+				assertEquals(
+						createEncoding(
+								entry,
+								NUM_FIELDS).getAdapterExtendedData().getValues(),
+						decoded.getAdapterExtendedData().getValues());
+				assertEquals(
+						1,
+						decoded.getCommonData().getValues().size());
+			}
+		}
+	}
+
+	private static IntermediaryWriteEntryInfo write(
+			final int entry,
+			final InternalDataAdapter<Integer> adapter,
+			final Index index,
+			final VisibilityWriter<Integer> visibilityWriter ) {
+		return BaseDataStoreUtils.getWriteInfo(
+				entry,
+				adapter,
+				index,
+				visibilityWriter,
+				createEncoding(
+						entry,
+						NUM_FIELDS),
+				createInsertionIds());
+	}
+
+	static InsertionIds createInsertionIds() {
+		return new InsertionIds(
+				Collections.singletonList(new ByteArray(
+						new byte[] {
+							1
+						})));
+	}
+
+	static InternalDataAdapter<Integer> createAdapter(
+			final int numFields ) {
+		return new InternalDataAdapterWrapper<>(
+				new WideAdapter(
+						numFields),
+				(short) 1);
+	}
+
+	static Index createIndex() {
+		return new PrimaryIndex(
+				new MockComponents.MockIndexStrategy(),
+				new WideIndexModel());
+	}
+
+	static AdapterPersistenceEncoding createEncoding(
+			final int entry,
+			final int numFields ) {
+		final PersistentDataset<CommonIndexValue> commonData = new PersistentDataset<>();
+		commonData.addValue(
+				DIMENSION_FIELD,
+				new MockComponents.TestIndexFieldType(
+						entry));
+		final PersistentDataset<Object> extendedData = new PersistentDataset<>();
+		for (int i = 0; i < numFields; i++) {
+			extendedData.addValue(
+					FIELD_PREFIX + i,
+					"value " + i + " of entry " + entry);
+		}
+		return new AdapterPersistenceEncoding(
+				new ByteArray(
+						"DataID" + entry),
+				commonData,
+				extendedData);
+	}
+
+	/**
+	 * An index model that only reads and writes its own dimension
+	 */
+	static class WideIndexModel extends
+			MockComponents.TestIndexModel
+	{
+		@Override
+		public FieldReader<CommonIndexValue> getReader(
+				final String fieldName ) {
+			return DIMENSION_FIELD.equals(fieldName) ? super.getReader(fieldName) : null;
+		}
+
+		@Override
+		public FieldWriter<Object, CommonIndexValue> getWriter(
+				final String fieldName ) {
+			return DIMENSION_FIELD.equals(fieldName) ? super.getWriter(fieldName) : null;
+		}
+	}
+
+	/**
+	 * An adapter with a number of string fields following the index dimension
+	 */
+	static class WideAdapter extends
+			MockComponents.MockAbstractDataAdapter
+	{
+		private final int numFields;
+
+		WideAdapter(
+				final int numFields ) {
+			this.numFields = numFields;
+		}
+
+		private int getFieldIndex(
+				final String fieldName ) {
+			if ((fieldName != null) && fieldName.startsWith(FIELD_PREFIX)) {
+				final int i = Integer.parseInt(fieldName.substring(FIELD_PREFIX.length()));
+				if (i < numFields) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		@SuppressWarnings("rawtypes")
+		@Override
+		public FieldReader getReader(
+				final String fieldName ) {
+			return getFieldIndex(fieldName) >= 0 ? FieldUtils.getDefaultReaderForClass(String.class) : null;
+		}
+
+		@SuppressWarnings("rawtypes")
+		@Override
+		public FieldWriter getWriter(
+				final String fieldName ) {
+			return getFieldIndex(fieldName) >= 0 ? FieldUtils.getDefaultWriterForClass(String.class) : null;
+		}
+
+		@Override
+		public int getPositionOfOrderedField(
+				final CommonIndexModel model,
+				final String fieldName ) {
+			if (DIMENSION_FIELD.equals(fieldName)) {
+				return 0;
+			}
+			final int i = getFieldIndex(fieldName);
+			return i >= 0 ? i + 1 : -1;
+		}
+
+		@Override
+		public String getFieldNameForPosition(
+				final CommonIndexModel model,
+				final int position ) {
+			if (position == 0) {
+				return DIMENSION_FIELD;
+			}
+			if ((position > 0) && (position <= numFields)) {
+				return FIELD_PREFIX + (position - 1);
+			}
+			return null;
+		}
+	}
+}
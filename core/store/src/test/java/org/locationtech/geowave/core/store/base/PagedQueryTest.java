@@ -0,0 +1,271 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.store.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.geowave.core.index.ByteArray;
+import org.locationtech.geowave.core.index.ByteArrayRange;
+import org.locationtech.geowave.core.index.IndexMetaData;
+import org.locationtech.geowave.core.index.QueryRanges;
+import org.locationtech.geowave.core.index.SinglePartitionQueryRanges;
+import org.locationtech.geowave.core.index.sfc.data.BasicNumericDataset;
+import org.locationtech.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import org.locationtech.geowave.core.index.sfc.data.NumericData;
+import org.locationtech.geowave.core.index.sfc.data.NumericRange;
+import org.locationtech.geowave.core.store.CloseableIterator;
+import org.locationtech.geowave.core.store.adapter.MockComponents;
+import org.locationtech.geowave.core.store.api.DataTypeAdapter;
+import org.locationtech.geowave.core.store.api.Index;
+import org.locationtech.geowave.core.store.api.Query;
+import org.locationtech.geowave.core.store.api.QueryBuilder;
+import org.locationtech.geowave.core.store.api.Writer;
+import org.locationtech.geowave.core.store.callback.ContinuationTokenCallback;
+import org.locationtech.geowave.core.store.index.PrimaryIndex;
+import org.locationtech.geowave.core.store.memory.MemoryRequiredOptions;
+import org.locationtech.geowave.core.store.memory.MemoryStoreFactoryFamily;
+import org.locationtech.geowave.core.store.query.constraints.QueryConstraints;
+import org.locationtech.geowave.core.store.query.filter.QueryFilter;
+
+/**
+ * Pages through the memory store with offsets, sort key ordering and
+ * continuation tokens. The index looks each value up with its own range and
+ * returns the ranges in descending order, so the results are only in key order
+ * if the ranges are read in order.
+ */
+public class PagedQueryTest
+{
+	private static final int MIN_VALUE = 10;
+	private static final int MAX_VALUE = 59;
+
+	private final Index index = new PrimaryIndex(
+			new RangePerValueIndexStrategy(),
+			new MockComponents.TestIndexModel());
+	private final DataTypeAdapter<Integer> adapter = new MockComponents.MockAbstractDataAdapter();
+	private BaseDataStore dataStore;
+
+	@Before
+	public void setup() {
+		final MemoryRequiredOptions reqOptions = new MemoryRequiredOptions();
+		reqOptions.setGeowaveNamespace("test_" + getClass().getName() + "_" + System.nanoTime());
+		dataStore = (BaseDataStore) new MemoryStoreFactoryFamily().getDataStoreFactory().createStore(
+				reqOptions);
+		dataStore.addType(
+				adapter,
+				index);
+		try (final Writer<Integer> writer = dataStore.createWriter(adapter.getTypeName())) {
+			for (int i = MIN_VALUE; i <= MAX_VALUE; i++) {
+				writer.write(i);
+			}
+		}
+	}
+
+	@Test
+	public void testOffsetAndLimit() {
+		assertEquals(
+				values(
+						15,
+						24),
+				query(newQuery().orderBySortKey().offset(
+						5).limit(
+						10).build()));
+		// the offset applies to the results of the query, not to the limit
+		assertEquals(
+				values(
+						55,
+						59),
+				query(newQuery().orderBySortKey().offset(
+						45).limit(
+						10).build()));
+	}
+
+	@Test
+	public void testOrderedMultiRangeRead() {
+		final List<Integer> unordered = query(newQuery().build());
+		Collections.sort(unordered);
+		assertEquals(
+				values(
+						MIN_VALUE,
+						MAX_VALUE),
+				unordered);
+
+		assertEquals(
+				values(
+						MIN_VALUE,
+						MAX_VALUE),
+				query(newQuery().orderBySortKey().build()));
+	}
+
+	@Test
+	public void testContinuationToken() {
+		final ContinuationTokenCallback<Integer> firstPage = new ContinuationTokenCallback<>();
+		assertEquals(
+				values(
+						10,
+						29),
+				query(
+						firstPage,
+						newQuery().orderBySortKey().limit(
+								20).build()));
+		assertNotNull(firstPage.getContinuationToken());
+
+		final ContinuationTokenCallback<Integer> secondPage = new ContinuationTokenCallback<>();
+		assertEquals(
+				"a token implies ordering by sort key",
+				values(
+						30,
+						49),
+				query(
+						secondPage,
+						newQuery().startAfter(
+								firstPage.getContinuationToken()).limit(
+								20).build()));
+
+		final ContinuationTokenCallback<Integer> lastPage = new ContinuationTokenCallback<>();
+		assertEquals(
+				values(
+						50,
+						59),
+				query(
+						lastPage,
+						newQuery().startAfter(
+								secondPage.getContinuationToken()).limit(
+								20).build()));
+		assertEquals(
+				Collections.emptyList(),
+				query(newQuery().startAfter(
+						lastPage.getContinuationToken()).limit(
+						20).build()));
+	}
+
+	private QueryBuilder<Integer, ?> newQuery() {
+		return QueryBuilder.<Integer> newBuilder().addTypeName(
+				adapter.getTypeName()).indexName(
+				index.getName()).constraints(
+				new ValueRangeQuery(
+						MIN_VALUE,
+						MAX_VALUE));
+	}
+
+	private List<Integer> query(
+			final Query<Integer> query ) {
+		return query(
+				null,
+				query);
+	}
+
+	private List<Integer> query(
+			final ContinuationTokenCallback<Integer> callback,
+			final Query<Integer> query ) {
+		final List<Integer> results = new ArrayList<>();
+		try (CloseableIterator<Integer> it = dataStore.query(
+				query,
+				callback)) {
+			while (it.hasNext()) {
+				results.add(it.next());
+			}
+		}
+		return results;
+	}
+
+	private static List<Integer> values(
+			final int min,
+			final int max ) {
+		final List<Integer> values = new ArrayList<>();
+		for (int i = min; i <= max; i++) {
+			values.add(i);
+		}
+		return values;
+	}
+
+	/**
+	 * Looks up every value of the query with its own range, in descending
+	 * order. The mock index strategy uses the value as the sort key, which
+	 * sorts by value for two digit values.
+	 */
+	public static class RangePerValueIndexStrategy extends
+			MockComponents.MockIndexStrategy
+	{
+		@Override
+		public QueryRanges getQueryRanges(
+				final MultiDimensionalNumericData indexedRange,
+				final int maxEstimatedRangeDecomposition,
+				final IndexMetaData... hints ) {
+			final List<ByteArrayRange> ranges = new ArrayList<>();
+			final NumericData range = indexedRange.getDataPerDimension()[0];
+			for (int i = (int) range.getMax(); i >= (int) range.getMin(); i--) {
+				final ByteArray sortKey = new ByteArray(
+						Double.toString(
+								i).getBytes());
+				ranges.add(new ByteArrayRange(
+						sortKey,
+						sortKey,
+						true));
+			}
+			return new QueryRanges(
+					Collections.singletonList(new SinglePartitionQueryRanges(
+							new ByteArray(
+									new byte[0]),
+							ranges)));
+		}
+
+		@Override
+		public String getId() {
+			return "RangePerValue";
+		}
+	}
+
+	private static class ValueRangeQuery implements
+			QueryConstraints
+	{
+		private final double min, max;
+
+		public ValueRangeQuery(
+				final double min,
+				final double max ) {
+			this.min = min;
+			this.max = max;
+		}
+
+		@Override
+		public List<QueryFilter> createFilters(
+				final Index index ) {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public List<MultiDimensionalNumericData> getIndexConstraints(
+				final Index index ) {
+			return Collections.<MultiDimensionalNumericData> singletonList(new BasicNumericDataset(
+					new NumericData[] {
+						new NumericRange(
+								min,
+								max)
+					}));
+		}
+
+		@Override
+		public byte[] toBinary() {
+			return new byte[0];
+		}
+
+		@Override
+		public void fromBinary(
+				final byte[] bytes ) {}
+	}
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.store.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.geowave.core.store.BaseDataStoreOptions;
+import org.locationtech.geowave.core.store.CloseableIterator;
+import org.locationtech.geowave.core.store.adapter.MockComponents;
+import org.locationtech.geowave.core.store.api.DataTypeAdapter;
+import org.locationtech.geowave.core.store.api.Index;
+import org.locationtech.geowave.core.store.api.QueryBuilder;
+import org.locationtech.geowave.core.store.api.Writer;
+import org.locationtech.geowave.core.store.index.PrimaryIndex;
+import org.locationtech.geowave.core.store.memory.MemoryRequiredOptions;
+import org.locationtech.geowave.core.store.memory.MemoryStoreFactoryFamily;
+
+public class ParallelEncodingIndexWriterTest
+{
+	private static final int ENTRY_COUNT = 500;
+
+	private final Index index = new PrimaryIndex(
+			new MockComponents.MockIndexStrategy(),
+			new MockComponents.TestIndexModel());
+	private final DataTypeAdapter<Integer> adapter = new MockComponents.MockAbstractDataAdapter();
+	private BaseDataStore dataStore;
+
+	@Before
+	public void setup() {
+		final MemoryRequiredOptions reqOptions = new MemoryRequiredOptions();
+		reqOptions.setGeowaveNamespace("test_" + getClass().getName() + "_" + System.nanoTime());
+		((BaseDataStoreOptions) reqOptions.getStoreOptions()).setWriterEncodeThreads(4);
+		((BaseDataStoreOptions) reqOptions.getStoreOptions()).setWriterQueueSize(10);
+		dataStore = (BaseDataStore) new MemoryStoreFactoryFamily().getDataStoreFactory().createStore(
+				reqOptions);
+		dataStore.addType(
+				adapter,
+				index);
+	}
+
+	@Test
+	public void testWriteAll() {
+		try (final Writer<Integer> writer = dataStore.createWriter(adapter.getTypeName())) {
+			for (int i = 0; i < ENTRY_COUNT; i++) {
+				writer.write(i);
+			}
+		}
+		int count = 0;
+		try (CloseableIterator<Integer> it = dataStore.query(QueryBuilder.<Integer> newBuilder().addTypeName(
+				adapter.getTypeName()).build())) {
+			while (it.hasNext()) {
+				it.next();
+				count++;
+			}
+		}
+		assertEquals(
+				ENTRY_COUNT,
+				count);
+	}
+
+	@Test(timeout = 60000)
+	public void testWriteThreadInterrupted()
+			throws InterruptedException {
+		final Writer<Integer> writer = dataStore.createWriter(adapter.getTypeName());
+		for (int i = 0; i < ENTRY_COUNT; i++) {
+			writer.write(i);
+		}
+		final Thread writeThread = getWriteThread();
+		assertNotNull(writeThread);
+		writeThread.interrupt();
+		writeThread.join();
+
+		// the interrupt is reported and the entries that were still queued
+		// don't leave flush waiting for them
+		try {
+			writer.flush();
+			fail("the interrupt of the write thread should be reported");
+		}
+		catch (final RuntimeException e) {
+			// expected
+		}
+		try {
+			writer.write(ENTRY_COUNT);
+			fail("a writer without a write thread should reject entries");
+		}
+		catch (final IllegalStateException e) {
+			// expected
+		}
+		writer.close();
+	}
+
+	private Thread getWriteThread() {
+		final String name = "geowave-write-" + adapter.getTypeName();
+		for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (name.equals(thread.getName()) && thread.isAlive()) {
+				return thread;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.store.base;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.locationtech.geowave.core.index.ByteArray;
+import org.locationtech.geowave.core.index.ByteArrayRange;
+import org.locationtech.geowave.core.index.QueryRanges;
+import org.locationtech.geowave.core.index.SinglePartitionQueryRanges;
+import org.locationtech.geowave.core.store.entities.GeoWaveKeyImpl;
+import org.locationtech.geowave.core.store.query.ContinuationToken;
+
+public class SortKeyOrderedReaderTest
+{
+	@Test
+	public void testContinuationToken() {
+		final ContinuationToken token = ContinuationToken.fromBinary(new ContinuationToken(
+				key(
+						new byte[] {
+							1
+						},
+						new byte[] {
+							5,
+							5
+						},
+						"b")).toBinary());
+		assertArrayEquals(
+				new byte[] {
+					1
+				},
+				token.getPartitionKey());
+		assertArrayEquals(
+				new byte[] {
+					5,
+					5
+				},
+				token.getSortKey());
+		// the same sort key is ordered by data ID
+		assertFalse(token.isBefore(key(
+				new byte[] {
+					1
+				},
+				new byte[] {
+					5,
+					5
+				},
+				"a")));
+		assertFalse(token.isBefore(key(
+				new byte[] {
+					1
+				},
+				new byte[] {
+					5,
+					5
+				},
+				"b")));
+		assertTrue(token.isBefore(key(
+				new byte[] {
+					1
+				},
+				new byte[] {
+					5,
+					5
+				},
+				"c")));
+		assertTrue(token.isBefore(key(
+				new byte[] {
+					2
+				},
+				new byte[] {
+					0
+				},
+				"a")));
+	}
+
+	@Test
+	public void testRangesInOrder() {
+		final QueryRanges queryRanges = new QueryRanges(
+				Arrays.asList(
+						new SinglePartitionQueryRanges(
+								new ByteArray(
+										new byte[] {
+											2
+										}),
+								Collections.singletonList(range(
+										1,
+										2))),
+						new SinglePartitionQueryRanges(
+								new ByteArray(
+										new byte[] {
+											1
+										}),
+								Arrays.asList(
+										range(
+												4,
+												6),
+										range(
+												1,
+												3)))));
+		List<QueryRanges> rangesInOrder = SortKeyOrderedReader.getRangesInOrder(
+				queryRanges,
+				null,
+				null);
+		assertEquals(
+				3,
+				rangesInOrder.size());
+		assertRange(
+				rangesInOrder.get(0),
+				1,
+				1,
+				3);
+		assertRange(
+				rangesInOrder.get(1),
+				1,
+				4,
+				6);
+		assertRange(
+				rangesInOrder.get(2),
+				2,
+				1,
+				2);
+
+		// the ranges before the token are dropped and the range of the token
+		// starts at its sort key
+		rangesInOrder = SortKeyOrderedReader.getRangesInOrder(
+				queryRanges,
+				null,
+				new ContinuationToken(
+						key(
+								new byte[] {
+									1
+								},
+								new byte[] {
+									5
+								},
+								"a")));
+		assertEquals(
+				2,
+				rangesInOrder.size());
+		assertRange(
+				rangesInOrder.get(0),
+				1,
+				5,
+				6);
+		assertRange(
+				rangesInOrder.get(1),
+				2,
+				1,
+				2);
+	}
+
+	private static void assertRange(
+			final QueryRanges ranges,
+			final int partitionKey,
+			final int start,
+			final int end ) {
+		final SinglePartitionQueryRanges partition = ranges.getPartitionQueryRanges().iterator().next();
+		assertEquals(
+				new ByteArray(
+						new byte[] {
+							(byte) partitionKey
+						}),
+				partition.getPartitionKey());
+		assertEquals(
+				range(
+						start,
+						end),
+				partition.getSortKeyRanges().iterator().next());
+	}
+
+	private static ByteArrayRange range(
+			final int start,
+			final int end ) {
+		return new ByteArrayRange(
+				new ByteArray(
+						new byte[] {
+							(byte) start
+						}),
+				new ByteArray(
+						new byte[] {
+							(byte) end
+						}));
+	}
+
+	private static GeoWaveKeyImpl key(
+			final byte[] partitionKey,
+			final byte[] sortKey,
+			final String dataId ) {
+		return new GeoWaveKeyImpl(
+				new ByteArray(
+						dataId).getBytes(),
+				(short) 1,
+				partitionKey,
+				sortKey,
+				0);
+	}
+}
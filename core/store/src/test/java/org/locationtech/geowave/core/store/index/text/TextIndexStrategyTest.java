@@ -39,7 +39,7 @@ public class TextIndexStrategyTest
 		final QueryRanges ranges = strategy.getQueryRanges(new TextQueryConstraint(
 				fieldId,
 				value,
-				false));
+				true));
 		Assert.assertTrue(ranges.getCompositeQueryRanges().size() == 1);
 		Assert.assertTrue(ranges.getCompositeQueryRanges().get(
 				0).equals(
@@ -49,4 +49,47 @@ public class TextIndexStrategyTest
 						new ByteArray(
 								value))));
 	}
+
+	@Test
+	public void testCaseInsensitiveEquals() {
+		// any casing of the value matches, so the index can't be constrained
+		QueryRanges ranges = strategy.getQueryRanges(new TextQueryConstraint(
+				fieldId,
+				value,
+				false));
+		Assert.assertNull(ranges.getCompositeQueryRanges());
+
+		// except by the characters without case it starts with
+		ranges = strategy.getQueryRanges(new TextQueryConstraint(
+				fieldId,
+				"12-" + value,
+				false));
+		Assert.assertTrue(ranges.getCompositeQueryRanges().size() == 1);
+		Assert.assertTrue(ranges.getCompositeQueryRanges().get(
+				0).equals(
+				new ByteArrayRange(
+						new ByteArray(
+								"12-"),
+						new ByteArray(
+								"12-"))));
+
+		// a case sensitive term constrains the index better
+		ranges = strategy.getQueryRanges((TextQueryConstraint) new TextQueryConstraint(
+				fieldId,
+				"12-" + value,
+				false).intersect(new TextQueryConstraint(
+				fieldId,
+				"12-my%",
+				"%",
+				"_",
+				"\\",
+				true)));
+		Assert.assertTrue(ranges.getCompositeQueryRanges().get(
+				0).equals(
+				new ByteArrayRange(
+						new ByteArray(
+								"12-my"),
+						new ByteArray(
+								"12-my"))));
+	}
 }
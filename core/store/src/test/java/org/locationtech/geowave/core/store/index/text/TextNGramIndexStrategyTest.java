@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.store.index.text;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.locationtech.geowave.core.index.ByteArray;
+import org.locationtech.geowave.core.index.InsertionIds;
+import org.locationtech.geowave.core.index.QueryRanges;
+import org.locationtech.geowave.core.index.StringUtils;
+
+public class TextNGramIndexStrategyTest
+{
+	private final TextNGramIndexStrategy strategy = new TextNGramIndexStrategy();
+	private final String fieldId = "fieldId";
+	private final String value = "Hello";
+
+	@Test
+	public void testInsertions() {
+		final InsertionIds insertionIds = strategy.getInsertionIds(value);
+		final List<ByteArray> ids = insertionIds.getCompositeInsertionIds();
+		Assert.assertEquals(
+				6,
+				ids.size());
+		Assert.assertTrue(ids.contains(key(
+				0,
+				"hello")));
+		for (final String nGram : new String[] {
+			"hel",
+			"ell",
+			"llo",
+			"lo",
+			"o"
+		}) {
+			Assert.assertTrue(ids.contains(key(
+					1,
+					nGram)));
+		}
+		Assert.assertEquals(
+				"hello",
+				strategy.getRangeForId(
+						null,
+						ids.get(0)));
+	}
+
+	@Test
+	public void testEquals() {
+		final List<QueryRanges> rangeSets = strategy.getQueryRangeSets(new TextQueryConstraint(
+				fieldId,
+				value,
+				true));
+		Assert.assertEquals(
+				1,
+				rangeSets.size());
+		assertRange(
+				rangeSets.get(0),
+				key(
+						0,
+						"hello"));
+	}
+
+	@Test
+	public void testLike() {
+		// an anchored prefix is scanned on the whole values
+		assertRange(
+				strategy.getQueryRanges(like("He%")),
+				key(
+						0,
+						"he"));
+		// a substring is intersected from its n-grams
+		final List<QueryRanges> rangeSets = strategy.getQueryRangeSets(like("%ELLO%"));
+		Assert.assertEquals(
+				2,
+				rangeSets.size());
+		assertRange(
+				rangeSets.get(0),
+				key(
+						1,
+						"ell"));
+		assertRange(
+				rangeSets.get(1),
+				key(
+						1,
+						"llo"));
+		// a substring shorter than an n-gram is the start of n-grams
+		assertRange(
+				strategy.getQueryRanges(like("%lo")),
+				key(
+						1,
+						"lo"));
+		// an n-gram is more selective than a shorter prefix
+		assertRange(
+				strategy.getQueryRanges(like("h_llo")),
+				key(
+						1,
+						"llo"));
+		Assert.assertNull(strategy.getQueryRanges(
+				like("%")).getCompositeQueryRanges());
+	}
+
+	@Test
+	public void testFilter() {
+		final TextQueryConstraint constraint = (TextQueryConstraint) new TextQueryConstraint(
+				fieldId,
+				"He%",
+				"%",
+				"_",
+				"\\",
+				true).intersect(new TextQueryConstraint(
+				fieldId,
+				"%L\\_O",
+				"%",
+				"_",
+				"\\",
+				false));
+		final Pattern pattern = Pattern.compile(
+				((TextPatternFilter) constraint.getFilter()).getRegex(),
+				Pattern.DOTALL);
+		Assert.assertTrue(pattern.matcher(
+				"Hell_o").lookingAt());
+		Assert.assertTrue(pattern.matcher(
+				"Hel_O").lookingAt());
+		Assert.assertFalse(pattern.matcher(
+				"hell_o").lookingAt());
+		Assert.assertFalse(pattern.matcher(
+				"Hello").lookingAt());
+		Assert.assertFalse(pattern.matcher(
+				"Hell_o!").lookingAt());
+	}
+
+	private TextQueryConstraint like(
+			final String pattern ) {
+		return new TextQueryConstraint(
+				fieldId,
+				pattern,
+				"%",
+				"_",
+				"\\",
+				false);
+	}
+
+	private static void assertRange(
+			final QueryRanges ranges,
+			final ByteArray key ) {
+		Assert.assertEquals(
+				1,
+				ranges.getCompositeQueryRanges().size());
+		Assert.assertEquals(
+				key,
+				ranges.getCompositeQueryRanges().get(
+						0).getStart());
+	}
+
+	private static ByteArray key(
+			final int type,
+			final String text ) {
+		final byte[] textBytes = StringUtils.stringToBinary(text);
+		final byte[] key = new byte[textBytes.length + 1];
+		key[0] = (byte) type;
+		System.arraycopy(
+				textBytes,
+				0,
+				key,
+				1,
+				textBytes.length);
+		return new ByteArray(
+				key);
+	}
+}
@@ -25,6 +25,7 @@ import org.locationtech.geowave.core.index.sfc.data.BasicNumericDataset;
 import org.locationtech.geowave.core.index.sfc.data.MultiDimensionalNumericData;
 import org.locationtech.geowave.core.index.sfc.data.NumericData;
 import org.locationtech.geowave.core.index.sfc.data.NumericRange;
+import org.locationtech.geowave.core.store.BaseDataStoreOptions;
 import org.locationtech.geowave.core.store.CloseableIterator;
 import org.locationtech.geowave.core.store.StoreFactoryFamilySpi;
 import org.locationtech.geowave.core.store.adapter.MockComponents;
@@ -393,6 +394,60 @@ public class MemoryDataStoreTest
 
 	}
 
+	@Test
+	public void testParallelEncodingWriter()
+			throws IOException,
+			MismatchedIndexToAdapterMapping {
+		final Index index = new PrimaryIndex(
+				new MockComponents.MockIndexStrategy(),
+				new MockComponents.TestIndexModel());
+		final String namespace = "test3_" + getClass().getName();
+		final StoreFactoryFamilySpi storeFamily = new MemoryStoreFactoryFamily();
+		final MemoryRequiredOptions reqOptions = new MemoryRequiredOptions();
+		reqOptions.setGeowaveNamespace(namespace);
+		((BaseDataStoreOptions) reqOptions.getStoreOptions()).setWriterEncodeThreads(4);
+		((BaseDataStoreOptions) reqOptions.getStoreOptions()).setWriterQueueSize(16);
+		final DataStore dataStore = storeFamily.getDataStoreFactory().createStore(
+				reqOptions);
+		final DataStatisticsStore statsStore = storeFamily.getDataStatisticsStoreFactory().createStore(
+				reqOptions);
+		final DataTypeAdapter<Integer> adapter = new MockComponents.MockAbstractDataAdapter();
+
+		dataStore.addType(
+				adapter,
+				index);
+		final int entryCount = 500;
+		try (final Writer<Integer> indexWriter = dataStore.createWriter(adapter.getTypeName())) {
+			for (int i = 0; i < entryCount; i++) {
+				assertFalse(indexWriter.write(
+						i).isEmpty());
+			}
+			indexWriter.flush();
+		}
+
+		int resultCount = 0;
+		try (CloseableIterator<?> itemIt = dataStore.query(QueryBuilder.newBuilder().addTypeName(
+				adapter.getTypeName()).indexName(
+				index.getName()).constraints(
+				new TestQuery(
+						0,
+						entryCount)).build())) {
+			while (itemIt.hasNext()) {
+				itemIt.next();
+				resultCount++;
+			}
+		}
+		assertEquals(
+				entryCount,
+				resultCount);
+		assertTrue(checkStats(
+				statsStore.getAllDataStatistics(),
+				entryCount,
+				new NumericRange(
+						0,
+						entryCount - 1)));
+	}
+
 	private boolean checkStats(
 			final Iterator<InternalDataStatistics<?, ?, ?>> statIt,
 			final int count,
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.store.metadata;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.locationtech.geowave.core.index.StringUtils;
+import org.locationtech.geowave.core.store.CloseableIterator;
+import org.locationtech.geowave.core.store.StoreFactoryFamilySpi;
+import org.locationtech.geowave.core.store.adapter.statistics.BaseStatisticsType;
+import org.locationtech.geowave.core.store.adapter.statistics.CountDataStatistics;
+import org.locationtech.geowave.core.store.adapter.statistics.DataStatisticsStore;
+import org.locationtech.geowave.core.store.adapter.statistics.InternalDataStatistics;
+import org.locationtech.geowave.core.store.memory.MemoryRequiredOptions;
+import org.locationtech.geowave.core.store.memory.MemoryStoreFactoryFamily;
+
+public class DataStatisticsStoreImplTest
+{
+	private static final short ADAPTER_ID = 1;
+
+	@Test
+	public void testCachedStatisticsAreMerged() {
+		final DataStatisticsStore statisticsStore = createStatisticsStore("merged");
+		statisticsStore.incorporateStatistics(createCount(5));
+		assertEquals(
+				5,
+				getCount(statisticsStore));
+		// the results are now cached, they should include further statistics
+		statisticsStore.incorporateStatistics(createCount(3));
+		assertEquals(
+				8,
+				getCount(statisticsStore));
+		statisticsStore.removeStatistics(
+				ADAPTER_ID,
+				CountDataStatistics.STATS_TYPE);
+		assertEquals(
+				0,
+				getCount(statisticsStore));
+	}
+
+	@Test
+	public void testTypesWithSamePrefix() {
+		final DataStatisticsStore statisticsStore = createStatisticsStore("prefix");
+		final CountDataStatistics<Object> other = createCount(7);
+		other.setType(new BaseStatisticsType<>(
+				CountDataStatistics.STATS_TYPE.getString() + "_OTHER"));
+		statisticsStore.incorporateStatistics(other);
+		statisticsStore.incorporateStatistics(createCount(2));
+		assertEquals(
+				2,
+				getCount(statisticsStore));
+	}
+
+	@Test
+	public void testExactExtendedId() {
+		final DataStatisticsStore statisticsStore = createStatisticsStore("exact");
+		final CountDataStatistics<Object> idx = createCount(5);
+		idx.setExtendedId("idx");
+		final CountDataStatistics<Object> idx2 = createCount(7);
+		idx2.setExtendedId("idx2");
+		statisticsStore.incorporateStatistics(idx);
+		statisticsStore.incorporateStatistics(idx2);
+		// query twice so the second query is served from the cache
+		for (int i = 0; i < 2; i++) {
+			assertEquals(
+					5,
+					sum(statisticsStore.getDataStatistics(
+							ADAPTER_ID,
+							"idx",
+							CountDataStatistics.STATS_TYPE)));
+			assertEquals(
+					12,
+					sum(statisticsStore.getDataStatistics(
+							"idx",
+							CountDataStatistics.STATS_TYPE)));
+		}
+		// the cached exact results must not take statistics of the sibling
+		statisticsStore.incorporateStatistics(idx2);
+		assertEquals(
+				5,
+				sum(statisticsStore.getDataStatistics(
+						ADAPTER_ID,
+						"idx",
+						CountDataStatistics.STATS_TYPE)));
+	}
+
+	@Test
+	public void testCachedVisibilitiesAreKeptApart() {
+		final DataStatisticsStore statisticsStore = createStatisticsStore("visibility");
+		final CountDataStatistics<Object> a = createCount(5);
+		a.setVisibility(StringUtils.stringToBinary("a"));
+		statisticsStore.incorporateStatistics(a);
+		assertEquals(
+				5,
+				getCount(
+						statisticsStore,
+						"a",
+						"b"));
+		final CountDataStatistics<Object> b = createCount(3);
+		b.setVisibility(StringUtils.stringToBinary("b"));
+		statisticsStore.incorporateStatistics(b);
+		final List<InternalDataStatistics<?, ?, ?>> results = new ArrayList<>();
+		try (CloseableIterator<InternalDataStatistics<?, ?, ?>> it = statisticsStore.getDataStatistics(
+				ADAPTER_ID,
+				CountDataStatistics.STATS_TYPE,
+				"a",
+				"b")) {
+			it.forEachRemaining(results::add);
+		}
+		assertEquals(
+				2,
+				results.size());
+		assertArrayEquals(
+				StringUtils.stringToBinary("a"),
+				results.get(
+						0).getVisibility());
+		assertEquals(
+				5,
+				((CountDataStatistics<?>) results.get(
+						0)).getCount());
+		assertArrayEquals(
+				StringUtils.stringToBinary("b"),
+				results.get(
+						1).getVisibility());
+		assertEquals(
+				3,
+				((CountDataStatistics<?>) results.get(
+						1)).getCount());
+		// a query without the authorization of the new statistics is unchanged
+		assertEquals(
+				5,
+				getCount(
+						statisticsStore,
+						"a"));
+	}
+
+	private static DataStatisticsStore createStatisticsStore(
+			final String name ) {
+		final StoreFactoryFamilySpi storeFamily = new MemoryStoreFactoryFamily();
+		final MemoryRequiredOptions options = new MemoryRequiredOptions();
+		options.setGeowaveNamespace("test_" + DataStatisticsStoreImplTest.class.getName() + "_" + name);
+		return storeFamily.getDataStatisticsStoreFactory().createStore(
+				options);
+	}
+
+	private static CountDataStatistics<Object> createCount(
+			final int count ) {
+		final CountDataStatistics<Object> statistics = new CountDataStatistics<>(
+				ADAPTER_ID);
+		for (int i = 0; i < count; i++) {
+			statistics.entryIngested(i);
+		}
+		return statistics;
+	}
+
+	private static long getCount(
+			final DataStatisticsStore statisticsStore,
+			final String... authorizations ) {
+		return sum(statisticsStore.getDataStatistics(
+				ADAPTER_ID,
+				CountDataStatistics.STATS_TYPE,
+				authorizations));
+	}
+
+	private static long sum(
+			final CloseableIterator<InternalDataStatistics<?, ?, ?>> statistics ) {
+		long count = 0;
+		try (CloseableIterator<InternalDataStatistics<?, ?, ?>> it = statistics) {
+			while (it.hasNext()) {
+				count += ((CountDataStatistics<?>) it.next()).getCount();
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.store.metadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.locationtech.geowave.core.store.BaseDataStoreOptions;
+import org.locationtech.geowave.core.store.CloseableIterator;
+import org.locationtech.geowave.core.store.adapter.MockComponents;
+import org.locationtech.geowave.core.store.api.Index;
+import org.locationtech.geowave.core.store.index.PrimaryIndex;
+import org.locationtech.geowave.core.store.memory.MemoryDataStoreOperations;
+
+public class IndexStoreImplTest
+{
+	private static final Index INDEX = new PrimaryIndex(
+			new MockComponents.MockIndexStrategy(),
+			new MockComponents.TestIndexModel());
+
+	@Test
+	public void testMissingIsCached() {
+		final BaseDataStoreOptions options = new BaseDataStoreOptions();
+		options.setMetadataVersionCheckMillis(0);
+		final MemoryDataStoreOperations operations = new MemoryDataStoreOperations(
+				options);
+		final IndexStoreImpl indexStore = new IndexStoreImpl(
+				operations,
+				options);
+		final IndexStoreImpl otherIndexStore = new IndexStoreImpl(
+				operations,
+				options);
+		assertNull(indexStore.getIndex(INDEX.getName()));
+		assertNull(indexStore.getIndex(INDEX.getName()));
+		assertEquals(
+				1,
+				indexStore.getCacheStats().hitCount());
+		otherIndexStore.addIndex(INDEX);
+		// without a version check the index stays missing until it expires
+		assertNull(indexStore.getIndex(INDEX.getName()));
+		assertNotNull(otherIndexStore.getIndex(INDEX.getName()));
+	}
+
+	@Test
+	public void testVersionInvalidatesCache()
+			throws InterruptedException {
+		final BaseDataStoreOptions options = new BaseDataStoreOptions();
+		options.setMetadataVersionCheckMillis(1);
+		final MemoryDataStoreOperations operations = new MemoryDataStoreOperations(
+				options);
+		final IndexStoreImpl indexStore = new IndexStoreImpl(
+				operations,
+				options);
+		final IndexStoreImpl otherIndexStore = new IndexStoreImpl(
+				operations,
+				options);
+		assertNull(indexStore.getIndex(INDEX.getName()));
+		otherIndexStore.addIndex(INDEX);
+		Thread.sleep(10);
+		assertNotNull(indexStore.getIndex(INDEX.getName()));
+
+		// the version stamp is not returned as an index
+		int count = 0;
+		try (CloseableIterator<Index> it = indexStore.getIndices()) {
+			while (it.hasNext()) {
+				assertEquals(
+						INDEX.getName(),
+						it.next().getName());
+				count++;
+			}
+		}
+		assertEquals(
+				1,
+				count);
+
+		otherIndexStore.removeAll();
+		Thread.sleep(10);
+		assertFalse(indexStore.indexExists(INDEX.getName()));
+		otherIndexStore.addIndex(INDEX);
+		Thread.sleep(10);
+		assertTrue(indexStore.indexExists(INDEX.getName()));
+	}
+}
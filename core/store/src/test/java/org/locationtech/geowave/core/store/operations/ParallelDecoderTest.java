@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.store.operations;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.locationtech.geowave.core.index.ByteArrayUtils;
+import org.locationtech.geowave.core.store.entities.GeoWaveKeyImpl;
+import org.locationtech.geowave.core.store.entities.GeoWaveRow;
+import org.locationtech.geowave.core.store.entities.GeoWaveRowImpl;
+import org.locationtech.geowave.core.store.entities.GeoWaveRowIteratorTransformer;
+import org.locationtech.geowave.core.store.entities.GeoWaveValue;
+
+public class ParallelDecoderTest
+{
+	private static final GeoWaveRowIteratorTransformer<Integer> DATA_ID_TRANSFORMER = new GeoWaveRowIteratorTransformer<Integer>() {
+		@Override
+		public Iterator<Integer> apply(
+				final Iterator<GeoWaveRow> input ) {
+			return new Iterator<Integer>() {
+				@Override
+				public boolean hasNext() {
+					return input.hasNext();
+				}
+
+				@Override
+				public Integer next() {
+					return (int) ByteArrayUtils.byteArrayToLong(input.next().getDataId());
+				}
+			};
+		}
+	};
+
+	@Test
+	public void testSmallQueueReturnsEveryRow()
+			throws Exception {
+		final int providers = 20;
+		final int rowsPerProvider = 1000;
+		// a queue depth and batch size far smaller than the row count forces
+		// decode tasks to repeatedly park and resume
+		try (final RangeParallelDecoder decoder = new RangeParallelDecoder(
+				providers,
+				rowsPerProvider,
+				2,
+				7)) {
+			decoder.startDecode();
+			final Set<Integer> results = new HashSet<>();
+			while (decoder.hasNext()) {
+				Assert.assertTrue(results.add(decoder.next()));
+			}
+			Assert.assertEquals(
+					providers * rowsPerProvider,
+					results.size());
+		}
+	}
+
+	@Test
+	public void testSimpleParallelDecoder()
+			throws Exception {
+		final List<GeoWaveRow> rows = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			rows.add(row(i));
+		}
+		try (final SimpleParallelDecoder<Integer> decoder = new SimpleParallelDecoder<>(
+				DATA_ID_TRANSFORMER,
+				rows.iterator())) {
+			decoder.startDecode();
+			final Set<Integer> results = new HashSet<>();
+			while (decoder.hasNext()) {
+				results.add(decoder.next());
+			}
+			Assert.assertEquals(
+					rows.size(),
+					results.size());
+		}
+	}
+
+	@Test(timeout = 60000)
+	public void testWaitingSourcesDoNotHoldDecodeThreads()
+			throws Exception {
+		final CountDownLatch sourcesReady = new CountDownLatch(
+				1);
+		final List<SimpleParallelDecoder<Integer>> waitingDecoders = new ArrayList<>();
+		try {
+			// more waiting decoders than there are threads in the shared pool
+			for (int i = 0; i < (Runtime.getRuntime().availableProcessors() * 4) + 16; i++) {
+				final SimpleParallelDecoder<Integer> decoder = new SimpleParallelDecoder<>(
+						DATA_ID_TRANSFORMER,
+						new WaitingIterator(
+								sourcesReady,
+								100));
+				decoder.startDecode();
+				waitingDecoders.add(decoder);
+			}
+			try (final RangeParallelDecoder decoder = new RangeParallelDecoder(
+					10,
+					100,
+					10,
+					10)) {
+				decoder.startDecode();
+				int count = 0;
+				while (decoder.hasNext()) {
+					decoder.next();
+					count++;
+				}
+				Assert.assertEquals(
+						1000,
+						count);
+			}
+			sourcesReady.countDown();
+			for (final SimpleParallelDecoder<Integer> decoder : waitingDecoders) {
+				int count = 0;
+				while (decoder.hasNext()) {
+					decoder.next();
+					count++;
+				}
+				Assert.assertEquals(
+						100,
+						count);
+			}
+		}
+		finally {
+			sourcesReady.countDown();
+			for (final SimpleParallelDecoder<Integer> decoder : waitingDecoders) {
+				decoder.close();
+			}
+		}
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testSourceFailureIsThrown()
+			throws Exception {
+		final Iterator<GeoWaveRow> failingSource = new Iterator<GeoWaveRow>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return true;
+			}
+
+			@Override
+			public GeoWaveRow next() {
+				if (next == 1500) {
+					throw new IllegalStateException(
+							"Scan failed");
+				}
+				return row(next++);
+			}
+		};
+		try (final SimpleParallelDecoder<Integer> decoder = new SimpleParallelDecoder<>(
+				DATA_ID_TRANSFORMER,
+				failingSource)) {
+			decoder.startDecode();
+			while (decoder.hasNext()) {
+				decoder.next();
+			}
+		}
+	}
+
+	private static GeoWaveRow row(
+			final int id ) {
+		return new GeoWaveRowImpl(
+				new GeoWaveKeyImpl(
+						ByteArrayUtils.longToByteArray(id),
+						(short) 0,
+						new byte[0],
+						new byte[0],
+						0),
+				new GeoWaveValue[0]);
+	}
+
+	private static class WaitingIterator implements
+			Iterator<GeoWaveRow>
+	{
+		private final CountDownLatch ready;
+		private final int rows;
+		private int next = 0;
+
+		public WaitingIterator(
+				final CountDownLatch ready,
+				final int rows ) {
+			this.ready = ready;
+			this.rows = rows;
+		}
+
+		@Override
+		public boolean hasNext() {
+			try {
+				ready.await();
+			}
+			catch (final InterruptedException e) {
+				return false;
+			}
+			return next < rows;
+		}
+
+		@Override
+		public GeoWaveRow next() {
+			return row(next++);
+		}
+	}
+
+	private static class RangeParallelDecoder extends
+			ParallelDecoder<Integer>
+	{
+		private final int providers;
+		private final int rowsPerProvider;
+
+		public RangeParallelDecoder(
+				final int providers,
+				final int rowsPerProvider,
+				final int queueDepth,
+				final int batchSize ) {
+			super(
+					DATA_ID_TRANSFORMER,
+					4,
+					queueDepth,
+					batchSize);
+			this.providers = providers;
+			this.rowsPerProvider = rowsPerProvider;
+		}
+
+		@Override
+		protected List<RowProvider> getRowProviders()
+				throws Exception {
+			final List<RowProvider> retVal = new ArrayList<>();
+			for (int p = 0; p < providers; p++) {
+				final int start = p * rowsPerProvider;
+				retVal.add(new RowProvider() {
+					private int next = start;
+
+					@Override
+					public boolean hasNext() {
+						return next < (start + rowsPerProvider);
+					}
+
+					@Override
+					public GeoWaveRow next() {
+						return row(next++);
+					}
+
+					@Override
+					public void close()
+							throws IOException {}
+
+					@Override
+					public void init() {}
+				});
+			}
+			return retVal;
+		}
+	}
+}
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.store.query.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.locationtech.geowave.core.index.ByteArray;
+import org.locationtech.geowave.core.store.data.IndexedPersistenceEncoding;
+import org.locationtech.geowave.core.store.data.PersistentDataset;
+
+public class DedupeFilterTest
+{
+	private static IndexedPersistenceEncoding<Object> encoding(
+			final short adapterId,
+			final String dataId,
+			final int duplicateCount ) {
+		return new IndexedPersistenceEncoding<>(
+				adapterId,
+				new ByteArray(
+						dataId),
+				new ByteArray(),
+				new ByteArray(),
+				duplicateCount,
+				new PersistentDataset<>(),
+				new PersistentDataset<byte[]>());
+	}
+
+	@Test
+	public void testDuplicatesAreFiltered() {
+		final DedupeFilter filter = new DedupeFilter();
+		assertTrue(filter.accept(
+				null,
+				encoding(
+						(short) 1,
+						"a",
+						2)));
+		assertFalse(filter.accept(
+				null,
+				encoding(
+						(short) 1,
+						"a",
+						2)));
+		// the same data ID for a different adapter is distinct
+		assertTrue(filter.accept(
+				null,
+				encoding(
+						(short) 2,
+						"a",
+						2)));
+		// rows without duplicates are never tracked
+		assertTrue(filter.accept(
+				null,
+				encoding(
+						(short) 1,
+						"b",
+						0)));
+		assertTrue(filter.accept(
+				null,
+				encoding(
+						(short) 1,
+						"b",
+						0)));
+	}
+
+	@Test
+	public void testIdDroppedAfterEveryCopy() {
+		final DedupeFilter filter = new DedupeFilter();
+		assertTrue(filter.accept(
+				null,
+				encoding(
+						(short) 1,
+						"a",
+						2)));
+		assertFalse(filter.accept(
+				null,
+				encoding(
+						(short) 1,
+						"a",
+						2)));
+		assertFalse(filter.accept(
+				null,
+				encoding(
+						(short) 1,
+						"a",
+						2)));
+		// all 3 copies have been seen so the ID is no longer tracked
+		assertTrue(filter.accept(
+				null,
+				encoding(
+						(short) 1,
+						"a",
+						2)));
+	}
+
+	@Test
+	public void testDedupAcrossIndicesKeepsIds() {
+		final DedupeFilter filter = new DedupeFilter();
+		filter.setDedupAcrossIndices(true);
+		assertTrue(filter.accept(
+				null,
+				encoding(
+						(short) 1,
+						"a",
+						0)));
+		for (int i = 0; i < 5; i++) {
+			assertFalse(filter.accept(
+					null,
+					encoding(
+							(short) 1,
+							"a",
+							0)));
+		}
+	}
+
+	@Test
+	public void testConcurrentAccept() {
+		final DedupeFilter filter = new DedupeFilter();
+		final int numIds = 100000;
+		final int copies = 4;
+		final AtomicInteger accepted = new AtomicInteger();
+		IntStream.range(
+				0,
+				numIds * copies).parallel().forEach(
+				i -> {
+					if (filter.accept(
+							null,
+							encoding(
+									(short) 1,
+									Integer.toString(i % numIds),
+									copies - 1))) {
+						accepted.incrementAndGet();
+					}
+				});
+		assertEquals(
+				numIds,
+				accepted.get());
+	}
+
+	@Test
+	public void testBloomFilter() {
+		final DedupeFilter filter = new DedupeFilter(
+				0.001,
+				10000);
+		final DedupeFilter copy = new DedupeFilter();
+		copy.fromBinary(filter.toBinary());
+		assertEquals(
+				0.001,
+				copy.getFalsePositiveRate(),
+				0);
+		assertEquals(
+				10000,
+				copy.getExpectedDataIds());
+		int accepted = 0;
+		for (int i = 0; i < 10000; i++) {
+			if (copy.accept(
+					null,
+					encoding(
+							(short) 1,
+							Integer.toString(i),
+							1))) {
+				accepted++;
+			}
+			assertFalse(copy.accept(
+					null,
+					encoding(
+							(short) 1,
+							Integer.toString(i),
+							1)));
+		}
+		// allow for some false positives
+		assertTrue(accepted > 9900);
+	}
+}
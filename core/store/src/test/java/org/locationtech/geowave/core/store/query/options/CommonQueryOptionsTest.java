@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.store.query.options;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.locationtech.geowave.core.store.api.QueryBuilder;
+
+public class CommonQueryOptionsTest
+{
+	@Test
+	public void testPagingOptionsRoundTrip() {
+		final byte[] token = new byte[] {
+			1,
+			2,
+			3
+		};
+		final CommonQueryOptions options = QueryBuilder.newBuilder().limit(
+				10).offset(
+				5).orderBySortKey().startAfter(
+				token).addAuthorization(
+				"a").build().getCommonQueryOptions();
+
+		final CommonQueryOptions deserialized = new CommonQueryOptions();
+		deserialized.fromBinary(options.toBinary());
+		assertEquals(
+				options,
+				deserialized);
+		assertEquals(
+				Integer.valueOf(10),
+				deserialized.getLimit());
+		assertEquals(
+				Integer.valueOf(5),
+				deserialized.getOffset());
+		assertTrue(deserialized.isOrderedBySortKey());
+		assertArrayEquals(
+				token,
+				deserialized.getContinuationToken());
+	}
+
+	@Test
+	public void testDefaultsRoundTrip() {
+		final CommonQueryOptions options = QueryBuilder.newBuilder().build().getCommonQueryOptions();
+
+		final CommonQueryOptions deserialized = new CommonQueryOptions();
+		deserialized.fromBinary(options.toBinary());
+		assertEquals(
+				options,
+				deserialized);
+		assertNull(deserialized.getOffset());
+		assertFalse(deserialized.isOrderedBySortKey());
+		assertNull(deserialized.getContinuationToken());
+	}
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.core.store.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class RowConsumerTest
+{
+	@Test
+	public void testEndOfRows() {
+		final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+		queue.add("a");
+		queue.add(RowConsumer.POISON);
+		final RowConsumer<String> consumer = new RowConsumer<>(
+				queue);
+		assertTrue(consumer.hasNext());
+		assertEquals(
+				"a",
+				consumer.next());
+		assertFalse(consumer.hasNext());
+		assertFalse(consumer.hasNext());
+	}
+
+	@Test
+	public void testProducerFailureIsThrown() {
+		final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		queue.add("a");
+		final Exception scanFailure = new IllegalStateException(
+				"Scan failed");
+		failure.set(scanFailure);
+		queue.add(RowConsumer.POISON);
+		final RowConsumer<String> consumer = new RowConsumer<>(
+				queue,
+				failure);
+		// rows read before the failure are still returned
+		assertTrue(consumer.hasNext());
+		assertEquals(
+				"a",
+				consumer.next());
+		try {
+			consumer.hasNext();
+			fail("The producer failure should be thrown");
+		}
+		catch (final RuntimeException e) {
+			assertSame(
+					scanFailure,
+					e.getCause());
+		}
+	}
+}
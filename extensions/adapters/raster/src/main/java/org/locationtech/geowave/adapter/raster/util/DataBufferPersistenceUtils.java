@@ -18,197 +18,507 @@ import java.awt.image.DataBufferInt;
 import java.awt.image.DataBufferShort;
 import java.awt.image.DataBufferUShort;
 import java.io.IOException;
-import java.util.Iterator;
+import java.nio.ByteBuffer;
 import java.util.List;
-import java.util.NoSuchElementException;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.locationtech.geowave.adapter.raster.protobuf.DataBufferProtos;
-import org.locationtech.geowave.adapter.raster.protobuf.DataBufferProtos.ByteDataBuffer;
 import org.locationtech.geowave.adapter.raster.protobuf.DataBufferProtos.DoubleArray;
-import org.locationtech.geowave.adapter.raster.protobuf.DataBufferProtos.DoubleDataBuffer;
 import org.locationtech.geowave.adapter.raster.protobuf.DataBufferProtos.FloatArray;
-import org.locationtech.geowave.adapter.raster.protobuf.DataBufferProtos.FloatDataBuffer;
 import org.locationtech.geowave.adapter.raster.protobuf.DataBufferProtos.SignedIntArray;
-import org.locationtech.geowave.adapter.raster.protobuf.DataBufferProtos.SignedIntDataBuffer;
 
-import com.google.common.primitives.Doubles;
-import com.google.common.primitives.Floats;
-import com.google.common.primitives.Ints;
 import com.google.protobuf.ByteString;
 
 import me.lemire.integercompression.differential.IntegratedIntCompressor;
+import net.jpountz.lz4.LZ4Factory;
 
+/**
+ * Serializes the data buffer of a raster tile. Each bank is bulk copied
+ * without boxing or widening its samples, optionally compressed as configured
+ * per data type. Tiles that were serialized with protocol buffers by earlier
+ * versions can still be read.
+ */
 public class DataBufferPersistenceUtils
 {
+	// the protocol buffer encoding always starts with the tag of its first
+	// required field, 0x08, and 0xFF is not a valid tag
+	private static final byte RAW_ENCODING = (byte) 0xFF;
+	private static final byte RAW_ENCODING_VERSION = 1;
+	private static final String COMPRESSION_PROPERTY_PREFIX = DataBufferPersistenceUtils.class.getSimpleName()
+			+ ".compression.";
+	private static final String[] DATA_TYPE_NAMES = new String[] {
+		"byte",
+		"ushort",
+		"short",
+		"int",
+		"float",
+		"double"
+	};
+	private static final Compression[] COMPRESSION = new Compression[DATA_TYPE_NAMES.length];
+
+	static {
+		for (int dataType = 0; dataType < DATA_TYPE_NAMES.length; dataType++) {
+			// integers are compressed by default as they were before, shorts
+			// compress little beyond their two bytes
+			final Compression defaultCompression = dataType == DataBuffer.TYPE_INT ? Compression.FAST_PFOR
+					: Compression.NONE;
+			setCompression(
+					dataType,
+					Compression.valueOf(System.getProperty(
+							COMPRESSION_PROPERTY_PREFIX + DATA_TYPE_NAMES[dataType],
+							defaultCompression.name())));
+		}
+	}
+
+	/**
+	 * How the samples of each bank are compressed
+	 */
+	public static enum Compression {
+		/**
+		 * The samples are copied as is
+		 */
+		NONE,
+		/**
+		 * The samples are widened to ints, if necessary, and compressed with
+		 * differential FastPFOR, only for integral data types other than byte
+		 */
+		FAST_PFOR,
+		/**
+		 * The bytes of the samples are grouped by significance and compressed
+		 * with LZ4
+		 */
+		SHUFFLE_LZ4
+	}
+
+	/**
+	 * Set the compression of data buffers of a data type written from now on,
+	 * which can also be set with the system property
+	 * "DataBufferPersistenceUtils.compression.&lt;type&gt;" where type is one
+	 * of byte, ushort, short, int, float or double
+	 *
+	 * @param dataType
+	 *            one of the DataBuffer type constants
+	 * @param compression
+	 *            the compression
+	 */
+	public static void setCompression(
+			final int dataType,
+			final Compression compression ) {
+		checkDataType(dataType);
+		if ((compression == Compression.FAST_PFOR) && !isIntegral(dataType)) {
+			throw new IllegalArgumentException(
+					"FastPFOR compression is not supported for " + DATA_TYPE_NAMES[dataType] + " data buffers");
+		}
+		COMPRESSION[dataType] = compression;
+	}
+
+	public static Compression getCompression(
+			final int dataType ) {
+		checkDataType(dataType);
+		return COMPRESSION[dataType];
+	}
+
 	public static byte[] getDataBufferBinary(
 			final DataBuffer dataBuffer ) {
-		final DataBufferProtos.DataBuffer.Builder bldr = DataBufferProtos.DataBuffer.newBuilder();
-		bldr
-				.setType(
-						dataBuffer.getDataType());
-		bldr
-				.addAllOffsets(
-						Ints
-								.asList(
-										dataBuffer.getOffsets()));
-		bldr
-				.setSize(
-						dataBuffer.getSize());
+		return getDataBufferBinary(
+				dataBuffer,
+				getCompression(dataBuffer.getDataType()));
+	}
+
+	public static byte[] getDataBufferBinary(
+			final DataBuffer dataBuffer,
+			final Compression compression ) {
+		final int dataType = dataBuffer.getDataType();
+		checkDataType(dataType);
+		if ((compression == Compression.FAST_PFOR) && !isIntegral(dataType)) {
+			throw new IllegalArgumentException(
+					"FastPFOR compression is not supported for " + DATA_TYPE_NAMES[dataType] + " data buffers");
+		}
+		final int sampleSize = DataBuffer.getDataTypeSize(dataType) / 8;
+		final int[] offsets = dataBuffer.getOffsets();
+		final int numBanks = dataBuffer.getNumBanks();
+		final int[] bankLengths = new int[numBanks];
+		final byte[][] compressedBanks = compression == Compression.NONE ? null : new byte[numBanks][];
+		int length = 4 + 4 + 4 + (offsets.length * 4) + 4 + (numBanks * 8);
+		for (int bank = 0; bank < numBanks; bank++) {
+			bankLengths[bank] = getBankLength(
+					dataBuffer,
+					bank);
+			if (compressedBanks != null) {
+				compressedBanks[bank] = compressBank(
+						dataBuffer,
+						bank,
+						bankLengths[bank],
+						sampleSize,
+						compression);
+				length += compressedBanks[bank].length;
+			}
+			else {
+				length += bankLengths[bank] * sampleSize;
+			}
+		}
+		final ByteBuffer buffer = ByteBuffer.allocate(length);
+		buffer.put(RAW_ENCODING);
+		buffer.put(RAW_ENCODING_VERSION);
+		buffer.put((byte) dataType);
+		buffer.put((byte) compression.ordinal());
+		buffer.putInt(dataBuffer.getSize());
+		buffer.putInt(offsets.length);
+		for (final int offset : offsets) {
+			buffer.putInt(offset);
+		}
+		buffer.putInt(numBanks);
+		for (int bank = 0; bank < numBanks; bank++) {
+			buffer.putInt(bankLengths[bank]);
+			if (compressedBanks != null) {
+				buffer.putInt(compressedBanks[bank].length);
+				buffer.put(compressedBanks[bank]);
+			}
+			else {
+				buffer.putInt(bankLengths[bank] * sampleSize);
+				writeBank(
+						dataBuffer,
+						bank,
+						buffer);
+			}
+		}
+		return buffer.array();
+	}
+
+	public static DataBuffer getDataBuffer(
+			final byte[] binary )
+			throws IOException,
+			ClassNotFoundException {
+		if ((binary.length > 0) && (binary[0] == RAW_ENCODING)) {
+			return getRawDataBuffer(binary);
+		}
+		return getLegacyDataBuffer(binary);
+	}
+
+	private static DataBuffer getRawDataBuffer(
+			final byte[] binary )
+			throws IOException {
+		final ByteBuffer buffer = ByteBuffer.wrap(binary);
+		buffer.get();
+		final byte version = buffer.get();
+		if (version != RAW_ENCODING_VERSION) {
+			throw new IOException(
+					"Unsupported data buffer encoding version " + version);
+		}
+		final int dataType = buffer.get();
+		final int compressionOrdinal = buffer.get();
+		if ((dataType < 0) || (dataType >= DATA_TYPE_NAMES.length) || (compressionOrdinal < 0)
+				|| (compressionOrdinal >= Compression.values().length)) {
+			throw new IOException(
+					"Unsupported data buffer type " + dataType + " or compression " + compressionOrdinal);
+		}
+		final Compression compression = Compression.values()[compressionOrdinal];
+		final int sampleSize = DataBuffer.getDataTypeSize(dataType) / 8;
+		final int size = buffer.getInt();
+		final int[] offsets = new int[buffer.getInt()];
+		for (int i = 0; i < offsets.length; i++) {
+			offsets[i] = buffer.getInt();
+		}
+		final Object[] banks = new Object[buffer.getInt()];
+		for (int bank = 0; bank < banks.length; bank++) {
+			final int bankLength = buffer.getInt();
+			final int payloadLength = buffer.getInt();
+			final ByteBuffer payload = buffer.slice();
+			payload.limit(payloadLength);
+			buffer.position(buffer.position() + payloadLength);
+			switch (compression) {
+				case FAST_PFOR:
+					banks[bank] = readFastPforBank(
+							payload,
+							dataType);
+					break;
+				case SHUFFLE_LZ4:
+					banks[bank] = readBank(
+							ByteBuffer.wrap(unshuffle(
+									LZ4Factory.fastestInstance().fastDecompressor().decompress(
+											binary,
+											payload.arrayOffset(),
+											bankLength * sampleSize),
+									sampleSize)),
+							dataType,
+							bankLength);
+					break;
+				default:
+					banks[bank] = readBank(
+							payload,
+							dataType,
+							bankLength);
+					break;
+			}
+		}
+		return createDataBuffer(
+				dataType,
+				banks,
+				size,
+				offsets);
+	}
+
+	private static int getBankLength(
+			final DataBuffer dataBuffer,
+			final int bank ) {
 		switch (dataBuffer.getDataType()) {
 			case DataBuffer.TYPE_BYTE:
-				final ByteDataBuffer.Builder byteBldr = ByteDataBuffer.newBuilder();
-				final byte[][] byteBank = ((DataBufferByte) dataBuffer).getBankData();
-				final Iterable<ByteString> byteIt = () -> new Iterator<ByteString>() {
-					private int index = 0;
-
-					@Override
-					public boolean hasNext() {
-						return byteBank.length > index;
-					}
-
-					@Override
-					public ByteString next() {
-						if (!hasNext()) {
-							throw new NoSuchElementException();
-						}
-						return ByteString
-								.copyFrom(
-										byteBank[index++]);
-					}
-
-				};
-				byteBldr
-						.addAllBanks(
-								byteIt);
-				bldr
-						.setByteDb(
-								byteBldr.build());
-				break;
+				return ((DataBufferByte) dataBuffer).getData(bank).length;
 			case DataBuffer.TYPE_SHORT:
-				setBuilder(
-						shortToInt(
-								((DataBufferUShort) dataBuffer).getBankData()),
-						bldr);
-				break;
+				return ((DataBufferShort) dataBuffer).getData(bank).length;
 			case DataBuffer.TYPE_USHORT:
-				setBuilder(
-						shortToInt(
-								((DataBufferUShort) dataBuffer).getBankData()),
-						bldr);
-				break;
+				return ((DataBufferUShort) dataBuffer).getData(bank).length;
 			case DataBuffer.TYPE_INT:
-				setBuilder(
-						((DataBufferInt) dataBuffer).getBankData(),
-						bldr);
-				break;
+				return ((DataBufferInt) dataBuffer).getData(bank).length;
 			case DataBuffer.TYPE_FLOAT:
-				final FloatDataBuffer.Builder fltBldr = FloatDataBuffer.newBuilder();
-				final float[][] fltBank = ((DataBufferFloat) dataBuffer).getBankData();
-				final Iterable<FloatArray> floatIt = () -> new Iterator<FloatArray>() {
-					private int index = 0;
-
-					@Override
-					public boolean hasNext() {
-						return fltBank.length > index;
-					}
-
-					@Override
-					public FloatArray next() {
-						return FloatArray
-								.newBuilder()
-								.addAllSamples(
-										Floats
-												.asList(
-														fltBank[index++]))
-								.build();
-					}
-
-				};
-				fltBldr
-						.addAllBanks(
-								floatIt);
-				bldr
-						.setFlt(
-								fltBldr);
-				break;
-			case DataBuffer.TYPE_DOUBLE:
-				final DoubleDataBuffer.Builder dblBldr = DoubleDataBuffer.newBuilder();
-				final double[][] dblBank = ((DataBufferDouble) dataBuffer).getBankData();
-				final Iterable<DoubleArray> dblIt = () -> new Iterator<DoubleArray>() {
-					private int index = 0;
-
-					@Override
-					public boolean hasNext() {
-						return dblBank.length > index;
-					}
-
-					@Override
-					public DoubleArray next() {
-						return DoubleArray
-								.newBuilder()
-								.addAllSamples(
-										Doubles
-												.asList(
-														dblBank[index++]))
-								.build();
-					}
-
-				};
-				dblBldr
-						.addAllBanks(
-								dblIt);
-				bldr
-						.setDbl(
-								dblBldr);
-				break;
+				return ((DataBufferFloat) dataBuffer).getData(bank).length;
 			default:
-				throw new RuntimeException("Unsupported DataBuffer type for serialization " + dataBuffer.getDataType());
+				return ((DataBufferDouble) dataBuffer).getData(bank).length;
 		}
-		return bldr.build().toByteArray();
 	}
 
-	private static void setBuilder(
-			int[][] intBank,
-			DataBufferProtos.DataBuffer.Builder bldr ) {
-		IntegratedIntCompressor iic = new IntegratedIntCompressor();
-		final SignedIntDataBuffer.Builder intBldr = SignedIntDataBuffer.newBuilder();
-		final Iterable<SignedIntArray> intIt = () -> new Iterator<SignedIntArray>() {
-			private int index = 0;
+	private static void writeBank(
+			final DataBuffer dataBuffer,
+			final int bank,
+			final ByteBuffer buffer ) {
+		final int position = buffer.position();
+		switch (dataBuffer.getDataType()) {
+			case DataBuffer.TYPE_BYTE:
+				buffer.put(((DataBufferByte) dataBuffer).getData(bank));
+				return;
+			case DataBuffer.TYPE_SHORT:
+				final short[] shorts = ((DataBufferShort) dataBuffer).getData(bank);
+				buffer.asShortBuffer().put(
+						shorts);
+				buffer.position(position + (shorts.length * 2));
+				return;
+			case DataBuffer.TYPE_USHORT:
+				final short[] ushorts = ((DataBufferUShort) dataBuffer).getData(bank);
+				buffer.asShortBuffer().put(
+						ushorts);
+				buffer.position(position + (ushorts.length * 2));
+				return;
+			case DataBuffer.TYPE_INT:
+				final int[] ints = ((DataBufferInt) dataBuffer).getData(bank);
+				buffer.asIntBuffer().put(
+						ints);
+				buffer.position(position + (ints.length * 4));
+				return;
+			case DataBuffer.TYPE_FLOAT:
+				final float[] floats = ((DataBufferFloat) dataBuffer).getData(bank);
+				buffer.asFloatBuffer().put(
+						floats);
+				buffer.position(position + (floats.length * 4));
+				return;
+			default:
+				final double[] doubles = ((DataBufferDouble) dataBuffer).getData(bank);
+				buffer.asDoubleBuffer().put(
+						doubles);
+				buffer.position(position + (doubles.length * 8));
+				return;
+		}
+	}
 
-			@Override
-			public boolean hasNext() {
-				return intBank.length > index;
+	private static Object readBank(
+			final ByteBuffer buffer,
+			final int dataType,
+			final int bankLength ) {
+		switch (dataType) {
+			case DataBuffer.TYPE_BYTE:
+				final byte[] bytes = new byte[bankLength];
+				buffer.get(bytes);
+				return bytes;
+			case DataBuffer.TYPE_SHORT:
+			case DataBuffer.TYPE_USHORT:
+				final short[] shorts = new short[bankLength];
+				buffer.asShortBuffer().get(
+						shorts);
+				return shorts;
+			case DataBuffer.TYPE_INT:
+				final int[] ints = new int[bankLength];
+				buffer.asIntBuffer().get(
+						ints);
+				return ints;
+			case DataBuffer.TYPE_FLOAT:
+				final float[] floats = new float[bankLength];
+				buffer.asFloatBuffer().get(
+						floats);
+				return floats;
+			default:
+				final double[] doubles = new double[bankLength];
+				buffer.asDoubleBuffer().get(
+						doubles);
+				return doubles;
+		}
+	}
+
+	private static byte[] compressBank(
+			final DataBuffer dataBuffer,
+			final int bank,
+			final int bankLength,
+			final int sampleSize,
+			final Compression compression ) {
+		if (compression == Compression.FAST_PFOR) {
+			final int[] ints;
+			switch (dataBuffer.getDataType()) {
+				case DataBuffer.TYPE_SHORT:
+					ints = shortToInt(((DataBufferShort) dataBuffer).getData(bank));
+					break;
+				case DataBuffer.TYPE_USHORT:
+					ints = shortToInt(((DataBufferUShort) dataBuffer).getData(bank));
+					break;
+				default:
+					ints = ((DataBufferInt) dataBuffer).getData(bank);
+					break;
 			}
+			final int[] compressed = new IntegratedIntCompressor().compress(ints);
+			final ByteBuffer buffer = ByteBuffer.allocate(compressed.length * 4);
+			buffer.asIntBuffer().put(
+					compressed);
+			return buffer.array();
+		}
+		final ByteBuffer buffer = ByteBuffer.allocate(bankLength * sampleSize);
+		writeBank(
+				dataBuffer,
+				bank,
+				buffer);
+		return LZ4Factory.fastestInstance().fastCompressor().compress(
+				shuffle(
+						buffer.array(),
+						sampleSize));
+	}
 
-			@Override
-			public SignedIntArray next() {
-				final int[] internalArray = intBank[index++];
-				int[] compressed = iic
-						.compress(
-								internalArray);
-				return SignedIntArray
-						.newBuilder()
-						.addAllSamples(
-								Ints
-										.asList(
-												compressed))
-						.build();
+	private static Object readFastPforBank(
+			final ByteBuffer payload,
+			final int dataType ) {
+		final int[] compressed = new int[payload.remaining() / 4];
+		payload.asIntBuffer().get(
+				compressed);
+		final int[] ints = new IntegratedIntCompressor().uncompress(compressed);
+		if (dataType == DataBuffer.TYPE_INT) {
+			return ints;
+		}
+		final short[] shorts = new short[ints.length];
+		for (int i = 0; i < ints.length; i++) {
+			shorts[i] = (short) ints[i];
+		}
+		return shorts;
+	}
+
+	/**
+	 * Group the bytes of the samples by significance, which places the bytes
+	 * that vary least between neighboring samples next to each other
+	 */
+	private static byte[] shuffle(
+			final byte[] bytes,
+			final int sampleSize ) {
+		if (sampleSize == 1) {
+			return bytes;
+		}
+		final int numSamples = bytes.length / sampleSize;
+		final byte[] shuffled = new byte[bytes.length];
+		for (int i = 0; i < numSamples; i++) {
+			for (int b = 0; b < sampleSize; b++) {
+				shuffled[(b * numSamples) + i] = bytes[(i * sampleSize) + b];
 			}
+		}
+		return shuffled;
+	}
 
-		};
-		intBldr
-				.addAllBanks(
-						intIt);
-		bldr
-				.setSint(
-						intBldr);
+	private static byte[] unshuffle(
+			final byte[] shuffled,
+			final int sampleSize ) {
+		if (sampleSize == 1) {
+			return shuffled;
+		}
+		final int numSamples = shuffled.length / sampleSize;
+		final byte[] bytes = new byte[shuffled.length];
+		for (int b = 0; b < sampleSize; b++) {
+			for (int i = 0; i < numSamples; i++) {
+				bytes[(i * sampleSize) + b] = shuffled[(b * numSamples) + i];
+			}
+		}
+		return bytes;
 	}
 
-	public static DataBuffer getDataBuffer(
+	private static DataBuffer createDataBuffer(
+			final int dataType,
+			final Object[] banks,
+			final int size,
+			final int[] offsets ) {
+		switch (dataType) {
+			case DataBuffer.TYPE_BYTE:
+				final byte[][] byteBanks = new byte[banks.length][];
+				for (int i = 0; i < banks.length; i++) {
+					byteBanks[i] = (byte[]) banks[i];
+				}
+				return new DataBufferByte(
+						byteBanks,
+						size,
+						offsets);
+			case DataBuffer.TYPE_SHORT:
+			case DataBuffer.TYPE_USHORT:
+				final short[][] shortBanks = new short[banks.length][];
+				for (int i = 0; i < banks.length; i++) {
+					shortBanks[i] = (short[]) banks[i];
+				}
+				if (dataType == DataBuffer.TYPE_SHORT) {
+					return new DataBufferShort(
+							shortBanks,
+							size,
+							offsets);
+				}
+				return new DataBufferUShort(
+						shortBanks,
+						size,
+						offsets);
+			case DataBuffer.TYPE_INT:
+				final int[][] intBanks = new int[banks.length][];
+				for (int i = 0; i < banks.length; i++) {
+					intBanks[i] = (int[]) banks[i];
+				}
+				return new DataBufferInt(
+						intBanks,
+						size,
+						offsets);
+			case DataBuffer.TYPE_FLOAT:
+				final float[][] floatBanks = new float[banks.length][];
+				for (int i = 0; i < banks.length; i++) {
+					floatBanks[i] = (float[]) banks[i];
+				}
+				return new DataBufferFloat(
+						floatBanks,
+						size,
+						offsets);
+			default:
+				final double[][] doubleBanks = new double[banks.length][];
+				for (int i = 0; i < banks.length; i++) {
+					doubleBanks[i] = (double[]) banks[i];
+				}
+				return new DataBufferDouble(
+						doubleBanks,
+						size,
+						offsets);
+		}
+	}
+
+	private static boolean isIntegral(
+			final int dataType ) {
+		return (dataType == DataBuffer.TYPE_SHORT) || (dataType == DataBuffer.TYPE_USHORT)
+				|| (dataType == DataBuffer.TYPE_INT);
+	}
+
+	private static void checkDataType(
+			final int dataType ) {
+		if ((dataType < 0) || (dataType >= DATA_TYPE_NAMES.length)) {
+			throw new RuntimeException(
+					"Unsupported DataBuffer type for serialization " + dataType);
+		}
+	}
+
+	private static DataBuffer getLegacyDataBuffer(
 			final byte[] binary )
-			throws IOException,
-			ClassNotFoundException {
+			throws IOException {
 		// // Read serialized form from the stream.
 		DataBufferProtos.DataBuffer buffer = DataBufferProtos.DataBuffer.parseFrom(binary);
 
@@ -302,16 +612,12 @@ public class DataBufferPersistenceUtils
 		return ArrayUtils.toPrimitive(internalList.toArray(new Integer[internalList.size()]));
 	}
 
-	private static int[][] shortToInt(
-			short[][] shortBank ) {
-		int[][] intBank = new int[shortBank.length][];
-		for (int a = 0; a < shortBank.length; a++) {
-			intBank[a] = new int[shortBank[a].length];
-			for (int i = 0; i < shortBank[a].length; i++) {
-				intBank[a][i] = shortBank[a][i];
-			}
+	private static int[] shortToInt(
+			final short[] shortBank ) {
+		final int[] intBank = new int[shortBank.length];
+		for (int i = 0; i < shortBank.length; i++) {
+			intBank[i] = shortBank[i];
 		}
-
 		return intBank;
 	}
 
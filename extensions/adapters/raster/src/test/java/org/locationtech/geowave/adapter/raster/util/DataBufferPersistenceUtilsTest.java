@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.adapter.raster.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferDouble;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.util.Random;
+
+import org.junit.Test;
+import org.locationtech.geowave.adapter.raster.protobuf.DataBufferProtos;
+import org.locationtech.geowave.adapter.raster.protobuf.DataBufferProtos.FloatArray;
+import org.locationtech.geowave.adapter.raster.protobuf.DataBufferProtos.FloatDataBuffer;
+import org.locationtech.geowave.adapter.raster.util.DataBufferPersistenceUtils.Compression;
+
+import com.google.common.primitives.Floats;
+
+public class DataBufferPersistenceUtilsTest
+{
+	private static final int SIZE = 64 * 64;
+	private static final int BANKS = 3;
+
+	@Test
+	public void testRoundTrip()
+			throws Exception {
+		final DataBuffer[] dataBuffers = createDataBuffers();
+		for (final DataBuffer dataBuffer : dataBuffers) {
+			for (final Compression compression : Compression.values()) {
+				if ((compression == Compression.FAST_PFOR) && ((dataBuffer.getDataType() == DataBuffer.TYPE_BYTE)
+						|| (dataBuffer.getDataType() == DataBuffer.TYPE_FLOAT)
+						|| (dataBuffer.getDataType() == DataBuffer.TYPE_DOUBLE))) {
+					continue;
+				}
+				assertDataBufferEquals(
+						dataBuffer,
+						DataBufferPersistenceUtils.getDataBuffer(DataBufferPersistenceUtils.getDataBufferBinary(
+								dataBuffer,
+								compression)));
+			}
+			assertDataBufferEquals(
+					dataBuffer,
+					DataBufferPersistenceUtils.getDataBuffer(DataBufferPersistenceUtils.getDataBufferBinary(dataBuffer)));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupportedCompression() {
+		DataBufferPersistenceUtils.getDataBufferBinary(
+				new DataBufferFloat(
+						SIZE),
+				Compression.FAST_PFOR);
+	}
+
+	@Test
+	public void testLegacyLayout()
+			throws Exception {
+		final float[] samples = new float[] {
+			1.5f,
+			-2f,
+			Float.NaN,
+			4f
+		};
+		final byte[] binary = DataBufferProtos.DataBuffer.newBuilder().setType(
+				DataBuffer.TYPE_FLOAT).addOffsets(
+				0).setSize(
+				samples.length).setFlt(
+				FloatDataBuffer.newBuilder().addBanks(
+						FloatArray.newBuilder().addAllSamples(
+								Floats.asList(samples)))).build().toByteArray();
+		assertDataBufferEquals(
+				new DataBufferFloat(
+						samples,
+						samples.length),
+				DataBufferPersistenceUtils.getDataBuffer(binary));
+	}
+
+	private static DataBuffer[] createDataBuffers() {
+		final Random random = new Random(
+				7);
+		final byte[][] bytes = new byte[BANKS][SIZE];
+		final short[][] shorts = new short[BANKS][SIZE];
+		final short[][] ushorts = new short[BANKS][SIZE];
+		final int[][] ints = new int[BANKS][SIZE];
+		final float[][] floats = new float[BANKS][SIZE];
+		final double[][] doubles = new double[BANKS][SIZE];
+		for (int b = 0; b < BANKS; b++) {
+			random.nextBytes(bytes[b]);
+			for (int i = 0; i < SIZE; i++) {
+				shorts[b][i] = (short) (random.nextInt(2000) - 1000);
+				ushorts[b][i] = (short) random.nextInt(65536);
+				ints[b][i] = random.nextInt();
+				floats[b][i] = random.nextFloat();
+				doubles[b][i] = random.nextGaussian();
+			}
+		}
+		final int[] offsets = new int[BANKS];
+		return new DataBuffer[] {
+			new DataBufferByte(
+					bytes,
+					SIZE,
+					offsets),
+			new DataBufferShort(
+					shorts,
+					SIZE,
+					offsets),
+			new DataBufferUShort(
+					ushorts,
+					SIZE,
+					offsets),
+			new DataBufferInt(
+					ints,
+					SIZE,
+					offsets),
+			new DataBufferFloat(
+					floats,
+					SIZE,
+					offsets),
+			new DataBufferDouble(
+					doubles,
+					SIZE,
+					offsets)
+		};
+	}
+
+	private static void assertDataBufferEquals(
+			final DataBuffer expected,
+			final DataBuffer actual ) {
+		assertEquals(
+				expected.getClass(),
+				actual.getClass());
+		assertEquals(
+				expected.getSize(),
+				actual.getSize());
+		assertArrayEquals(
+				expected.getOffsets(),
+				actual.getOffsets());
+		assertEquals(
+				expected.getNumBanks(),
+				actual.getNumBanks());
+		for (int b = 0; b < expected.getNumBanks(); b++) {
+			for (int i = 0; i < expected.getSize(); i++) {
+				assertEquals(
+						expected.getElemDouble(
+								b,
+								i),
+						actual.getElemDouble(
+								b,
+								i),
+						0);
+			}
+		}
+	}
+}
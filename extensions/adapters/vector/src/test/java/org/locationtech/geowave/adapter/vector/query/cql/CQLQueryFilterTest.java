@@ -10,9 +10,12 @@
  ******************************************************************************/
 package org.locationtech.geowave.adapter.vector.query.cql;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 
@@ -27,6 +30,7 @@ import org.locationtech.geowave.adapter.vector.FeatureDataAdapter;
 import org.locationtech.geowave.core.geotime.ingest.SpatialDimensionalityTypeProvider;
 import org.locationtech.geowave.core.geotime.ingest.SpatialOptions;
 import org.locationtech.geowave.core.geotime.store.query.ExplicitCQLQuery;
+import org.locationtech.geowave.core.geotime.store.query.filter.CQLQueryFilter;
 import org.locationtech.geowave.core.index.ByteArray;
 import org.locationtech.geowave.core.index.InsertionIds;
 import org.locationtech.geowave.core.index.SinglePartitionInsertionIds;
@@ -39,6 +43,7 @@ import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.feature.type.AttributeDescriptor;
 import org.opengis.filter.Filter;
+import org.opengis.filter.FilterVisitor;
 import org.opengis.filter.expression.Expression;
 
 import org.locationtech.jts.geom.Coordinate;
@@ -107,6 +112,161 @@ public class CQLQueryFilterTest
 						0)));
 	}
 
+	@Test
+	public void testConjunctOrder() {
+		final List<String> evaluated = new ArrayList<>();
+		final FilterFactoryImpl factory = new FilterFactoryImpl();
+		final Filter spatial = new RecordingFilter(
+				"geom",
+				factory.bbox(
+						"geom",
+						27,
+						41,
+						28,
+						42,
+						"EPSG:4326"),
+				evaluated);
+		final Filter pop = new RecordingFilter(
+				"pop",
+				factory.greater(
+						factory.property("pop"),
+						factory.literal(50)),
+				evaluated);
+
+		// the attribute only conjunct is evaluated before the spatial one
+		// regardless of the order they are given in
+		assertTrue(accept(factory.and(
+				spatial,
+				pop)));
+		assertEquals(
+				Arrays.asList(
+						"pop",
+						"geom"),
+				evaluated);
+		evaluated.clear();
+		assertTrue(accept(factory.and(
+				pop,
+				spatial)));
+		assertEquals(
+				Arrays.asList(
+						"pop",
+						"geom"),
+				evaluated);
+	}
+
+	@Test
+	public void testShortCircuit() {
+		final List<String> evaluated = new ArrayList<>();
+		final FilterFactoryImpl factory = new FilterFactoryImpl();
+		final Filter spatial = new RecordingFilter(
+				"geom",
+				factory.bbox(
+						"geom",
+						27,
+						41,
+						28,
+						42,
+						"EPSG:4326"),
+				evaluated);
+		final Filter pid = new RecordingFilter(
+				"pid",
+				factory.equal(
+						factory.property("pid"),
+						factory.literal("other"),
+						false),
+				evaluated);
+
+		// the spatial conjunct is never evaluated once the pid does not match
+		assertFalse(accept(factory.and(
+				spatial,
+				pid)));
+		assertEquals(
+				Arrays.asList("pid"),
+				evaluated);
+
+		// a failing spatial conjunct is still evaluated after the others
+		evaluated.clear();
+		final Filter outside = new RecordingFilter(
+				"geom",
+				factory.bbox(
+						"geom",
+						0,
+						0,
+						1,
+						1,
+						"EPSG:4326"),
+				evaluated);
+		final Filter pop = new RecordingFilter(
+				"pop",
+				factory.greater(
+						factory.property("pop"),
+						factory.literal(50)),
+				evaluated);
+		assertFalse(accept(factory.and(
+				outside,
+				pop)));
+		assertEquals(
+				Arrays.asList(
+						"pop",
+						"geom"),
+				evaluated);
+	}
+
+	private boolean accept(
+			final Filter filter ) {
+		final Index spatialIndex = new SpatialDimensionalityTypeProvider().createIndex(new SpatialOptions());
+		final FeatureDataAdapter adapter = new FeatureDataAdapter(
+				type);
+		adapter.init(spatialIndex);
+		return new CQLQueryFilter(
+				filter,
+				adapter).accept(
+				spatialIndex.getIndexModel(),
+				getEncodings(
+						spatialIndex,
+						adapter.encode(
+								createFeature(),
+								spatialIndex.getIndexModel())).get(
+						0));
+	}
+
+	/**
+	 * Records the name of the conjunct when it is evaluated, and otherwise
+	 * behaves like the filter it wraps
+	 */
+	private static class RecordingFilter implements
+			Filter
+	{
+		private final String name;
+		private final Filter delegate;
+		private final List<String> evaluated;
+
+		public RecordingFilter(
+				final String name,
+				final Filter delegate,
+				final List<String> evaluated ) {
+			this.name = name;
+			this.delegate = delegate;
+			this.evaluated = evaluated;
+		}
+
+		@Override
+		public boolean evaluate(
+				final Object object ) {
+			evaluated.add(name);
+			return delegate.evaluate(object);
+		}
+
+		@Override
+		public Object accept(
+				final FilterVisitor visitor,
+				final Object extraData ) {
+			return delegate.accept(
+					visitor,
+					extraData);
+		}
+	}
+
 	private static List<IndexedAdapterPersistenceEncoding> getEncodings(
 			final Index index,
 			final AdapterPersistenceEncoding encoding ) {
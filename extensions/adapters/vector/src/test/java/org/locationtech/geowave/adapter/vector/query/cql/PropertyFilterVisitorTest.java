@@ -14,6 +14,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.regex.Pattern;
+
 import org.geotools.data.Query;
 import org.geotools.filter.text.cql2.CQL;
 import org.geotools.filter.text.cql2.CQLException;
@@ -25,6 +27,7 @@ import org.locationtech.geowave.core.store.index.numeric.NumericEqualsConstraint
 import org.locationtech.geowave.core.store.index.numeric.NumericLessThanConstraint;
 import org.locationtech.geowave.core.store.index.numeric.NumericQueryConstraint;
 import org.locationtech.geowave.core.store.index.text.TextExactMatchFilter;
+import org.locationtech.geowave.core.store.index.text.TextPatternFilter;
 import org.locationtech.geowave.core.store.index.text.TextQueryConstraint;
 import org.opengis.filter.Filter;
 
@@ -141,4 +144,31 @@ public class PropertyFilterVisitorTest
 		assertTrue(tf.isCaseSensitive());
 
 	}
+
+	@Test
+	public void testTextLike()
+			throws CQLException {
+		final Filter filter = CQL.toFilter("b LIKE 'ab%' and b LIKE '%yz' and c > 4");
+		final Query query = new Query(
+				"type",
+				filter);
+
+		final PropertyFilterVisitor visitor = new PropertyFilterVisitor();
+
+		final PropertyConstraintSet constraints = (PropertyConstraintSet) query.getFilter().accept(
+				visitor,
+				null);
+		final TextPatternFilter tf = (TextPatternFilter) ((TextQueryConstraint) constraints.getConstraintsByName("b"))
+				.getFilter();
+		final Pattern pattern = Pattern.compile(
+				tf.getRegex(),
+				Pattern.DOTALL);
+		assertTrue(pattern.matcher(
+				"abxyz").lookingAt());
+		assertFalse(pattern.matcher(
+				"abxy").lookingAt());
+		assertFalse(pattern.matcher(
+				"ABxyz").lookingAt());
+		assertTrue(constraints.getConstraintsByName("c") instanceof NumericQueryConstraint);
+	}
 }
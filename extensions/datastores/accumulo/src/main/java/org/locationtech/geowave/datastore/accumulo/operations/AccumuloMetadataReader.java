@@ -82,9 +82,15 @@ public class AccumuloMetadataReader implements
 			}
 			final Collection<Range> ranges = new ArrayList<>();
 			if (query.hasPrimaryId()) {
-				ranges.add(new Range(
-						new Text(
-								query.getPrimaryId())));
+				if (query.isPrimaryIdPrefix()) {
+					ranges.add(Range.prefix(new Text(
+							query.getPrimaryId())));
+				}
+				else {
+					ranges.add(new Range(
+							new Text(
+									query.getPrimaryId())));
+				}
 			}
 			else {
 				ranges.add(new Range());
@@ -94,8 +100,10 @@ public class AccumuloMetadataReader implements
 			// For stats w/ no server-side support, need to merge here
 			if ((metadataType == MetadataType.STATS) && !options.isServerSideLibraryEnabled()) {
 
-				final HashMap<Text, Key> keyMap = new HashMap<>();
-				final HashMap<Text, InternalDataStatistics<?, ?, ?>> mergedDataMap = new HashMap<>();
+				// merge by row and column rather than by row alone, a row holds
+				// the statistics of every adapter
+				final HashMap<Key, Key> keyMap = new HashMap<>();
+				final HashMap<Key, InternalDataStatistics<?, ?, ?>> mergedDataMap = new HashMap<>();
 				final Iterator<Entry<Key, Value>> it = scanner.iterator();
 
 				while (it.hasNext()) {
@@ -103,24 +111,28 @@ public class AccumuloMetadataReader implements
 
 					final InternalDataStatistics<?, ?, ?> stats = (InternalDataStatistics<?, ?, ?>) PersistenceUtils
 							.fromBinary(row.getValue().get());
+					final Key statsKey = new Key(
+							row.getKey().getRow(),
+							row.getKey().getColumnFamily(),
+							row.getKey().getColumnQualifier());
 
-					if (keyMap.containsKey(row.getKey().getRow())) {
-						final InternalDataStatistics<?, ?, ?> mergedStats = mergedDataMap.get(row.getKey().getRow());
+					if (keyMap.containsKey(statsKey)) {
+						final InternalDataStatistics<?, ?, ?> mergedStats = mergedDataMap.get(statsKey);
 						mergedStats.merge(stats);
 					}
 					else {
 						keyMap.put(
-								row.getKey().getRow(),
+								statsKey,
 								row.getKey());
 						mergedDataMap.put(
-								row.getKey().getRow(),
+								statsKey,
 								stats);
 					}
 				}
 
 				final List<GeoWaveMetadata> metadataList = new ArrayList();
-				for (final Entry<Text, Key> entry : keyMap.entrySet()) {
-					final Text rowId = entry.getKey();
+				for (final Entry<Key, Key> entry : keyMap.entrySet()) {
+					final Key rowId = entry.getKey();
 					final Key key = keyMap.get(rowId);
 					final InternalDataStatistics<?, ?, ?> mergedStats = mergedDataMap.get(rowId);
 
@@ -1001,8 +1001,15 @@ public class AccumuloOperations implements
 		final List<ByteArrayRange> ranges = params.getQueryRanges().getCompositeQueryRanges();
 		final String tableName = params.getIndex().getName();
 		ScannerBase scanner;
+		// a batch scanner returns the rows of each tablet as they come in, only
+		// a scanner returns them in key order
+		final boolean ordered = params.isOrdered() && !params.isAggregation() && !delete;
+		if (ordered && (ranges != null) && (ranges.size() > 1)) {
+			throw new IllegalArgumentException(
+					"Rows can only be read in key order from a single range");
+		}
 		try {
-			if (!params.isAggregation() && (ranges != null) && (ranges.size() == 1) && !delete) {
+			if (ordered || (!params.isAggregation() && (ranges != null) && (ranges.size() == 1) && !delete)) {
 				if (!options.isServerSideLibraryEnabled()) {
 					scanner = createClientScanner(
 							tableName,
@@ -1013,13 +1020,15 @@ public class AccumuloOperations implements
 							tableName,
 							params.getAdditionalAuthorizations());
 				}
-				final ByteArrayRange r = ranges.get(0);
-				if (r.isSingleValue()) {
-					((Scanner) scanner).setRange(Range.exact(new Text(
-							r.getStart().getBytes())));
-				}
-				else {
-					((Scanner) scanner).setRange(AccumuloUtils.byteArrayRangeToAccumuloRange(r));
+				if ((ranges != null) && !ranges.isEmpty()) {
+					final ByteArrayRange r = ranges.get(0);
+					if (r.isSingleValue()) {
+						((Scanner) scanner).setRange(Range.exact(new Text(
+								r.getStart().getBytes())));
+					}
+					else {
+						((Scanner) scanner).setRange(AccumuloUtils.byteArrayRangeToAccumuloRange(r));
+					}
 				}
 				if ((params.getLimit() != null) && (params.getLimit() > 0)
 						&& (params.getLimit() < ((Scanner) scanner).getBatchSize())) {
@@ -1255,7 +1264,7 @@ public class AccumuloOperations implements
 				params.getIndex().getIndexStrategy().getPartitionKeyLength(),
 				params.isMixedVisibility() && !params.isServersideAggregation(),
 				params.isClientsideRowMerging(),
-				true);
+				!params.isOrdered());
 	}
 
 	protected <T> Scanner getScanner(
@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.datastore.accumulo.operations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.apache.accumulo.core.client.BatchScanner;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.ScannerBase;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.io.Text;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.geowave.core.geotime.ingest.SpatialDimensionalityTypeProvider;
+import org.locationtech.geowave.core.geotime.ingest.SpatialOptions;
+import org.locationtech.geowave.core.index.ByteArray;
+import org.locationtech.geowave.core.index.ByteArrayRange;
+import org.locationtech.geowave.core.index.QueryRanges;
+import org.locationtech.geowave.core.index.SinglePartitionQueryRanges;
+import org.locationtech.geowave.core.store.api.Index;
+import org.locationtech.geowave.core.store.entities.GeoWaveRowIteratorTransformer;
+import org.locationtech.geowave.core.store.operations.ReaderParams;
+import org.locationtech.geowave.core.store.operations.ReaderParamsBuilder;
+import org.locationtech.geowave.datastore.accumulo.cli.config.AccumuloOptions;
+
+/**
+ * Reads a table that is split into several tablets. A batch scanner returns
+ * the tablets in any order, so reads that are ordered by sort key have to use
+ * a scanner.
+ */
+public class AccumuloOrderedReadTest
+{
+	private static final String[] ROWS = new String[] {
+		"a",
+		"c",
+		"e",
+		"g",
+		"i",
+		"k"
+	};
+
+	private final Index index = new SpatialDimensionalityTypeProvider().createIndex(new SpatialOptions());
+	private AccumuloOperations operations;
+
+	@Before
+	public void setup()
+			throws Exception {
+		final Connector connector = new MockInstance().getConnector(
+				"root",
+				new PasswordToken(
+						new byte[0]));
+		operations = new AccumuloOperations(
+				connector,
+				"",
+				new AccumuloOptions());
+		connector.tableOperations().create(
+				index.getName());
+		final SortedSet<Text> splits = new TreeSet<>();
+		splits.add(new Text(
+				"b"));
+		splits.add(new Text(
+				"f"));
+		splits.add(new Text(
+				"j"));
+		connector.tableOperations().addSplits(
+				index.getName(),
+				splits);
+		final BatchWriter writer = connector.createBatchWriter(
+				index.getName(),
+				new BatchWriterConfig());
+		for (final String row : ROWS) {
+			final Mutation mutation = new Mutation(
+					row);
+			mutation.put(
+					"cf",
+					"cq",
+					new Value(
+							row.getBytes()));
+			writer.addMutation(mutation);
+		}
+		writer.close();
+	}
+
+	@Test
+	public void testUnconstrainedOrderedRead() {
+		final ScannerBase scanner = operations.getScanner(
+				params(
+						new QueryRanges(),
+						true),
+				false);
+		Assert.assertTrue(
+				"an ordered read of all tablets has to use a scanner",
+				scanner instanceof Scanner);
+		Assert.assertEquals(
+				Arrays.asList(ROWS),
+				rows(scanner));
+
+		Assert.assertTrue(operations.getScanner(
+				params(
+						new QueryRanges(),
+						false),
+				false) instanceof BatchScanner);
+	}
+
+	@Test
+	public void testSingleRangeOrderedRead() {
+		// the range spans three tablets
+		final ScannerBase scanner = operations.getScanner(
+				params(
+						new QueryRanges(
+								new ByteArrayRange(
+										new ByteArray(
+												"c"),
+										new ByteArray(
+												"i"))),
+						true),
+				false);
+		Assert.assertTrue(scanner instanceof Scanner);
+		Assert.assertEquals(
+				Arrays.asList(
+						"c",
+						"e",
+						"g",
+						"i"),
+				rows(scanner));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMultiRangeOrderedRead() {
+		operations.getScanner(
+				params(
+						new QueryRanges(
+								Arrays.asList(
+										new SinglePartitionQueryRanges(
+												new ByteArrayRange(
+														new ByteArray(
+																"a"),
+														new ByteArray(
+																"c"))),
+										new SinglePartitionQueryRanges(
+												new ByteArrayRange(
+														new ByteArray(
+																"g"),
+														new ByteArray(
+																"i"))))),
+						true),
+				false);
+	}
+
+	private ReaderParams<?> params(
+			final QueryRanges ranges,
+			final boolean ordered ) {
+		return new ReaderParamsBuilder<>(
+				index,
+				null,
+				null,
+				GeoWaveRowIteratorTransformer.NO_OP_TRANSFORMER).queryRanges(
+				ranges).isOrdered(
+				ordered).build();
+	}
+
+	private static List<String> rows(
+			final ScannerBase scanner ) {
+		final List<String> rows = new ArrayList<>();
+		for (final Entry<Key, Value> entry : scanner) {
+			rows.add(entry.getKey().getRow().toString());
+		}
+		scanner.close();
+		return rows;
+	}
+}
@@ -97,6 +97,11 @@ public class CassandraReader<T> implements
 					new ClientVisibilityFilter(
 							authorizations)).results();
 		}
+		else if (readerParams.isOrdered()) {
+			// a full table select returns the rows in token order
+			throw new IllegalArgumentException(
+					"Rows can only be read in key order from a range");
+		}
 		else {
 			// TODO figure out the query select by adapter IDs here
 			final Select select = operations.getSelect(readerParams.getIndex().getName());
@@ -129,6 +129,11 @@ public class DynamoDBReader<T> implements
 													readerParams.getInternalAdapterStore()))));
 
 		}
+		else if (readerParams.isOrdered()) {
+			// a scan returns the items in hash order
+			throw new IllegalArgumentException(
+					"Rows can only be read in key order from a range");
+		}
 		// else if ((readerParams.getAdapterIds() != null) &&
 		// !readerParams.getAdapterIds().isEmpty()) {
 		// //TODO this isn't going to work because there aren't partition keys
@@ -142,7 +147,8 @@ public class DynamoDBReader<T> implements
 		startRead(
 				requests,
 				tableName,
-				readerParams.getMaxResolutionSubsamplingPerDimension() == null);
+				// the parallel decoder returns the rows out of order
+				(readerParams.getMaxResolutionSubsamplingPerDimension() == null) && !readerParams.isOrdered());
 	}
 
 	protected void initRecordScanner() {
@@ -0,0 +1,346 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.datastore.hbase.operations;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.io.hfile.HFileContext;
+import org.apache.hadoop.hbase.io.hfile.HFileContextBuilder;
+import org.apache.hadoop.hbase.mapreduce.LoadIncrementalHFiles;
+import org.apache.hadoop.hbase.regionserver.BloomType;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.log4j.Logger;
+import org.locationtech.geowave.core.index.ByteArrayUtils;
+import org.locationtech.geowave.core.index.StringUtils;
+import org.locationtech.geowave.core.store.entities.GeoWaveKey;
+import org.locationtech.geowave.core.store.entities.GeoWaveRow;
+import org.locationtech.geowave.core.store.entities.GeoWaveValue;
+import org.locationtech.geowave.core.store.operations.RowWriter;
+
+/**
+ * Writes rows to HFiles in a staging directory that are bulk loaded into the
+ * table on flush or close, rather than sending mutations to the region
+ * servers. Rows are buffered and sorted in memory and every full buffer is
+ * written to its own HFile, which the bulk load splits along region boundaries
+ * as needed.
+ *
+ * Visibility labels are stored as tags that the region servers create, so rows
+ * with a visibility are written with the given live writer instead.
+ *
+ * Failures are thrown as an UncheckedIOException. The rows of an HFile that
+ * could not be written stay buffered, and the staging directory of a failed
+ * bulk load is kept so that the next flush or close retries the load or the
+ * files can be loaded by hand.
+ */
+public class HBaseBulkWriter implements
+		RowWriter
+{
+	private final static Logger LOGGER = Logger.getLogger(HBaseBulkWriter.class);
+
+	private final HBaseOperations operations;
+	private final TableName tableName;
+	private final byte[] columnFamily;
+	private final HBaseWriter liveWriter;
+	private final long bufferSize;
+	private final Configuration conf;
+	private final Path stagingDirectory;
+
+	private final List<BufferedValue> buffer = new ArrayList<>();
+	private long bufferedBytes = 0;
+	private long lastTimestamp = 0;
+	private int fileCount = 0;
+	private HFileContext fileContext;
+	private BloomType bloomType;
+
+	public HBaseBulkWriter(
+			final HBaseOperations operations,
+			final TableName tableName,
+			final short adapterId,
+			final HBaseWriter liveWriter,
+			final int bufferSizeMB ) {
+		this.operations = operations;
+		this.tableName = tableName;
+		columnFamily = StringUtils.stringToBinary(ByteArrayUtils.shortToString(adapterId));
+		this.liveWriter = liveWriter;
+		bufferSize = bufferSizeMB * 1024L * 1024L;
+		conf = operations.getConnection().getConfiguration();
+		stagingDirectory = new Path(
+				conf.get(
+						"hbase.fs.tmp.dir",
+						"/user/" + System.getProperty("user.name") + "/hbase-staging"),
+				"geowave-bulk-" + UUID.randomUUID());
+	}
+
+	@Override
+	public void write(
+			final GeoWaveRow[] rows ) {
+		for (final GeoWaveRow row : rows) {
+			write(row);
+		}
+	}
+
+	@Override
+	public synchronized void write(
+			final GeoWaveRow row ) {
+		for (final GeoWaveValue value : row.getFieldValues()) {
+			if ((value.getVisibility() != null) && (value.getVisibility().length > 0)) {
+				liveWriter.write(row);
+				return;
+			}
+		}
+		final byte[] rowBytes = GeoWaveKey.getCompositeId(row);
+		for (final GeoWaveValue value : row.getFieldValues()) {
+			buffer.add(new BufferedValue(
+					rowBytes,
+					value.getFieldMask(),
+					value.getValue()));
+			bufferedBytes += rowBytes.length + value.getFieldMask().length + value.getValue().length;
+		}
+		if (bufferedBytes >= bufferSize) {
+			writeFile();
+		}
+	}
+
+	private void writeFile() {
+		if (buffer.isEmpty()) {
+			return;
+		}
+		// the sort is stable so values of the same cell stay in the order they
+		// were written
+		buffer.sort((
+				v1,
+				v2 ) -> {
+			final int comp = Bytes.compareTo(
+					v1.row,
+					v2.row);
+			if (comp != 0) {
+				return comp;
+			}
+			return Bytes.compareTo(
+					v1.qualifier,
+					v2.qualifier);
+		});
+		final long timestamp = Math.max(
+				System.currentTimeMillis(),
+				lastTimestamp + 1);
+		lastTimestamp = timestamp;
+		FileSystem fs = null;
+		StoreFile.Writer writer = null;
+		boolean written = false;
+		try {
+			fs = stagingDirectory.getFileSystem(conf);
+			writer = new StoreFile.WriterBuilder(
+					conf,
+					new CacheConfig(
+							conf),
+					fs).withOutputDir(
+					new Path(
+							stagingDirectory,
+							Bytes.toString(columnFamily))).withBloomType(
+					getBloomType()).withComparator(
+					KeyValue.COMPARATOR).withFileContext(
+					getFileContext()).build();
+			try {
+				int start = 0;
+				while (start < buffer.size()) {
+					int end = start + 1;
+					while ((end < buffer.size()) && buffer.get(
+							start).isSameCell(
+							buffer.get(end))) {
+						end++;
+					}
+					// like a live write the last value written is the newest
+					// version of a cell, and cells are sorted by descending
+					// timestamp
+					for (int i = end - 1; i >= start; i--) {
+						final BufferedValue value = buffer.get(i);
+						writer.append(new KeyValue(
+								value.row,
+								columnFamily,
+								value.qualifier,
+								timestamp - ((end - 1) - i),
+								value.value));
+					}
+					start = end;
+				}
+				writer.appendFileInfo(
+						StoreFile.BULKLOAD_TIME_KEY,
+						Bytes.toBytes(System.currentTimeMillis()));
+				writer.appendFileInfo(
+						StoreFile.MAJOR_COMPACTION_KEY,
+						Bytes.toBytes(false));
+				writer.appendTrackedTimestampsToMetadata();
+			}
+			finally {
+				writer.close();
+			}
+			written = true;
+		}
+		catch (final IOException e) {
+			throw new UncheckedIOException(
+					"Unable to write HFile for table '" + tableName + "'",
+					e);
+		}
+		finally {
+			if (!written && (writer != null)) {
+				// a partial file must not be bulk loaded, the rows are still
+				// buffered and are written again by the next flush
+				try {
+					fs.delete(
+							writer.getPath(),
+							false);
+				}
+				catch (final IOException e) {
+					LOGGER.warn(
+							"Unable to delete partial HFile '" + writer.getPath() + "'",
+							e);
+				}
+			}
+		}
+		fileCount++;
+		buffer.clear();
+		bufferedBytes = 0;
+	}
+
+	private HFileContext getFileContext()
+			throws IOException {
+		if (fileContext == null) {
+			readColumnFamily();
+		}
+		return fileContext;
+	}
+
+	private BloomType getBloomType()
+			throws IOException {
+		if (bloomType == null) {
+			readColumnFamily();
+		}
+		return bloomType;
+	}
+
+	private void readColumnFamily()
+			throws IOException {
+		// write the files the way the region servers would write them for this
+		// column family so they don't have to be rewritten
+		try (Table table = operations.getConnection().getTable(
+				tableName)) {
+			final HColumnDescriptor family = table.getTableDescriptor().getFamily(
+					columnFamily);
+			final HFileContextBuilder builder = new HFileContextBuilder();
+			if (family != null) {
+				builder.withCompression(
+						family.getCompressionType()).withBlockSize(
+						family.getBlocksize()).withDataBlockEncoding(
+						family.getDataBlockEncoding());
+				bloomType = family.getBloomFilterType();
+			}
+			else {
+				bloomType = BloomType.NONE;
+			}
+			fileContext = builder.build();
+		}
+	}
+
+	private void load() {
+		if (fileCount == 0) {
+			return;
+		}
+		try (Admin admin = operations.getConnection().getAdmin();
+				Table table = operations.getConnection().getTable(
+						tableName);
+				RegionLocator regionLocator = operations.getConnection().getRegionLocator(
+						tableName)) {
+			new LoadIncrementalHFiles(
+					conf).doBulkLoad(
+					stagingDirectory,
+					admin,
+					table,
+					regionLocator);
+		}
+		catch (final IOException e) {
+			// the files that were not loaded are kept for the next attempt
+			throw new UncheckedIOException(
+					"Unable to bulk load HFiles into table '" + tableName + "', they remain in '"
+							+ stagingDirectory + "'",
+					e);
+		}
+		fileCount = 0;
+		try {
+			stagingDirectory.getFileSystem(
+					conf).delete(
+					stagingDirectory,
+					true);
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"Unable to delete staging directory '" + stagingDirectory + "'",
+					e);
+		}
+	}
+
+	@Override
+	public synchronized void flush() {
+		writeFile();
+		load();
+		liveWriter.flush();
+	}
+
+	@Override
+	public synchronized void close() {
+		try {
+			writeFile();
+			load();
+		}
+		finally {
+			liveWriter.close();
+		}
+	}
+
+	private static class BufferedValue
+	{
+		private final byte[] row;
+		private final byte[] qualifier;
+		private final byte[] value;
+
+		private BufferedValue(
+				final byte[] row,
+				final byte[] qualifier,
+				final byte[] value ) {
+			this.row = row;
+			this.qualifier = qualifier;
+			this.value = value;
+		}
+
+		private boolean isSameCell(
+				final BufferedValue other ) {
+			return Bytes.equals(
+					row,
+					other.row) && Bytes.equals(
+					qualifier,
+					other.qualifier);
+		}
+	}
+}
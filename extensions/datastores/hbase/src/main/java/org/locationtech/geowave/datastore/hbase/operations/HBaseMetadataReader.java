@@ -70,8 +70,13 @@ public class HBaseMetadataReader implements
 			}
 
 			if (query.hasPrimaryId()) {
-				scanner.setStartRow(query.getPrimaryId());
-				scanner.setStopRow(query.getPrimaryId());
+				if (query.isPrimaryIdPrefix()) {
+					scanner.setRowPrefixFilter(query.getPrimaryId());
+				}
+				else {
+					scanner.setStartRow(query.getPrimaryId());
+					scanner.setStopRow(query.getPrimaryId());
+				}
 			}
 			final boolean clientsideStatsMerge = (metadataType == MetadataType.STATS)
 					&& !options.isServerSideLibraryEnabled();
@@ -965,8 +965,17 @@ public class HBaseOperations implements
 					tableName,
 					true);
 
-			return new HBaseWriter(
+			final HBaseWriter writer = new HBaseWriter(
 					getBufferedMutator(tableName));
+			if (options.isBulkIngest() && !options.isBigTable()) {
+				return new HBaseBulkWriter(
+						this,
+						tableName,
+						adapter.getAdapterId(),
+						writer,
+						options.getBulkIngestBufferSizeMB());
+			}
+			return writer;
 		}
 		catch (final TableNotFoundException e) {
 			LOGGER.error(
@@ -250,7 +250,8 @@ public class HBaseReader<T> implements
 				readerParams,
 				filterList);
 
-		if (operations.parallelDecodeEnabled()) {
+		// the parallel decoder returns the rows of each region as they come in
+		if (operations.parallelDecodeEnabled() && !readerParams.isOrdered()) {
 			final HBaseParallelDecoder<T> parallelScanner = new HBaseParallelDecoder<>(
 					rowTransformer,
 					scanProvider,
@@ -11,13 +11,19 @@
 package org.locationtech.geowave.datastore.hbase.operations;
 
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
-
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.BufferedMutator;
 import org.apache.hadoop.hbase.client.Put;
-import org.apache.hadoop.hbase.client.RowMutations;
+import org.apache.hadoop.hbase.client.RetriesExhaustedWithDetailsException;
 import org.apache.hadoop.hbase.security.visibility.CellVisibility;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.log4j.Logger;
 import org.locationtech.geowave.core.index.ByteArray;
 import org.locationtech.geowave.core.index.ByteArrayUtils;
@@ -32,18 +38,38 @@ import org.locationtech.geowave.core.store.operations.RowWriter;
  * operations will use an interface that can be implemented differently for
  * different purposes. For example, a bulk ingest can be performed by replacing
  * this implementation within a custom implementation of HBaseOperations.
+ *
+ * Mutations that the region servers rejected are reported, as an
+ * UncheckedIOException, by the write, flush or close that notices them.
  */
 public class HBaseWriter implements
 		RowWriter
 {
 	private final static Logger LOGGER = Logger.getLogger(HBaseWriter.class);
 
-	protected Set<ByteArray> duplicateRowTracker = new HashSet<>();
+	// the timestamps of the rows of each table written at the current time or
+	// later, shared by the writers of this JVM
+	private static final Map<TableName, Map<ByteArray, Long>> RECENT_TIMESTAMPS = new ConcurrentHashMap<>();
+	private static final int MAX_RECENT_TIMESTAMPS = 10000;
+
 	private final BufferedMutator mutator;
+	// rows are written with explicit timestamps so that multiple writes of the
+	// same row within a batch are kept as separate versions without having to
+	// flush the batch
+	private final Map<ByteArray, Long> recentTimestamps;
+	private final Map<Short, byte[]> columnFamilies = new ConcurrentHashMap<>();
+	private final long startTime = System.currentTimeMillis();
+	private final LongAdder rowsWritten = new LongAdder();
+	private final LongAdder cellsWritten = new LongAdder();
+	private final LongAdder bytesWritten = new LongAdder();
+	private final LongAdder flushes = new LongAdder();
 
 	public HBaseWriter(
 			final BufferedMutator mutator ) {
 		this.mutator = mutator;
+		recentTimestamps = RECENT_TIMESTAMPS.computeIfAbsent(
+				mutator.getName(),
+				name -> new ConcurrentHashMap<>());
 	}
 
 	@Override
@@ -52,22 +78,25 @@ public class HBaseWriter implements
 			mutator.close();
 		}
 		catch (final IOException e) {
-			LOGGER.warn(
+			throw writeFailure(
 					"Unable to close BufferedMutator",
 					e);
 		}
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Closed writer for '" + mutator.getName() + "': rows=" + getRowsWritten() + ", cells="
+					+ getCellsWritten() + ", bytes=" + getBytesWritten() + ", flushes=" + getFlushCount()
+					+ ", rowsPerSecond=" + getRowsPerSecond());
+		}
 	}
 
 	@Override
 	public void flush() {
 		try {
-			synchronized (duplicateRowTracker) {
-				mutator.flush();
-				duplicateRowTracker.clear();
-			}
+			mutator.flush();
+			flushes.increment();
 		}
 		catch (final IOException e) {
-			LOGGER.warn(
+			throw writeFailure(
 					"Unable to flush BufferedMutator",
 					e);
 		}
@@ -84,54 +113,55 @@ public class HBaseWriter implements
 	@Override
 	public void write(
 			final GeoWaveRow row ) {
-		writeMutations(rowToMutation(row));
-	}
-
-	private void writeMutations(
-			final RowMutations rowMutation ) {
 		try {
-			mutator.mutate(rowMutation.getMutations());
+			mutator.mutate(rowToMutations(row));
 		}
 		catch (final IOException e) {
-			LOGGER.error(
-					"Unable to write mutation.",
+			throw writeFailure(
+					"Unable to write mutation",
 					e);
 		}
 	}
 
-	private RowMutations rowToMutation(
-			final GeoWaveRow row ) {
-		final byte[] rowBytes = GeoWaveKey.getCompositeId(row);
-
-		// we use a hashset of row IDs so that we can retain multiple versions
-		// (otherwise timestamps will be applied on the server side in
-		// batches and if the same row exists within a batch we will not
-		// retain multiple versions)
-		synchronized (duplicateRowTracker) {
-			final ByteArray rowId = new ByteArray(
-					rowBytes);
-			if (!duplicateRowTracker.add(rowId)) {
-				try {
-					mutator.flush();
-					duplicateRowTracker.clear();
-					duplicateRowTracker.add(rowId);
-				}
-				catch (final IOException e) {
-					LOGGER.error(
-							"Unable to write mutation.",
-							e);
-				}
+	private UncheckedIOException writeFailure(
+			final String message,
+			final IOException e ) {
+		// the mutator reports the mutations of earlier writes that failed
+		// asynchronously
+		if (e instanceof RetriesExhaustedWithDetailsException) {
+			final RetriesExhaustedWithDetailsException failures = (RetriesExhaustedWithDetailsException) e;
+			for (int i = 0; i < failures.getNumExceptions(); i++) {
+				LOGGER.error(
+						"Unable to write row '" + Bytes.toStringBinary(failures.getRow(
+								i).getRow()) + "' to table '" + mutator.getName() + "'",
+						failures.getCause(i));
 			}
+			return new UncheckedIOException(
+					message + ", " + failures.getNumExceptions() + " mutation(s) of table '" + mutator.getName()
+							+ "' failed",
+					e);
 		}
+		return new UncheckedIOException(
+				message + " for table '" + mutator.getName() + "'",
+				e);
+	}
+
+	private List<Put> rowToMutations(
+			final GeoWaveRow row ) {
+		final byte[] rowBytes = GeoWaveKey.getCompositeId(row);
+		final byte[] columnFamily = getColumnFamily(row.getAdapterId());
+		final long timestamp = nextTimestamp(rowBytes);
 
-		final RowMutations mutation = new RowMutations(
-				rowBytes);
-		for (final GeoWaveValue value : row.getFieldValues()) {
+		final GeoWaveValue[] values = row.getFieldValues();
+		final List<Put> mutations = new ArrayList<>(
+				values.length);
+		for (final GeoWaveValue value : values) {
 			final Put put = new Put(
-					rowBytes);
+					rowBytes,
+					timestamp);
 
 			put.addColumn(
-					StringUtils.stringToBinary(ByteArrayUtils.shortToString(row.getAdapterId())),
+					columnFamily,
 					value.getFieldMask(),
 					value.getValue());
 
@@ -139,15 +169,87 @@ public class HBaseWriter implements
 				put.setCellVisibility(new CellVisibility(
 						StringUtils.stringFromBinary(value.getVisibility())));
 			}
+			mutations.add(put);
+			bytesWritten.add(value.getValue().length);
+		}
+		rowsWritten.increment();
+		cellsWritten.add(values.length);
+		return mutations;
+	}
 
-			try {
-				mutation.add(put);
-			}
-			catch (final IOException e) {
-				LOGGER.error("Error creating HBase row mutation: " + e.getMessage());
+	private byte[] getColumnFamily(
+			final short adapterId ) {
+		return columnFamilies.computeIfAbsent(
+				adapterId,
+				id -> StringUtils.stringToBinary(ByteArrayUtils.shortToString(id)));
+	}
+
+	private long nextTimestamp(
+			final byte[] rowBytes ) {
+		// use the current time, so deletes and time to live that use the time
+		// of the region servers apply as usual, unless the same row was
+		// already written at this time in which case the version after the
+		// previous one is used. Writers in other processes can still write a
+		// row in the same millisecond, and then only the last version is kept
+		// just like with timestamps assigned by the region servers.
+		final long now = System.currentTimeMillis();
+		final long timestamp = recentTimestamps.compute(
+				new ByteArray(
+						rowBytes),
+				(
+						row,
+						previous ) -> ((previous == null) || (previous < now)) ? now : previous + 1);
+		if (recentTimestamps.size() > MAX_RECENT_TIMESTAMPS) {
+			// rows last written before now can't collide with later writes
+			for (final Map.Entry<ByteArray, Long> entry : recentTimestamps.entrySet()) {
+				if (entry.getValue() < now) {
+					recentTimestamps.remove(
+							entry.getKey(),
+							entry.getValue());
+				}
 			}
 		}
+		return timestamp;
+	}
+
+	/**
+	 * @return the number of rows written
+	 */
+	public long getRowsWritten() {
+		return rowsWritten.sum();
+	}
+
+	/**
+	 * @return the number of cells written, one per field value of each row
+	 */
+	public long getCellsWritten() {
+		return cellsWritten.sum();
+	}
+
+	/**
+	 * @return the number of value bytes written
+	 */
+	public long getBytesWritten() {
+		return bytesWritten.sum();
+	}
+
+	/**
+	 * @return the number of times the buffered mutations were explicitly
+	 *         flushed (the mutator also flushes on its own when its buffer is
+	 *         full)
+	 */
+	public long getFlushCount() {
+		return flushes.sum();
+	}
 
-		return mutation;
+	/**
+	 * @return the average number of rows written per second since this writer
+	 *         was created
+	 */
+	public double getRowsPerSecond() {
+		final long elapsed = Math.max(
+				1,
+				System.currentTimeMillis() - startTime);
+		return (getRowsWritten() * 1000.0) / elapsed;
 	}
 }
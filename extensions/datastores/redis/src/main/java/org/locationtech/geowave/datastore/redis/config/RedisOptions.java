@@ -23,6 +23,12 @@ public class RedisOptions extends
 	private String address;
 	@Parameter(names = "--compression", description = "Can be \"snappy\",\"lz4\", or \"none\". Defaults to snappy.", converter = CompressionConverter.class)
 	private Compression compression = Compression.SNAPPY;
+	@Parameter(names = "--sortKeyLayout", description = "Can be \"score\" or \"lex\". \"score\" packs the sort key into a double score, keeping about 52 bits of precision so range queries over-fetch and filter on the client.  \"lex\" stores the full sort key as a lexicographically ordered member so ranges are selected exactly by Redis.  The layout is recorded when a namespace is first used and an existing namespace keeps its layout, to migrate copy the data into a new namespace.  Defaults to score.", converter = SortKeyLayoutConverter.class)
+	private SortKeyLayout sortKeyLayout = SortKeyLayout.SCORE;
+	@Parameter(names = "--batchWriteSize", arity = 1, description = "The number of rows pipelined to Redis in a single batch.  Defaults to 1000.")
+	private int batchWriteSize = RedisUtils.REDIS_DEFAULT_BATCH_WRITE_SIZE;
+	@Parameter(names = "--maxConcurrentWriteBatches", arity = 1, description = "The maximum number of batches per set that can be in flight before a writer waits for acknowledgement.  Defaults to 100.")
+	private int maxConcurrentWriteBatches = RedisUtils.REDIS_DEFAULT_MAX_CONCURRENT_WRITE_BATCHES;
 	@ParametersDelegate
 	protected BaseDataStoreOptions baseOptions = new BaseDataStoreOptions() {
 		@Override
@@ -79,6 +85,33 @@ public class RedisOptions extends
 		return compression;
 	}
 
+	public void setSortKeyLayout(
+			final SortKeyLayout sortKeyLayout ) {
+		this.sortKeyLayout = sortKeyLayout;
+	}
+
+	public SortKeyLayout getSortKeyLayout() {
+		return sortKeyLayout;
+	}
+
+	public void setBatchWriteSize(
+			final int batchWriteSize ) {
+		this.batchWriteSize = batchWriteSize;
+	}
+
+	public int getBatchWriteSize() {
+		return batchWriteSize;
+	}
+
+	public void setMaxConcurrentWriteBatches(
+			final int maxConcurrentWriteBatches ) {
+		this.maxConcurrentWriteBatches = maxConcurrentWriteBatches;
+	}
+
+	public int getMaxConcurrentWriteBatches() {
+		return maxConcurrentWriteBatches;
+	}
+
 	public static enum Compression {
 		SNAPPY(
 				c -> new SnappyCodec(
@@ -103,6 +136,25 @@ public class RedisOptions extends
 		}
 	};
 
+	public static enum SortKeyLayout {
+		SCORE,
+		LEX
+	};
+
+	public static class SortKeyLayoutConverter implements
+			IStringConverter<SortKeyLayout>
+	{
+
+		@Override
+		public SortKeyLayout convert(
+				final String value ) {
+			return SortKeyLayout
+					.valueOf(
+							value.toUpperCase());
+		}
+
+	}
+
 	public static class CompressionConverter implements
 			IStringConverter<Compression>
 	{
@@ -34,6 +34,7 @@ import org.locationtech.geowave.core.store.entities.GeoWaveRowIteratorTransforme
 import org.locationtech.geowave.core.store.entities.GeoWaveRowMergingIterator;
 import org.locationtech.geowave.core.store.util.RowConsumer;
 import org.locationtech.geowave.datastore.redis.config.RedisOptions.Compression;
+import org.locationtech.geowave.datastore.redis.config.RedisOptions.SortKeyLayout;
 import org.locationtech.geowave.datastore.redis.util.GeoWaveRedisPersistedRow;
 import org.locationtech.geowave.datastore.redis.util.GeoWaveRedisRow;
 import org.locationtech.geowave.datastore.redis.util.RedisScoredSetWrapper;
@@ -63,14 +64,21 @@ public class BatchedRangeRead<T>
 		byte[] partitionKey;
 		double startScore;
 		double endScore;
+		// the exact sort key range, used by the lexicographic layout
+		byte[] startSortKey;
+		byte[] endSortKeyExclusive;
 
 		public RangeReadInfo(
 				final byte[] partitionKey,
 				final double startScore,
-				final double endScore ) {
+				final double endScore,
+				final byte[] startSortKey,
+				final byte[] endSortKeyExclusive ) {
 			this.partitionKey = partitionKey;
 			this.startScore = startScore;
 			this.endScore = endScore;
+			this.startSortKey = startSortKey;
+			this.endSortKeyExclusive = endSortKeyExclusive;
 		}
 	}
 
@@ -92,6 +100,13 @@ public class BatchedRangeRead<T>
 			if (comp != 0) {
 				return comp;
 			}
+			comp = compareSortKeys(
+					o1.startSortKey,
+					o2.startSortKey,
+					false);
+			if (comp != 0) {
+				return comp;
+			}
 			comp = Double
 					.compare(
 							o1.endScore,
@@ -99,6 +114,13 @@ public class BatchedRangeRead<T>
 			if (comp != 0) {
 				return comp;
 			}
+			comp = compareSortKeys(
+					o1.endSortKeyExclusive,
+					o2.endSortKeyExclusive,
+					true);
+			if (comp != 0) {
+				return comp;
+			}
 			final byte[] otherComp = o2.partitionKey == null ? new byte[0] : o2.partitionKey;
 			final byte[] thisComp = o1.partitionKey == null ? new byte[0] : o1.partitionKey;
 
@@ -109,6 +131,23 @@ public class BatchedRangeRead<T>
 							otherComp);
 		}
 
+		private static int compareSortKeys(
+				final byte[] sortKey1,
+				final byte[] sortKey2,
+				final boolean nullIsMax ) {
+			if (sortKey1 == null) {
+				return sortKey2 == null ? 0 : (nullIsMax ? 1 : -1);
+			}
+			if (sortKey2 == null) {
+				return nullIsMax ? -1 : 1;
+			}
+			return UnsignedBytes
+					.lexicographicalComparator()
+					.compare(
+							sortKey1,
+							sortKey2);
+		}
+
 	}
 
 	private final static int MAX_CONCURRENT_READ = 100;
@@ -134,10 +173,13 @@ public class BatchedRangeRead<T>
 	private final Pair<Boolean, Boolean> groupByRowAndSortByTimePair;
 	private final boolean isSortFinalResultsBySortKey;
 	private final Compression compression;
+	private final SortKeyLayout sortKeyLayout;
+	private final boolean isLex;
 
 	protected BatchedRangeRead(
 			final RedissonClient client,
 			final Compression compression,
+			final SortKeyLayout sortKeyLayout,
 			final String setNamePrefix,
 			final short adapterId,
 			final Collection<SinglePartitionQueryRanges> ranges,
@@ -148,6 +190,9 @@ public class BatchedRangeRead<T>
 			final boolean isSortFinalResultsBySortKey ) {
 		this.client = client;
 		this.compression = compression;
+		this.sortKeyLayout = sortKeyLayout;
+		isLex = SortKeyLayout.LEX.equals(
+				sortKeyLayout);
 		this.setNamePrefix = setNamePrefix;
 		this.adapterId = adapterId;
 		this.ranges = ranges;
@@ -163,7 +208,9 @@ public class BatchedRangeRead<T>
 			final byte[] partitionKey ) {
 		return RedisUtils
 				.getRowSet(
-						client,compression,
+						client,
+						compression,
+						sortKeyLayout,
 						setNamePrefix,
 						partitionKey,
 						groupByRowAndSortByTimePair.getRight());
@@ -187,7 +234,9 @@ public class BatchedRangeRead<T>
 								new RangeReadInfo(
 										r.getPartitionKey().getBytes(),
 										start,
-										end));
+										end,
+										range.getStart() != null ? range.getStart().getBytes() : null,
+										range.getEnd() != null ? range.getEndAsNextPrefix().getBytes() : null));
 			}
 
 		}
@@ -224,13 +273,22 @@ public class BatchedRangeRead<T>
 														partitionKey = new ByteArray(
 																r.partitionKey);
 													}
+													final RedisScoredSetWrapper<GeoWaveRedisPersistedRow> set = setCache
+															.get(
+																	partitionKey);
+													if (isLex) {
+														return transformAndFilter(
+																set
+																		.entryLexRange(
+																				r.startSortKey,
+																				r.endSortKeyExclusive),
+																r.partitionKey);
+													}
 													// if we don't have enough
 													// precision we need to make
 													// sure the end is inclusive
 													return transformAndFilter(
-															setCache
-																	.get(
-																			partitionKey)
+															set
 																	.entryRange(
 																			r.startScore,
 																			true,
@@ -268,17 +326,23 @@ public class BatchedRangeRead<T>
 											r.partitionKey);
 								}
 								readSemaphore.acquire();
-								final RFuture<Collection<ScoredEntry<GeoWaveRedisPersistedRow>>> f = setCache
+								final RedisScoredSetWrapper<GeoWaveRedisPersistedRow> set = setCache
 										.get(
-												partitionKey)
-										.entryRangeAsync(
-												r.startScore,
-												true,
-												r.endScore,
-												// if we don't have enough
-												// precision we need to make
-												// sure the end is inclusive
-												r.endScore <= r.startScore);
+												partitionKey);
+								final RFuture<Collection<ScoredEntry<GeoWaveRedisPersistedRow>>> f = isLex ? set
+										.entryLexRangeAsync(
+												r.startSortKey,
+												r.endSortKeyExclusive)
+										: set
+												.entryRangeAsync(
+														r.startScore,
+														true,
+														r.endScore,
+														// if we don't have
+														// enough precision we
+														// need to make sure the
+														// end is inclusive
+														r.endScore <= r.startScore);
 								queryCount.incrementAndGet();
 								f
 										.handle(
@@ -417,8 +481,7 @@ public class BatchedRangeRead<T>
 																						partitionKey,
 																						RedisUtils
 																								.getSortKey(
-																										entry
-																												.getScore()));
+																										entry));
 																			}
 																		}),
 														filter))));
@@ -11,6 +11,7 @@
 package org.locationtech.geowave.datastore.redis.operations;
 
 import java.io.IOException;
+import java.util.stream.Stream;
 
 import org.locationtech.geowave.core.store.adapter.AdapterIndexMappingStore;
 import org.locationtech.geowave.core.store.adapter.InternalAdapterStore;
@@ -30,6 +31,7 @@ import org.locationtech.geowave.core.store.operations.RowReader;
 import org.locationtech.geowave.core.store.operations.RowWriter;
 import org.locationtech.geowave.core.store.util.DataStoreUtils;
 import org.locationtech.geowave.datastore.redis.config.RedisOptions;
+import org.locationtech.geowave.datastore.redis.config.RedisOptions.SortKeyLayout;
 import org.locationtech.geowave.datastore.redis.util.RedisUtils;
 import org.locationtech.geowave.datastore.redis.util.RedissonClientCache;
 import org.locationtech.geowave.mapreduce.MapReduceDataStoreOperations;
@@ -44,6 +46,7 @@ public class RedisOperations implements
 	private final String gwNamespace;
 	private final RedisOptions options;
 	private final RedissonClient client;
+	private final SortKeyLayout sortKeyLayout;
 
 	public RedisOperations(
 			final RedisOptions options ) {
@@ -57,6 +60,10 @@ public class RedisOperations implements
 		this.options = options;
 		client = RedissonClientCache.getInstance().getClient(
 				options.getAddress());
+		sortKeyLayout = RedisUtils.resolveSortKeyLayout(
+				client,
+				gwNamespace,
+				options.getSortKeyLayout());
 	}
 
 	@Override
@@ -79,13 +86,11 @@ public class RedisOperations implements
 		return true;
 	}
 
-	private void deleteByPattern(
-			final String pattern ) {
+	private void deleteKeys(
+			final Stream<String> keys ) {
 		final RKeys keySet = client.getKeys();
 
-		keySet
-				.getKeysByPattern(
-						pattern)
+		keys
 				.forEach(
 						k -> keySet
 								.delete(
@@ -95,7 +100,14 @@ public class RedisOperations implements
 	@Override
 	public void deleteAll()
 			throws Exception {
-		deleteByPattern(gwNamespace + "_*");
+		deleteKeys(RedisUtils.getNamespaceKeys(
+				client,
+				gwNamespace));
+		// keep recording the layout this instance continues to write with
+		RedisUtils.resolveSortKeyLayout(
+				client,
+				gwNamespace,
+				sortKeyLayout);
 	}
 
 	@Override
@@ -104,10 +116,12 @@ public class RedisOperations implements
 			final String typeName,
 			final Short adapterId,
 			final String... additionalAuthorizations ) {
-		deleteByPattern(RedisUtils.getRowSetPrefix(
-				gwNamespace,
-				typeName,
-				indexName) + "*");
+		deleteKeys(RedisUtils.getKeysWithPrefix(
+				client,
+				RedisUtils.getRowSetPrefix(
+						gwNamespace,
+						typeName,
+						indexName)));
 		return true;
 	}
 
@@ -128,7 +142,10 @@ public class RedisOperations implements
 				gwNamespace,
 				adapter.getTypeName(),
 				index.getName(),
-				RedisUtils.isSortByTime(adapter));
+				RedisUtils.isSortByTime(adapter),
+				sortKeyLayout,
+				options.getBatchWriteSize(),
+				options.getMaxConcurrentWriteBatches());
 	}
 
 	@Override
@@ -173,9 +190,11 @@ public class RedisOperations implements
 		return new RedisReader<>(
 				client,
 				options.getCompression(),
+				sortKeyLayout,
 				readerParams,
 				gwNamespace,
-				READER_ASYNC);
+				// the ranges of an async read are returned as they come in
+				READER_ASYNC && !readerParams.isOrdered());
 	}
 
 	@Override
@@ -192,6 +211,7 @@ public class RedisOperations implements
 				new RedisReader<>(
 						client,
 						options.getCompression(),
+						sortKeyLayout,
 						readerParams,
 						gwNamespace,
 						false));
@@ -227,6 +247,7 @@ public class RedisOperations implements
 		return new RedisReader<>(
 				client,
 				options.getCompression(),
+				sortKeyLayout,
 				readerParams,
 				gwNamespace);
 	}
@@ -240,6 +261,7 @@ public class RedisOperations implements
 		return new RedisRowDeleter(
 				client,
 				options.getCompression(),
+				sortKeyLayout,
 				adapterStore,
 				internalAdapterStore,
 				indexName,
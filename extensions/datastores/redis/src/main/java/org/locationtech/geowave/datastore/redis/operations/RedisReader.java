@@ -25,8 +25,10 @@ import org.locationtech.geowave.core.store.operations.ReaderParams;
 import org.locationtech.geowave.core.store.operations.RowReader;
 import org.locationtech.geowave.core.store.query.filter.ClientVisibilityFilter;
 import org.locationtech.geowave.datastore.redis.config.RedisOptions.Compression;
+import org.locationtech.geowave.datastore.redis.config.RedisOptions.SortKeyLayout;
 import org.locationtech.geowave.datastore.redis.util.GeoWaveRedisPersistedRow;
 import org.locationtech.geowave.datastore.redis.util.GeoWaveRedisRow;
+import org.locationtech.geowave.datastore.redis.util.RedisScoredSetWrapper;
 import org.locationtech.geowave.datastore.redis.util.RedisUtils;
 import org.locationtech.geowave.mapreduce.splits.GeoWaveRowRange;
 import org.locationtech.geowave.mapreduce.splits.RecordReaderParams;
@@ -45,12 +47,14 @@ public class RedisReader<T> implements
 	public RedisReader(
 			final RedissonClient client,
 			final Compression compression,
+			final SortKeyLayout sortKeyLayout,
 			final ReaderParams<T> readerParams,
 			final String namespace,
 			final boolean async ) {
 		this.iterator = createIteratorForReader(
 				client,
 				compression,
+				sortKeyLayout,
 				readerParams,
 				namespace,
 				false);
@@ -59,11 +63,13 @@ public class RedisReader<T> implements
 	public RedisReader(
 			final RedissonClient client,
 			final Compression compression,
+			final SortKeyLayout sortKeyLayout,
 			final RecordReaderParams<T> recordReaderParams,
 			final String namespace ) {
 		this.iterator = createIteratorForRecordReader(
 				client,
 				compression,
+				sortKeyLayout,
 				recordReaderParams,
 				namespace);
 	}
@@ -71,6 +77,7 @@ public class RedisReader<T> implements
 	private CloseableIterator<T> createIteratorForReader(
 			final RedissonClient client,
 			final Compression compression,
+			final SortKeyLayout sortKeyLayout,
 			final ReaderParams<T> readerParams,
 			final String namespace,
 			final boolean async ) {
@@ -83,6 +90,7 @@ public class RedisReader<T> implements
 			return createIterator(
 					client,
 					compression,
+					sortKeyLayout,
 					readerParams,
 					namespace,
 					ranges,
@@ -110,19 +118,31 @@ public class RedisReader<T> implements
 								client,
 								setNamePrefix)
 						.stream()
+						// read the partitions in key order in case the rows are ordered
+						.sorted()
 						.map(
 								p -> {
-									final Iterator<ScoredEntry<GeoWaveRedisPersistedRow>> result = RedisUtils
+									final RedisScoredSetWrapper<GeoWaveRedisPersistedRow> set = RedisUtils
 											.getRowSet(
-													client,compression,
+													client,
+													compression,
+													sortKeyLayout,
 													setNamePrefix,
 													p.getBytes(),
-													groupByRowAndSortByTime.getRight())
-											.entryRange(
-													Double.NEGATIVE_INFINITY,
-													true,
-													Double.POSITIVE_INFINITY,
-													true);
+													groupByRowAndSortByTime.getRight());
+									final Iterator<ScoredEntry<GeoWaveRedisPersistedRow>> result = SortKeyLayout.LEX
+											.equals(
+													sortKeyLayout)
+															? set
+																	.entryLexRange(
+																			null,
+																			null)
+															: set
+																	.entryRange(
+																			Double.NEGATIVE_INFINITY,
+																			true,
+																			Double.POSITIVE_INFINITY,
+																			true);
 									final Iterator<ScoredEntry<GeoWaveRedisPersistedRow>> it = groupByRowAndSortByTime
 											.getLeft()
 													? RedisUtils
@@ -149,7 +169,7 @@ public class RedisReader<T> implements
 																		p.getLeft().getBytes(),
 																		RedisUtils
 																				.getSortKey(
-																						pr.getScore())))).iterator());
+																						pr)))).iterator());
 			}
 			return wrapResults(
 					Iterators
@@ -161,7 +181,9 @@ public class RedisReader<T> implements
 	}
 
 	private CloseableIterator<T> createIterator(
-			final RedissonClient client,final Compression compression, 
+			final RedissonClient client,
+			final Compression compression,
+			final SortKeyLayout sortKeyLayout,
 			final BaseReaderParams<T> readerParams,
 			final String namespace,
 			final Collection<SinglePartitionQueryRanges> ranges,
@@ -174,7 +196,9 @@ public class RedisReader<T> implements
 										readerParams.getAdapterIds()))
 				.map(
 						adapterId -> new BatchedRangeRead(
-								client,compression,
+								client,
+								compression,
+								sortKeyLayout,
 								RedisUtils
 										.getRowSetPrefix(
 												namespace,
@@ -226,6 +250,7 @@ public class RedisReader<T> implements
 	private CloseableIterator<T> createIteratorForRecordReader(
 			final RedissonClient client,
 			final Compression compression,
+			final SortKeyLayout sortKeyLayout,
 			final RecordReaderParams<T> recordReaderParams,
 			final String namespace ) {
 		final GeoWaveRowRange range = recordReaderParams.getRowRange();
@@ -243,6 +268,7 @@ public class RedisReader<T> implements
 		return createIterator(
 				client,
 				compression,
+				sortKeyLayout,
 				recordReaderParams,
 				namespace,
 				Collections.singleton(partitionRange),
@@ -8,6 +8,7 @@ import org.locationtech.geowave.core.store.adapter.PersistentAdapterStore;
 import org.locationtech.geowave.core.store.entities.GeoWaveRow;
 import org.locationtech.geowave.core.store.operations.RowDeleter;
 import org.locationtech.geowave.datastore.redis.config.RedisOptions.Compression;
+import org.locationtech.geowave.datastore.redis.config.RedisOptions.SortKeyLayout;
 import org.locationtech.geowave.datastore.redis.util.GeoWaveRedisPersistedRow;
 import org.locationtech.geowave.datastore.redis.util.GeoWaveRedisRow;
 import org.locationtech.geowave.datastore.redis.util.RedisScoredSetWrapper;
@@ -29,19 +30,23 @@ public class RedisRowDeleter implements
 							nameAndAdapterId));
 	private final RedissonClient client;
 	private final Compression compression;
+	private final SortKeyLayout sortKeyLayout;
 	private final PersistentAdapterStore adapterStore;
 	private final InternalAdapterStore internalAdapterStore;
 	private final String indexName;
 	private final String namespace;
 
 	public RedisRowDeleter(
-			final RedissonClient client,final Compression compression, 
+			final RedissonClient client,
+			final Compression compression,
+			final SortKeyLayout sortKeyLayout,
 			final PersistentAdapterStore adapterStore,
 			final InternalAdapterStore internalAdapterStore,
 			final String indexName,
 			final String namespace ) {
 		this.client = client;
 		this.compression = compression;
+		this.sortKeyLayout = sortKeyLayout;
 		this.adapterStore = adapterStore;
 		this.internalAdapterStore = internalAdapterStore;
 		this.indexName = indexName;
@@ -56,13 +61,17 @@ public class RedisRowDeleter implements
 			final Pair<String, Short> setNameAndAdapterId ) {
 		return RedisUtils
 				.getRowSet(
-						client,compression,
+						client,
+						compression,
+						sortKeyLayout,
 						setNameAndAdapterId.getLeft(),
 						RedisUtils
 								.isSortByTime(
 										adapterStore
 												.getAdapter(
-														setNameAndAdapterId.getRight())));
+														setNameAndAdapterId.getRight())),
+						RedisUtils.REDIS_DEFAULT_BATCH_WRITE_SIZE,
+						RedisUtils.REDIS_DEFAULT_MAX_CONCURRENT_WRITE_BATCHES);
 	}
 
 	@Override
@@ -7,6 +7,7 @@ import org.locationtech.geowave.core.store.entities.GeoWaveRow;
 import org.locationtech.geowave.core.store.entities.GeoWaveValue;
 import org.locationtech.geowave.core.store.operations.RowWriter;
 import org.locationtech.geowave.datastore.redis.config.RedisOptions.Compression;
+import org.locationtech.geowave.datastore.redis.config.RedisOptions.SortKeyLayout;
 import org.locationtech.geowave.datastore.redis.util.GeoWaveRedisPersistedRow;
 import org.locationtech.geowave.datastore.redis.util.GeoWaveRedisPersistedTimestampRow;
 import org.locationtech.geowave.datastore.redis.util.RedisScoredSetWrapper;
@@ -23,6 +24,7 @@ public class RedisWriter implements
 	private static ByteArray EMPTY_PARTITION_KEY = new ByteArray();
 	private final RedissonClient client;
 	private final Compression compression;
+	private final SortKeyLayout sortKeyLayout;
 	private final String setNamePrefix;
 	private final LoadingCache<ByteArray, RedisScoredSetWrapper<GeoWaveRedisPersistedRow>> setCache = Caffeine
 			.newBuilder()
@@ -30,6 +32,8 @@ public class RedisWriter implements
 					partitionKey -> getSet(
 							partitionKey.getBytes()));
 	boolean isTimestampRequired;
+	private final int batchWriteSize;
+	private final int maxConcurrentWriteBatches;
 
 	public RedisWriter(
 			final RedissonClient client, final Compression compression,
@@ -37,8 +41,33 @@ public class RedisWriter implements
 			final String typeName,
 			final String indexName,
 			final boolean isTimestampRequired ) {
+		this(
+				client,
+				compression,
+				namespace,
+				typeName,
+				indexName,
+				isTimestampRequired,
+				SortKeyLayout.SCORE,
+				RedisUtils.REDIS_DEFAULT_BATCH_WRITE_SIZE,
+				RedisUtils.REDIS_DEFAULT_MAX_CONCURRENT_WRITE_BATCHES);
+	}
+
+	public RedisWriter(
+			final RedissonClient client,
+			final Compression compression,
+			final String namespace,
+			final String typeName,
+			final String indexName,
+			final boolean isTimestampRequired,
+			final SortKeyLayout sortKeyLayout,
+			final int batchWriteSize,
+			final int maxConcurrentWriteBatches ) {
 		this.client = client;
 		this.compression = compression;
+		this.sortKeyLayout = sortKeyLayout;
+		this.batchWriteSize = batchWriteSize;
+		this.maxConcurrentWriteBatches = maxConcurrentWriteBatches;
 		setNamePrefix = RedisUtils
 				.getRowSetPrefix(
 						namespace,
@@ -51,10 +80,16 @@ public class RedisWriter implements
 			final byte[] partitionKey ) {
 		return RedisUtils
 				.getRowSet(
-						client,compression,
-						setNamePrefix,
-						partitionKey,
-						isTimestampRequired);
+						client,
+						compression,
+						sortKeyLayout,
+						RedisUtils
+								.getRowSetName(
+										setNamePrefix,
+										partitionKey),
+						isTimestampRequired,
+						batchWriteSize,
+						maxConcurrentWriteBatches);
 	}
 
 	@Override
@@ -77,23 +112,32 @@ public class RedisWriter implements
 			partitionKey = new ByteArray(
 					row.getPartitionKey());
 		}
+		final boolean isLex = SortKeyLayout.LEX.equals(
+				sortKeyLayout);
+		// with the lexicographic layout the sort key is part of the member and
+		// every score is the same
+		final double score = isLex ? 0 : RedisUtils.getScore(
+				row.getSortKey());
 		for (final GeoWaveValue value : row.getFieldValues()) {
+			final GeoWaveRedisPersistedRow persistedRow = isTimestampRequired ? new GeoWaveRedisPersistedTimestampRow(
+					(short) row.getNumberOfDuplicates(),
+					row.getDataId(),
+					value,
+					Instant.now())
+					: new GeoWaveRedisPersistedRow(
+							(short) row.getNumberOfDuplicates(),
+							row.getDataId(),
+							value);
+			if (isLex) {
+				persistedRow.setSortKey(
+						row.getSortKey());
+			}
 			setCache
 					.get(
 							partitionKey)
 					.add(
-							RedisUtils
-									.getScore(
-											row.getSortKey()),
-							isTimestampRequired ? new GeoWaveRedisPersistedTimestampRow(
-									(short) row.getNumberOfDuplicates(),
-									row.getDataId(),
-									value,
-									Instant.now())
-									: new GeoWaveRedisPersistedRow(
-											(short) row.getNumberOfDuplicates(),
-											row.getDataId(),
-											value));
+							score,
+							persistedRow);
 
 		}
 	}
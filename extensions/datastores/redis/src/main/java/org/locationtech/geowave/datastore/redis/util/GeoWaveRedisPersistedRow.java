@@ -9,6 +9,9 @@ public class GeoWaveRedisPersistedRow
 	private final short numDuplicates;
 	private final byte[] dataId;
 	private final GeoWaveValue value;
+	// only persisted with the lexicographic sort key layout, otherwise the
+	// sort key is derived from the score
+	private byte[] sortKey;
 
 	public GeoWaveRedisPersistedRow(
 			final short numDuplicates,
@@ -43,6 +46,15 @@ public class GeoWaveRedisPersistedRow
 		return value;
 	}
 
+	public byte[] getSortKey() {
+		return sortKey;
+	}
+
+	public void setSortKey(
+			final byte[] sortKey ) {
+		this.sortKey = sortKey;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -0,0 +1,150 @@
+package org.locationtech.geowave.datastore.redis.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.redisson.client.codec.BaseCodec;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.handler.State;
+import org.redisson.client.protocol.Decoder;
+import org.redisson.client.protocol.Encoder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+/**
+ * Encodes rows for the lexicographic sort key layout. Every member has the
+ * same score and starts with the full, uncompressed sort key, so Redis orders
+ * members by sort key and ZRANGEBYLEX can select a sort key range exactly on
+ * the server. The rest of the row is encoded with the wrapped (possibly
+ * compressed) row codec.
+ *
+ * Sort keys are escaped (0x00 is written as 0x00 0x01) and terminated with 0x00
+ * 0x00 so that a shorter sort key always orders before any longer sort key it
+ * prefixes, regardless of the row bytes that follow it.
+ *
+ * Raw byte arrays are written as-is so that range bounds can be passed as
+ * script arguments through this codec.
+ */
+public class GeoWaveRedisRowLexCodec extends
+		BaseCodec
+{
+	private static final byte ESCAPE = 0x00;
+	private static final byte ESCAPED_ZERO = 0x01;
+	private static final byte TERMINATOR = 0x00;
+
+	private final Codec rowCodec;
+
+	private final Decoder<Object> decoder = new Decoder<Object>() {
+		@Override
+		public Object decode(
+				final ByteBuf buf,
+				final State state )
+				throws IOException {
+			final ByteArrayOutputStream sortKey = new ByteArrayOutputStream();
+			while (buf.isReadable()) {
+				final byte b = buf.readByte();
+				if (b != ESCAPE) {
+					sortKey.write(b);
+				}
+				else if (buf.readByte() == ESCAPED_ZERO) {
+					sortKey.write(0);
+				}
+				else {
+					break;
+				}
+			}
+			final Object row = rowCodec.getValueDecoder().decode(
+					buf,
+					state);
+			if (row instanceof GeoWaveRedisPersistedRow) {
+				((GeoWaveRedisPersistedRow) row).setSortKey(sortKey.toByteArray());
+			}
+			return row;
+		}
+	};
+	private final Encoder encoder = new Encoder() {
+		@Override
+		public ByteBuf encode(
+				final Object in )
+				throws IOException {
+			if (in instanceof byte[]) {
+				return Unpooled.wrappedBuffer((byte[]) in);
+			}
+			if (in instanceof GeoWaveRedisPersistedRow) {
+				final byte[] sortKey = ((GeoWaveRedisPersistedRow) in).getSortKey();
+				if (sortKey == null) {
+					throw new IOException(
+							"Lexicographic layout requires a sort key");
+				}
+				final ByteBuf row = rowCodec.getValueEncoder().encode(
+						in);
+				try {
+					final byte[] encodedSortKey = encodeSortKey(
+							sortKey,
+							true);
+					final ByteBuf buf = ByteBufAllocator.DEFAULT.buffer(encodedSortKey.length + row.readableBytes());
+					buf.writeBytes(encodedSortKey);
+					buf.writeBytes(row);
+					return buf;
+				}
+				finally {
+					row.release();
+				}
+			}
+			throw new IOException(
+					"Encoder only supports GeoWaveRedisRow");
+		}
+	};
+
+	public GeoWaveRedisRowLexCodec(
+			final Codec rowCodec ) {
+		this.rowCodec = rowCodec;
+	}
+
+	/**
+	 * Escape a sort key so that it orders the same way as the raw sort key
+	 *
+	 * @param sortKey
+	 *            the raw sort key
+	 * @param terminate
+	 *            whether to append the terminator, stored rows are terminated
+	 *            while range bounds are not so that they also match longer sort
+	 *            keys they prefix
+	 * @return the escaped sort key
+	 */
+	public static byte[] encodeSortKey(
+			final byte[] sortKey,
+			final boolean terminate ) {
+		int zeros = 0;
+		for (final byte b : sortKey) {
+			if (b == 0) {
+				zeros++;
+			}
+		}
+		final byte[] retVal = new byte[sortKey.length + zeros + (terminate ? 2 : 0)];
+		int i = 0;
+		for (final byte b : sortKey) {
+			retVal[i++] = b;
+			if (b == 0) {
+				retVal[i++] = ESCAPED_ZERO;
+			}
+		}
+		if (terminate) {
+			retVal[i++] = ESCAPE;
+			retVal[i] = TERMINATOR;
+		}
+		return retVal;
+	}
+
+	@Override
+	public Decoder<Object> getValueDecoder() {
+		return decoder;
+	}
+
+	@Override
+	public Encoder getValueEncoder() {
+		return encoder;
+	}
+}
@@ -1,19 +1,32 @@
 package org.locationtech.geowave.datastore.redis.util;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
-import org.locationtech.geowave.datastore.redis.config.RedisOptions.Compression;
+import org.apache.commons.collections4.iterators.LazyIteratorChain;
 import org.redisson.api.BatchOptions;
 import org.redisson.api.RBatch;
 import org.redisson.api.RFuture;
 import org.redisson.api.RScoredSortedSet;
 import org.redisson.api.RScoredSortedSetAsync;
+import org.redisson.api.RScript;
+import org.redisson.api.RScript.Mode;
+import org.redisson.api.RScript.ReturnType;
 import org.redisson.api.RedissonClient;
 import org.redisson.client.codec.Codec;
 import org.redisson.client.protocol.ScoredEntry;
+import org.redisson.misc.RPromise;
+import org.redisson.misc.RedissonPromise;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,7 +36,15 @@ public class RedisScoredSetWrapper<V> implements
 		AutoCloseable
 {
 	private final static Logger LOGGER = LoggerFactory.getLogger(RedisScoredSetWrapper.class);
-	private static int BATCH_SIZE = 1000;
+	// ZRANGEBYLEX isn't exposed for arbitrary codecs so run it as a script,
+	// with an optional offset and count for pagination
+	private static final String LEX_RANGE_SCRIPT = "if ARGV[3] then "
+			+ "return redis.call('zrangebylex', KEYS[1], ARGV[1], ARGV[2], 'LIMIT', ARGV[3], ARGV[4]) "
+			+ "end return redis.call('zrangebylex', KEYS[1], ARGV[1], ARGV[2])";
+	private static final byte[] LEX_MIN = "-".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] LEX_MAX = "+".getBytes(StandardCharsets.US_ASCII);
+	private static final byte LEX_INCLUSIVE = '[';
+	private static final byte LEX_EXCLUSIVE = '(';
 	private RScoredSortedSetAsync<V> currentSetBatch;
 	private RScoredSortedSet<V> currentSet;
 	private RBatch currentBatch;
@@ -31,17 +52,40 @@ public class RedisScoredSetWrapper<V> implements
 	private final String setName;
 	private final Codec codec;
 	private int batchCmdCounter = 0;
-	private final static int MAX_CONCURRENT_WRITE = 100;
-	private final Semaphore writeSemaphore = new Semaphore(
-			MAX_CONCURRENT_WRITE);
+	private final int batchSize;
+	// bounds the window of batches that have been sent but not acknowledged
+	private final Semaphore writeSemaphore;
+	private final Set<RFuture<?>> inFlightBatches = ConcurrentHashMap.newKeySet();
+	private final AtomicReference<Throwable> writeFailure = new AtomicReference<>();
 
 	public RedisScoredSetWrapper(
 			final RedissonClient client,
 			final String setName,
 			final Codec codec ) {
+		this(
+				client,
+				setName,
+				codec,
+				RedisUtils.REDIS_DEFAULT_BATCH_WRITE_SIZE,
+				RedisUtils.REDIS_DEFAULT_MAX_CONCURRENT_WRITE_BATCHES);
+	}
+
+	public RedisScoredSetWrapper(
+			final RedissonClient client,
+			final String setName,
+			final Codec codec,
+			final int batchSize,
+			final int maxConcurrentBatches ) {
 		this.setName = setName;
 		this.client = client;
 		this.codec = codec;
+		this.batchSize = Math.max(
+				1,
+				batchSize);
+		writeSemaphore = new Semaphore(
+				Math.max(
+						1,
+						maxConcurrentBatches));
 	}
 
 	public boolean remove(
@@ -67,20 +111,13 @@ public class RedisScoredSetWrapper<V> implements
 		return currentSet;
 	}
 
-	@SuppressFBWarnings(justification = "This is intentional to avoid unnecessary sync")
 	private RScoredSortedSetAsync<V> getCurrentBatch() {
-		// avoid synchronization if unnecessary by checking for null outside
-		// synchronized block
 		if (currentSetBatch == null) {
-			synchronized (this) {
-				// check again within synchronized block
-				if (currentSetBatch == null) {
-					currentBatch = client.createBatch(BatchOptions.defaults());
-					currentSetBatch = currentBatch.getScoredSortedSet(
-							setName,
-							codec);
-				}
-			}
+			// the replies to adds are never read so don't send them back
+			currentBatch = client.createBatch(BatchOptions.defaults().skipResult());
+			currentSetBatch = currentBatch.getScoredSortedSet(
+					setName,
+					codec);
 		}
 		return currentSetBatch;
 	}
@@ -110,39 +147,223 @@ public class RedisScoredSetWrapper<V> implements
 		return currentResult.iterator();
 	}
 
-	public void add(
-			final double score,
-			final V object ) {
-		if (++batchCmdCounter > BATCH_SIZE) {
-			synchronized (this) {
-				// check again inside the synchronized block
-				if (batchCmdCounter > BATCH_SIZE) {
-					flush();
+	/**
+	 * Get the members of a set using the lexicographic sort key layout with a
+	 * sort key within the range, every entry has a score of 0
+	 *
+	 * @param startSortKey
+	 *            the inclusive start sort key, or null for no lower bound
+	 * @param endSortKeyExclusive
+	 *            the exclusive end sort key, or null for no upper bound
+	 * @return the entries within the range
+	 */
+	public Iterator<ScoredEntry<V>> entryLexRange(
+			final byte[] startSortKey,
+			final byte[] endSortKeyExclusive ) {
+		final byte[] start = getLexBound(
+				startSortKey,
+				LEX_INCLUSIVE,
+				LEX_MIN);
+		final byte[] end = getLexBound(
+				endSortKeyExclusive,
+				LEX_EXCLUSIVE,
+				LEX_MAX);
+		return new LazyIteratorChain<ScoredEntry<V>>() {
+			private int offset = 0;
+			private boolean hasMore = true;
+
+			@Override
+			protected Iterator<? extends ScoredEntry<V>> nextIterator(
+					final int count ) {
+				if (!hasMore) {
+					return null;
 				}
+				final List<V> page = getScript().eval(
+						setName,
+						Mode.READ_ONLY,
+						LEX_RANGE_SCRIPT,
+						ReturnType.MULTI,
+						Collections.singletonList(
+								setName),
+						start,
+						end,
+						Integer.toString(
+								offset).getBytes(
+										StandardCharsets.US_ASCII),
+						Integer.toString(
+								RedisUtils.MAX_ROWS_FOR_PAGINATION).getBytes(
+										StandardCharsets.US_ASCII));
+				offset += RedisUtils.MAX_ROWS_FOR_PAGINATION;
+				hasMore = page.size() >= RedisUtils.MAX_ROWS_FOR_PAGINATION;
+				return toEntries(
+						page).iterator();
 			}
+		};
+	}
+
+	/**
+	 * Asynchronously get every member of a set using the lexicographic sort key
+	 * layout with a sort key within the range
+	 *
+	 * @see #entryLexRange(byte[], byte[])
+	 */
+	public RFuture<Collection<ScoredEntry<V>>> entryLexRangeAsync(
+			final byte[] startSortKey,
+			final byte[] endSortKeyExclusive ) {
+		final RFuture<List<V>> f = getScript().evalAsync(
+				setName,
+				Mode.READ_ONLY,
+				LEX_RANGE_SCRIPT,
+				ReturnType.MULTI,
+				Collections.singletonList(
+						setName),
+				getLexBound(
+						startSortKey,
+						LEX_INCLUSIVE,
+						LEX_MIN),
+				getLexBound(
+						endSortKeyExclusive,
+						LEX_EXCLUSIVE,
+						LEX_MAX));
+		final RPromise<Collection<ScoredEntry<V>>> result = new RedissonPromise<Collection<ScoredEntry<V>>>() {
+			@Override
+			public boolean cancel(
+					final boolean mayInterruptIfRunning ) {
+				f.cancel(
+						mayInterruptIfRunning);
+				return super.cancel(
+						mayInterruptIfRunning);
+			}
+		};
+		f.whenComplete(
+				(
+						r,
+						t ) -> {
+					if (t != null) {
+						result.tryFailure(
+								t);
+					}
+					else {
+						result.trySuccess(
+								toEntries(
+										r));
+					}
+				});
+		return result;
+	}
+
+	private RScript getScript() {
+		return client.getScript(
+				codec);
+	}
+
+	private static byte[] getLexBound(
+			final byte[] sortKey,
+			final byte prefix,
+			final byte[] unbounded ) {
+		if (sortKey == null) {
+			return unbounded;
 		}
+		final byte[] encodedSortKey = GeoWaveRedisRowLexCodec.encodeSortKey(
+				sortKey,
+				false);
+		final byte[] retVal = new byte[encodedSortKey.length + 1];
+		retVal[0] = prefix;
+		System.arraycopy(
+				encodedSortKey,
+				0,
+				retVal,
+				1,
+				encodedSortKey.length);
+		return retVal;
+	}
+
+	private static <V> Collection<ScoredEntry<V>> toEntries(
+			final List<V> members ) {
+		return members.stream().map(
+				v -> new ScoredEntry<>(
+						0.0,
+						v)).collect(
+								Collectors.toList());
+	}
+
+	public synchronized void add(
+			final double score,
+			final V object ) {
 		getCurrentBatch().addAsync(
 				score,
 				object);
+		if (++batchCmdCounter >= batchSize) {
+			sendBatch();
+		}
 	}
 
-	public void flush() {
+	/**
+	 * Pipeline the pending adds as one batch without waiting for the reply,
+	 * blocking only when the maximum number of batches are already in flight.
+	 * If interrupted while blocked the adds stay pending and the interruption
+	 * is thrown as a write failure.
+	 */
+	private synchronized void sendBatch() {
+		final RBatch flushBatch = currentBatch;
+		if (flushBatch == null) {
+			return;
+		}
+		try {
+			writeSemaphore.acquire();
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(
+					"Interrupted while sending batched writes to '" + setName + "'",
+					e);
+		}
 		batchCmdCounter = 0;
-		final RBatch flushBatch = this.currentBatch;
 		currentSetBatch = null;
 		currentBatch = null;
-		try {
-			writeSemaphore.acquire();
-			flushBatch.executeAsync().handle((r, t) -> {
-				writeSemaphore.release();
-				if ((t != null) && !(t instanceof CancellationException)) {
-					LOGGER.error("Exception in batched write", t);
-				}
-				return r;
-			});
-		} catch (final InterruptedException e) {
-			LOGGER.warn("async batch write semaphore interrupted", e);
-			writeSemaphore.release();
+		final RFuture<?> f = flushBatch.executeAsync();
+		inFlightBatches.add(f);
+		f.whenComplete(
+				(
+						r,
+						t ) -> {
+					inFlightBatches.remove(f);
+					writeSemaphore.release();
+					if ((t != null) && !(t instanceof CancellationException)) {
+						LOGGER.error(
+								"Exception in batched write",
+								t);
+						writeFailure.compareAndSet(
+								null,
+								t);
+					}
+				});
+	}
+
+	/**
+	 * Send any pending adds and wait for the batches that are in flight to be
+	 * acknowledged, batches sent by other writers after this call are not
+	 * waited for. Throws the first batch that failed since the last flush.
+	 */
+	public void flush() {
+		sendBatch();
+		for (final RFuture<?> f : new ArrayList<>(
+				inFlightBatches)) {
+			try {
+				f.await();
+			}
+			catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(
+						"Interrupted while waiting for batched writes to '" + setName + "'",
+						e);
+			}
+		}
+		final Throwable t = writeFailure.getAndSet(null);
+		if (t != null) {
+			throw new RuntimeException(
+					"Unable to write batched entries to '" + setName + "'",
+					t);
 		}
 	}
 
@@ -150,10 +371,6 @@ public class RedisScoredSetWrapper<V> implements
 	public void close()
 			throws Exception {
 		flush();
-		// need to wait for all asynchronous batches to finish writing
-		// before exiting close() method
-		writeSemaphore.acquire(MAX_CONCURRENT_WRITE);
-		writeSemaphore.release(MAX_CONCURRENT_WRITE);
 	}
 
 	public RFuture<Collection<ScoredEntry<V>>> entryRangeAsync(
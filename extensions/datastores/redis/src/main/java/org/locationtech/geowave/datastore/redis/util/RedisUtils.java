@@ -7,6 +7,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.locationtech.geowave.core.index.ByteArray;
@@ -18,9 +19,15 @@ import org.locationtech.geowave.core.store.entities.GeoWaveRow;
 import org.locationtech.geowave.core.store.operations.BaseReaderParams;
 import org.locationtech.geowave.core.store.operations.MetadataType;
 import org.locationtech.geowave.datastore.redis.config.RedisOptions.Compression;
+import org.locationtech.geowave.datastore.redis.config.RedisOptions.SortKeyLayout;
+import org.redisson.api.RBucket;
 import org.redisson.api.RScoredSortedSet;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.codec.StringCodec;
 import org.redisson.client.protocol.ScoredEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.MultimapBuilder;
@@ -30,9 +37,14 @@ import com.google.common.primitives.UnsignedBytes;
 
 public class RedisUtils
 {
+	private static final Logger LOGGER = LoggerFactory.getLogger(RedisUtils.class);
+	private static final String KEY_DELIMITER = "_";
+	private static final String SORT_KEY_LAYOUT_SUFFIX = KEY_DELIMITER + "sortKeyLayout";
 	protected static final int MAX_ROWS_FOR_PAGINATION = 1000000;
 	public static int REDIS_DEFAULT_MAX_RANGE_DECOMPOSITION = 250;
 	public static int REDIS_DEFAULT_AGGREGATION_MAX_RANGE_DECOMPOSITION = 250;
+	public static int REDIS_DEFAULT_BATCH_WRITE_SIZE = 1000;
+	public static int REDIS_DEFAULT_MAX_CONCURRENT_WRITE_BATCHES = 100;
 
 	public static RScoredSortedSet<GeoWaveMetadata> getMetadataSet(
 			final RedissonClient client,
@@ -44,7 +56,7 @@ public class RedisUtils
 		// exactly the same count, but need to be merged)
 		return client
 				.getScoredSortedSet(
-						namespace + "_" + metadataType.toString(),
+						namespace + KEY_DELIMITER + metadataType.toString(),
 						compression.getCodec(MetadataType.STATS.equals(metadataType) ? GeoWaveMetadataWithTimestampCodec.SINGLETON
 								: GeoWaveMetadataCodec.SINGLETON));
 	}
@@ -53,7 +65,57 @@ public class RedisUtils
 			final String namespace,
 			final String typeName,
 			final String indexName ) {
-		return namespace + "_" + typeName + "_" + indexName;
+		return namespace + KEY_DELIMITER + typeName + KEY_DELIMITER + indexName;
+	}
+
+	private static String escapeGlob(
+			final String str ) {
+		final StringBuilder sb = new StringBuilder();
+		for (final char c : str.toCharArray()) {
+			if ((c == '*') || (c == '?') || (c == '[') || (c == ']') || (c == '\\')) {
+				sb.append('\\');
+			}
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Get every key that is the given prefix or that continues it after the
+	 * key delimiter, so index "idx" doesn't list the keys of index "idx2". A
+	 * name containing the delimiter can still share the keys of another name,
+	 * such as namespaces "ns" and "ns_2", as it always could.
+	 */
+	public static Stream<String> getKeysWithPrefix(
+			final RedissonClient client,
+			final String keyPrefix ) {
+		return Streams
+				.stream(
+						client
+								.getKeys()
+								.getKeysByPattern(
+										escapeGlob(keyPrefix) + "*"))
+				.filter(
+						k -> hasKeyPrefix(
+								k,
+								keyPrefix));
+	}
+
+	static boolean hasKeyPrefix(
+			final String key,
+			final String keyPrefix ) {
+		return key.equals(keyPrefix) || key.startsWith(keyPrefix + KEY_DELIMITER);
+	}
+
+	/**
+	 * Get every key of a namespace
+	 */
+	public static Stream<String> getNamespaceKeys(
+			final RedissonClient client,
+			final String namespace ) {
+		return getKeysWithPrefix(
+				client,
+				namespace);
 	}
 
 	public static RedisScoredSetWrapper<GeoWaveRedisPersistedRow> getRowSet(
@@ -90,7 +152,7 @@ public class RedisUtils
 			final byte[] partitionKey ) {
 		String partitionStr;
 		if ((partitionKey != null) && (partitionKey.length > 0)) {
-			partitionStr = "_" + ByteArrayUtils.byteArrayToString(partitionKey);
+			partitionStr = KEY_DELIMITER + ByteArrayUtils.byteArrayToString(partitionKey);
 		}
 		else {
 			partitionStr = "";
@@ -103,14 +165,110 @@ public class RedisUtils
 			Compression compression,
 			final String setName,
 			final boolean requiresTimestamp ) {
+		return getRowSet(
+				client,
+				compression,
+				setName,
+				requiresTimestamp,
+				REDIS_DEFAULT_BATCH_WRITE_SIZE,
+				REDIS_DEFAULT_MAX_CONCURRENT_WRITE_BATCHES);
+	}
+
+	public static RedisScoredSetWrapper<GeoWaveRedisPersistedRow> getRowSet(
+			final RedissonClient client,
+			Compression compression,
+			final String setName,
+			final boolean requiresTimestamp,
+			final int batchWriteSize,
+			final int maxConcurrentWriteBatches ) {
+		return getRowSet(
+				client,
+				compression,
+				SortKeyLayout.SCORE,
+				setName,
+				requiresTimestamp,
+				batchWriteSize,
+				maxConcurrentWriteBatches);
+	}
+
+	public static RedisScoredSetWrapper<GeoWaveRedisPersistedRow> getRowSet(
+			final RedissonClient client,
+			final Compression compression,
+			final SortKeyLayout sortKeyLayout,
+			final String setName,
+			final boolean requiresTimestamp,
+			final int batchWriteSize,
+			final int maxConcurrentWriteBatches ) {
+		final Codec rowCodec = compression.getCodec(requiresTimestamp ? GeoWaveRedisRowWithTimestampCodec.SINGLETON
+				: GeoWaveRedisRowCodec.SINGLETON);
 		return new RedisScoredSetWrapper<>(
 				client,
 				setName,
-				compression.getCodec(requiresTimestamp ? GeoWaveRedisRowWithTimestampCodec.SINGLETON
-						: GeoWaveRedisRowCodec.SINGLETON));
+				SortKeyLayout.LEX.equals(sortKeyLayout) ? new GeoWaveRedisRowLexCodec(
+						rowCodec) : rowCodec,
+				batchWriteSize,
+				maxConcurrentWriteBatches);
 
 	}
 
+	public static RedisScoredSetWrapper<GeoWaveRedisPersistedRow> getRowSet(
+			final RedissonClient client,
+			final Compression compression,
+			final SortKeyLayout sortKeyLayout,
+			final String setNamePrefix,
+			final byte[] partitionKey,
+			final boolean requiresTimestamp ) {
+		return getRowSet(
+				client,
+				compression,
+				sortKeyLayout,
+				getRowSetName(
+						setNamePrefix,
+						partitionKey),
+				requiresTimestamp,
+				REDIS_DEFAULT_BATCH_WRITE_SIZE,
+				REDIS_DEFAULT_MAX_CONCURRENT_WRITE_BATCHES);
+	}
+
+	/**
+	 * Get the sort key layout of a namespace. The layout is recorded the first
+	 * time a namespace is used so that it can't change underneath existing
+	 * data, and a namespace that already has data without a recorded layout
+	 * predates the lexicographic layout so it uses scores. To move existing
+	 * data to a different layout, copy it into a new namespace configured with
+	 * that layout.
+	 */
+	public static SortKeyLayout resolveSortKeyLayout(
+			final RedissonClient client,
+			final String namespace,
+			final SortKeyLayout requestedLayout ) {
+		final RBucket<String> layoutBucket = client
+				.getBucket(
+						namespace + SORT_KEY_LAYOUT_SUFFIX,
+						StringCodec.INSTANCE);
+		String recordedLayout = layoutBucket.get();
+		if (recordedLayout == null) {
+			final boolean hasData = getNamespaceKeys(
+					client,
+					namespace).findAny().isPresent();
+			layoutBucket
+					.trySet(
+							hasData ? SortKeyLayout.SCORE.name() : requestedLayout.name());
+			recordedLayout = layoutBucket.get();
+		}
+		final SortKeyLayout layout = SortKeyLayout
+				.valueOf(
+						recordedLayout);
+		if (!layout.equals(
+				requestedLayout)) {
+			LOGGER
+					.warn(
+							"Namespace '" + namespace + "' uses the " + layout + " sort key layout, ignoring the configured "
+									+ requestedLayout + " layout");
+		}
+		return layout;
+	}
+
 	public static RedisScoredSetWrapper<GeoWaveRedisPersistedRow> getRowSet(
 			final RedissonClient client,
 			Compression compression,
@@ -140,6 +298,16 @@ public class RedisUtils
 		return longToBytes((long) score);
 	}
 
+	public static byte[] getSortKey(
+			final ScoredEntry<GeoWaveRedisPersistedRow> entry ) {
+		// the lexicographic layout keeps the full sort key with the row
+		final byte[] sortKey = entry.getValue().getSortKey();
+		if (sortKey != null) {
+			return sortKey;
+		}
+		return getSortKey(entry.getScore());
+	}
+
 	private static byte[] longToBytes(
 			long val ) {
 
@@ -182,12 +350,9 @@ public class RedisUtils
 	public static Set<ByteArray> getPartitions(
 			final RedissonClient client,
 			final String setNamePrefix ) {
-		return Streams
-				.stream(
-						client
-								.getKeys()
-								.getKeysByPattern(
-										setNamePrefix + "*"))
+		return getKeysWithPrefix(
+				client,
+				setNamePrefix)
 				.map(
 						str -> str.length() > (setNamePrefix.length() + 1) ? new ByteArray(
 								ByteArrayUtils
@@ -219,7 +384,7 @@ public class RedisUtils
 	public static Iterator<ScoredEntry<GeoWaveRedisPersistedRow>> groupByRow(
 			final Iterator<ScoredEntry<GeoWaveRedisPersistedRow>> result,
 			final boolean sortByTime ) {
-		final ListMultimap<Pair<Double, ByteArray>, ScoredEntry<GeoWaveRedisPersistedRow>> multimap = MultimapBuilder
+		final ListMultimap<Pair<ByteArray, ByteArray>, ScoredEntry<GeoWaveRedisPersistedRow>> multimap = MultimapBuilder
 				.hashKeys()
 				.arrayListValues()
 				.build();
@@ -229,7 +394,8 @@ public class RedisUtils
 								.put(
 										Pair
 												.of(
-														r.getScore(),
+														new ByteArray(
+																getSortKey(r)),
 														new ByteArray(
 																r.getValue().getDataId())),
 										r));
@@ -0,0 +1,220 @@
+package org.locationtech.geowave.datastore.redis.operations;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.locationtech.geowave.core.index.ByteArray;
+import org.locationtech.geowave.core.index.ByteArrayRange;
+import org.locationtech.geowave.core.index.SinglePartitionQueryRanges;
+import org.locationtech.geowave.core.store.CloseableIterator;
+import org.locationtech.geowave.core.store.entities.GeoWaveKeyImpl;
+import org.locationtech.geowave.core.store.entities.GeoWaveRow;
+import org.locationtech.geowave.core.store.entities.GeoWaveRowImpl;
+import org.locationtech.geowave.core.store.entities.GeoWaveRowIteratorTransformer;
+import org.locationtech.geowave.core.store.entities.GeoWaveValue;
+import org.locationtech.geowave.core.store.entities.GeoWaveValueImpl;
+import org.locationtech.geowave.datastore.redis.config.RedisOptions.Compression;
+import org.locationtech.geowave.datastore.redis.config.RedisOptions.SortKeyLayout;
+import org.locationtech.geowave.datastore.redis.util.RedisUtils;
+import org.locationtech.geowave.datastore.redis.util.RedissonClientCache;
+import org.redisson.api.RedissonClient;
+
+import com.google.common.primitives.UnsignedBytes;
+
+import redis.embedded.RedisServer;
+
+/**
+ * Compares the bytes Redis sends per range query for the score and
+ * lexicographic sort key layouts. Rows are written with random 16 byte sort
+ * keys, which is more precision than a score can hold, and the same narrow
+ * range queries are run against both layouts. The number of bytes sent is read
+ * from the server's total_net_output_bytes statistic and the rows returned are
+ * compared with the rows that actually fall within each range.
+ *
+ * This is not run as part of the test suite, run the main method directly.
+ */
+public class RedisSortKeyLayoutBenchmark
+{
+	private static final int PORT = 6385;
+	private static final String ADDRESS = "redis://127.0.0.1:" + PORT;
+	private static final int NUM_ROWS = 200000;
+	private static final int NUM_QUERIES = 200;
+	private static final int SORT_KEY_LENGTH = 16;
+	private static final int VALUE_LENGTH = 64;
+	// every query spans roughly this many rows
+	private static final int ROWS_PER_QUERY = 10;
+	private static final short ADAPTER_ID = 0;
+	private static final String TYPE_NAME = "type";
+	private static final String INDEX_NAME = "index";
+	private static final long SEED = 3487923489723L;
+
+	public static void main(
+			final String[] args )
+			throws Exception {
+		final RedisServer server = new RedisServer(
+				PORT);
+		server.start();
+		try {
+			final RedissonClient client = RedissonClientCache.getInstance().getClient(
+					ADDRESS);
+			final Random rand = new Random(
+					SEED);
+			final List<byte[]> sortKeys = new ArrayList<>();
+			for (int i = 0; i < NUM_ROWS; i++) {
+				final byte[] sortKey = new byte[SORT_KEY_LENGTH];
+				rand.nextBytes(sortKey);
+				sortKeys.add(sortKey);
+			}
+			final List<ByteArrayRange> queries = new ArrayList<>();
+			final List<byte[]> sorted = new ArrayList<>(
+					sortKeys);
+			Collections.sort(
+					sorted,
+					UnsignedBytes.lexicographicalComparator());
+			for (int i = 0; i < NUM_QUERIES; i++) {
+				final int start = rand.nextInt(NUM_ROWS - ROWS_PER_QUERY);
+				queries.add(new ByteArrayRange(
+						new ByteArray(
+								sorted.get(start)),
+						new ByteArray(
+								sorted.get((start + ROWS_PER_QUERY) - 1))));
+			}
+			for (final SortKeyLayout layout : SortKeyLayout.values()) {
+				run(
+						client,
+						layout,
+						sortKeys,
+						queries);
+			}
+			client.shutdown();
+		}
+		finally {
+			server.stop();
+		}
+	}
+
+	private static void run(
+			final RedissonClient client,
+			final SortKeyLayout layout,
+			final List<byte[]> sortKeys,
+			final List<ByteArrayRange> queries )
+			throws Exception {
+		final String namespace = "benchmark_" + layout.name().toLowerCase();
+		try (RedisWriter writer = new RedisWriter(
+				client,
+				Compression.NONE,
+				namespace,
+				TYPE_NAME,
+				INDEX_NAME,
+				false,
+				layout,
+				RedisUtils.REDIS_DEFAULT_BATCH_WRITE_SIZE,
+				RedisUtils.REDIS_DEFAULT_MAX_CONCURRENT_WRITE_BATCHES)) {
+			final byte[] value = new byte[VALUE_LENGTH];
+			int i = 0;
+			for (final byte[] sortKey : sortKeys) {
+				writer.write(new GeoWaveRowImpl(
+						new GeoWaveKeyImpl(
+								Integer.toString(
+										i++).getBytes(
+												StandardCharsets.UTF_8),
+								ADAPTER_ID,
+								new byte[0],
+								sortKey,
+								0),
+						new GeoWaveValue[] {
+							new GeoWaveValueImpl(
+									new byte[] {
+										1
+									},
+									new byte[0],
+									value)
+						}));
+			}
+		}
+		long rowsReturned = 0;
+		long rowsInRange = 0;
+		final long startBytes = getNetOutputBytes();
+		final long startTime = System.currentTimeMillis();
+		for (final ByteArrayRange query : queries) {
+			final BatchedRangeRead<GeoWaveRow> read = new BatchedRangeRead<>(
+					client,
+					Compression.NONE,
+					layout,
+					RedisUtils.getRowSetPrefix(
+							namespace,
+							TYPE_NAME,
+							INDEX_NAME),
+					ADAPTER_ID,
+					Collections.singleton(new SinglePartitionQueryRanges(
+							new ByteArray(),
+							Collections.singleton(query))),
+					GeoWaveRowIteratorTransformer.NO_OP_TRANSFORMER,
+					r -> true,
+					false,
+					Pair.of(
+							false,
+							false),
+					false);
+			try (CloseableIterator<GeoWaveRow> it = read.results()) {
+				while (it.hasNext()) {
+					final GeoWaveRow row = it.next();
+					rowsReturned++;
+					if (query.getStart().compareTo(
+							new ByteArray(
+									row.getSortKey())) <= 0 && query.getEndAsNextPrefix().compareTo(
+											new ByteArray(
+													row.getSortKey())) > 0) {
+						rowsInRange++;
+					}
+				}
+			}
+		}
+		final long elapsed = System.currentTimeMillis() - startTime;
+		final long bytes = getNetOutputBytes() - startBytes;
+		System.out.println(String.format(
+				"%-6s %,d queries: %,d bytes sent (%,d per query), %,d rows returned, %,d rows in range, %,d ms",
+				layout,
+				queries.size(),
+				bytes,
+				bytes / queries.size(),
+				rowsReturned,
+				rowsInRange,
+				elapsed));
+	}
+
+	private static long getNetOutputBytes()
+			throws IOException {
+		// read the statistic over a separate plain connection, its own reply is
+		// counted too but it is small and the same for each layout
+		try (Socket socket = new Socket(
+				"127.0.0.1",
+				PORT)) {
+			final OutputStream out = socket.getOutputStream();
+			out.write("INFO stats\r\n".getBytes(StandardCharsets.US_ASCII));
+			out.flush();
+			final BufferedReader in = new BufferedReader(
+					new InputStreamReader(
+							socket.getInputStream(),
+							StandardCharsets.US_ASCII));
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.startsWith("total_net_output_bytes:")) {
+					return Long.parseLong(line.substring(
+							"total_net_output_bytes:".length()).trim());
+				}
+			}
+		}
+		throw new IOException(
+				"Unable to read total_net_output_bytes");
+	}
+}
@@ -0,0 +1,180 @@
+package org.locationtech.geowave.datastore.redis.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.locationtech.geowave.core.store.entities.GeoWaveValueImpl;
+import org.locationtech.geowave.datastore.redis.config.RedisOptions.Compression;
+
+import com.google.common.primitives.UnsignedBytes;
+
+import io.netty.buffer.ByteBuf;
+
+public class GeoWaveRedisRowLexCodecTest
+{
+	private static final int NUM_ROWS = 1000;
+	private static final long SEED = 4203942983798239L;
+
+	private final GeoWaveRedisRowLexCodec codec = new GeoWaveRedisRowLexCodec(
+			Compression.NONE.getCodec(
+					GeoWaveRedisRowCodec.SINGLETON));
+
+	@Test
+	public void testRoundTrip()
+			throws Exception {
+		final Random rand = new Random(
+				SEED);
+		for (int i = 0; i < NUM_ROWS; i++) {
+			final GeoWaveRedisPersistedRow row = randomRow(
+					rand);
+			final ByteBuf buf = codec.getValueEncoder().encode(
+					row);
+			try {
+				final GeoWaveRedisPersistedRow decoded = (GeoWaveRedisPersistedRow) codec.getValueDecoder().decode(
+						buf,
+						null);
+				Assert.assertArrayEquals(
+						row.getSortKey(),
+						decoded.getSortKey());
+				Assert.assertArrayEquals(
+						row.getDataId(),
+						decoded.getDataId());
+				Assert.assertArrayEquals(
+						row.getValue(),
+						decoded.getValue());
+				Assert.assertEquals(
+						row.getNumDuplicates(),
+						decoded.getNumDuplicates());
+			}
+			finally {
+				buf.release();
+			}
+		}
+	}
+
+	@Test
+	public void testEncodedOrderMatchesSortKeyOrder()
+			throws Exception {
+		final Random rand = new Random(
+				SEED);
+		final List<GeoWaveRedisPersistedRow> rows = new ArrayList<>();
+		final List<byte[]> encoded = new ArrayList<>();
+		for (int i = 0; i < NUM_ROWS; i++) {
+			final GeoWaveRedisPersistedRow row = randomRow(
+					rand);
+			rows.add(row);
+			final ByteBuf buf = codec.getValueEncoder().encode(
+					row);
+			final byte[] bytes = new byte[buf.readableBytes()];
+			buf.readBytes(bytes);
+			buf.release();
+			encoded.add(bytes);
+		}
+		for (int i = 1; i < NUM_ROWS; i++) {
+			final int sortKeyComp = UnsignedBytes.lexicographicalComparator().compare(
+					rows.get(
+							i - 1).getSortKey(),
+					rows.get(
+							i).getSortKey());
+			if (sortKeyComp == 0) {
+				continue;
+			}
+			final int encodedComp = UnsignedBytes.lexicographicalComparator().compare(
+					encoded.get(
+							i - 1),
+					encoded.get(
+							i));
+			Assert.assertEquals(
+					Integer.signum(sortKeyComp),
+					Integer.signum(encodedComp));
+		}
+	}
+
+	@Test
+	public void testRangeBoundsMatchSortKeys()
+			throws Exception {
+		final Random rand = new Random(
+				SEED);
+		final List<byte[]> sortKeys = new ArrayList<>();
+		for (int i = 0; i < NUM_ROWS; i++) {
+			sortKeys.add(randomSortKey(rand));
+		}
+		Collections.sort(
+				sortKeys,
+				UnsignedBytes.lexicographicalComparator());
+		final byte[] start = sortKeys.get(NUM_ROWS / 4);
+		final byte[] end = sortKeys.get((3 * NUM_ROWS) / 4);
+		final byte[] startBound = GeoWaveRedisRowLexCodec.encodeSortKey(
+				start,
+				false);
+		final byte[] endBound = GeoWaveRedisRowLexCodec.encodeSortKey(
+				end,
+				false);
+		for (final byte[] sortKey : sortKeys) {
+			final ByteBuf buf = codec.getValueEncoder().encode(
+					row(
+							sortKey,
+							new byte[] {
+								(byte) 0xFF
+							}));
+			final byte[] member = new byte[buf.readableBytes()];
+			buf.readBytes(member);
+			buf.release();
+			// ZRANGEBYLEX [start (end
+			final boolean inLexRange = (UnsignedBytes.lexicographicalComparator().compare(
+					member,
+					startBound) >= 0)
+					&& (UnsignedBytes.lexicographicalComparator().compare(
+							member,
+							endBound) < 0);
+			final boolean inSortKeyRange = (UnsignedBytes.lexicographicalComparator().compare(
+					sortKey,
+					start) >= 0)
+					&& (UnsignedBytes.lexicographicalComparator().compare(
+							sortKey,
+							end) < 0);
+			Assert.assertEquals(
+					inSortKeyRange,
+					inLexRange);
+		}
+	}
+
+	private static GeoWaveRedisPersistedRow randomRow(
+			final Random rand ) {
+		final byte[] dataId = new byte[1 + rand.nextInt(16)];
+		rand.nextBytes(dataId);
+		return row(
+				randomSortKey(rand),
+				dataId);
+	}
+
+	private static GeoWaveRedisPersistedRow row(
+			final byte[] sortKey,
+			final byte[] dataId ) {
+		final GeoWaveRedisPersistedRow row = new GeoWaveRedisPersistedRow(
+				(short) 0,
+				dataId,
+				new GeoWaveValueImpl(
+						new byte[] {
+							1
+						},
+						new byte[] {},
+						dataId));
+		row.setSortKey(sortKey);
+		return row;
+	}
+
+	private static byte[] randomSortKey(
+			final Random rand ) {
+		// variable lengths and frequent zero bytes exercise the escaping
+		final byte[] sortKey = new byte[rand.nextInt(10)];
+		for (int i = 0; i < sortKey.length; i++) {
+			sortKey[i] = rand.nextBoolean() ? 0 : (byte) rand.nextInt(256);
+		}
+		return sortKey;
+	}
+}
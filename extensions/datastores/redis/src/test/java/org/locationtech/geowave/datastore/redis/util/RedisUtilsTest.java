@@ -16,6 +16,40 @@ public class RedisUtilsTest
 	private static final int NUM_TRANSFORMS = 5;
 	private static final long SEED = 2894647323275155231L;
 
+	@Test
+	public void testKeyPrefixes() {
+		final String prefix = RedisUtils.getRowSetPrefix(
+				"ns",
+				"type",
+				"idx");
+		// the key layout of existing stores is unchanged
+		assertEquals(
+				"ns_type_idx",
+				prefix);
+		Assert.assertTrue(RedisUtils.hasKeyPrefix(
+				prefix,
+				prefix));
+		Assert.assertTrue(RedisUtils.hasKeyPrefix(
+				RedisUtils.getRowSetName(
+						prefix,
+						new byte[] {
+							1
+						}),
+				prefix));
+		Assert.assertFalse(RedisUtils.hasKeyPrefix(
+				RedisUtils.getRowSetPrefix(
+						"ns",
+						"type",
+						"idx2"),
+				prefix));
+		Assert.assertFalse(RedisUtils.hasKeyPrefix(
+				RedisUtils.getRowSetPrefix(
+						"ns2",
+						"type",
+						"idx"),
+				"ns"));
+	}
+
 	@Test
 	public void testSortKeyTransform() {
 		final Random rand = new Random(
@@ -15,6 +15,16 @@ public class RocksDBOptions extends
 {
 	@Parameter(names = "--directory", description = "The directory to read/write to.  Defaults to \"rocksdb\" in the working directory.")
 	private String directory = "rocksdb";
+	@Parameter(names = "--batchWriteSize", arity = 1, description = "The number of rows buffered per table before they are committed as a single write batch, 1 commits each row as it is written.  Defaults to 1000.")
+	private int batchWriteSize = RocksDBUtils.ROCKSDB_DEFAULT_BATCH_WRITE_SIZE;
+	@Parameter(names = "--walEnabled", arity = 1, description = "Whether writes are recorded in the write-ahead log.  Disabling it speeds up bulk loads but writes that have not been flushed are lost on a crash.  Defaults to true.")
+	private boolean walEnabled = true;
+	@Parameter(names = "--useColumnFamilies", arity = 1, description = "Store every index table as a column family of a single database, with the partition key as a key prefix, rather than one database per type, index and partition.  Defaults to false.")
+	private boolean useColumnFamilies = false;
+	@Parameter(names = "--blockCacheSizeMB", arity = 1, description = "The size in megabytes of the block cache shared by all column families.  Only used with --useColumnFamilies.  Defaults to 256.")
+	private long blockCacheSizeMB = RocksDBUtils.ROCKSDB_DEFAULT_BLOCK_CACHE_SIZE_MB;
+	@Parameter(names = "--writeBufferSizeMB", arity = 1, description = "The total size in megabytes of the memtables of all column families.  Only used with --useColumnFamilies.  Defaults to 128.")
+	private long writeBufferSizeMB = RocksDBUtils.ROCKSDB_DEFAULT_WRITE_BUFFER_SIZE_MB;
 	@ParametersDelegate
 	protected BaseDataStoreOptions baseOptions = new BaseDataStoreOptions() {
 		@Override
@@ -52,6 +62,51 @@ public class RocksDBOptions extends
 		return directory;
 	}
 
+	public void setBatchWriteSize(
+			final int batchWriteSize ) {
+		this.batchWriteSize = batchWriteSize;
+	}
+
+	public int getBatchWriteSize() {
+		return batchWriteSize;
+	}
+
+	public void setWalEnabled(
+			final boolean walEnabled ) {
+		this.walEnabled = walEnabled;
+	}
+
+	public boolean isWalEnabled() {
+		return walEnabled;
+	}
+
+	public void setUseColumnFamilies(
+			final boolean useColumnFamilies ) {
+		this.useColumnFamilies = useColumnFamilies;
+	}
+
+	public boolean isUseColumnFamilies() {
+		return useColumnFamilies;
+	}
+
+	public void setBlockCacheSizeMB(
+			final long blockCacheSizeMB ) {
+		this.blockCacheSizeMB = blockCacheSizeMB;
+	}
+
+	public long getBlockCacheSizeMB() {
+		return blockCacheSizeMB;
+	}
+
+	public void setWriteBufferSizeMB(
+			final long writeBufferSizeMB ) {
+		this.writeBufferSizeMB = writeBufferSizeMB;
+	}
+
+	public long getWriteBufferSizeMB() {
+		return writeBufferSizeMB;
+	}
+
 	@Override
 	public StoreFactoryFamilySpi getStoreFactory() {
 		return new RocksDBStoreFactoryFamily();
@@ -10,12 +10,25 @@
  ******************************************************************************/
 package org.locationtech.geowave.datastore.rocksdb.operations;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.locationtech.geowave.core.index.ByteArray;
@@ -26,6 +39,7 @@ import org.locationtech.geowave.core.store.CloseableIteratorWrapper;
 import org.locationtech.geowave.core.store.entities.GeoWaveRow;
 import org.locationtech.geowave.core.store.entities.GeoWaveRowIteratorTransformer;
 import org.locationtech.geowave.core.store.entities.GeoWaveRowMergingIterator;
+import org.locationtech.geowave.core.store.util.RowConsumer;
 import org.locationtech.geowave.datastore.rocksdb.util.RocksDBClient;
 import org.locationtech.geowave.datastore.rocksdb.util.RocksDBIndexTable;
 import org.locationtech.geowave.datastore.rocksdb.util.RocksDBUtils;
@@ -96,6 +110,13 @@ public class BatchedRangeRead<T>
 
 	}
 
+	public static final String SCAN_POOL_SIZE_PROPERTY = "geowave.rocksdb.scanPoolSize";
+	private static final int DEFAULT_SCAN_POOL_SIZE = 8;
+	private static final int MAX_BOUNDED_READS_ENQUEUED = 10000;
+	private static final long OFFER_TIMEOUT_MILLIS = 100;
+	// scans from every query share one bounded pool so concurrent queries
+	// can't oversubscribe the disk
+	private static final ThreadPoolExecutor SCAN_POOL = createScanPool();
 	private static ByteArray EMPTY_PARTITION_KEY = new ByteArray();
 	private final LoadingCache<ByteArray, RocksDBIndexTable> setCache = Caffeine
 			.newBuilder()
@@ -111,6 +132,7 @@ public class BatchedRangeRead<T>
 
 	private final Pair<Boolean, Boolean> groupByRowAndSortByTimePair;
 	private final boolean isSortFinalResultsBySortKey;
+	private final boolean async;
 
 	protected BatchedRangeRead(
 			final RocksDBClient client,
@@ -130,6 +152,32 @@ public class BatchedRangeRead<T>
 		this.filter = filter;
 		this.groupByRowAndSortByTimePair = groupByRowAndSortByTimePair;
 		this.isSortFinalResultsBySortKey = isSortFinalResultsBySortKey;
+		// the sorted path is merged in order on the calling thread
+		this.async = async && !isSortFinalResultsBySortKey;
+	}
+
+	private static ThreadPoolExecutor createScanPool() {
+		final int poolSize = Integer.getInteger(
+				SCAN_POOL_SIZE_PROPERTY,
+				Math.max(
+						DEFAULT_SCAN_POOL_SIZE,
+						Runtime.getRuntime().availableProcessors() * 2));
+		final AtomicInteger threadCount = new AtomicInteger();
+		final ThreadPoolExecutor pool = new ThreadPoolExecutor(
+				poolSize,
+				poolSize,
+				60,
+				TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(),
+				r -> {
+					final Thread t = new Thread(
+							r,
+							"geowave-rocksdb-scan-" + threadCount.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				});
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
 	}
 
 	private RocksDBIndexTable getTable(
@@ -156,47 +204,318 @@ public class BatchedRangeRead<T>
 			}
 
 		}
+		if (async) {
+			return executeQueryAsync(
+					reads);
+		}
+		if (isSortFinalResultsBySortKey) {
+			return executeSortedQuery(
+					reads);
+		}
 		return executeQuery(
 				reads);
 	}
 
+	private RocksDBIndexTable getTableForRead(
+			final RangeReadInfo r ) {
+		ByteArray partitionKey;
+		if ((r.partitionKey == null) || (r.partitionKey.length == 0)) {
+			partitionKey = EMPTY_PARTITION_KEY;
+		}
+		else {
+			partitionKey = new ByteArray(
+					r.partitionKey);
+		}
+		return setCache
+				.get(
+						partitionKey);
+	}
+
 	public CloseableIterator<T> executeQuery(
 			final List<RangeReadInfo> reads ) {
-		if (isSortFinalResultsBySortKey) {
-			// order the reads by sort keys
-			reads
-					.sort(
-							ScoreOrderComparator.SINGLETON);
-		}
 		return new CloseableIterator.Wrapper<>(
 				Iterators
 						.concat(
 								reads
 										.stream()
 										.map(
-												r -> {
-													ByteArray partitionKey;
-													if ((r.partitionKey == null) || (r.partitionKey.length == 0)) {
-														partitionKey = EMPTY_PARTITION_KEY;
-													}
-													else {
-														partitionKey = new ByteArray(
-																r.partitionKey);
-													}
-													// if we don't have enough
-													// precision we need to make
-													// sure the end is inclusive
-													return transformAndFilter(
-															setCache
-																	.get(
-																			partitionKey)
-																	.iterator(
-																			r.sortKeyRange),
-															r.partitionKey);
-												})
+												r -> transformAndFilter(
+														getTableForRead(
+																r)
+																		.iterator(
+																				r.sortKeyRange),
+														r.partitionKey))
 										.iterator()));
 	}
 
+	/**
+	 * Scan the ranges on the shared scan pool, with at most one task per pool
+	 * thread working through this query's ranges, streaming rows back through
+	 * a bounded queue as they are read. If a scan fails the remaining scans
+	 * are stopped and the failure is thrown to the consumer once the queued
+	 * rows have been read. Closing the results early drops the queued rows so
+	 * no task stays blocked on a full queue.
+	 */
+	public CloseableIterator<T> executeQueryAsync(
+			final List<RangeReadInfo> reads ) {
+		final BlockingQueue<Object> results = new LinkedBlockingQueue<>(
+				MAX_BOUNDED_READS_ENQUEUED);
+		final ConcurrentLinkedQueue<RangeReadInfo> pendingReads = new ConcurrentLinkedQueue<>(
+				reads);
+		// stopped is set when the scans should end, closed only when the
+		// consumer is gone and won't read the queue anymore
+		final AtomicBoolean stopped = new AtomicBoolean(
+				false);
+		final AtomicBoolean closed = new AtomicBoolean(
+				false);
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		final int numTasks = Math.max(
+				1,
+				Math.min(
+						reads.size(),
+						SCAN_POOL.getMaximumPoolSize()));
+		final AtomicInteger runningTasks = new AtomicInteger(
+				numTasks);
+		for (int i = 0; i < numTasks; i++) {
+			final Runnable task = () -> {
+				try {
+					RangeReadInfo r;
+					while (!stopped.get() && ((r = pendingReads.poll()) != null)) {
+						try (CloseableIterator<T> it = transformAndFilter(
+								getTableForRead(r).iterator(
+										r.sortKeyRange),
+								r.partitionKey)) {
+							while (!stopped.get() && it.hasNext()) {
+								if (!offer(
+										results,
+										it.next(),
+										stopped)) {
+									return;
+								}
+							}
+						}
+					}
+				}
+				catch (final Exception e) {
+					LOGGER.warn(
+							"Unable to scan RocksDB range",
+							e);
+					stopOnFailure(
+							e,
+							failure,
+							stopped,
+							pendingReads);
+				}
+				finally {
+					checkFinalize(
+							results,
+							runningTasks,
+							closed);
+				}
+			};
+			try {
+				SCAN_POOL.execute(task);
+			}
+			catch (final RejectedExecutionException e) {
+				LOGGER.warn(
+						"Unable to schedule RocksDB range scan",
+						e);
+				stopOnFailure(
+						e,
+						failure,
+						stopped,
+						pendingReads);
+				checkFinalize(
+						results,
+						runningTasks,
+						closed);
+			}
+		}
+		return new CloseableIteratorWrapper<>(
+				new Closeable() {
+					@Override
+					public void close()
+							throws IOException {
+						closed.set(true);
+						stopped.set(true);
+						pendingReads.clear();
+						// nothing reads the queue anymore, free the tasks
+						// waiting to add to it
+						results.clear();
+					}
+				},
+				new RowConsumer<>(
+						results,
+						failure));
+	}
+
+	/**
+	 * @return the number of range scans currently running on the shared scan
+	 *         pool
+	 */
+	static int getActiveScanCount() {
+		return SCAN_POOL.getActiveCount();
+	}
+
+	/**
+	 * Waits for room in the queue until it is available or the flag is set.
+	 *
+	 * @return false if the flag was set before the entry could be added
+	 */
+	private static boolean offer(
+			final BlockingQueue<Object> resultQueue,
+			final Object entry,
+			final AtomicBoolean giveUp )
+			throws InterruptedException {
+		while (!resultQueue.offer(
+				entry,
+				OFFER_TIMEOUT_MILLIS,
+				TimeUnit.MILLISECONDS)) {
+			if (giveUp.get()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void stopOnFailure(
+			final Exception e,
+			final AtomicReference<Throwable> failure,
+			final AtomicBoolean stopped,
+			final ConcurrentLinkedQueue<RangeReadInfo> pendingReads ) {
+		// don't report a scan that was only stopped because the query was
+		// closed
+		if (!stopped.get()) {
+			failure.compareAndSet(
+					null,
+					e);
+		}
+		stopped.set(true);
+		pendingReads.clear();
+	}
+
+	private static void checkFinalize(
+			final BlockingQueue<Object> resultQueue,
+			final AtomicInteger runningTasks,
+			final AtomicBoolean closed ) {
+		if (runningTasks.decrementAndGet() <= 0) {
+			try {
+				// the consumer still reads the queue after a failure, but not
+				// once it is closed
+				offer(
+						resultQueue,
+						RowConsumer.POISON,
+						closed);
+			}
+			catch (final InterruptedException e) {
+				LOGGER.error("Interrupted while finishing blocking queue, this may result in deadlock!");
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Merge the ranges in sort key order. Reads are ordered by the start of
+	 * their range and split into runs of overlapping ranges, each run is
+	 * k-way merged (only reads in different partitions can overlap) and the
+	 * runs are concatenated, so only one run's iterators are open at a time.
+	 */
+	public CloseableIterator<T> executeSortedQuery(
+			final List<RangeReadInfo> reads ) {
+		reads
+				.sort(
+						ScoreOrderComparator.SINGLETON);
+		final List<List<RangeReadInfo>> runs = new ArrayList<>();
+		List<RangeReadInfo> currentRun = null;
+		byte[] currentRunEnd = null;
+		for (final RangeReadInfo r : reads) {
+			final byte[] start = r.sortKeyRange.getStart() == null ? null : r.sortKeyRange.getStart().getBytes();
+			final byte[] end = r.sortKeyRange.getEnd() == null ? null
+					: r.sortKeyRange.getEndAsNextPrefix().getBytes();
+			if ((currentRun == null) || ((currentRunEnd != null) && (start != null) && (UnsignedBytes
+					.lexicographicalComparator()
+					.compare(
+							start,
+							currentRunEnd) >= 0))) {
+				currentRun = new ArrayList<>();
+				runs
+						.add(
+								currentRun);
+				currentRunEnd = end;
+			}
+			else if ((currentRunEnd != null) && ((end == null) || (UnsignedBytes
+					.lexicographicalComparator()
+					.compare(
+							end,
+							currentRunEnd) > 0))) {
+				currentRunEnd = end;
+			}
+			currentRun
+					.add(
+							r);
+		}
+		final List<CloseableIterator<GeoWaveRow>> openIterators = Collections
+				.synchronizedList(
+						new ArrayList<>());
+		final Iterator<GeoWaveRow> merged = Iterators
+				.concat(
+						Iterators
+								.transform(
+										runs.iterator(),
+										run -> {
+											// the previous run is exhausted
+											closeAll(
+													openIterators);
+											final List<Iterator<GeoWaveRow>> runIterators = new ArrayList<>();
+											for (final RangeReadInfo r : run) {
+												final CloseableIterator<GeoWaveRow> it = getTableForRead(
+														r)
+																.iterator(
+																		r.sortKeyRange);
+												openIterators
+														.add(
+																it);
+												runIterators
+														.add(
+																RocksDBUtils
+																		.sortBySortKey(
+																				(Iterator<GeoWaveRow>) (Iterator<? extends GeoWaveRow>) new GeoWaveRowMergingIterator(
+																				Iterators
+																						.filter(
+																								it,
+																								filter))));
+											}
+											return runIterators.size() == 1 ? runIterators.get(
+													0)
+													: Iterators
+															.mergeSorted(
+																	runIterators,
+																	RocksDBUtils.getSortKeyOrder());
+										}));
+		return new CloseableIteratorWrapper<>(
+				new Closeable() {
+					@Override
+					public void close()
+							throws IOException {
+						closeAll(
+								openIterators);
+					}
+				},
+				rowTransformer
+						.apply(
+								merged));
+	}
+
+	private static void closeAll(
+			final List<CloseableIterator<GeoWaveRow>> iterators ) {
+		synchronized (iterators) {
+			iterators
+					.forEach(
+							CloseableIterator::close);
+			iterators.clear();
+		}
+	}
+
 	private CloseableIterator<T> transformAndFilter(
 			final CloseableIterator<GeoWaveRow> result,
 			final byte[] partitionKey ) {
@@ -0,0 +1,228 @@
+package org.locationtech.geowave.datastore.rocksdb.operations;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.locationtech.geowave.core.index.ByteArray;
+import org.locationtech.geowave.core.store.entities.GeoWaveRow;
+import org.locationtech.geowave.core.store.entities.GeoWaveValue;
+import org.locationtech.geowave.core.store.operations.RowWriter;
+import org.locationtech.geowave.datastore.rocksdb.util.RocksDBClient;
+import org.locationtech.geowave.datastore.rocksdb.util.RocksDBIndexTable;
+import org.locationtech.geowave.datastore.rocksdb.util.RocksDBUtils;
+import org.rocksdb.EnvOptions;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.SstFileWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.primitives.UnsignedBytes;
+
+/**
+ * Writes rows to sorted string table files that are moved into the index
+ * tables on flush or close, rather than writing every row through the
+ * write-ahead log and memtables. Rows are buffered per partition and once the
+ * buffer is full every partition's rows are sorted and written to a file, so
+ * ingested data skips the flushes and most of the compactions of live writes.
+ *
+ * Failures are thrown as an IllegalStateException. The rows of a file that
+ * could not be written stay buffered, and files that could not be ingested are
+ * kept in the directory of the writer and retried by the next flush.
+ */
+public class RocksDBBulkWriter implements
+		RowWriter
+{
+	private static final Logger LOGGER = LoggerFactory.getLogger(RocksDBBulkWriter.class);
+	private static ByteArray EMPTY_PARTITION_KEY = new ByteArray();
+	private final RocksDBClient client;
+	private final String indexNamePrefix;
+	private final short adapterId;
+	private final boolean isTimestampRequired;
+	private final long bufferSize;
+	private final File directory;
+	private final Map<ByteArray, PartitionBuffer> partitions = new HashMap<>();
+	private long bufferedBytes = 0;
+	private int fileCount = 0;
+
+	public RocksDBBulkWriter(
+			final RocksDBClient client,
+			final short adapterId,
+			final String typeName,
+			final String indexName,
+			final boolean isTimestampRequired,
+			final int bufferSizeMB ) {
+		this.client = client;
+		this.adapterId = adapterId;
+		indexNamePrefix = RocksDBUtils.getTablePrefix(
+				typeName,
+				indexName);
+		this.isTimestampRequired = isTimestampRequired;
+		bufferSize = bufferSizeMB * 1024L * 1024L;
+		directory = new File(
+				client.getSubDirectory(),
+				"bulk-" + UUID.randomUUID());
+	}
+
+	@Override
+	public void write(
+			final GeoWaveRow[] rows ) {
+		for (final GeoWaveRow row : rows) {
+			write(row);
+		}
+	}
+
+	@Override
+	public synchronized void write(
+			final GeoWaveRow row ) {
+		ByteArray partitionKey;
+		if ((row.getPartitionKey() == null) || (row.getPartitionKey().length == 0)) {
+			partitionKey = EMPTY_PARTITION_KEY;
+		}
+		else {
+			partitionKey = new ByteArray(
+					row.getPartitionKey());
+		}
+		PartitionBuffer buffer = partitions.get(partitionKey);
+		if (buffer == null) {
+			buffer = new PartitionBuffer(
+					RocksDBUtils.getIndexTableFromPrefix(
+							client,
+							indexNamePrefix,
+							adapterId,
+							partitionKey.getBytes(),
+							isTimestampRequired));
+			partitions.put(
+					partitionKey,
+					buffer);
+		}
+		for (final GeoWaveValue value : row.getFieldValues()) {
+			final byte[] key = buffer.table.getPrefixedKey(
+					row.getSortKey(),
+					row.getDataId(),
+					(short) row.getNumberOfDuplicates(),
+					value);
+			buffer.entries.add(Pair.of(
+					key,
+					value.getValue()));
+			bufferedBytes += key.length + value.getValue().length;
+		}
+		if (bufferedBytes >= bufferSize) {
+			writeFiles();
+		}
+	}
+
+	private void writeFiles() {
+		if (bufferedBytes == 0) {
+			return;
+		}
+		if (!directory.exists() && !directory.mkdirs()) {
+			throw new IllegalStateException(
+					"Unable to create directory '" + directory.getAbsolutePath() + "'");
+		}
+		for (final PartitionBuffer buffer : partitions.values()) {
+			if (!buffer.entries.isEmpty()) {
+				buffer.writeFile(new File(
+						directory,
+						(fileCount++) + ".sst"));
+			}
+		}
+		bufferedBytes = 0;
+	}
+
+	@Override
+	public synchronized void flush() {
+		writeFiles();
+		for (final PartitionBuffer buffer : partitions.values()) {
+			buffer.ingest();
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		// if the flush fails the directory is kept with the files that were
+		// not ingested
+		flush();
+		partitions.clear();
+		try {
+			FileUtils.deleteDirectory(directory);
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"Unable to delete directory '" + directory.getAbsolutePath() + "'",
+					e);
+		}
+	}
+
+	private static class PartitionBuffer
+	{
+		private final RocksDBIndexTable table;
+		private final List<Pair<byte[], byte[]>> entries = new ArrayList<>();
+		private final List<String> files = new ArrayList<>();
+
+		private PartitionBuffer(
+				final RocksDBIndexTable table ) {
+			this.table = table;
+		}
+
+		private void writeFile(
+				final File file ) {
+			// the sort is stable, so of several values written with the same
+			// key the last one written is last
+			entries.sort((
+					e1,
+					e2 ) -> UnsignedBytes.lexicographicalComparator().compare(
+					e1.getLeft(),
+					e2.getLeft()));
+			try (final EnvOptions envOptions = new EnvOptions();
+					final Options options = new Options();
+					final SstFileWriter writer = new SstFileWriter(
+							envOptions,
+							options)) {
+				writer.open(file.getAbsolutePath());
+				for (int i = 0; i < entries.size(); i++) {
+					final Pair<byte[], byte[]> entry = entries.get(i);
+					// keys have to be strictly increasing and a live write of
+					// the same key would overwrite the previous value
+					if (((i + 1) < entries.size()) && Arrays.equals(
+							entry.getLeft(),
+							entries.get(
+									i + 1).getLeft())) {
+						continue;
+					}
+					writer.put(
+							entry.getLeft(),
+							entry.getRight());
+				}
+				writer.finish();
+			}
+			catch (final RocksDBException e) {
+				// a partial file must not be ingested, the entries are still
+				// buffered and are written again by the next flush
+				if (file.exists() && !file.delete()) {
+					LOGGER.warn("Unable to delete partial file '" + file.getAbsolutePath() + "'");
+				}
+				throw new IllegalStateException(
+						"Unable to write sorted file '" + file.getAbsolutePath() + "'",
+						e);
+			}
+			files.add(file.getAbsolutePath());
+			entries.clear();
+		}
+
+		private void ingest() {
+			if (!files.isEmpty()) {
+				// ingested files are removed from the list
+				table.ingest(files);
+			}
+		}
+	}
+}
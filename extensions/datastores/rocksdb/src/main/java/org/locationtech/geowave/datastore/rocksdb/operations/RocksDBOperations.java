@@ -58,7 +58,12 @@ public class RocksDBOperations implements
 		// a factory method that returns a RocksDB instance
 		this.options = options;
 		client = RocksDBClientCache.getInstance().getClient(
-				directory);
+				directory,
+				options.getBatchWriteSize(),
+				options.isWalEnabled(),
+				options.isUseColumnFamilies(),
+				options.getBlockCacheSizeMB(),
+				options.getWriteBufferSizeMB());
 	}
 
 	@Override
@@ -97,6 +102,13 @@ public class RocksDBOperations implements
 				.close(
 						indexName,
 						typeName);
+		if (client.isColumnFamilyLayout()) {
+			client
+					.dropColumnFamilies(
+							indexName,
+							typeName);
+			return true;
+		}
 		Arrays
 				.stream(
 						new File(
@@ -136,6 +148,15 @@ public class RocksDBOperations implements
 	public RowWriter createWriter(
 			final Index index,
 			final InternalDataAdapter<?> adapter ) {
+		if (options.getStoreOptions().isBulkIngest()) {
+			return new RocksDBBulkWriter(
+					client,
+					adapter.getAdapterId(),
+					adapter.getTypeName(),
+					index.getName(),
+					RocksDBUtils.isSortByTime(adapter),
+					options.getStoreOptions().getBulkIngestBufferSizeMB());
+		}
 		return new RocksDBWriter(
 				client,
 				adapter.getAdapterId(),
@@ -179,7 +200,8 @@ public class RocksDBOperations implements
 		return new RocksDBReader<>(
 				client,
 				readerParams,
-				READER_ASYNC);
+				// the ranges of an async read are returned as they come in
+				READER_ASYNC && !readerParams.isOrdered());
 	}
 
 	@Override
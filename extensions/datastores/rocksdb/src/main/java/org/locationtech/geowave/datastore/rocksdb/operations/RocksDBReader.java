@@ -46,7 +46,7 @@ public class RocksDBReader<T> implements
 		this.iterator = createIteratorForReader(
 				client,
 				readerParams,
-				false);
+				async);
 	}
 
 	public RocksDBReader(
@@ -88,11 +88,12 @@ public class RocksDBReader<T> implements
 										.getTypeName(
 												adapterId),
 								readerParams.getIndex().getName());
-				final Stream<CloseableIterator<GeoWaveRow>> streamIt = RocksDBUtils
+				final Stream<CloseableIterator<GeoWaveRow>> streamIt = client
 						.getPartitions(
-								client.getSubDirectory(),
 								indexNamePrefix)
 						.stream()
+						// read the partitions in key order in case the rows are ordered
+						.sorted()
 						.map(
 								p -> {
 									return RocksDBUtils
@@ -3,10 +3,13 @@ package org.locationtech.geowave.datastore.rocksdb.util;
 import java.io.Closeable;
 import java.io.File;
 import java.util.Map.Entry;
+import java.util.Set;
 
+import org.locationtech.geowave.core.index.ByteArray;
 import org.locationtech.geowave.core.store.operations.MetadataType;
 import org.rocksdb.Options;
 import org.rocksdb.RocksDB;
+import org.rocksdb.WriteOptions;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
@@ -116,13 +119,29 @@ public class RocksDBClient implements
 			.newBuilder()
 			.build(
 					key -> {
+						if (sharedDb != null) {
+							return new RocksDBIndexTable(
+									sharedDb,
+									RocksDBUtils.getColumnFamilyName(
+											key.directory.substring(
+													subDirectory.length() + 1),
+											key.partition),
+									writeOptions,
+									key.adapterId,
+									key.partition,
+									key.requiresTimestamp,
+									batchWriteSize,
+									walEnabled);
+						}
 						return new RocksDBIndexTable(
-								indexWriteOptions,
-								indexReadOptions,
+								indexOptions,
+								writeOptions,
 								key.directory,
 								key.adapterId,
 								key.partition,
-								key.requiresTimestamp);
+								key.requiresTimestamp,
+								batchWriteSize,
+								walEnabled);
 					});
 	private final LoadingCache<CacheKey, RocksDBMetadataTable> metadataTableCache = Caffeine
 			.newBuilder()
@@ -138,35 +157,81 @@ public class RocksDBClient implements
 								key.requiresTimestamp);
 					});
 	private final String subDirectory;
+	private final int batchWriteSize;
+	private final boolean walEnabled;
+	private final WriteOptions writeOptions;
+	// only used when every index table is a column family of one database
+	private final RocksDBSharedDatabase sharedDb;
 
-	protected static Options indexWriteOptions = null;
-	protected static Options indexReadOptions = null;
+	protected static Options indexOptions = null;
 	protected static Options metadataOptions = null;
 
 	public RocksDBClient(
 			final String subDirectory ) {
+		this(
+				subDirectory,
+				RocksDBUtils.ROCKSDB_DEFAULT_BATCH_WRITE_SIZE,
+				true,
+				false,
+				RocksDBUtils.ROCKSDB_DEFAULT_BLOCK_CACHE_SIZE_MB,
+				RocksDBUtils.ROCKSDB_DEFAULT_WRITE_BUFFER_SIZE_MB);
+	}
+
+	public RocksDBClient(
+			final String subDirectory,
+			final int batchWriteSize,
+			final boolean walEnabled,
+			final boolean useColumnFamilies,
+			final long blockCacheSizeMB,
+			final long writeBufferSizeMB ) {
 		this.subDirectory = subDirectory;
+		this.batchWriteSize = batchWriteSize;
+		this.walEnabled = walEnabled;
+		RocksDB.loadLibrary();
+		writeOptions = new WriteOptions().setDisableWAL(
+				!walEnabled);
+		if (useColumnFamilies) {
+			sharedDb = new RocksDBSharedDatabase(
+					subDirectory + "/" + RocksDBUtils.COLUMN_FAMILY_DATABASE_NAME,
+					blockCacheSizeMB * 1024 * 1024,
+					writeBufferSizeMB * 1024 * 1024);
+		}
+		else {
+			sharedDb = null;
+		}
 	}
 
 	public String getSubDirectory() {
 		return subDirectory;
 	}
 
+	public int getBatchWriteSize() {
+		return batchWriteSize;
+	}
+
+	public boolean isWalEnabled() {
+		return walEnabled;
+	}
+
+	public boolean isColumnFamilyLayout() {
+		return sharedDb != null;
+	}
+
 	public synchronized RocksDBIndexTable getIndexTable(
 			final String tableName,
 			final short adapterId,
 			final byte[] partition,
 			final boolean requiresTimestamp ) {
-		if (indexWriteOptions == null) {
+		if (indexOptions == null) {
 			RocksDB.loadLibrary();
 			final int cores = Runtime.getRuntime().availableProcessors();
-			indexWriteOptions = new Options()
+			// reads and writes share one handle, so leave automatic
+			// compactions on rather than preparing for a bulk load that
+			// would need a full manual compaction before reads are efficient
+			indexOptions = new Options()
 					.setCreateIfMissing(
 							true)
-					.prepareForBulkLoad()
-					.setIncreaseParallelism(
-							cores);
-			indexReadOptions = new Options()
+					.optimizeLevelStyleCompaction()
 					.setIncreaseParallelism(
 							cores);
 		}
@@ -207,13 +272,22 @@ public class RocksDBClient implements
 
 	public boolean indexTableExists(
 			final String indexName ) {
+		if (sharedDb != null) {
+			return sharedDb
+					.getColumnFamilyNames()
+					.stream()
+					.anyMatch(
+							name -> RocksDBUtils
+									.isTableOfIndex(
+											name,
+											indexName));
+		}
 		// then look for prefixes of this index directory in which case there is
 		// a partition key
 		for (final String key : keyCache.asMap().keySet()) {
-			if (key
-					.substring(
-							subDirectory.length())
-					.contains(
+			if (RocksDBUtils
+					.isTableOfIndex(
+							getTableName(key),
 							indexName)) {
 				return true;
 			}
@@ -225,12 +299,54 @@ public class RocksDBClient implements
 						.list(
 								(
 										dir,
-										name ) -> name
-												.contains(
+										name ) -> RocksDBUtils
+												.isTableOfIndex(
+														name,
 														indexName));
 		return listing != null && listing.length > 0;
 	}
 
+	/**
+	 * @return the table name of a cache key, which is the directory of the
+	 *         table
+	 */
+	private String getTableName(
+			final String key ) {
+		return key
+				.substring(
+						subDirectory.length() + 1);
+	}
+
+	public Set<ByteArray> getPartitions(
+			final String tableNamePrefix ) {
+		if (sharedDb != null) {
+			return sharedDb
+					.getPartitions(
+							tableNamePrefix);
+		}
+		return RocksDBUtils
+				.getPartitions(
+						subDirectory,
+						tableNamePrefix);
+	}
+
+	/**
+	 * Drop the column families of a type and index when all index tables
+	 * share one database, the tables should already be closed
+	 */
+	public void dropColumnFamilies(
+			final String indexName,
+			final String typeName ) {
+		if (sharedDb != null) {
+			sharedDb
+					.dropColumnFamilies(
+							RocksDBUtils
+									.getTablePrefix(
+											typeName,
+											indexName));
+		}
+	}
+
 	public boolean metadataTableExists(
 			final MetadataType type ) {
 		// this could have been created by a different process so check the
@@ -251,10 +367,9 @@ public class RocksDBClient implements
 						indexName);
 		for (final Entry<String, CacheKey> e : keyCache.asMap().entrySet()) {
 			final String key = e.getKey();
-			if (key
-					.substring(
-							subDirectory.length())
-					.startsWith(
+			if (RocksDBUtils
+					.isTableOfPrefix(
+							getTableName(key),
 							prefix)) {
 				keyCache
 						.invalidate(
@@ -276,11 +391,22 @@ public class RocksDBClient implements
 	@Override
 	public void close() {
 		keyCache.invalidateAll();
-		indexTableCache
-				.asMap()
-				.values()
-				.forEach(
-						db -> db.close());
+		// close every table before reporting a table that failed to write its
+		// batched rows
+		IllegalStateException closeFailure = null;
+		for (final RocksDBIndexTable indexTable : indexTableCache.asMap().values()) {
+			try {
+				indexTable.close();
+			}
+			catch (final IllegalStateException e) {
+				if (closeFailure == null) {
+					closeFailure = e;
+				}
+				else {
+					closeFailure.addSuppressed(e);
+				}
+			}
+		}
 		indexTableCache.invalidateAll();
 		metadataTableCache
 				.asMap()
@@ -288,5 +414,12 @@ public class RocksDBClient implements
 				.forEach(
 						db -> db.close());
 		metadataTableCache.invalidateAll();
+		if (sharedDb != null) {
+			sharedDb.close();
+		}
+		writeOptions.close();
+		if (closeFailure != null) {
+			throw closeFailure;
+		}
 	}
 }
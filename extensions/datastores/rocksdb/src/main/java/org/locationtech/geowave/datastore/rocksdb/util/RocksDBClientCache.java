@@ -1,7 +1,7 @@
 package org.locationtech.geowave.datastore.rocksdb.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.LoadingCache;
 
 public class RocksDBClientCache
 {
@@ -14,21 +14,43 @@ public class RocksDBClientCache
 		return singletonInstance;
 	}
 
-	private final LoadingCache<String, RocksDBClient> clientCache = Caffeine
-			.newBuilder()
-			.build(
-					subDirectory -> {
-						return new RocksDBClient(
-								subDirectory);
-					});
+	private final Cache<String, RocksDBClient> clientCache = Caffeine.newBuilder().build();
 
 	protected RocksDBClientCache() {}
 
 	public RocksDBClient getClient(
 			final String directory ) {
+		return getClient(
+				directory,
+				RocksDBUtils.ROCKSDB_DEFAULT_BATCH_WRITE_SIZE,
+				true,
+				false,
+				RocksDBUtils.ROCKSDB_DEFAULT_BLOCK_CACHE_SIZE_MB,
+				RocksDBUtils.ROCKSDB_DEFAULT_WRITE_BUFFER_SIZE_MB);
+	}
+
+	/**
+	 * Get the client for a directory, creating it with the given settings if
+	 * it is not already open (an open client keeps the settings it was created
+	 * with)
+	 */
+	public RocksDBClient getClient(
+			final String directory,
+			final int batchWriteSize,
+			final boolean walEnabled,
+			final boolean useColumnFamilies,
+			final long blockCacheSizeMB,
+			final long writeBufferSizeMB ) {
 		return clientCache
 				.get(
-						directory);
+						directory,
+						d -> new RocksDBClient(
+								d,
+								batchWriteSize,
+								walEnabled,
+								useColumnFamilies,
+								blockCacheSizeMB,
+								writeBufferSizeMB));
 	}
 
 	public synchronized void close(
@@ -47,13 +69,9 @@ public class RocksDBClientCache
 				RocksDBClient.metadataOptions.close();
 				RocksDBClient.metadataOptions = null;
 			}
-			if (RocksDBClient.indexWriteOptions != null) {
-				RocksDBClient.indexWriteOptions.close();
-				RocksDBClient.indexWriteOptions = null;
-			}
-			if (RocksDBClient.indexReadOptions != null) {
-				RocksDBClient.indexReadOptions.close();
-				RocksDBClient.indexReadOptions = null;
+			if (RocksDBClient.indexOptions != null) {
+				RocksDBClient.indexOptions.close();
+				RocksDBClient.indexOptions = null;
 			}
 		}
 	}
@@ -70,13 +88,9 @@ public class RocksDBClientCache
 			RocksDBClient.metadataOptions.close();
 			RocksDBClient.metadataOptions = null;
 		}
-		if (RocksDBClient.indexWriteOptions != null) {
-			RocksDBClient.indexWriteOptions.close();
-			RocksDBClient.indexWriteOptions = null;
-		}
-		if (RocksDBClient.indexReadOptions != null) {
-			RocksDBClient.indexReadOptions.close();
-			RocksDBClient.indexReadOptions = null;
+		if (RocksDBClient.indexOptions != null) {
+			RocksDBClient.indexOptions.close();
+			RocksDBClient.indexOptions = null;
 		}
 	}
 }
@@ -1,18 +1,26 @@
 package org.locationtech.geowave.datastore.rocksdb.util;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 
 import org.locationtech.geowave.core.index.ByteArrayRange;
 import org.locationtech.geowave.core.index.ByteArrayUtils;
 import org.locationtech.geowave.core.store.CloseableIterator;
 import org.locationtech.geowave.core.store.entities.GeoWaveRow;
 import org.locationtech.geowave.core.store.entities.GeoWaveValue;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.FlushOptions;
+import org.rocksdb.IngestExternalFileOptions;
 import org.rocksdb.Options;
 import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
 import org.rocksdb.Slice;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,45 +29,122 @@ import com.google.common.primitives.Longs;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
+/**
+ * One partition of an index for one type. By default each table is its own
+ * RocksDB instance in its own directory, alternatively tables can be column
+ * families of a {@link RocksDBSharedDatabase} in which case the partition key
+ * is written as a prefix of every key.
+ *
+ * Writes are accumulated in a write batch and committed once the configured
+ * batch size is reached or on flush. A batch that fails to commit is kept, so
+ * the next flush tries to write it again. Reads use iterators over the same
+ * database instance (each iterator sees a consistent implicit snapshot) so
+ * there is no need to re-open a separate read-only handle after writing.
+ */
 public class RocksDBIndexTable
 {
 	private static final Logger LOGGER = LoggerFactory.getLogger(RocksDBIndexTable.class);
-	private RocksDB writeDb;
-	private RocksDB readDb;
+	private RocksDB db;
+	private ColumnFamilyHandle columnFamily;
 	private long prevTime = Long.MAX_VALUE;
-	private final Options writeOptions;
-	private final Options readOptions;
+	private final Options options;
+	private final RocksDBSharedDatabase sharedDb;
+	private final String columnFamilyName;
+	private final WriteOptions writeOptions;
 	private final String subDirectory;
 	private final boolean requiresTimestamp;
-	private boolean readerDirty = false;
+	private final int batchWriteSize;
+	private final boolean walEnabled;
+	private WriteBatch currentBatch;
 	private boolean exists;
 	private final short adapterId;
 	private final byte[] partition;
+	private final byte[] keyPrefix;
 
 	public RocksDBIndexTable(
-			final Options writeOptions,
-			final Options readOptions,
+			final Options options,
+			final WriteOptions writeOptions,
 			final String subDirectory,
 			final short adapterId,
 			final byte[] partition,
-			final boolean requiresTimestamp ) {
+			final boolean requiresTimestamp,
+			final int batchWriteSize,
+			final boolean walEnabled ) {
 		super();
+		this.options = options;
 		this.writeOptions = writeOptions;
-		this.readOptions = readOptions;
 		this.subDirectory = subDirectory;
 		this.requiresTimestamp = requiresTimestamp;
 		this.adapterId = adapterId;
 		this.partition = partition;
+		this.batchWriteSize = batchWriteSize;
+		this.walEnabled = walEnabled;
+		sharedDb = null;
+		columnFamilyName = null;
+		keyPrefix = new byte[0];
 		exists = new File(
 				subDirectory).exists();
 	}
 
+	public RocksDBIndexTable(
+			final RocksDBSharedDatabase sharedDb,
+			final String columnFamilyName,
+			final WriteOptions writeOptions,
+			final short adapterId,
+			final byte[] partition,
+			final boolean requiresTimestamp,
+			final int batchWriteSize,
+			final boolean walEnabled ) {
+		super();
+		this.sharedDb = sharedDb;
+		this.columnFamilyName = columnFamilyName;
+		this.writeOptions = writeOptions;
+		this.requiresTimestamp = requiresTimestamp;
+		this.adapterId = adapterId;
+		this.partition = partition;
+		this.batchWriteSize = batchWriteSize;
+		this.walEnabled = walEnabled;
+		options = null;
+		subDirectory = null;
+		keyPrefix = partition == null ? new byte[0] : partition;
+	}
+
 	public synchronized void add(
 			final byte[] sortKey,
 			final byte[] dataId,
 			final short numDuplicates,
 			final GeoWaveValue value ) {
-		byte[] key;
+		put(
+				getKey(
+						sortKey,
+						dataId,
+						numDuplicates,
+						value),
+				value.getValue());
+	}
+
+	/**
+	 * @return the key a value is written with, including the partition prefix
+	 *         if the table is a column family of a shared database
+	 */
+	public synchronized byte[] getPrefixedKey(
+			final byte[] sortKey,
+			final byte[] dataId,
+			final short numDuplicates,
+			final GeoWaveValue value ) {
+		return prefixed(getKey(
+				sortKey,
+				dataId,
+				numDuplicates,
+				value));
+	}
+
+	private byte[] getKey(
+			final byte[] sortKey,
+			final byte[] dataId,
+			final short numDuplicates,
+			final GeoWaveValue value ) {
+		final byte[] key;
 		if (requiresTimestamp) {
 			// sometimes rows can be written so quickly that they are the exact
 			// same millisecond - while Java does offer nanosecond precision,
@@ -97,64 +182,126 @@ public class RocksDBIndexTable
 						(byte) value.getVisibility().length,
 					});
 		}
-		put(
-				key,
-				value.getValue());
+		return key;
+	}
+
+	/**
+	 * Moves sorted string table files into this table. The keys must be
+	 * prefixed keys (see {@link #getPrefixedKey}) and each file is ingested on
+	 * its own because the key ranges of the files may overlap.
+	 *
+	 * @param sstFiles
+	 *            the files to ingest, in the order they were written. Files
+	 *            are removed from the list once they are ingested, so after a
+	 *            failure the list holds the files that remain to be ingested.
+	 * @throws IllegalStateException
+	 *             if a file cannot be ingested
+	 */
+	public synchronized void ingest(
+			final List<String> sstFiles ) {
+		final RocksDB db = getDb();
+		if (db == null) {
+			throw new IllegalStateException(
+					"Unable to open table to ingest sorted files");
+		}
+		try (final IngestExternalFileOptions ingestOptions = new IngestExternalFileOptions().setMoveFiles(true)) {
+			// commit pending writes first so the ingested files are newer
+			writeBatch(db);
+			final Iterator<String> it = sstFiles.iterator();
+			while (it.hasNext()) {
+				final String sstFile = it.next();
+				db.ingestExternalFile(
+						columnFamily,
+						Collections.singletonList(sstFile),
+						ingestOptions);
+				it.remove();
+			}
+		}
+		catch (final RocksDBException e) {
+			throw new IllegalStateException(
+					"Unable to ingest sorted files " + sstFiles,
+					e);
+		}
 	}
 
 	public synchronized void delete(
 			final byte[] key ) {
-		final RocksDB db = getWriteDb();
+		final RocksDB db = getDb();
+		if (db == null) {
+			return;
+		}
 		try {
-			readerDirty = true;
-			db.singleDelete(key);
+			// commit any pending writes first so a delete is never applied
+			// before a prior write of the same key
+			writeBatch(db);
+			db.singleDelete(
+					columnFamily,
+					writeOptions,
+					prefixed(key));
 		}
 		catch (final RocksDBException e) {
-			LOGGER.warn(
+			throw new IllegalStateException(
 					"Unable to delete key",
 					e);
 		}
 	}
 
 	public synchronized CloseableIterator<GeoWaveRow> iterator() {
-		final RocksDB readDb = getReadDb();
-		if (readDb == null) {
+		final RocksDB db = getReadDb();
+		if (db == null) {
 			return new CloseableIterator.Empty<>();
 		}
-		final ReadOptions options = new ReadOptions().setFillCache(false);
-		final RocksIterator it = readDb.newIterator(options);
-		it.seekToFirst();
+		final ReadOptions options = newReadOptions().setFillCache(false);
+		final RocksIterator it = db.newIterator(
+				columnFamily,
+				options);
+		if (keyPrefix.length == 0) {
+			it.seekToFirst();
+		}
+		else {
+			it.seek(keyPrefix);
+		}
 		return new RocksDBRowIterator(
 				this,
 				options,
 				it,
 				adapterId,
 				partition,
-				requiresTimestamp);
+				requiresTimestamp,
+				keyPrefix.length);
 	}
 
 	public synchronized CloseableIterator<GeoWaveRow> iterator(
 			final ByteArrayRange range ) {
-		final RocksDB readDb = getReadDb();
-		if (readDb == null) {
+		final RocksDB db = getReadDb();
+		if (db == null) {
 			return new CloseableIterator.Empty<>();
 		}
-		final ReadOptions options;
-		final RocksIterator it;
-		if (range.getEnd() == null) {
-			options = null;
-			it = readDb.newIterator();
+		final ReadOptions options = newReadOptions();
+		if (range.getEnd() != null) {
+			options.setIterateUpperBound(new Slice(
+					prefixed(range.getEndAsNextPrefix().getBytes())));
 		}
-		else {
-			options = new ReadOptions().setIterateUpperBound(new Slice(
-					range.getEndAsNextPrefix().getBytes()));
-			it = readDb.newIterator(options);
+		if ((range.getStart() == null) || (range.getEnd() == null)) {
+			// an open-ended range is a large sequential scan, so read ahead and
+			// avoid evicting the working set from the block cache
+			options.setReadaheadSize(
+					RocksDBUtils.ROCKSDB_SCAN_READAHEAD_SIZE).setFillCache(
+							false);
 		}
+		final RocksIterator it = db.newIterator(
+				columnFamily,
+				options);
 		if (range.getStart() == null) {
-			it.seekToFirst();
+			if (keyPrefix.length == 0) {
+				it.seekToFirst();
+			}
+			else {
+				it.seek(keyPrefix);
+			}
 		}
 		else {
-			it.seek(range.getStart().getBytes());
+			it.seek(prefixed(range.getStart().getBytes()));
 		}
 
 		return new RocksDBRowIterator(
@@ -163,119 +310,191 @@ public class RocksDBIndexTable
 				it,
 				adapterId,
 				partition,
-				requiresTimestamp);
+				requiresTimestamp,
+				keyPrefix.length);
+	}
+
+	private ReadOptions newReadOptions() {
+		final ReadOptions options = new ReadOptions();
+		if (keyPrefix.length > 0) {
+			// the column family's prefix extractor is the partition key, so
+			// keep iteration within this partition
+			options.setPrefixSameAsStart(true);
+		}
+		return options;
+	}
+
+	private byte[] prefixed(
+			final byte[] key ) {
+		if (keyPrefix.length == 0) {
+			return key;
+		}
+		return Bytes.concat(
+				keyPrefix,
+				key);
 	}
 
 	private synchronized void put(
 			final byte[] key,
 			final byte[] value ) {
-		// TODO batch writes
-		final RocksDB db = getWriteDb();
+		final RocksDB db = getDb();
+		if (db == null) {
+			throw new IllegalStateException(
+					"Unable to open table to write key-value");
+		}
 		try {
-			readerDirty = true;
-			db.put(
-					key,
-					value);
+			if (batchWriteSize <= 1) {
+				db.put(
+						columnFamily,
+						writeOptions,
+						prefixed(key),
+						value);
+			}
+			else {
+				if (currentBatch == null) {
+					currentBatch = new WriteBatch();
+				}
+				currentBatch.put(
+						columnFamily,
+						prefixed(key),
+						value);
+				if (currentBatch.count() >= batchWriteSize) {
+					writeBatch(db);
+				}
+			}
 		}
 		catch (final RocksDBException e) {
-			LOGGER.warn(
+			throw new IllegalStateException(
 					"Unable to write key-value",
 					e);
 		}
 	}
 
-	@SuppressFBWarnings(justification = "The null check outside of the synchronized block is intentional to minimize the need for synchronization.")
-	public void flush() {
-		// TODO flush batch writes
-		final RocksDB db = getWriteDb();
-		try {
-			db.compactRange();
+	/**
+	 * Commits the current batch, the batch is only discarded once it is
+	 * written so a failed write can be retried
+	 */
+	private void writeBatch(
+			final RocksDB db )
+			throws RocksDBException {
+		if (currentBatch != null) {
+			if (currentBatch.count() > 0) {
+				db.write(
+						writeOptions,
+						currentBatch);
+			}
+			currentBatch.close();
+			currentBatch = null;
 		}
-		catch (final RocksDBException e) {
-			LOGGER.warn(
-					"Unable to compact range",
-					e);
+	}
+
+	/**
+	 * Commits the batched writes of this table
+	 *
+	 * @throws IllegalStateException
+	 *             if the writes cannot be committed, the rows are kept in the
+	 *             batch
+	 */
+	public synchronized void flush() {
+		if (db == null) {
+			return;
 		}
-		// force re-opening a reader to catch the updates from this write
-		if (readerDirty && (readDb != null)) {
-			synchronized (this) {
-				if (readDb != null) {
-					readDb.close();
-					readDb = null;
+		try {
+			writeBatch(db);
+			if (!walEnabled) {
+				// without the write-ahead log the memtables are the only copy
+				// of recent writes, so persist them at flush boundaries
+				try (final FlushOptions flushOptions = new FlushOptions().setWaitForFlush(true)) {
+					db.flush(
+							flushOptions,
+							columnFamily);
 				}
 			}
 		}
+		catch (final RocksDBException e) {
+			throw new IllegalStateException(
+					"Unable to flush batched writes",
+					e);
+		}
 	}
 
 	public void close() {
 		synchronized (this) {
-			if (writeDb != null) {
-				writeDb.close();
-				writeDb = null;
+			try {
+				flush();
 			}
-			if (readDb != null) {
-				readDb.close();
+			finally {
+				if (db != null) {
+					// a shared database is owned and closed by the client
+					if (sharedDb == null) {
+						db.close();
+					}
+					db = null;
+					columnFamily = null;
+				}
 			}
+		}
+	}
 
+	private RocksDB getReadDb() {
+		if (sharedDb != null) {
+			// reading a table that has never been written should not create
+			// its column family
+			if (sharedDb.getColumnFamilyIfExists(columnFamilyName) == null) {
+				return null;
+			}
+		}
+		else if (!exists && !new File(
+				subDirectory).exists()) {
+			// reading a table that has never been written should not create
+			// it
+			return null;
 		}
+		return getDb();
 	}
 
 	@SuppressFBWarnings(justification = "double check for null is intentional to avoid synchronized blocks when not needed.")
-	private RocksDB getWriteDb() {
+	private RocksDB getDb() {
 		// avoid synchronization if unnecessary by checking for null outside
 		// synchronized block
-		if (writeDb == null) {
+		if (db == null) {
 			synchronized (this) {
 				// check again within synchronized block
-				if (writeDb == null) {
-					try {
-						if (exists || new File(
-								subDirectory).mkdirs()) {
-							exists = true;
-							writeDb = RocksDB.open(
-									writeOptions,
-									subDirectory);
-						}
-						else {
-							LOGGER.error("Unable to open to create directory '" + subDirectory + "'");
-						}
+				if (db == null) {
+					if (sharedDb != null) {
+						columnFamily = sharedDb.getColumnFamily(
+								columnFamilyName,
+								keyPrefix.length);
+						db = sharedDb.getDb();
 					}
-					catch (final RocksDBException e) {
-						LOGGER.error(
-								"Unable to open for writing",
-								e);
+					else {
+						openDb();
 					}
 				}
 			}
 		}
-		return writeDb;
+		return db;
 	}
 
-	@SuppressFBWarnings(justification = "double check for null is intentional to avoid synchronized blocks when not needed.")
-	private RocksDB getReadDb() {
-		if (!exists) {
-			return null;
-		}
-		// avoid synchronization if unnecessary by checking for null outside
-		// synchronized block
-		if (readDb == null) {
-			synchronized (this) {
-				// check again within synchronized block
-				if (readDb == null) {
-					try {
-						readerDirty = false;
-						readDb = RocksDB.openReadOnly(
-								readOptions,
-								subDirectory);
-					}
-					catch (final RocksDBException e) {
-						LOGGER.warn(
-								"Unable to open for reading",
-								e);
-					}
-				}
+	private void openDb() {
+		try {
+			if (exists || new File(
+					subDirectory).mkdirs()) {
+				exists = true;
+				final RocksDB retVal = RocksDB.open(
+						options,
+						subDirectory);
+				columnFamily = retVal.getDefaultColumnFamily();
+				db = retVal;
+			}
+			else {
+				LOGGER.error("Unable to open to create directory '" + subDirectory + "'");
 			}
 		}
-		return readDb;
+		catch (final RocksDBException e) {
+			LOGGER.error(
+					"Unable to open database",
+					e);
+		}
 	}
 }
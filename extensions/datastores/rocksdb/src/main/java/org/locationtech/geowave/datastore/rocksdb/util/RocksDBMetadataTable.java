@@ -115,7 +115,6 @@ public class RocksDBMetadataTable
 	public void put(
 			final byte[] key,
 			final byte[] value ) {
-		// TODO batch writes
 		try {
 			db.put(
 					key,
@@ -129,14 +128,9 @@ public class RocksDBMetadataTable
 	}
 
 	public void flush() {
-		try {
-			db.compactRange();
-		}
-		catch (final RocksDBException e) {
-			LOGGER.warn(
-					"Unable to compact metadata range",
-					e);
-		}
+		// writes are applied directly to the database, and metadata tables
+		// are small enough that background compaction keeps up without
+		// forcing a full compaction on every flush
 	}
 
 	public void close() {
@@ -1,5 +1,7 @@
 package org.locationtech.geowave.datastore.rocksdb.util;
 
+import java.util.Arrays;
+
 import org.locationtech.geowave.core.store.entities.GeoWaveRow;
 import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksIterator;
@@ -10,6 +12,7 @@ public class RocksDBRowIterator extends
 	private final short adapterId;
 	private final byte[] partition;
 	private final boolean containsTimestamp;
+	private final int keyPrefixLength;
 
 	public RocksDBRowIterator(
 			Object mutex,
@@ -18,12 +21,31 @@ public class RocksDBRowIterator extends
 			final short adapterId,
 			final byte[] partition,
 			final boolean containsTimestamp ) {
+		this(
+				mutex,
+				options,
+				it,
+				adapterId,
+				partition,
+				containsTimestamp,
+				0);
+	}
+
+	public RocksDBRowIterator(
+			Object mutex,
+			final ReadOptions options,
+			final RocksIterator it,
+			final short adapterId,
+			final byte[] partition,
+			final boolean containsTimestamp,
+			final int keyPrefixLength ) {
 		super(
 				options,
 				it);
 		this.adapterId = adapterId;
 		this.partition = partition;
 		this.containsTimestamp = containsTimestamp;
+		this.keyPrefixLength = keyPrefixLength;
 	}
 
 	@Override
@@ -33,7 +55,11 @@ public class RocksDBRowIterator extends
 		return new RocksDBRow(
 				adapterId,
 				partition,
-				key,
+				// strip the partition key prefix of a shared database
+				keyPrefixLength == 0 ? key : Arrays.copyOfRange(
+						key,
+						keyPrefixLength,
+						key.length),
 				value,
 				containsTimestamp);
 	}
@@ -0,0 +1,341 @@
+package org.locationtech.geowave.datastore.rocksdb.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.locationtech.geowave.core.index.ByteArray;
+import org.locationtech.geowave.core.index.ByteArrayUtils;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.DBOptions;
+import org.rocksdb.LRUCache;
+import org.rocksdb.Options;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBufferManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A single RocksDB instance that holds every index table of a namespace as a
+ * column family, as an alternative to opening one database per type, index
+ * and partition. All column families share one block cache and one write
+ * buffer manager so memory and file handles stay flat as the number of
+ * partitions grows.
+ *
+ * Each column family holds one type and index, with the partition key as a
+ * fixed-length key prefix. The partition key length is part of the column
+ * family name so it can be used to configure a fixed-length prefix extractor
+ * and prefix bloom filters when an existing database is re-opened.
+ *
+ * A database or column family that cannot be opened or created results in an
+ * IllegalStateException rather than a null handle.
+ */
+public class RocksDBSharedDatabase implements
+		Closeable
+{
+	private static final Logger LOGGER = LoggerFactory.getLogger(RocksDBSharedDatabase.class);
+	private static final int BLOOM_FILTER_BITS_PER_KEY = 10;
+	private static final double MEMTABLE_PREFIX_BLOOM_SIZE_RATIO = 0.1;
+
+	private final String directory;
+	private final LRUCache blockCache;
+	private final WriteBufferManager writeBufferManager;
+	private final DBOptions dbOptions;
+	private final Map<Integer, ColumnFamilyOptions> columnFamilyOptions = new HashMap<>();
+	private final List<BloomFilter> bloomFilters = new ArrayList<>();
+	private final Map<String, ColumnFamilyHandle> columnFamilies = new ConcurrentHashMap<>();
+	private ColumnFamilyHandle defaultColumnFamily;
+	private volatile RocksDB db;
+
+	public RocksDBSharedDatabase(
+			final String directory,
+			final long blockCacheSize,
+			final long writeBufferSize ) {
+		this.directory = directory;
+		RocksDB.loadLibrary();
+		blockCache = new LRUCache(
+				blockCacheSize);
+		// charge memtables against the block cache so the total memory used
+		// by every column family is bounded by the block cache size
+		writeBufferManager = new WriteBufferManager(
+				writeBufferSize,
+				blockCache);
+		dbOptions = new DBOptions()
+				.setCreateIfMissing(
+						true)
+				.setCreateMissingColumnFamilies(
+						true)
+				.setIncreaseParallelism(
+						Runtime.getRuntime().availableProcessors())
+				.setWriteBufferManager(
+						writeBufferManager);
+	}
+
+	public RocksDB getDb() {
+		if (db == null) {
+			synchronized (this) {
+				if (db == null) {
+					db = open();
+				}
+			}
+		}
+		return db;
+	}
+
+	private RocksDB open() {
+		if (!new File(
+				directory).exists() && !new File(
+						directory).mkdirs()) {
+			throw new IllegalStateException(
+					"Unable to create directory '" + directory + "'");
+		}
+		try {
+			List<byte[]> existingNames = Collections.emptyList();
+			if (new File(
+					directory,
+					"CURRENT").exists()) {
+				try (final Options options = new Options()) {
+					existingNames = RocksDB.listColumnFamilies(
+							options,
+							directory);
+				}
+			}
+			final List<ColumnFamilyDescriptor> descriptors = new ArrayList<>();
+			descriptors.add(new ColumnFamilyDescriptor(
+					RocksDB.DEFAULT_COLUMN_FAMILY,
+					getColumnFamilyOptions(0)));
+			for (final byte[] name : existingNames) {
+				if (!Arrays.equals(
+						name,
+						RocksDB.DEFAULT_COLUMN_FAMILY)) {
+					descriptors.add(new ColumnFamilyDescriptor(
+							name,
+							getColumnFamilyOptions(RocksDBUtils.getPartitionKeyLength(new String(
+									name,
+									StandardCharsets.UTF_8)))));
+				}
+			}
+			final List<ColumnFamilyHandle> handles = new ArrayList<>();
+			final RocksDB retVal = RocksDB.open(
+					dbOptions,
+					directory,
+					descriptors,
+					handles);
+			defaultColumnFamily = handles.get(0);
+			for (int i = 1; i < handles.size(); i++) {
+				columnFamilies.put(
+						new String(
+								descriptors.get(
+										i).getName(),
+								StandardCharsets.UTF_8),
+						handles.get(i));
+			}
+			return retVal;
+		}
+		catch (final RocksDBException e) {
+			throw new IllegalStateException(
+					"Unable to open shared database '" + directory + "'",
+					e);
+		}
+	}
+
+	private synchronized ColumnFamilyOptions getColumnFamilyOptions(
+			final int partitionKeyLength ) {
+		return columnFamilyOptions.computeIfAbsent(
+				partitionKeyLength,
+				length -> {
+					final BloomFilter bloomFilter = new BloomFilter(
+							BLOOM_FILTER_BITS_PER_KEY,
+							false);
+					bloomFilters.add(bloomFilter);
+					final BlockBasedTableConfig tableConfig = new BlockBasedTableConfig()
+							.setBlockCache(
+									blockCache)
+							.setFilterPolicy(
+									bloomFilter)
+							.setCacheIndexAndFilterBlocks(
+									true)
+							// scans seek by partition prefix rather than
+							// looking up whole keys
+							.setWholeKeyFiltering(
+									length == 0);
+					final ColumnFamilyOptions options = new ColumnFamilyOptions().optimizeLevelStyleCompaction();
+					if (length > 0) {
+						options.useFixedLengthPrefixExtractor(
+								length);
+						options.setMemtablePrefixBloomSizeRatio(
+								MEMTABLE_PREFIX_BLOOM_SIZE_RATIO);
+					}
+					return options.setTableFormatConfig(
+							tableConfig);
+				});
+	}
+
+	/**
+	 * Get the column family with the given name, creating it if it does not
+	 * exist
+	 */
+	public ColumnFamilyHandle getColumnFamily(
+			final String name,
+			final int partitionKeyLength ) {
+		ColumnFamilyHandle handle = columnFamilies.get(
+				name);
+		if (handle == null) {
+			synchronized (this) {
+				handle = columnFamilies.get(
+						name);
+				if (handle == null) {
+					final RocksDB db = getDb();
+					try {
+						handle = db.createColumnFamily(
+								new ColumnFamilyDescriptor(
+										name.getBytes(
+												StandardCharsets.UTF_8),
+										getColumnFamilyOptions(
+												partitionKeyLength)));
+						columnFamilies.put(
+								name,
+								handle);
+					}
+					catch (final RocksDBException e) {
+						throw new IllegalStateException(
+								"Unable to create column family '" + name + "'",
+								e);
+					}
+				}
+			}
+		}
+		return handle;
+	}
+
+	/**
+	 * Get the column family with the given name, or null if it does not exist
+	 */
+	public ColumnFamilyHandle getColumnFamilyIfExists(
+			final String name ) {
+		getDb();
+		return columnFamilies.get(
+				name);
+	}
+
+	public Set<String> getColumnFamilyNames() {
+		getDb();
+		return Collections.unmodifiableSet(
+				columnFamilies.keySet());
+	}
+
+	/**
+	 * Get every partition key written for a type and index by seeking from
+	 * one partition key prefix to the next
+	 */
+	public Set<ByteArray> getPartitions(
+			final String tableNamePrefix ) {
+		final Set<ByteArray> partitions = new HashSet<>();
+		for (final String name : getColumnFamilyNames()) {
+			if (!tableNamePrefix.equals(
+					RocksDBUtils.getTablePrefixFromColumnFamilyName(
+							name))) {
+				continue;
+			}
+			final int partitionKeyLength = RocksDBUtils.getPartitionKeyLength(
+					name);
+			final ColumnFamilyHandle handle = columnFamilies.get(
+					name);
+			if (handle == null) {
+				continue;
+			}
+			try (final ReadOptions options = new ReadOptions()
+					.setTotalOrderSeek(
+							true)
+					.setFillCache(
+							false);
+					final RocksIterator it = db.newIterator(
+							handle,
+							options)) {
+				it.seekToFirst();
+				while (it.isValid()) {
+					final byte[] partition = Arrays.copyOf(
+							it.key(),
+							partitionKeyLength);
+					partitions.add(
+							new ByteArray(
+									partition));
+					if ((partitionKeyLength == 0) || !ByteArrayUtils.increment(
+							partition)) {
+						break;
+					}
+					it.seek(
+							partition);
+				}
+			}
+		}
+		return partitions;
+	}
+
+	/**
+	 * Drop every column family belonging to the given type and index
+	 */
+	public synchronized void dropColumnFamilies(
+			final String tableNamePrefix ) {
+		getDb();
+		for (final String name : new ArrayList<>(
+				columnFamilies.keySet())) {
+			if (tableNamePrefix.equals(
+					RocksDBUtils.getTablePrefixFromColumnFamilyName(
+							name))) {
+				final ColumnFamilyHandle handle = columnFamilies.remove(
+						name);
+				try {
+					db.dropColumnFamily(
+							handle);
+				}
+				catch (final RocksDBException e) {
+					LOGGER.warn(
+							"Unable to drop column family '" + name + "'",
+							e);
+				}
+				handle.close();
+			}
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		columnFamilies.values().forEach(
+				ColumnFamilyHandle::close);
+		columnFamilies.clear();
+		if (defaultColumnFamily != null) {
+			defaultColumnFamily.close();
+			defaultColumnFamily = null;
+		}
+		if (db != null) {
+			db.close();
+			db = null;
+		}
+		columnFamilyOptions.values().forEach(
+				ColumnFamilyOptions::close);
+		columnFamilyOptions.clear();
+		bloomFilters.forEach(
+				BloomFilter::close);
+		bloomFilters.clear();
+		dbOptions.close();
+		writeBufferManager.close();
+		blockCache.close();
+	}
+}
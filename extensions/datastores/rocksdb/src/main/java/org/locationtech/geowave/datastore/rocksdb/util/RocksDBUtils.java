@@ -25,6 +25,11 @@ public class RocksDBUtils
 	protected static final int MAX_ROWS_FOR_PAGINATION = 1000000;
 	public static int ROCKSDB_DEFAULT_MAX_RANGE_DECOMPOSITION = 250;
 	public static int ROCKSDB_DEFAULT_AGGREGATION_MAX_RANGE_DECOMPOSITION = 250;
+	public static int ROCKSDB_DEFAULT_BATCH_WRITE_SIZE = 1000;
+	public static long ROCKSDB_DEFAULT_BLOCK_CACHE_SIZE_MB = 256;
+	public static long ROCKSDB_DEFAULT_WRITE_BUFFER_SIZE_MB = 128;
+	public static long ROCKSDB_SCAN_READAHEAD_SIZE = 2 * 1024 * 1024;
+	public static final String COLUMN_FAMILY_DATABASE_NAME = "index_column_families";
 
 	public static RocksDBMetadataTable getMetadataTable(
 			final RocksDBClient client,
@@ -83,6 +88,93 @@ public class RocksDBUtils
 		return setNamePrefix + partitionStr;
 	}
 
+	/**
+	 * When all index tables share one database, each type and index is a
+	 * column family and the partition key length is appended to its name
+	 */
+	public static String getColumnFamilyName(
+			final String tableNamePrefix,
+			final int partitionKeyLength ) {
+		return tableNamePrefix + "_" + partitionKeyLength;
+	}
+
+	public static String getColumnFamilyName(
+			final String tableName,
+			final byte[] partitionKey ) {
+		// strip the partition key suffix appended by getTableName
+		final String partitionStr = getTableName(
+				"",
+				partitionKey);
+		return getColumnFamilyName(
+				tableName.substring(
+						0,
+						tableName.length() - partitionStr.length()),
+				partitionKey == null ? 0 : partitionKey.length);
+	}
+
+	/**
+	 * @return whether the table is the table of the prefix or one of its
+	 *         partitions, the table of another index whose name merely starts
+	 *         with the same characters doesn't match
+	 */
+	public static boolean isTableOfPrefix(
+			final String tableName,
+			final String tableNamePrefix ) {
+		return tableName.equals(tableNamePrefix) || tableName.startsWith(tableNamePrefix + "_");
+	}
+
+	/**
+	 * @return whether the table or column family belongs to the index, its
+	 *         name is a type name and the index name followed by nothing or
+	 *         by a partition key or partition key length
+	 */
+	public static boolean isTableOfIndex(
+			final String tableName,
+			final String indexName ) {
+		final String delimitedIndexName = "_" + indexName;
+		// the type name is at least one character
+		int i = tableName.indexOf(
+				delimitedIndexName,
+				1);
+		while (i > 0) {
+			final int end = i + delimitedIndexName.length();
+			if ((end == tableName.length()) || (tableName.charAt(end) == '_')) {
+				return true;
+			}
+			i = tableName.indexOf(
+					delimitedIndexName,
+					i + 1);
+		}
+		return false;
+	}
+
+	public static String getTablePrefixFromColumnFamilyName(
+			final String columnFamilyName ) {
+		final int index = columnFamilyName.lastIndexOf(
+				'_');
+		return index < 0 ? columnFamilyName
+				: columnFamilyName.substring(
+						0,
+						index);
+	}
+
+	public static int getPartitionKeyLength(
+			final String columnFamilyName ) {
+		final int index = columnFamilyName.lastIndexOf(
+				'_');
+		if (index < 0) {
+			return 0;
+		}
+		try {
+			return Integer.parseInt(
+					columnFamilyName.substring(
+							index + 1));
+		}
+		catch (final NumberFormatException e) {
+			return 0;
+		}
+	}
+
 	public static RocksDBIndexTable getIndexTable(
 			final RocksDBClient client,
 			final String tableName,
@@ -124,9 +216,9 @@ public class RocksDBUtils
 										.list(
 												(
 														dir,
-														name ) -> name
-																.startsWith(
-																		tableNamePrefix)))
+														name ) -> isTableOfPrefix(
+																name,
+																tableNamePrefix)))
 				.map(
 						str -> str.length() > (tableNamePrefix.length() + 1) ? new ByteArray(
 								ByteArrayUtils
@@ -158,6 +250,10 @@ public class RocksDBUtils
 				SortKeyOrder.SINGLETON).iterator();
 	}
 
+	public static Comparator<GeoWaveRow> getSortKeyOrder() {
+		return SortKeyOrder.SINGLETON;
+	}
+
 	public static Pair<Boolean, Boolean> isGroupByRowAndIsSortByTime(
 			final BaseReaderParams<?> readerParams,
 			final short adapterId ) {
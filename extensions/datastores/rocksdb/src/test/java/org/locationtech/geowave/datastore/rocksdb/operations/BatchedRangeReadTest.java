@@ -0,0 +1,157 @@
+package org.locationtech.geowave.datastore.rocksdb.operations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.geowave.core.index.ByteArray;
+import org.locationtech.geowave.core.index.ByteArrayRange;
+import org.locationtech.geowave.core.index.SinglePartitionQueryRanges;
+import org.locationtech.geowave.core.store.CloseableIterator;
+import org.locationtech.geowave.core.store.entities.GeoWaveRow;
+import org.locationtech.geowave.core.store.entities.GeoWaveRowIteratorTransformer;
+import org.locationtech.geowave.core.store.entities.GeoWaveValueImpl;
+import org.locationtech.geowave.datastore.rocksdb.util.RocksDBClient;
+import org.locationtech.geowave.datastore.rocksdb.util.RocksDBIndexTable;
+import org.locationtech.geowave.datastore.rocksdb.util.RocksDBUtils;
+
+import com.google.common.base.Predicates;
+
+public class BatchedRangeReadTest
+{
+	private static final short ADAPTER_ID = 1;
+	private static final String TYPE_NAME = "type";
+	private static final String INDEX_NAME = "idx";
+	private static final byte[] PARTITION = new byte[] {
+		1
+	};
+	// more rows than the result queue holds
+	private static final int ROW_COUNT = 30000;
+	private static final int RANGE_COUNT = 16;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private RocksDBClient client;
+
+	@Before
+	public void setup()
+			throws Exception {
+		client = new RocksDBClient(
+				folder.newFolder().getAbsolutePath());
+		final RocksDBIndexTable table = RocksDBUtils.getIndexTableFromPrefix(
+				client,
+				getTablePrefix(),
+				ADAPTER_ID,
+				PARTITION,
+				false);
+		for (int i = 0; i < ROW_COUNT; i++) {
+			table.add(
+					sortKey(i),
+					Integer.toString(
+							i).getBytes(),
+					(short) 0,
+					new GeoWaveValueImpl(
+							new byte[] {
+								1
+							},
+							new byte[] {},
+							new byte[] {
+								(byte) i
+							}));
+		}
+		table.flush();
+	}
+
+	@After
+	public void tearDown() {
+		client.close();
+	}
+
+	@Test
+	public void testReadAll() {
+		int count = 0;
+		try (CloseableIterator<GeoWaveRow> it = read()) {
+			while (it.hasNext()) {
+				it.next();
+				count++;
+			}
+		}
+		assertEquals(
+				ROW_COUNT,
+				count);
+	}
+
+	@Test
+	public void testCloseEarlyReturnsScanThreads()
+			throws Exception {
+		// stop more queries early than the pool has threads, each leaving a
+		// full result queue behind
+		for (int i = 0; i < 20; i++) {
+			try (CloseableIterator<GeoWaveRow> it = read()) {
+				assertTrue(it.hasNext());
+				it.next();
+			}
+		}
+		final long deadline = System.currentTimeMillis() + 10000;
+		while ((BatchedRangeRead.getActiveScanCount() > 0) && (System.currentTimeMillis() < deadline)) {
+			Thread.sleep(50);
+		}
+		assertEquals(
+				"the scans of a closed query should end",
+				0,
+				BatchedRangeRead.getActiveScanCount());
+		// the pool still runs new queries
+		testReadAll();
+	}
+
+	private CloseableIterator<GeoWaveRow> read() {
+		final List<ByteArrayRange> ranges = new ArrayList<>();
+		final int rangeSize = ROW_COUNT / RANGE_COUNT;
+		for (int i = 0; i < RANGE_COUNT; i++) {
+			ranges.add(new ByteArrayRange(
+					new ByteArray(
+							sortKey(i * rangeSize)),
+					new ByteArray(
+							sortKey(i == (RANGE_COUNT - 1) ? ROW_COUNT - 1 : ((i + 1) * rangeSize) - 1))));
+		}
+		return new BatchedRangeRead<>(
+				client,
+				getTablePrefix(),
+				ADAPTER_ID,
+				Collections.singletonList(new SinglePartitionQueryRanges(
+						new ByteArray(
+								PARTITION),
+						ranges)),
+				GeoWaveRowIteratorTransformer.NO_OP_TRANSFORMER,
+				Predicates.<GeoWaveRow> alwaysTrue(),
+				true,
+				new ImmutablePair<>(
+						false,
+						false),
+				false).results();
+	}
+
+	private static String getTablePrefix() {
+		return RocksDBUtils.getTablePrefix(
+				TYPE_NAME,
+				INDEX_NAME);
+	}
+
+	private static byte[] sortKey(
+			final int id ) {
+		return new byte[] {
+			(byte) (id >>> 8),
+			(byte) id
+		};
+	}
+}
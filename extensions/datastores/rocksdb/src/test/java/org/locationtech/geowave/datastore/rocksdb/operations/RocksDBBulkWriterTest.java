@@ -0,0 +1,220 @@
+package org.locationtech.geowave.datastore.rocksdb.operations;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.geowave.core.store.CloseableIterator;
+import org.locationtech.geowave.core.store.entities.GeoWaveKeyImpl;
+import org.locationtech.geowave.core.store.entities.GeoWaveRow;
+import org.locationtech.geowave.core.store.entities.GeoWaveRowImpl;
+import org.locationtech.geowave.core.store.entities.GeoWaveValue;
+import org.locationtech.geowave.core.store.entities.GeoWaveValueImpl;
+import org.locationtech.geowave.datastore.rocksdb.util.RocksDBClient;
+import org.locationtech.geowave.datastore.rocksdb.util.RocksDBUtils;
+
+public class RocksDBBulkWriterTest
+{
+	private static final short ADAPTER_ID = 1;
+	private static final String TYPE_NAME = "type";
+	private static final String INDEX_NAME = "idx";
+	private static final byte[] PARTITION1 = new byte[] {
+		1
+	};
+	private static final byte[] PARTITION2 = new byte[] {
+		2
+	};
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private RocksDBClient client;
+
+	@Before
+	public void setup()
+			throws Exception {
+		client = new RocksDBClient(
+				folder.newFolder().getAbsolutePath());
+	}
+
+	@After
+	public void tearDown() {
+		client.close();
+	}
+
+	@Test
+	public void testWriteAndIngest() {
+		try (final RocksDBBulkWriter writer = new RocksDBBulkWriter(
+				client,
+				ADAPTER_ID,
+				TYPE_NAME,
+				INDEX_NAME,
+				false,
+				1)) {
+			for (int i = 0; i < 100; i++) {
+				writer.write(row(
+						(i % 2) == 0 ? PARTITION1 : PARTITION2,
+						i,
+						"value" + i));
+			}
+			// the last value written for a key wins, like a live write
+			writer.write(row(
+					PARTITION1,
+					0,
+					"overwritten"));
+		}
+
+		final List<GeoWaveRow> rows1 = read(PARTITION1);
+		final List<GeoWaveRow> rows2 = read(PARTITION2);
+		assertEquals(
+				50,
+				rows1.size());
+		assertEquals(
+				50,
+				rows2.size());
+		assertArrayEquals(
+				"overwritten".getBytes(),
+				rows1.get(
+						0).getFieldValues()[0].getValue());
+		assertArrayEquals(
+				"value1".getBytes(),
+				rows2.get(
+						0).getFieldValues()[0].getValue());
+		assertEquals(
+				"the directory of the writer is removed after a successful close",
+				0,
+				getBulkDirectories().size());
+	}
+
+	@Test
+	public void testFailedIngestKeepsFiles()
+			throws Exception {
+		// a buffer of 0 MB writes a file for every row
+		final RocksDBBulkWriter writer = new RocksDBBulkWriter(
+				client,
+				ADAPTER_ID,
+				TYPE_NAME,
+				INDEX_NAME,
+				false,
+				0);
+		for (int i = 0; i < 3; i++) {
+			writer.write(row(
+					PARTITION1,
+					i,
+					"value" + i));
+		}
+		final List<File> directories = getBulkDirectories();
+		assertEquals(
+				1,
+				directories.size());
+		final File directory = directories.get(0);
+		final File corrupted = new File(
+				directory,
+				"0.sst");
+		assertTrue(corrupted.exists());
+		Files.write(
+				corrupted.toPath(),
+				"not a sorted string table".getBytes());
+
+		try {
+			writer.flush();
+			fail("a failed ingest should be reported");
+		}
+		catch (final IllegalStateException e) {
+			// expected
+		}
+		// none of the files were ingested and they are all kept
+		assertEquals(
+				0,
+				read(
+						PARTITION1).size());
+		for (int i = 0; i < 3; i++) {
+			assertTrue(new File(
+					directory,
+					i + ".sst").exists());
+		}
+
+		try {
+			writer.close();
+			fail("a failed ingest should be reported on close");
+		}
+		catch (final IllegalStateException e) {
+			// expected
+		}
+		assertTrue(
+				"the directory of a failed ingest is kept",
+				directory.exists());
+	}
+
+	private List<GeoWaveRow> read(
+			final byte[] partition ) {
+		final List<GeoWaveRow> rows = new ArrayList<>();
+		try (final CloseableIterator<GeoWaveRow> it = RocksDBUtils.getIndexTableFromPrefix(
+				client,
+				RocksDBUtils.getTablePrefix(
+						TYPE_NAME,
+						INDEX_NAME),
+				ADAPTER_ID,
+				partition,
+				false).iterator()) {
+			while (it.hasNext()) {
+				rows.add(it.next());
+			}
+		}
+		return rows;
+	}
+
+	private List<File> getBulkDirectories() {
+		final List<File> directories = new ArrayList<>();
+		final File[] files = new File(
+				client.getSubDirectory()).listFiles();
+		if (files != null) {
+			for (final File file : files) {
+				if (file.isDirectory() && file.getName().startsWith(
+						"bulk-")) {
+					directories.add(file);
+				}
+			}
+		}
+		return directories;
+	}
+
+	private static GeoWaveRow row(
+			final byte[] partition,
+			final int id,
+			final String value ) {
+		final byte[] sortKey = new byte[] {
+			(byte) (id >>> 8),
+			(byte) id
+		};
+		return new GeoWaveRowImpl(
+				new GeoWaveKeyImpl(
+						Arrays.copyOf(
+								sortKey,
+								sortKey.length),
+						ADAPTER_ID,
+						partition,
+						sortKey,
+						0),
+				new GeoWaveValue[] {
+					new GeoWaveValueImpl(
+							new byte[] {
+								1
+							},
+							new byte[] {},
+							value.getBytes())
+				});
+	}
+}
@@ -0,0 +1,179 @@
+package org.locationtech.geowave.datastore.rocksdb.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.geowave.core.store.CloseableIterator;
+import org.locationtech.geowave.core.store.entities.GeoWaveRow;
+import org.locationtech.geowave.core.store.entities.GeoWaveValue;
+import org.locationtech.geowave.core.store.entities.GeoWaveValueImpl;
+import org.rocksdb.Options;
+import org.rocksdb.WriteOptions;
+
+public class RocksDBIndexTableTest
+{
+	private static final short ADAPTER_ID = 1;
+	private static final int BATCH_SIZE = 3;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Options options;
+	private WriteOptions writeOptions;
+
+	@Before
+	public void setup() {
+		options = new Options().setCreateIfMissing(true);
+		writeOptions = new WriteOptions();
+	}
+
+	@After
+	public void tearDown() {
+		writeOptions.close();
+		options.close();
+	}
+
+	@Test
+	public void testFlushOnBatchSize()
+			throws Exception {
+		final RocksDBIndexTable table = open(folder.newFolder().getAbsolutePath());
+		add(
+				table,
+				1);
+		add(
+				table,
+				2);
+		assertEquals(
+				"rows are only written once the batch is full",
+				0,
+				sortKeys(table).size());
+		add(
+				table,
+				3);
+		assertEquals(
+				3,
+				sortKeys(table).size());
+		table.close();
+	}
+
+	@Test
+	public void testFlushOnClose()
+			throws Exception {
+		final String directory = folder.newFolder().getAbsolutePath();
+		RocksDBIndexTable table = open(directory);
+		add(
+				table,
+				1);
+		add(
+				table,
+				2);
+		table.close();
+
+		table = open(directory);
+		assertEquals(
+				2,
+				sortKeys(table).size());
+		table.close();
+	}
+
+	@Test
+	public void testDeleteAfterBatchedPut()
+			throws Exception {
+		final RocksDBIndexTable table = open(folder.newFolder().getAbsolutePath());
+		add(
+				table,
+				1);
+		final byte[] key = add(
+				table,
+				2);
+		// the delete has to commit the pending batch first, otherwise the
+		// batched put would be written after it
+		table.delete(key);
+		table.flush();
+		final List<byte[]> sortKeys = sortKeys(table);
+		assertEquals(
+				1,
+				sortKeys.size());
+		assertArrayEquals(
+				sortKey(1),
+				sortKeys.get(0));
+		table.close();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testWriteFailureIsReported()
+			throws Exception {
+		// the table directory can't be created inside a file
+		final File file = folder.newFile();
+		add(
+				open(new File(
+						file,
+						"table").getAbsolutePath()),
+				1);
+	}
+
+	private RocksDBIndexTable open(
+			final String directory ) {
+		return new RocksDBIndexTable(
+				options,
+				writeOptions,
+				directory,
+				ADAPTER_ID,
+				new byte[0],
+				false,
+				BATCH_SIZE,
+				true);
+	}
+
+	private static byte[] add(
+			final RocksDBIndexTable table,
+			final int id ) {
+		final GeoWaveValue value = new GeoWaveValueImpl(
+				new byte[] {
+					1
+				},
+				new byte[] {},
+				new byte[] {
+					(byte) id
+				});
+		final byte[] dataId = Integer.toString(
+				id).getBytes();
+		table.add(
+				sortKey(id),
+				dataId,
+				(short) 0,
+				value);
+		return table.getPrefixedKey(
+				sortKey(id),
+				dataId,
+				(short) 0,
+				value);
+	}
+
+	private static List<byte[]> sortKeys(
+			final RocksDBIndexTable table ) {
+		final List<byte[]> sortKeys = new ArrayList<>();
+		try (CloseableIterator<GeoWaveRow> it = table.iterator()) {
+			while (it.hasNext()) {
+				sortKeys.add(it.next().getSortKey());
+			}
+		}
+		return sortKeys;
+	}
+
+	private static byte[] sortKey(
+			final int id ) {
+		return new byte[] {
+			(byte) id
+		};
+	}
+}
@@ -0,0 +1,190 @@
+package org.locationtech.geowave.datastore.rocksdb.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.geowave.core.index.ByteArray;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+
+public class RocksDBSharedDatabaseTest
+{
+	private static final long CACHE_SIZE = 8 * 1024 * 1024;
+	private static final byte[] PARTITION1 = new byte[] {
+		0,
+		1
+	};
+	private static final byte[] PARTITION2 = new byte[] {
+		0,
+		2
+	};
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testReopenConfiguresPrefixExtractor()
+			throws Exception {
+		final String directory = folder.newFolder().getAbsolutePath();
+		final String name = RocksDBUtils.getColumnFamilyName(
+				"type_idx",
+				PARTITION1.length);
+		try (final RocksDBSharedDatabase db = open(directory)) {
+			final ColumnFamilyHandle handle = db.getColumnFamily(
+					name,
+					PARTITION1.length);
+			put(
+					db,
+					handle,
+					PARTITION1,
+					1);
+			put(
+					db,
+					handle,
+					PARTITION1,
+					2);
+			put(
+					db,
+					handle,
+					PARTITION2,
+					3);
+		}
+		try (final RocksDBSharedDatabase db = open(directory)) {
+			assertEquals(
+					new HashSet<>(
+							Arrays.asList(name)),
+					db.getColumnFamilyNames());
+			final ColumnFamilyHandle handle = db.getColumnFamilyIfExists(name);
+			assertNotNull(handle);
+			assertEquals(
+					new HashSet<>(
+							Arrays.asList(
+									new ByteArray(
+											PARTITION1),
+									new ByteArray(
+											PARTITION2))),
+					db.getPartitions("type_idx"));
+			// a prefix seek only stays within the partition if the re-opened
+			// column family has the fixed length prefix extractor
+			final List<byte[]> keys = new ArrayList<>();
+			try (final ReadOptions options = new ReadOptions().setPrefixSameAsStart(
+					true);
+					final RocksIterator it = db.getDb().newIterator(
+							handle,
+							options)) {
+				it.seek(PARTITION1);
+				while (it.isValid()) {
+					keys.add(it.key());
+					it.next();
+				}
+			}
+			assertEquals(
+					2,
+					keys.size());
+			for (final byte[] key : keys) {
+				assertArrayEquals(
+						PARTITION1,
+						Arrays.copyOf(
+								key,
+								PARTITION1.length));
+			}
+		}
+	}
+
+	@Test
+	public void testDropColumnFamilies()
+			throws Exception {
+		final String directory = folder.newFolder().getAbsolutePath();
+		final String dropped = RocksDBUtils.getColumnFamilyName(
+				"type_idx",
+				PARTITION1.length);
+		final String kept = RocksDBUtils.getColumnFamilyName(
+				"type_idx2",
+				0);
+		try (final RocksDBSharedDatabase db = open(directory)) {
+			put(
+					db,
+					db.getColumnFamily(
+							dropped,
+							PARTITION1.length),
+					PARTITION1,
+					1);
+			put(
+					db,
+					db.getColumnFamily(
+							kept,
+							0),
+					new byte[0],
+					1);
+			db.dropColumnFamilies("type_idx");
+			assertNull(db.getColumnFamilyIfExists(dropped));
+			assertNotNull(db.getColumnFamilyIfExists(kept));
+		}
+		try (final RocksDBSharedDatabase db = open(directory)) {
+			assertEquals(
+					new HashSet<>(
+							Arrays.asList(kept)),
+					db.getColumnFamilyNames());
+			assertTrue(db.getPartitions(
+					"type_idx").isEmpty());
+		}
+	}
+
+	@Test
+	public void testOpenFailureIsThrown()
+			throws Exception {
+		final File file = folder.newFile();
+		try (final RocksDBSharedDatabase db = open(file.getAbsolutePath())) {
+			db.getColumnFamily(
+					"type_idx_0",
+					0);
+			fail("Opening a database in a regular file should fail");
+		}
+		catch (final IllegalStateException e) {
+			assertNotNull(e.getMessage());
+		}
+	}
+
+	private static RocksDBSharedDatabase open(
+			final String directory ) {
+		return new RocksDBSharedDatabase(
+				directory,
+				CACHE_SIZE,
+				CACHE_SIZE / 2);
+	}
+
+	private static void put(
+			final RocksDBSharedDatabase db,
+			final ColumnFamilyHandle handle,
+			final byte[] partition,
+			final int sortKey )
+			throws RocksDBException {
+		final byte[] key = Arrays.copyOf(
+				partition,
+				partition.length + 1);
+		key[partition.length] = (byte) sortKey;
+		final RocksDB rocksDb = db.getDb();
+		rocksDb.put(
+				handle,
+				key,
+				new byte[] {
+					(byte) sortKey
+				});
+	}
+}
@@ -0,0 +1,123 @@
+package org.locationtech.geowave.datastore.rocksdb.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.geowave.core.index.ByteArray;
+
+public class RocksDBUtilsTest
+{
+	private static final byte[] PARTITION = new byte[] {
+		'p',
+		'1'
+	};
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testIsTableOfIndex() {
+		assertTrue(RocksDBUtils.isTableOfIndex(
+				"type_idx",
+				"idx"));
+		assertTrue(RocksDBUtils.isTableOfIndex(
+				RocksDBUtils.getTableName(
+						"type",
+						"idx",
+						(short) 1,
+						PARTITION),
+				"idx"));
+		assertTrue(RocksDBUtils.isTableOfIndex(
+				RocksDBUtils.getColumnFamilyName(
+						"type_idx",
+						PARTITION.length),
+				"idx"));
+		assertTrue(
+				"the index name may also appear in the type name",
+				RocksDBUtils.isTableOfIndex(
+						"idx_type_idx",
+						"idx"));
+
+		assertFalse(RocksDBUtils.isTableOfIndex(
+				"type_idx2",
+				"idx"));
+		assertFalse(RocksDBUtils.isTableOfIndex(
+				"type_myidx",
+				"idx"));
+		assertFalse(RocksDBUtils.isTableOfIndex(
+				"idx_type",
+				"idx"));
+		assertFalse(RocksDBUtils.isTableOfIndex(
+				"ADAPTER",
+				"ADAPTER"));
+	}
+
+	@Test
+	public void testGetPartitions()
+			throws Exception {
+		final File directory = folder.newFolder();
+		for (final String tableName : Arrays.asList(
+				RocksDBUtils.getTableName(
+						"type",
+						"idx",
+						(short) 1,
+						null),
+				RocksDBUtils.getTableName(
+						"type",
+						"idx",
+						(short) 1,
+						PARTITION),
+				RocksDBUtils.getTableName(
+						"type",
+						"idx2",
+						(short) 1,
+						PARTITION))) {
+			assertTrue(new File(
+					directory,
+					tableName).mkdir());
+		}
+		assertEquals(
+				new HashSet<>(
+						Arrays.asList(
+								new ByteArray(),
+								new ByteArray(
+										PARTITION))),
+				RocksDBUtils.getPartitions(
+						directory.getAbsolutePath(),
+						RocksDBUtils.getTablePrefix(
+								"type",
+								"idx")));
+	}
+
+	@Test
+	public void testIndexTableExists()
+			throws Exception {
+		final File directory = folder.newFolder();
+		assertTrue(new File(
+				directory,
+				RocksDBUtils.getTableName(
+						"type",
+						"idx2",
+						(short) 1,
+						PARTITION)).mkdir());
+		final RocksDBClient client = new RocksDBClient(
+				directory.getAbsolutePath());
+		try {
+			assertTrue(client.indexTableExists("idx2"));
+			assertFalse(
+					"another index that starts with the same name doesn't count",
+					client.indexTableExists("idx"));
+		}
+		finally {
+			client.close();
+		}
+	}
+}
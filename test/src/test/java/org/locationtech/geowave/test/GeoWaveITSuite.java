@@ -20,6 +20,7 @@ import org.locationtech.geowave.test.basic.GeoWaveBasicRasterIT;
 import org.locationtech.geowave.test.basic.GeoWaveBasicSpatialTemporalVectorIT;
 import org.locationtech.geowave.test.basic.GeoWaveVectorSerializationIT;
 import org.locationtech.geowave.test.basic.GeoWaveVisibilityIT;
+import org.locationtech.geowave.test.basic.GeoWaveWriteDeleteIT;
 import org.locationtech.geowave.test.basic.GeowaveCustomCRSSpatialVectorIT;
 import org.locationtech.geowave.test.config.ConfigCacheIT;
 import org.locationtech.geowave.test.kafka.BasicKafkaIT;
@@ -52,6 +53,7 @@ import org.locationtech.geowave.test.spark.GeoWaveSparkSpatialJoinIT;
 	// TODO need to mock up S3
 	// GeowaveBasicURLIngestIT.class,
 	GeoWaveVectorSerializationIT.class,
+	GeoWaveWriteDeleteIT.class,
 	BasicKafkaIT.class,
 	BasicMapReduceIT.class,
 	// // for now tests are taking too long in travis and landsatIT is a long
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2013-2018 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file distributed with this work for additional
+ *  information regarding copyright ownership.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Apache License,
+ *  Version 2.0 which accompanies this distribution and is available at
+ *  http://www.apache.org/licenses/LICENSE-2.0.txt
+ ******************************************************************************/
+package org.locationtech.geowave.test.basic;
+
+import java.io.IOException;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.feature.SchemaException;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.locationtech.geowave.adapter.vector.FeatureDataAdapter;
+import org.locationtech.geowave.core.geotime.util.GeometryUtils;
+import org.locationtech.geowave.core.store.CloseableIterator;
+import org.locationtech.geowave.core.store.api.DataStore;
+import org.locationtech.geowave.core.store.api.QueryBuilder;
+import org.locationtech.geowave.core.store.api.Writer;
+import org.locationtech.geowave.core.store.cli.remote.options.DataStorePluginOptions;
+import org.locationtech.geowave.test.GeoWaveITRunner;
+import org.locationtech.geowave.test.TestUtils;
+import org.locationtech.geowave.test.annotation.GeoWaveTestStore;
+import org.locationtech.geowave.test.annotation.GeoWaveTestStore.GeoWaveStoreType;
+import org.locationtech.jts.geom.Coordinate;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes rows faster than one per millisecond, deletes them and writes one of
+ * them again. The deletes use the time of the server, so rows written with
+ * timestamps ahead of it would survive the delete.
+ */
+@RunWith(GeoWaveITRunner.class)
+public class GeoWaveWriteDeleteIT extends
+		AbstractGeoWaveIT
+{
+	private static final Logger LOGGER = LoggerFactory.getLogger(GeoWaveWriteDeleteIT.class);
+	private static final String GEOMETRY_ATTRIBUTE = "geometry";
+	private static final String NAME_ATTRIBUTE = "name";
+	private static final int FEATURE_COUNT = 10000;
+	private static SimpleFeatureType simpleFeatureType;
+	private static FeatureDataAdapter dataAdapter;
+
+	@GeoWaveTestStore({
+		GeoWaveStoreType.HBASE,
+		GeoWaveStoreType.ROCKSDB
+	})
+	protected DataStorePluginOptions dataStore;
+
+	private static long startMillis;
+
+	@Override
+	protected DataStorePluginOptions getDataStorePluginOptions() {
+		return dataStore;
+	}
+
+	@BeforeClass
+	public static void setupData()
+			throws SchemaException {
+		simpleFeatureType = DataUtilities.createType(
+				"writeDelete",
+				GEOMETRY_ATTRIBUTE + ":Point," + NAME_ATTRIBUTE + ":String");
+		dataAdapter = new FeatureDataAdapter(
+				simpleFeatureType);
+
+		startMillis = System.currentTimeMillis();
+		LOGGER.warn("-----------------------------------------");
+		LOGGER.warn("*                                       *");
+		LOGGER.warn("*         RUNNING GeoWaveWriteDeleteIT  *");
+		LOGGER.warn("*                                       *");
+		LOGGER.warn("-----------------------------------------");
+	}
+
+	@AfterClass
+	public static void reportTest() {
+		LOGGER.warn("-----------------------------------------");
+		LOGGER.warn("*                                       *");
+		LOGGER.warn("*      FINISHED GeoWaveWriteDeleteIT    *");
+		LOGGER
+				.warn("*         " + ((System.currentTimeMillis() - startMillis) / 1000)
+						+ "s elapsed.                 *");
+		LOGGER.warn("*                                       *");
+		LOGGER.warn("-----------------------------------------");
+	}
+
+	@After
+	public void deleteSampleData()
+			throws IOException {
+		TestUtils.deleteAll(dataStore);
+	}
+
+	@Test
+	public void testWriteDeleteRead()
+			throws InterruptedException {
+		final DataStore store = dataStore.createDataStore();
+		store.addType(
+				dataAdapter,
+				TestUtils.DEFAULT_SPATIAL_INDEX);
+		try (Writer<SimpleFeature> writer = store.createWriter(dataAdapter.getTypeName())) {
+			for (int i = 0; i < FEATURE_COUNT; i++) {
+				writer.write(buildSimpleFeature(
+						i,
+						"original"));
+			}
+		}
+		Assert.assertEquals(
+				FEATURE_COUNT,
+				count(store));
+
+		store.delete(QueryBuilder.newBuilder().addTypeName(
+				dataAdapter.getTypeName()).build());
+		Assert.assertEquals(
+				"every row written before the delete should be deleted",
+				0,
+				count(store));
+
+		// a delete also hides a row written within the same millisecond
+		Thread.sleep(10);
+		try (Writer<SimpleFeature> writer = store.createWriter(dataAdapter.getTypeName())) {
+			writer.write(buildSimpleFeature(
+					0,
+					"rewritten"));
+		}
+		try (final CloseableIterator<SimpleFeature> it = query(store)) {
+			Assert.assertTrue(it.hasNext());
+			Assert.assertEquals(
+					"rewritten",
+					it.next().getAttribute(
+							NAME_ATTRIBUTE));
+			Assert.assertFalse(it.hasNext());
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static CloseableIterator<SimpleFeature> query(
+			final DataStore store ) {
+		return (CloseableIterator<SimpleFeature>) (CloseableIterator<?>) store.query(QueryBuilder.newBuilder()
+				.addTypeName(
+						dataAdapter.getTypeName())
+				.build());
+	}
+
+	private static int count(
+			final DataStore store ) {
+		int count = 0;
+		try (final CloseableIterator<SimpleFeature> it = query(store)) {
+			while (it.hasNext()) {
+				it.next();
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static SimpleFeature buildSimpleFeature(
+			final int id,
+			final String name ) {
+		final SimpleFeatureBuilder builder = new SimpleFeatureBuilder(
+				simpleFeatureType);
+		builder.set(
+				GEOMETRY_ATTRIBUTE,
+				GeometryUtils.GEOMETRY_FACTORY.createPoint(new Coordinate(
+						(id % 360) - 180,
+						((id / 360) % 180) - 90)));
+		builder.set(
+				NAME_ATTRIBUTE,
+				name);
+		return builder.buildFeature(Integer.toString(id));
+	}
+}